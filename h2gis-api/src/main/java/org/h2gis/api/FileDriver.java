@@ -71,6 +71,41 @@ public interface FileDriver {
      */
     Object getField(long rowId, int columnId) throws IOException;
 
+    /**
+     * Read the content of consecutive rows. Drivers should override this method in order to read the rows with
+     * a single access to the file instead of one access by field.
+     *
+     * @param firstRowId Index of the first row to read [0-getRowCount()].
+     * @param rowCount Number of rows to read.
+     * @param columns Column indexes to read, the other columns of the buffer are not modified.
+     * @param buffer Reusable destination buffer[row][columnId], must contain at least rowCount arrays of
+     *               getFieldCount() length.
+     * @return The number of rows read, lower than rowCount if the end of the file has been reached.
+     * @throws IOException Read error.
+     */
+    default int getRows(long firstRowId, int rowCount, int[] columns, Object[][] buffer) throws IOException {
+        int readCount = (int) Math.max(0, Math.min(rowCount, getRowCount() - firstRowId));
+        for (int row = 0; row < readCount; row++) {
+            for (int columnId : columns) {
+                buffer[row][columnId] = getField(firstRowId + row, columnId);
+            }
+        }
+        return readCount;
+    }
+
+    /**
+     * Create a driver that reads the same file with its own read state, in order to read the file from several
+     * threads. The file stays open while this driver is not closed; closing the returned reader does not close
+     * the file.
+     *
+     * @return A new reader, or this driver if the driver cannot be read concurrently. In this case the caller
+     * must synchronize the access to the driver.
+     * @throws IOException Error while creating the reader.
+     */
+    default FileDriver createReader() throws IOException {
+        return this;
+    }
+
     /**
      * Insert values to the current row.
      *
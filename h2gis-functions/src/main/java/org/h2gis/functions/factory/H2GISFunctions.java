@@ -26,6 +26,8 @@ import org.h2gis.api.Function;
 import org.h2gis.api.ScalarFunction;
 import org.h2gis.functions.io.DriverManager;
 import org.h2gis.functions.io.asc.AscRead;
+import org.h2gis.functions.io.asc.ST_TileCells;
+import org.h2gis.functions.io.asc.ST_TileValue;
 import org.h2gis.functions.io.dbf.DBFRead;
 import org.h2gis.functions.io.dbf.DBFWrite;
 import org.h2gis.functions.io.fgb.FGBRead;
@@ -321,6 +323,8 @@ public class H2GISFunctions {
                 new ST_GeneratePoints(),
                 new ST_GeneratePointsInGrid(),
                 new AscRead(),
+                new ST_TileValue(),
+                new ST_TileCells(),
                 new FindGeometryMetadata(),
                 new UpdateGeometrySRID(),
                 new ST_InsertPoint(),
@@ -22,6 +22,7 @@ package org.h2gis.functions.io.asc;
 import org.h2gis.api.DriverFunction;
 import org.h2gis.api.ProgressVisitor;
 import org.h2gis.functions.io.DriverManager;
+import org.h2gis.functions.io.utility.ImportOptions;
 import org.h2gis.functions.io.utility.PRJUtil;
 
 import java.io.File;
@@ -108,7 +109,7 @@ public class AscDriverFunction implements DriverFunction {
         DriverManager.check(connection,tableReference,fileName,progress);
         AscReaderDriver ascReaderDriver = new AscReaderDriver();
         ascReaderDriver.setDeleteTable(deleteTables);
-        ascReaderDriver.setEncoding(encoding);
+        ascReaderDriver.setImportOptions(new ImportOptions(encoding, ImportOptions.TILE_SIZE));
         int srid = 0;
         String filePath = fileName.getAbsolutePath();
         final int dotIndex = filePath.lastIndexOf('.');
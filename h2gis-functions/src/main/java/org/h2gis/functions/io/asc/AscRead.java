@@ -24,6 +24,7 @@ import org.h2gis.api.AbstractFunction;
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.api.ProgressVisitor;
 import org.h2gis.api.ScalarFunction;
+import org.h2gis.functions.io.utility.ImportOptions;
 import org.h2gis.functions.io.utility.PRJUtil;
 import org.h2gis.utilities.URIUtilities;
 import org.locationtech.jts.geom.Geometry;
@@ -52,7 +53,12 @@ public class AscRead extends AbstractFunction implements ScalarFunction {
                 + "CALL ASCREAD('dem.asc', 'MYTABLE', GEOM_FILTER, DOWNSCALE_INT, AS_POLYGONS);\n"
                 + "GEOM_FILTER - Extract only pixels that intersects the provided geometry envelope, null to disable filter\n"
                 + "DOWNSCALE_INT - Coefficient used for exporting less cells (1 all cells, 2 for size / 2)\n"
-                + "AS_POLYGONS - If true pixels are converted to polygons. (default false return points)\n");
+                + "AS_POLYGONS - If true pixels are converted to polygons. (default false return points)\n"
+                + "CALL ASCREAD('dem.asc', 'MYTABLE', GEOM_FILTER, DOWNSCALE_INT, AS_POLYGONS, DELETE_TABLE, OPTIONS, TYPE);\n"
+                + "OPTIONS - File encoding, or 'encoding=UTF-8 bulkLoad=true spatialIndex=true' to create the primary key\n"
+                + "after loading the cells and a spatial index on the geometries\n"
+                + "'tileSize=256' stores the grid in tiles of 256 x 256 cells instead of one row per cell,\n"
+                + "read them with ST_TileValue and ST_TileCells\n");
     }
 
     @Override
@@ -250,6 +256,9 @@ public class AscRead extends AbstractFunction implements ScalarFunction {
      * 2 for size / 2)
      * @param extractAsPolygons If true pixels are converted to polygon.
      * (default false)
+     * @param deleteTable true to delete the table if exists
+     * @param encoding File encoding, or key=value options see {@link ImportOptions}
+     * @param zType Type of the z values 1 for integer, 2 for double
      * @throws IOException Throw exception is the file cannot be accessed
      * @throws SQLException Throw exception is the file name contains unsupported characters
      */
@@ -262,7 +271,7 @@ public class AscRead extends AbstractFunction implements ScalarFunction {
             ascReaderDriver.setDownScale(downScale);
         }
         ascReaderDriver.setAs3DPoint(!extractAsPolygons);
-        ascReaderDriver.setEncoding(encoding);
+        ascReaderDriver.setImportOptions(new ImportOptions(encoding, ImportOptions.TILE_SIZE));
         ascReaderDriver.setZType(zType);
         ascReaderDriver.setDeleteTable(deleteTable);
         importFile(connection, tableReference, URIUtilities.fileFromString(fileName), new EmptyProgressVisitor(), ascReaderDriver);
@@ -19,8 +19,15 @@
  */
 package org.h2gis.functions.io.asc;
 
+import org.h2.util.JdbcUtils;
+import org.h2.util.geometry.EWKBUtils;
+import org.h2.util.geometry.GeometryUtils;
+import org.h2.value.ValueGeometry;
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.api.ProgressVisitor;
+import org.h2gis.functions.io.utility.DeferredIndexes;
+import org.h2gis.functions.io.utility.ImportOptions;
+import org.h2gis.functions.io.utility.OrderedPipeline;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.h2gis.utilities.dbtypes.DBTypes;
@@ -28,10 +35,12 @@ import org.h2gis.utilities.dbtypes.DBUtils;
 import org.locationtech.jts.geom.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -60,8 +69,13 @@ import java.util.zip.GZIPInputStream;
  */
 public class AscReaderDriver {
 
-    private static final int BATCH_MAX_SIZE = 100;
-    private static final int BUFFER_SIZE = 16384;
+    // Approximate memory of the rows of a batch, in bytes
+    private static final int BATCH_MAX_BYTES = 4 * 1024 * 1024;
+    // Memory used by a row of a batch in addition to its geometry
+    private static final int ROW_OVERHEAD = 96;
+    // Number of cells of a row band, the cell geometries of a band are built by a worker thread
+    private static final int BAND_CELL_COUNT = 16384;
+    private static final int BUFFER_SIZE = 65536;
     private boolean as3DPoint = true;
     private Envelope extractEnvelope = null;
     private int downScale = 1;
@@ -72,12 +86,17 @@ public class AscReaderDriver {
     private double cellSize;
     private double yValue;
     private double xValue;
-    private boolean readFirst;
+    // First cell value, read with the header when there is no NODATA_VALUE
+    private String firstValue;
     private double noData;
     private int zType = 2;
     private boolean deleteTable = false;
     private String encoding = "UTF-8";
     private boolean importNodata = false;
+    private boolean bulkLoad = false;
+    private boolean spatialIndex = false;
+    private int threadCount = OrderedPipeline.getDefaultThreadCount();
+    private int tileSize = 0;
 
     /**
      * @return If true ASC is imported as 3D points cloud, Raster is imported in
@@ -126,56 +145,56 @@ public class AscReaderDriver {
         this.downScale = downScale;
     }
 
-    private void readHeader(Scanner scanner) throws IOException {
+    private void readHeader(AscTokenizer tokenizer) throws IOException {
         // NCOLS
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         if (!lastWord.equalsIgnoreCase("NCOLS")) {
             throw new IOException("Unexpected word " + lastWord);
         }
         // XXX
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         ncols = Integer.parseInt(lastWord);
         if (ncols <= 0) {
             throw new IOException("NCOLS <= 0");
         }
         // NROWS
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         if (!lastWord.equalsIgnoreCase("NROWS")) {
             throw new IOException("Unexpected word " + lastWord);
         }
         // XXX
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         nrows = Integer.parseInt(lastWord);
         if (nrows <= 0) {
             throw new IOException("NROWS <= 0");
         }
         // XLLCENTER or XLLCORNER
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         if (!(lastWord.equalsIgnoreCase("XLLCENTER") || lastWord.equalsIgnoreCase("XLLCORNER"))) {
             throw new IOException("Unexpected word " + lastWord);
         }
         boolean isXCenter = lastWord.equalsIgnoreCase("XLLCENTER");
         // XXX
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         xValue = Double.parseDouble(lastWord);
 
         // YLLCENTER or YLLCORNER
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         if (!(lastWord.equalsIgnoreCase("YLLCENTER") || lastWord.equalsIgnoreCase("YLLCORNER"))) {
             throw new IOException("Unexpected word " + lastWord);
         }
         boolean isYCenter = lastWord.equalsIgnoreCase("YLLCENTER");
         // XXX
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         yValue = Double.parseDouble(lastWord);
 
         // CELLSIZE
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         if (!lastWord.equalsIgnoreCase("CELLSIZE")) {
             throw new IOException("Unexpected word " + lastWord);
         }
         // XXX
-        lastWord = scanner.next();
+        lastWord = tokenizer.nextWord();
         cellSize = Double.parseDouble(lastWord);
         // Compute offsets
         if (isXCenter) {
@@ -187,13 +206,13 @@ public class AscReaderDriver {
             yValue = yValue + cellSize * nrows;
         }
         // Optional NODATA_VALUE
-        lastWord = scanner.next();
-        readFirst = false;
+        lastWord = tokenizer.nextWord();
+        firstValue = lastWord;
         noData = -9999;
         if (lastWord.equalsIgnoreCase("NODATA_VALUE")) {
-            readFirst = true;
+            firstValue = null;
             // XXX
-            lastWord = scanner.next();
+            lastWord = tokenizer.nextWord();
             noData = Double.parseDouble(lastWord);
 
         }
@@ -272,122 +291,376 @@ public class AscReaderDriver {
 
     private String readAsc(Connection connection, InputStream inputStream, ProgressVisitor progress, String outputTable,
             int srid) throws UnsupportedEncodingException, SQLException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(new BufferedInputStream(inputStream, BUFFER_SIZE), encoding));
+        checkEncoding();
+        AscTokenizer tokenizer = new AscTokenizer(inputStream, BUFFER_SIZE);
         try {
-            Scanner scanner = new Scanner(reader);
             // Read HEADER
-            readHeader(scanner);
-            // Read values
-            Statement st = connection.createStatement();
-            PreparedStatement preparedStatement;
-
-            int index=0;
-            if (!JDBCUtilities.tableExists(connection,outputTable)) {
-                if (as3DPoint) {
-                    if (zType == 1) {
-                        st.execute("CREATE TABLE " + outputTable + "(PK INT PRIMARY KEY, THE_GEOM GEOMETRY(POINTZ, " + srid + "), Z integer)");
-                    } else {
-                        st.execute("CREATE TABLE " + outputTable + "(PK INT PRIMARY KEY, THE_GEOM GEOMETRY(POINTZ, " + srid + "), Z double precision)");
-                    }
+            readHeader(tokenizer);
+        } catch (NoSuchElementException | NumberFormatException | IOException ex) {
+            throw new SQLException("Unexpected word " + lastWord, ex);
+        }
+        // Read values
+        Statement st = connection.createStatement();
+        int index=0;
+        // The tiles are found with their envelope, they are always indexed
+        DeferredIndexes indexes = new DeferredIndexes(connection, bulkLoad, spatialIndex || tileSize > 0);
+        if (!JDBCUtilities.tableExists(connection,outputTable)) {
+            String pk = "PK INT" + indexes.primaryKey(outputTable, "PK");
+            if (tileSize > 0) {
+                DBTypes dbType = DBUtils.getDBType(connection);
+                String binaryType = dbType == DBTypes.POSTGIS || dbType == DBTypes.POSTGRESQL ? "BYTEA" : "VARBINARY";
+                st.execute("CREATE TABLE " + outputTable + "(" + pk + ", THE_GEOM GEOMETRY(POLYGON, " + srid + "),"
+                        + " TILE_ROW INT, TILE_COL INT, CELL_SIZE DOUBLE PRECISION, DATA " + binaryType + ")");
+            } else if (as3DPoint) {
+                if (zType == 1) {
+                    st.execute("CREATE TABLE " + outputTable + "(" + pk + ", THE_GEOM GEOMETRY(POINTZ, " + srid + "), Z integer)");
                 } else {
-                    if (zType == 1) {
-                        st.execute("CREATE TABLE " + outputTable + "(PK INT PRIMARY KEY, THE_GEOM GEOMETRY(POLYGONZ, " + srid + "),Z integer)");
-                    } else {
-                        st.execute("CREATE TABLE " + outputTable + "(PK INT PRIMARY KEY, THE_GEOM GEOMETRY(POLYGONZ, " + srid + "),Z double precision)");
-                    }
+                    st.execute("CREATE TABLE " + outputTable + "(" + pk + ", THE_GEOM GEOMETRY(POINTZ, " + srid + "), Z double precision)");
                 }
             } else {
-                // restore the incremental index from the existing table
-                try(ResultSet rs = st.executeQuery("SELECT MAX(PK) FROM " +  outputTable)) {
-                    if(rs.next()) {
-                        index = rs.getInt(1) + 1;
-                    }
+                if (zType == 1) {
+                    st.execute("CREATE TABLE " + outputTable + "(" + pk + ", THE_GEOM GEOMETRY(POLYGONZ, " + srid + "),Z integer)");
+                } else {
+                    st.execute("CREATE TABLE " + outputTable + "(" + pk + ", THE_GEOM GEOMETRY(POLYGONZ, " + srid + "),Z double precision)");
                 }
             }
-            preparedStatement = connection.prepareStatement("INSERT INTO " + outputTable
-                    + "(PK, the_geom, Z) VALUES (?, ?, ?)");
-
-            // Read data
-            GeometryFactory factory = new GeometryFactory(new PrecisionModel(),srid);
-            int batchSize = 0;
-            int firstRow = 0;
-            int firstCol = 0;
-            int lastRow = nrows;
-            int lastCol = ncols;
-            // Compute envelope
-            if (extractEnvelope != null) {
-                firstCol = (int) Math.floor((extractEnvelope.getMinX() - xValue) / cellSize);
-                lastCol = (int) Math.ceil((extractEnvelope.getMaxX() - xValue) / cellSize);
-                firstRow = nrows - (int) Math.ceil((extractEnvelope.getMaxY() - (yValue - cellSize * nrows)) / cellSize);
-                lastRow = nrows - (int) Math.ceil((extractEnvelope.getMinY() - (yValue - cellSize * nrows)) / cellSize);
+            indexes.spatialIndex(outputTable, "THE_GEOM");
+        } else {
+            // restore the incremental index from the existing table
+            try(ResultSet rs = st.executeQuery("SELECT MAX(PK) FROM " +  outputTable)) {
+                if(rs.next()) {
+                    index = rs.getInt(1) + 1;
+                }
             }
-            ProgressVisitor cellProgress = new EmptyProgressVisitor();
-            if (progress != null) {
-                cellProgress = progress.subProcess(lastRow);
+        }
+        int firstRow = 0;
+        int firstCol = 0;
+        int lastRow = nrows;
+        int lastCol = ncols;
+        // Compute envelope
+        if (extractEnvelope != null) {
+            firstCol = (int) Math.floor((extractEnvelope.getMinX() - xValue) / cellSize);
+            lastCol = (int) Math.ceil((extractEnvelope.getMaxX() - xValue) / cellSize);
+            firstRow = nrows - (int) Math.ceil((extractEnvelope.getMaxY() - (yValue - cellSize * nrows)) / cellSize);
+            lastRow = nrows - (int) Math.ceil((extractEnvelope.getMinY() - (yValue - cellSize * nrows)) / cellSize);
+        }
+        ProgressVisitor cellProgress = new EmptyProgressVisitor();
+        if (progress != null) {
+            cellProgress = progress.subProcess(lastRow);
+        }
+        // Columns of the imported cells, the same for each imported row
+        int[] columns = new int[ncols];
+        int columnCount = 0;
+        for (int j = 0; j < ncols; j++) {
+            if (j % downScale == 0 && (extractEnvelope == null || (j >= firstCol && j <= lastCol))) {
+                columns[columnCount++] = j;
             }
-            for (int i = 0; i < nrows; i++) {
-                for (int j = 0; j < ncols; j++) {
-                    if (readFirst) {
-                        lastWord = scanner.next();
-                    } else {
-                        readFirst = true;
+        }
+        columns = Arrays.copyOf(columns, columnCount);
+        int lastReadRow = Math.min(nrows - 1, lastRow);
+        if (tileSize > 0) {
+            readTiles(connection, tokenizer, outputTable, srid, index, columns, firstRow, lastReadRow, cellProgress);
+            indexes.create();
+            return outputTable;
+        }
+        int bandRowCount = Math.max(1, BAND_CELL_COUNT / ncols);
+        int row = 0;
+        try (PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO " + outputTable
+                + "(PK, the_geom, Z) VALUES (?, ?, ?)");
+             OrderedPipeline<CellBand> pipeline = new OrderedPipeline<>(threadCount, 2 * threadCount)) {
+            long batchBytes = 0;
+            while (row <= lastReadRow || pipeline.hasNext()) {
+                while (row <= lastReadRow && !pipeline.isFull()) {
+                    // Read the values of the imported cells of the next rows
+                    CellBand band = new CellBand(srid, index, columns, bandRowCount);
+                    for (; row <= lastReadRow && band.rowCount < bandRowCount; row++) {
+                        if (row % downScale == 0 && (extractEnvelope == null || row >= firstRow)) {
+                            band.rows[band.rowCount] = row;
+                            int column = 0;
+                            for (int j = 0; j < ncols; j++) {
+                                if (column < columnCount && columns[column] == j) {
+                                    band.values[band.rowCount * columnCount + column] = nextValue(tokenizer);
+                                    column++;
+                                } else {
+                                    skipValue(tokenizer);
+                                }
+                            }
+                            band.rowCount++;
+                            index += columnCount;
+                        } else {
+                            for (int j = 0; j < ncols; j++) {
+                                skipValue(tokenizer);
+                            }
+                        }
+                        cellProgress.endStep();
                     }
+                    pipeline.submit(band::build);
+                }
+                CellBand band = pipeline.next();
+                for (int i = 0; i < band.cellCount; i++) {
+                    preparedStatement.setInt(1, band.pk[i]);
+                    JdbcUtils.set(preparedStatement, 2, band.geometries[i], null);
+                    preparedStatement.setDouble(3, band.z[i]);
+                    preparedStatement.addBatch();
+                    batchBytes += band.geometries[i].getBytesNoCopy().length + ROW_OVERHEAD;
+                    if (batchBytes >= BATCH_MAX_BYTES) {
+                        preparedStatement.executeBatch();
+                        preparedStatement.clearBatch();
+                        if (!connection.getAutoCommit()) {
+                            connection.commit();
+                        }
+                        batchBytes = 0;
+                    }
+                }
+            }
+            if (batchBytes > 0) {
+                preparedStatement.executeBatch();
+            }
+        } catch (NoSuchElementException ex) {
+            throw new SQLException("Missing cell values in the row " + row, ex);
+        } catch (NumberFormatException ex) {
+            throw new SQLException("Unexpected cell value in the row " + row, ex);
+        } catch (IOException ex) {
+            throw new SQLException("Cannot read the cell values", ex);
+        }
+        indexes.create();
+        return outputTable;
+    }
 
-                    if ((downScale == 1 || (i % downScale == 0 && j % downScale == 0)) && (extractEnvelope == null || (i >= firstRow && i <= lastRow && j >= firstCol && j <= lastCol))) {
-                        double z = Double.parseDouble(lastWord);
-                        double x = xValue + j * cellSize;
-                        double y = yValue - i * cellSize;
-                        if (as3DPoint) {
-                            //Set the PK
-                            preparedStatement.setObject(1, index++);
-                            Point cell = factory.createPoint(new Coordinate(x + cellSize / 2, y - cellSize / 2, z));
-                            cell.setSRID(srid);
-                            if (Math.abs(noData - z) != 0) {
-                                preparedStatement.setObject(2, cell);
-                                preparedStatement.setObject(3, z);
-                                preparedStatement.addBatch();
-                                batchSize++;
-                            } else if (importNodata) {
-                                preparedStatement.setObject(2, cell);
-                                preparedStatement.setObject(3, noData);
-                                preparedStatement.addBatch();
-                                batchSize++;
+    /**
+     * Read the grid in tiles of tileSize x tileSize cells, each tile is a row of the output table
+     *
+     * @param connection database connection
+     * @param tokenizer grid values
+     * @param outputTable output table name
+     * @param srid output srid
+     * @param index primary key of the first tile
+     * @param columns columns of the imported cells
+     * @param firstRow first row of the imported cells
+     * @param lastReadRow last row of the imported cells
+     * @param cellProgress progress, one step by row
+     */
+    private void readTiles(Connection connection, AscTokenizer tokenizer, String outputTable, int srid, int index,
+                           int[] columns, int firstRow, int lastReadRow, ProgressVisitor cellProgress) throws SQLException {
+        GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), srid);
+        int columnCount = columns.length;
+        int tileColumnCount = (columnCount + tileSize - 1) / tileSize;
+        double tileCellSize = cellSize * downScale;
+        // Values of the imported cells of tileSize rows
+        float[] strip = new float[tileSize * columnCount];
+        float[] tileValues = new float[tileSize * tileSize];
+        int stripRowCount = 0;
+        int stripFirstRow = 0;
+        int tileRow = 0;
+        int row = 0;
+        try (PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO " + outputTable
+                + "(PK, THE_GEOM, TILE_ROW, TILE_COL, CELL_SIZE, DATA) VALUES (?, ?, ?, ?, ?, ?)")) {
+            long batchBytes = 0;
+            for (; row <= lastReadRow; row++) {
+                if (row % downScale == 0 && (extractEnvelope == null || row >= firstRow) && columnCount > 0) {
+                    if (stripRowCount == 0) {
+                        stripFirstRow = row;
+                    }
+                    int column = 0;
+                    for (int j = 0; j < ncols; j++) {
+                        if (column < columnCount && columns[column] == j) {
+                            double value = nextValue(tokenizer);
+                            if (Math.abs(noData - value) != 0 || importNodata) {
+                                if (!Double.isFinite(value)) {
+                                    throw new IOException("Invalid value " + value + " in the row " + row + " and the column " + j);
+                                }
+                                strip[stripRowCount * columnCount + column] = (float) value;
+                            } else {
+                                strip[stripRowCount * columnCount + column] = Float.NaN;
                             }
+                            column++;
                         } else {
-                            //Set the PK
-                            preparedStatement.setObject(1, index++);
-                            Polygon cell = factory.createPolygon(new Coordinate[]{new Coordinate(x, y, z), new Coordinate(x, y - cellSize * downScale, z), new Coordinate(x + cellSize * downScale, y - cellSize * downScale, z), new Coordinate(x + cellSize * downScale, y, z), new Coordinate(x, y, z)});
-                            cell.setSRID(srid);
-                            if (Math.abs(noData - z) != 0) {
-                                preparedStatement.setObject(2, cell);
-                                preparedStatement.setObject(3, z);
-                                preparedStatement.addBatch();
-                                batchSize++;
-                            } else if (importNodata) {
-                                preparedStatement.setObject(2, cell);
-                                preparedStatement.setObject(3, noData);
-                                preparedStatement.addBatch();
-                                batchSize++;
+                            skipValue(tokenizer);
+                        }
+                    }
+                    stripRowCount++;
+                } else {
+                    for (int j = 0; j < ncols; j++) {
+                        skipValue(tokenizer);
+                    }
+                }
+                cellProgress.endStep();
+                if (stripRowCount == tileSize || (row == lastReadRow && stripRowCount > 0)) {
+                    double maxY = yValue - stripFirstRow * cellSize;
+                    for (int tileCol = 0; tileCol < tileColumnCount; tileCol++) {
+                        int firstColumn = tileCol * tileSize;
+                        int width = Math.min(tileSize, columnCount - firstColumn);
+                        boolean hasData = false;
+                        for (int i = 0; i < stripRowCount; i++) {
+                            for (int j = 0; j < width; j++) {
+                                float value = strip[i * columnCount + firstColumn + j];
+                                tileValues[i * width + j] = value;
+                                hasData |= !Float.isNaN(value);
                             }
                         }
-                        if (batchSize >= BATCH_MAX_SIZE) {
+                        if (!hasData) {
+                            // Only no data cells
+                            continue;
+                        }
+                        double minX = xValue + columns[firstColumn] * cellSize;
+                        Geometry envelope = geometryFactory.toGeometry(new Envelope(minX, minX + width * tileCellSize,
+                                maxY - stripRowCount * tileCellSize, maxY));
+                        byte[] data = AscTile.write(width, stripRowCount, minX, maxY, tileCellSize, tileValues);
+                        preparedStatement.setInt(1, index++);
+                        JdbcUtils.set(preparedStatement, 2, ValueGeometry.getFromGeometry(envelope), null);
+                        preparedStatement.setInt(3, tileRow);
+                        preparedStatement.setInt(4, tileCol);
+                        preparedStatement.setDouble(5, tileCellSize);
+                        preparedStatement.setBytes(6, data);
+                        preparedStatement.addBatch();
+                        batchBytes += data.length + ROW_OVERHEAD;
+                        if (batchBytes >= BATCH_MAX_BYTES) {
                             preparedStatement.executeBatch();
                             preparedStatement.clearBatch();
-                            batchSize = 0;
+                            if (!connection.getAutoCommit()) {
+                                connection.commit();
+                            }
+                            batchBytes = 0;
                         }
                     }
-                }
-                cellProgress.endStep();
-                if (i > lastRow) {
-                    break;
+                    stripRowCount = 0;
+                    tileRow++;
                 }
             }
-            if (batchSize > 0) {
+            if (batchBytes > 0) {
                 preparedStatement.executeBatch();
             }
-            return outputTable;
-        } catch (NoSuchElementException | NumberFormatException | IOException | SQLException ex) {
-            throw new SQLException("Unexpected word " + lastWord, ex);
+        } catch (NoSuchElementException ex) {
+            throw new SQLException("Missing cell values in the row " + row, ex);
+        } catch (NumberFormatException ex) {
+            throw new SQLException("Unexpected cell value in the row " + row, ex);
+        } catch (IOException ex) {
+            throw new SQLException("Cannot read the cell values", ex);
+        }
+    }
+
+    /**
+     * The grid is read byte by byte, the encoding must encode the ASCII characters on one byte
+     */
+    private void checkEncoding() throws UnsupportedEncodingException {
+        String ascii = "ncolsNCOLS_xy-+.0123456789eE \t\r\n";
+        if (!Arrays.equals(ascii.getBytes(encoding), ascii.getBytes(StandardCharsets.US_ASCII))) {
+            throw new UnsupportedEncodingException("The encoding " + encoding + " is not compatible with ASCII");
+        }
+    }
+
+    private double nextValue(AscTokenizer tokenizer) throws IOException {
+        if (firstValue != null) {
+            double value = Double.parseDouble(firstValue);
+            firstValue = null;
+            return value;
+        }
+        return tokenizer.nextDouble();
+    }
+
+    private void skipValue(AscTokenizer tokenizer) throws IOException {
+        if (firstValue != null) {
+            firstValue = null;
+        } else {
+            tokenizer.skipWord();
+        }
+    }
+
+    /**
+     * Cell values of consecutive rows of the grid, converted into geometries by a worker thread.
+     * The geometries are written in EWKB without creating JTS geometries.
+     */
+    private class CellBand {
+        private final int srid;
+        private final int firstPk;
+        private final int[] columns;
+        private final int[] rows;
+        private final double[] values;
+        private int rowCount = 0;
+        private int cellCount = 0;
+        private int[] pk;
+        private ValueGeometry[] geometries;
+        private double[] z;
+
+        CellBand(int srid, int firstPk, int[] columns, int maxRowCount) {
+            this.srid = srid;
+            this.firstPk = firstPk;
+            this.columns = columns;
+            this.rows = new int[maxRowCount];
+            this.values = new double[maxRowCount * columns.length];
+        }
+
+        /**
+         * Build the geometries of the imported cells, the no data cells are skipped unless they are imported
+         * @return this band
+         */
+        CellBand build() throws IOException {
+            int count = rowCount * columns.length;
+            pk = new int[count];
+            geometries = new ValueGeometry[count];
+            z = new double[count];
+            for (int cell = 0; cell < count; cell++) {
+                double value = values[cell];
+                if (Math.abs(noData - value) != 0 || importNodata) {
+                    int i = rows[cell / columns.length];
+                    int j = columns[cell % columns.length];
+                    if (!Double.isFinite(value)) {
+                        throw new IOException("Invalid value " + value + " in the row " + i + " and the column " + j);
+                    }
+                    double x = xValue + j * cellSize;
+                    double y = yValue - i * cellSize;
+                    pk[cellCount] = firstPk + cell;
+                    if (as3DPoint) {
+                        geometries[cellCount] = ValueGeometry.get(pointEWKB(x + cellSize / 2, y - cellSize / 2, value));
+                    } else {
+                        geometries[cellCount] = ValueGeometry.get(squareEWKB(x, y, cellSize * downScale, value));
+                    }
+                    z[cellCount] = value;
+                    cellCount++;
+                }
+            }
+            return this;
+        }
+
+        private ByteBuffer writeHeader(byte[] ewkb, int type) {
+            // Big endian, as written by H2
+            ByteBuffer buffer = ByteBuffer.wrap(ewkb);
+            buffer.put((byte) 0);
+            type |= EWKBUtils.EWKB_Z;
+            if (srid != 0) {
+                buffer.putInt(type | EWKBUtils.EWKB_SRID);
+                buffer.putInt(srid);
+            } else {
+                buffer.putInt(type);
+            }
+            return buffer;
+        }
+
+        private void writeCoordinate(ByteBuffer buffer, double x, double y, double z) {
+            // Same canonical values as H2, 0.0 instead of -0.0
+            buffer.putDouble(x == 0 ? 0 : x);
+            buffer.putDouble(y == 0 ? 0 : y);
+            buffer.putDouble(z == 0 ? 0 : z);
+        }
+
+        private byte[] pointEWKB(double x, double y, double z) {
+            byte[] ewkb = new byte[(srid != 0 ? 9 : 5) + 24];
+            writeCoordinate(writeHeader(ewkb, GeometryUtils.POINT), x, y, z);
+            return ewkb;
+        }
+
+        private byte[] squareEWKB(double x, double y, double size, double z) {
+            byte[] ewkb = new byte[(srid != 0 ? 9 : 5) + 8 + 5 * 24];
+            ByteBuffer buffer = writeHeader(ewkb, GeometryUtils.POLYGON);
+            // One ring of 5 points
+            buffer.putInt(1);
+            buffer.putInt(5);
+            writeCoordinate(buffer, x, y, z);
+            writeCoordinate(buffer, x, y - size, z);
+            writeCoordinate(buffer, x + size, y - size, z);
+            writeCoordinate(buffer, x + size, y, z);
+            writeCoordinate(buffer, x, y, z);
+            return ewkb;
         }
     }
 
@@ -418,6 +691,75 @@ public class AscReaderDriver {
         this.encoding = encoding;
     }
 
+    /**
+     * Set true to create the primary key after loading the cells, see {@link DeferredIndexes}
+     *
+     * @param bulkLoad true to create the primary key after loading the cells
+     */
+    public void setBulkLoad(boolean bulkLoad) {
+        this.bulkLoad = bulkLoad;
+    }
+
+    /**
+     * Set true to create a spatial index on the geometry column after loading the cells
+     *
+     * @param spatialIndex true to create a spatial index
+     */
+    public void setSpatialIndex(boolean spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
+    /**
+     * @return Number of threads building the cell geometries
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param threadCount Number of threads building the cell geometries, the rows are inserted by the calling thread
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * @return Number of rows and columns of the tiles, 0 if each cell is a row of the output table
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Store the grid in tiles instead of one row per cell. Each row of the output table is a tile of
+     * tileSize x tileSize cells with the columns PK, THE_GEOM the tile envelope, TILE_ROW, TILE_COL, CELL_SIZE and
+     * DATA the cell values, see {@link AscTile}. The values are stored as 32 bits floats and the no data cells
+     * as NaN, the tiles without data are not stored. A spatial index is created on the tile envelopes.
+     * The values are read with {@link ST_TileValue} and {@link ST_TileCells}.
+     *
+     * @param tileSize Number of rows and columns of the tiles, 0 to import one row per cell
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize < 0) {
+            throw new IllegalArgumentException("The tile size must be greater than or equal to 0");
+        }
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Set the encoding, bulk load, spatial index and tile size options
+     *
+     * @param options import options, the encoding is kept if the options do not set it
+     */
+    public void setImportOptions(ImportOptions options) {
+        if (options.getEncoding() != null) {
+            setEncoding(options.getEncoding());
+        }
+        setBulkLoad(options.isBulkLoad());
+        setSpatialIndex(options.isSpatialIndex());
+        setTileSize(options.getInt(ImportOptions.TILE_SIZE, tileSize));
+    }
+
     /**
      * Set to true if nodata must be imported. Default is false
      *
@@ -0,0 +1,171 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; you can
+ * redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation; version 3.0 of
+ * the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.asc;
+
+import org.locationtech.jts.geom.Envelope;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+
+/**
+ * Block of cells of a raster, stored in a binary value by {@link AscReaderDriver} in tile mode.
+ *
+ * The binary value is a header followed by the cell values as 32 bits floats, row by row from the
+ * north west cell, in big endian:
+ * {@code width (int), height (int), min x (double), max y (double), cell size (double), values (float[width * height])}
+ *
+ * The cells without data are stored as NaN.
+ */
+public class AscTile {
+    /** Size of the header, in bytes */
+    public static final int HEADER_SIZE = 32;
+    private final ByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final double minX;
+    private final double maxY;
+    private final double cellSize;
+
+    /**
+     * @param data Binary value of the tile
+     * @throws SQLException If the binary value is not a tile
+     */
+    public AscTile(byte[] data) throws SQLException {
+        if (data.length < HEADER_SIZE) {
+            throw new SQLException("Invalid raster tile");
+        }
+        buffer = ByteBuffer.wrap(data);
+        width = buffer.getInt(0);
+        height = buffer.getInt(4);
+        minX = buffer.getDouble(8);
+        maxY = buffer.getDouble(16);
+        cellSize = buffer.getDouble(24);
+        if (width <= 0 || height <= 0 || !(cellSize > 0)
+                || data.length != HEADER_SIZE + 4L * width * height) {
+            throw new SQLException("Invalid raster tile");
+        }
+    }
+
+    /**
+     * Write a tile
+     *
+     * @param width Number of columns
+     * @param height Number of rows
+     * @param minX x of the west border
+     * @param maxY y of the north border
+     * @param cellSize Size of the square cells
+     * @param values Cell values row by row from the north west cell, NaN for the cells without data
+     * @return Binary value of the tile
+     */
+    public static byte[] write(int width, int height, double minX, double maxY, double cellSize, float[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * width * height);
+        buffer.putInt(width);
+        buffer.putInt(height);
+        buffer.putDouble(minX);
+        buffer.putDouble(maxY);
+        buffer.putDouble(cellSize);
+        buffer.asFloatBuffer().put(values, 0, width * height);
+        return buffer.array();
+    }
+
+    /**
+     * @return Number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Number of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return Size of the square cells
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return x of the west border
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * @return y of the north border
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return Extent of the tile
+     */
+    public Envelope getEnvelope() {
+        return new Envelope(minX, minX + width * cellSize, maxY - height * cellSize, maxY);
+    }
+
+    /**
+     * @param x x coordinate
+     * @return Column of the cells at this coordinate, may be outside the tile
+     */
+    public int getColumn(double x) {
+        return (int) Math.floor((x - minX) / cellSize);
+    }
+
+    /**
+     * @param y y coordinate
+     * @return Row of the cells at this coordinate, may be outside the tile
+     */
+    public int getRow(double y) {
+        return (int) Math.floor((maxY - y) / cellSize);
+    }
+
+    /**
+     * @param column Column of the cell
+     * @param row Row of the cell, from the north
+     * @return Value of the cell, NaN if the cell has no data
+     */
+    public double getValue(int column, int row) {
+        return buffer.getFloat(HEADER_SIZE + 4 * (row * width + column));
+    }
+
+    /**
+     * The west and north borders of a cell are in the cell, the east and south borders are in the next cells
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return Value of the cell that contains the coordinate, NaN if the coordinate is outside the tile or if
+     * the cell has no data
+     */
+    public double getValueAt(double x, double y) {
+        int column = getColumn(x);
+        int row = getRow(y);
+        if (column < 0 || column >= width || row < 0 || row >= height) {
+            return Double.NaN;
+        }
+        return getValue(column, row);
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; you can
+ * redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation; version 3.0 of
+ * the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.asc;
+
+import org.h2gis.functions.io.utility.NumberParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Split an ASCII grid into whitespace separated words, directly on the bytes of the file.
+ * The numbers are parsed by {@link NumberParser}.
+ */
+class AscTokenizer {
+    private final InputStream inputStream;
+    private byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfStream = false;
+
+    /**
+     * @param inputStream Stream to read, not closed by this tokenizer
+     * @param bufferSize Size of the read buffer
+     */
+    AscTokenizer(InputStream inputStream, int bufferSize) {
+        this.inputStream = inputStream;
+        this.buffer = new byte[bufferSize];
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+
+    /**
+     * Read more bytes, keep the bytes from the given position
+     * @param keepFrom First byte to keep
+     * @return The new position of the kept bytes, or -1 at the end of the stream
+     */
+    private int fill(int keepFrom) throws IOException {
+        if (endOfStream) {
+            return -1;
+        }
+        int kept = limit - keepFrom;
+        if (keepFrom > 0) {
+            System.arraycopy(buffer, keepFrom, buffer, 0, kept);
+        } else if (kept == buffer.length) {
+            // A word longer than the buffer
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position -= keepFrom;
+        limit = kept;
+        int read = inputStream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+            return -1;
+        }
+        limit += read;
+        return 0;
+    }
+
+    /**
+     * Move to the first byte of the next word
+     * @return False at the end of the stream
+     */
+    private boolean skipWhitespace() throws IOException {
+        while (true) {
+            while (position < limit) {
+                if (!isWhitespace(buffer[position])) {
+                    return true;
+                }
+                position++;
+            }
+            if (fill(limit) < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Move after the last byte of the current word, the word is kept in the buffer
+     * @return The position of the first byte of the word
+     */
+    private int readWord() throws IOException {
+        if (!skipWhitespace()) {
+            throw new NoSuchElementException();
+        }
+        int start = position;
+        while (true) {
+            while (position < limit) {
+                if (isWhitespace(buffer[position])) {
+                    return start;
+                }
+                position++;
+            }
+            int newStart = fill(start);
+            if (newStart < 0) {
+                return start;
+            }
+            start = newStart;
+        }
+    }
+
+    /**
+     * @return The next word
+     * @throws NoSuchElementException At the end of the stream
+     */
+    String nextWord() throws IOException {
+        int start = readWord();
+        return new String(buffer, start, position - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Skip the next word
+     * @throws NoSuchElementException At the end of the stream
+     */
+    void skipWord() throws IOException {
+        readWord();
+    }
+
+    /**
+     * @return The next word parsed as a double
+     * @throws NoSuchElementException At the end of the stream
+     * @throws NumberFormatException If the word is not a number
+     */
+    double nextDouble() throws IOException {
+        int start = readWord();
+        return NumberParser.parseDouble(buffer, start, position);
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; you can
+ * redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation; version 3.0 of
+ * the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.asc;
+
+import org.h2.tools.SimpleResultSet;
+import org.h2.tools.SimpleRowSource;
+import org.h2gis.api.AbstractFunction;
+import org.h2gis.api.ScalarFunction;
+import org.h2gis.utilities.TableLocation;
+import org.h2gis.utilities.dbtypes.DBUtils;
+import org.locationtech.jts.geom.*;
+
+import java.sql.*;
+
+/**
+ * Expand the raster tiles that intersect a window into one row per cell, the tiles are imported by ASCREAD with
+ * the tileSize option.
+ */
+public class ST_TileCells extends AbstractFunction implements ScalarFunction {
+
+    public ST_TileCells() {
+        addProperty(PROP_REMARKS, "Expand the cells of a raster tile table that intersect a window.\n"
+                + "The tiles are imported with CALL ASCREAD('dem.asc', 'DEM', null, 1, false, true, 'tileSize=256', 2);\n"
+                + "SELECT * FROM ST_TileCells('DEM', ST_MakeEnvelope(0, 0, 100, 100));\n"
+                + "SELECT * FROM ST_TileCells('DEM', ST_MakeEnvelope(0, 0, 100, 100), AS_POLYGONS);\n"
+                + "AS_POLYGONS - If true cells are converted to polygons. (default false return points)\n"
+                + "The result has the columns THE_GEOM and Z, the cells without data are skipped.\n"
+                + "A null window expands all the tiles.");
+    }
+
+    @Override
+    public String getJavaStaticMethod() {
+        return "expand";
+    }
+
+    /**
+     * Expand the cells as 3D points
+     *
+     * @param connection database
+     * @param tableName name of the tile table
+     * @param window cells that intersect the envelope of this geometry are returned, null for all the cells
+     * @return A result set with the columns THE_GEOM and Z
+     */
+    public static ResultSet expand(Connection connection, String tableName, Geometry window) throws SQLException {
+        return expand(connection, tableName, window, false);
+    }
+
+    /**
+     * Expand the cells
+     *
+     * @param connection database
+     * @param tableName name of the tile table
+     * @param window cells that intersect the envelope of this geometry are returned, null for all the cells
+     * @param asPolygons true to return the cells as polygons, as points otherwise
+     * @return A result set with the columns THE_GEOM and Z
+     */
+    public static ResultSet expand(Connection connection, String tableName, Geometry window, boolean asPolygons) throws SQLException {
+        TileCellsRowSet rowSource = new TileCellsRowSet(connection,
+                TableLocation.parse(tableName, DBUtils.getDBType(connection)).toString(), window, asPolygons);
+        SimpleResultSet srs = new SimpleResultSet(rowSource);
+        srs.addColumn("THE_GEOM", Types.OTHER, "GEOMETRY", 0, 0);
+        srs.addColumn("Z", Types.DOUBLE, 17, 0);
+        return srs;
+    }
+
+    /**
+     * Read the tiles on request and return their cells
+     */
+    private static class TileCellsRowSet implements SimpleRowSource {
+        private final Connection connection;
+        private final String tableName;
+        private final Geometry window;
+        private final boolean asPolygons;
+        private PreparedStatement statement;
+        private ResultSet tiles;
+        private GeometryFactory geometryFactory;
+        private AscTile tile;
+        private int firstColumn, lastColumn, lastRow;
+        private int column, row;
+
+        TileCellsRowSet(Connection connection, String tableName, Geometry window, boolean asPolygons) {
+            this.connection = connection;
+            this.tableName = tableName;
+            this.window = window;
+            this.asPolygons = asPolygons;
+        }
+
+        @Override
+        public Object[] readRow() throws SQLException {
+            if (tiles == null) {
+                reset();
+            }
+            while (true) {
+                if (tile != null) {
+                    while (row <= lastRow) {
+                        int cellColumn = column;
+                        int cellRow = row;
+                        if (++column > lastColumn) {
+                            column = firstColumn;
+                            row++;
+                        }
+                        double value = tile.getValue(cellColumn, cellRow);
+                        if (!Double.isNaN(value)) {
+                            return new Object[]{getCell(cellColumn, cellRow, value), value};
+                        }
+                    }
+                    tile = null;
+                }
+                if (!tiles.next()) {
+                    return null;
+                }
+                Geometry tileGeometry = (Geometry) tiles.getObject(1);
+                geometryFactory = new GeometryFactory(new PrecisionModel(), tileGeometry.getSRID());
+                tile = new AscTile(tiles.getBytes(2));
+                firstColumn = 0;
+                lastColumn = tile.getWidth() - 1;
+                int firstRow = 0;
+                lastRow = tile.getHeight() - 1;
+                if (window != null) {
+                    Envelope envelope = window.getEnvelopeInternal();
+                    firstColumn = Math.max(firstColumn, tile.getColumn(envelope.getMinX()));
+                    lastColumn = Math.min(lastColumn, tile.getColumn(envelope.getMaxX()));
+                    firstRow = Math.max(firstRow, tile.getRow(envelope.getMaxY()));
+                    lastRow = Math.min(lastRow, tile.getRow(envelope.getMinY()));
+                }
+                column = firstColumn;
+                row = firstColumn <= lastColumn ? firstRow : lastRow + 1;
+            }
+        }
+
+        private Geometry getCell(int cellColumn, int cellRow, double value) {
+            double cellSize = tile.getCellSize();
+            double x = tile.getMinX() + cellColumn * cellSize;
+            double y = tile.getMaxY() - cellRow * cellSize;
+            if (asPolygons) {
+                return geometryFactory.createPolygon(new Coordinate[]{new Coordinate(x, y, value),
+                        new Coordinate(x, y - cellSize, value), new Coordinate(x + cellSize, y - cellSize, value),
+                        new Coordinate(x + cellSize, y, value), new Coordinate(x, y, value)});
+            }
+            return geometryFactory.createPoint(new Coordinate(x + cellSize / 2, y - cellSize / 2, value));
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (statement != null) {
+                    statement.close();
+                }
+            } catch (SQLException ex) {
+                // Ignore
+            }
+            statement = null;
+            tiles = null;
+            tile = null;
+        }
+
+        @Override
+        public void reset() throws SQLException {
+            close();
+            if (window == null) {
+                statement = connection.prepareStatement("SELECT THE_GEOM, DATA FROM " + tableName + " ORDER BY PK");
+            } else {
+                statement = connection.prepareStatement("SELECT THE_GEOM, DATA FROM " + tableName
+                        + " WHERE THE_GEOM && ? ORDER BY PK");
+                statement.setObject(1, window);
+            }
+            tiles = statement.executeQuery();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; you can
+ * redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation; version 3.0 of
+ * the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.asc;
+
+import org.h2gis.api.DeterministicScalarFunction;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+
+import java.sql.SQLException;
+
+/**
+ * Return the value of a raster tile at a point location, the tiles are imported by ASCREAD with the tileSize option.
+ */
+public class ST_TileValue extends DeterministicScalarFunction {
+
+    public ST_TileValue() {
+        addProperty(PROP_REMARKS, "Return the value of the raster tile cell that contains the point.\n"
+                + "Return null if the point is outside the tile or if the cell has no data.\n"
+                + "The tiles are imported with CALL ASCREAD('dem.asc', 'DEM', null, 1, false, true, 'tileSize=256', 2);\n"
+                + "SELECT ST_TileValue(T.DATA, P.THE_GEOM) FROM DEM T, POINTS P WHERE T.THE_GEOM && P.THE_GEOM\n"
+                + "AND ST_TileValue(T.DATA, P.THE_GEOM) IS NOT NULL;\n"
+                + "The west and north borders of a cell are in the cell.");
+    }
+
+    @Override
+    public String getJavaStaticMethod() {
+        return "getValue";
+    }
+
+    /**
+     * @param tile Binary value of the tile
+     * @param point Point location
+     * @return Value of the cell that contains the point, null if the point is outside the tile or if the cell
+     * has no data
+     * @throws SQLException If the binary value is not a tile
+     */
+    public static Double getValue(byte[] tile, Geometry point) throws SQLException {
+        if (tile == null || point == null || point.isEmpty()) {
+            return null;
+        }
+        if (!(point instanceof Point)) {
+            throw new IllegalArgumentException("The tile value is computed according a point location.");
+        }
+        Coordinate coordinate = point.getCoordinate();
+        double value = new AscTile(tile).getValueAt(coordinate.x, coordinate.y);
+        return Double.isNaN(value) ? null : value;
+    }
+}
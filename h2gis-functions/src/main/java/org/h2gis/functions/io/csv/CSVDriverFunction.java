@@ -24,6 +24,7 @@ import org.h2.tools.Csv;
 import org.h2gis.api.DriverFunction;
 import org.h2gis.api.ProgressVisitor;
 import org.h2gis.functions.io.DriverManager;
+import org.h2gis.functions.io.utility.ImportOptions;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 
@@ -161,6 +162,7 @@ public class CSVDriverFunction implements DriverFunction{
      * @param tableReference [[catalog.]schema.]table reference
      * @param fileName File path to read
      * @param csvOptions  the CSV options ie "charset=UTF-8 fieldSeparator=| fieldDelimiter=,"
+     *                    add "typed=true" to import typed columns, see {@link CSVTypedImporter}
      * @param progress Progress visitor following the execution.
      */
     @Override
@@ -188,6 +190,14 @@ public class CSVDriverFunction implements DriverFunction{
             }
             TableLocation requestedTable = TableLocation.parse(tableReference, dbType);
             String outputTable = requestedTable.getTable();
+            ImportOptions importOptions = new ImportOptions(csvOptions, CSVTypedImporter.OPTIONS);
+            if (CSVTypedImporter.isTyped(importOptions)) {
+                try (FileInputStream fis = new FileInputStream(fileName)) {
+                    new CSVTypedImporter(importOptions, ',', '"').importFile(connection, outputTable, fis,
+                            fis.getChannel(), progress);
+                }
+                return new String[]{outputTable};
+            }
             FileInputStream fis = new FileInputStream(fileName);
             FileChannel fc = fis.getChannel();
             long fileSize = fc.size();
@@ -0,0 +1,398 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; you can
+ * redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation; version 3.0 of
+ * the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.csv;
+
+import org.h2gis.functions.io.utility.NumberParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Split a CSV file into records and fields, directly on the bytes of the file. The separator and the quote
+ * character must be encoded on one byte by the file charset, with the same code as in ASCII.
+ *
+ * A quoted field may contain separators, line breaks and doubled quotes. The spaces around the unquoted fields
+ * are removed, an empty unquoted field is null. The empty lines are skipped.
+ * The fields of the current record are kept in the read buffer, the numbers are parsed without creating a String.
+ */
+class CSVTokenizer {
+    private final InputStream inputStream;
+    private final byte separator;
+    private final byte quote;
+    private byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfStream = false;
+    // First byte kept by mark(), -1 if not marked
+    private int mark = -1;
+    private long markLineNumber;
+    private long lineNumber = 1;
+    private long recordLineNumber;
+    private int fieldCount = 0;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    // Quoted fields, that may contain doubled quotes
+    private boolean[] quoted = new boolean[16];
+    private boolean[] escaped = new boolean[16];
+
+    /**
+     * @param inputStream Stream to read, not closed by this tokenizer
+     * @param separator Field separator
+     * @param quote Quote character, 0 if the fields are not quoted
+     * @param bufferSize Size of the read buffer
+     */
+    CSVTokenizer(InputStream inputStream, byte separator, byte quote, int bufferSize) {
+        this.inputStream = inputStream;
+        this.separator = separator;
+        this.quote = quote;
+        this.buffer = new byte[bufferSize];
+    }
+
+    private boolean isSpace(byte b) {
+        return (b == ' ' || b == '\t') && b != separator;
+    }
+
+    /**
+     * Read more bytes, keep the bytes from the current position and the marked bytes
+     *
+     * @return False at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+        int first = mark >= 0 ? Math.min(mark, position) : position;
+        int kept = limit - first;
+        if (first > 0) {
+            System.arraycopy(buffer, first, buffer, 0, kept);
+            if (mark >= 0) {
+                mark -= first;
+            }
+        } else if (kept == buffer.length) {
+            // A record longer than the buffer, or marked records
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position -= first;
+        limit = kept;
+        int read = inputStream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Skip the bytes of a UTF-8 byte order mark, to call before reading the first record
+     */
+    void skipByteOrderMark() throws IOException {
+        while (limit - position < 3 && fill()) {
+            // Read the first bytes
+        }
+        if (limit - position >= 3 && buffer[position] == (byte) 0xEF && buffer[position + 1] == (byte) 0xBB
+                && buffer[position + 2] == (byte) 0xBF) {
+            position += 3;
+        }
+    }
+
+    /**
+     * Read the next non empty record
+     *
+     * @return False at the end of the stream
+     * @throws IOException If the stream cannot be read or if a quoted field is not closed
+     */
+    boolean next() throws IOException {
+        while (true) {
+            if (position >= limit && !fill()) {
+                fieldCount = 0;
+                return false;
+            }
+            int start = position;
+            long startLine = lineNumber;
+            int result = parseRecord();
+            if (result > 0) {
+                recordLineNumber = startLine;
+                return true;
+            } else if (result < 0) {
+                if (endOfStream) {
+                    throw new IOException("Unclosed quoted field in the line " + startLine);
+                }
+                // Not enough bytes, read more and parse the record again
+                position = start;
+                lineNumber = startLine;
+                fill();
+            }
+        }
+    }
+
+    private void addField(int start, int end, boolean isQuoted, boolean isEscaped) {
+        if (fieldCount == starts.length) {
+            int size = fieldCount * 2;
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            quoted = Arrays.copyOf(quoted, size);
+            escaped = Arrays.copyOf(escaped, size);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        quoted[fieldCount] = isQuoted;
+        escaped[fieldCount] = isEscaped;
+        fieldCount++;
+    }
+
+    /**
+     * Parse the record at the current position. At the end of the stream the end of the buffer ends the record.
+     *
+     * @return 1 if a record is read, 0 for an empty line, -1 if the buffer ends before the end of the record
+     */
+    private int parseRecord() {
+        fieldCount = 0;
+        int i = position;
+        boolean endOfRecord = false;
+        boolean emptyLine = true;
+        while (!endOfRecord) {
+            while (i < limit && isSpace(buffer[i])) {
+                i++;
+            }
+            if (i < limit && quote != 0 && buffer[i] == quote) {
+                int fieldStart = ++i;
+                boolean isEscaped = false;
+                long lines = 0;
+                while (true) {
+                    if (i >= limit) {
+                        return -1;
+                    }
+                    if (buffer[i] == quote) {
+                        if (i + 1 < limit && buffer[i + 1] == quote) {
+                            isEscaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        if (i + 1 >= limit && !endOfStream) {
+                            // May be a doubled quote
+                            return -1;
+                        }
+                        break;
+                    }
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                    i++;
+                }
+                lineNumber += lines;
+                addField(fieldStart, i, true, isEscaped);
+                emptyLine = false;
+                i++;
+                while (i < limit && isSpace(buffer[i])) {
+                    i++;
+                }
+                if (i < limit && buffer[i] != separator && buffer[i] != '\n' && buffer[i] != '\r') {
+                    // Bytes after the closing quote, the field is read as an unquoted field
+                    while (i < limit && buffer[i] != separator && buffer[i] != '\n' && buffer[i] != '\r') {
+                        i++;
+                    }
+                    starts[fieldCount - 1] = fieldStart - 1;
+                    ends[fieldCount - 1] = i;
+                    quoted[fieldCount - 1] = false;
+                    escaped[fieldCount - 1] = false;
+                }
+            } else {
+                int fieldStart = i;
+                while (i < limit && buffer[i] != separator && buffer[i] != '\n' && buffer[i] != '\r') {
+                    i++;
+                }
+                int fieldEnd = i;
+                while (fieldEnd > fieldStart && isSpace(buffer[fieldEnd - 1])) {
+                    fieldEnd--;
+                }
+                addField(fieldStart, fieldEnd, false, false);
+                emptyLine &= fieldEnd == fieldStart;
+            }
+            if (i >= limit) {
+                if (!endOfStream) {
+                    return -1;
+                }
+                endOfRecord = true;
+            } else if (buffer[i] == separator) {
+                emptyLine = false;
+                i++;
+            } else {
+                if (buffer[i] == '\r') {
+                    if (i + 1 >= limit && !endOfStream) {
+                        return -1;
+                    }
+                    if (i + 1 < limit && buffer[i + 1] == '\n') {
+                        i++;
+                    }
+                }
+                // Line break
+                i++;
+                lineNumber++;
+                endOfRecord = true;
+            }
+        }
+        position = i;
+        return emptyLine ? 0 : 1;
+    }
+
+    /**
+     * Keep the next records in memory, until {@link #reset()} is called
+     */
+    void mark() {
+        mark = position;
+        markLineNumber = lineNumber;
+    }
+
+    /**
+     * Read again the records read since {@link #mark()}
+     */
+    void reset() {
+        position = mark;
+        lineNumber = markLineNumber;
+        mark = -1;
+        fieldCount = 0;
+    }
+
+    /**
+     * @return Number of bytes kept in memory since {@link #mark()}
+     */
+    int getMarkedSize() {
+        return mark >= 0 ? position - mark : 0;
+    }
+
+    /**
+     * @return Line of the first byte of the current record, from 1
+     */
+    long getLineNumber() {
+        return recordLineNumber;
+    }
+
+    /**
+     * @return Number of fields of the current record
+     */
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @return True if the field is missing or if it is empty and not quoted
+     */
+    boolean isNull(int field) {
+        return field >= fieldCount || (!quoted[field] && starts[field] == ends[field]);
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @return True if the field is empty, quoted or not
+     */
+    boolean isEmpty(int field) {
+        return field >= fieldCount || starts[field] == ends[field];
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @param charset File charset
+     * @return The field value, null if the field is null
+     */
+    String getString(int field, Charset charset) {
+        if (isNull(field)) {
+            return null;
+        }
+        String value = new String(buffer, starts[field], ends[field] - starts[field], charset);
+        if (escaped[field]) {
+            String doubledQuote = new String(new byte[]{quote, quote}, charset);
+            value = value.replace(doubledQuote, doubledQuote.substring(0, 1));
+        }
+        return value;
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @return True if the field is an integer, without leading zero
+     */
+    boolean isInteger(int field) {
+        return !escaped[field] && NumberParser.isInteger(buffer, starts[field], ends[field]);
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @return True if the field is a decimal number, without leading zero
+     */
+    boolean isDecimal(int field) {
+        return !escaped[field] && NumberParser.isDecimal(buffer, starts[field], ends[field]);
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @return True if the field is true or false, ignoring the case
+     */
+    boolean isBoolean(int field) {
+        return matches(field, "true") || matches(field, "false");
+    }
+
+    private boolean matches(int field, String word) {
+        int start = starts[field];
+        if (ends[field] - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase((char) buffer[start + i]) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @return The field value
+     * @throws NumberFormatException If the field is not an integer that fits in a long
+     */
+    long getLong(int field) {
+        return NumberParser.parseLong(buffer, starts[field], ends[field]);
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @return The field value
+     * @throws NumberFormatException If the field is not a number
+     */
+    double getDouble(int field) {
+        return NumberParser.parseDouble(buffer, starts[field], ends[field]);
+    }
+
+    /**
+     * @param field Field index, from 0
+     * @return The field value
+     * @throws IllegalArgumentException If the field is not true or false
+     */
+    boolean getBoolean(int field) {
+        if (matches(field, "true")) {
+            return true;
+        } else if (matches(field, "false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Not a boolean");
+    }
+}
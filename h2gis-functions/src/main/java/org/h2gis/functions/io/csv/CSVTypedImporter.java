@@ -0,0 +1,392 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; you can
+ * redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation; version 3.0 of
+ * the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.csv;
+
+import org.h2gis.api.ProgressVisitor;
+import org.h2gis.functions.io.utility.ImportOptions;
+import org.h2gis.utilities.TableLocation;
+import org.h2gis.utilities.dbtypes.DBTypes;
+import org.h2gis.utilities.dbtypes.DBUtils;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Import a CSV or TSV file in one pass, with typed columns. The column types are found from the first rows of
+ * the file: INTEGER, BIGINT, DOUBLE PRECISION, BOOLEAN or VARCHAR. The rows are then read again from the
+ * beginning and inserted, the numbers are parsed from the bytes of the file without creating a String.
+ *
+ * A geometry may be built in the same pass, a point from two coordinate columns or a geometry from a WKT column.
+ *
+ * Options, space separated key=value pairs:
+ * <ul>
+ *     <li>typed=true to use this importer</li>
+ *     <li>charset or encoding, file charset, UTF-8 by default. The ASCII characters must be encoded on one byte</li>
+ *     <li>fieldSeparator, field separator character</li>
+ *     <li>fieldDelimiter, quote character</li>
+ *     <li>sampleSize, number of rows read to find the column types, 1000 by default</li>
+ *     <li>geometry=LON,LAT to add a THE_GEOM point column, or geometry=WKT to read the WKT column as a geometry</li>
+ *     <li>srid, SRID of the geometries, 0 by default</li>
+ * </ul>
+ */
+public class CSVTypedImporter {
+    /** Import the columns with the types found in the first rows */
+    public static final String TYPED = "typed";
+    /** Number of rows read to find the column types */
+    public static final String SAMPLE_SIZE = "sampleSize";
+    /** Coordinate columns x,y or WKT column of the geometries */
+    public static final String GEOMETRY = "geometry";
+    /** SRID of the geometries */
+    public static final String SRID = "srid";
+    /** Keys of the typed import options and of the {@link org.h2.tools.Csv} options */
+    public static final String[] OPTIONS = {TYPED, SAMPLE_SIZE, GEOMETRY, SRID, "charset", "characterSet",
+            "fieldSeparator", "fieldSep", "fieldDelimiter", "fieldDelim", "escape", "esc", "escapeCharacter",
+            "lineComment", "lineCommentCharacter", "lineSeparator", "lineSep", "null", "nullString", "quotedNulls",
+            "preserveWhitespace", "writeColumnHeader", "caseSensitiveColumnNames"};
+    private static final int DEFAULT_SAMPLE_SIZE = 1000;
+    // The rows read to find the column types are kept in memory
+    private static final int SAMPLE_MAX_BYTES = 16 * 1024 * 1024;
+    private static final int BATCH_MAX_SIZE = 1000;
+    private static final int BUFFER_SIZE = 65536;
+    // Update the progress every PROGRESS_ROWS rows
+    private static final int PROGRESS_ROWS = 1000;
+    private final Charset charset;
+    private final byte separator;
+    private final byte quote;
+    private final int sampleSize;
+    private final String[] geometryColumns;
+    private final int srid;
+
+    private enum ColumnType {
+        INTEGER("INTEGER", Types.INTEGER),
+        BIGINT("BIGINT", Types.BIGINT),
+        DOUBLE("DOUBLE PRECISION", Types.DOUBLE),
+        BOOLEAN("BOOLEAN", Types.BOOLEAN),
+        VARCHAR("VARCHAR", Types.VARCHAR),
+        GEOMETRY("GEOMETRY", Types.OTHER);
+
+        private final String sqlType;
+        private final int jdbcType;
+
+        ColumnType(String sqlType, int jdbcType) {
+            this.sqlType = sqlType;
+            this.jdbcType = jdbcType;
+        }
+
+        /**
+         * @return The narrowest type of the field
+         */
+        static ColumnType of(CSVTokenizer tokenizer, int field) {
+            if (tokenizer.isInteger(field)) {
+                try {
+                    long value = tokenizer.getLong(field);
+                    return value == (int) value ? INTEGER : BIGINT;
+                } catch (NumberFormatException ex) {
+                    // Out of the long range, keep all the digits
+                    return VARCHAR;
+                }
+            } else if (tokenizer.isDecimal(field)) {
+                return DOUBLE;
+            } else if (tokenizer.isBoolean(field)) {
+                return BOOLEAN;
+            }
+            return VARCHAR;
+        }
+
+        /**
+         * @return A type for the values of both types
+         */
+        static ColumnType merge(ColumnType type, ColumnType other) {
+            if (type == null || type == other) {
+                return other;
+            }
+            if (type == BOOLEAN || other == BOOLEAN || type == VARCHAR || other == VARCHAR) {
+                return VARCHAR;
+            }
+            return type.ordinal() > other.ordinal() ? type : other;
+        }
+    }
+
+    /**
+     * @param options Import options, the separator and the quote may be set by the fieldSeparator and
+     *                fieldDelimiter options
+     * @param separator Default field separator
+     * @param quote Default quote character, 0 if the fields are not quoted
+     */
+    public CSVTypedImporter(ImportOptions options, char separator, char quote) {
+        String charsetName = options.get("charset");
+        if (charsetName == null) {
+            charsetName = options.getEncoding();
+        }
+        this.charset = charsetName == null ? StandardCharsets.UTF_8 : Charset.forName(charsetName);
+        String value = options.get("fieldSeparator");
+        this.separator = asciiByte(value == null || value.isEmpty() ? separator : value.charAt(0));
+        value = options.get("fieldDelimiter");
+        this.quote = asciiByte(value == null ? quote : value.isEmpty() ? 0 : value.charAt(0));
+        this.sampleSize = Math.max(1, options.getInt(SAMPLE_SIZE, DEFAULT_SAMPLE_SIZE));
+        value = options.get(GEOMETRY);
+        this.geometryColumns = value == null ? null : value.split(",");
+        if (geometryColumns != null && geometryColumns.length > 2) {
+            throw new IllegalArgumentException("The geometry option is either x,y columns or a WKT column");
+        }
+        this.srid = options.getInt(SRID, 0);
+    }
+
+    private static byte asciiByte(char character) {
+        if (character > 127) {
+            throw new IllegalArgumentException("The separator and the quote must be ASCII characters");
+        }
+        return (byte) character;
+    }
+
+    /**
+     * @param options Import options
+     * @return True if the options ask for typed columns or a geometry
+     */
+    public static boolean isTyped(ImportOptions options) {
+        return options.getBoolean(TYPED, false) || options.get(GEOMETRY) != null;
+    }
+
+    /**
+     * The file is read byte by byte, the charset must encode the ASCII characters on one byte
+     */
+    private void checkCharset() throws UnsupportedEncodingException {
+        String ascii = new String(new byte[]{separator, quote}, StandardCharsets.ISO_8859_1)
+                + "\r\n -+.0123456789eE";
+        if (!Arrays.equals(ascii.getBytes(charset), ascii.getBytes(StandardCharsets.ISO_8859_1))) {
+            throw new UnsupportedEncodingException("The charset " + charset + " is not compatible with ASCII");
+        }
+    }
+
+    /**
+     * @param name Column name of the header
+     * @param index Column index
+     * @param dbType Database type
+     * @return The column name, in upper case for H2 if it is a simple name as done by {@link org.h2.tools.Csv},
+     * in lower case for PostgreSQL
+     */
+    private static String columnName(String name, int index, DBTypes dbType) {
+        if (name == null || name.isEmpty()) {
+            return "COLUMN" + index;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (ch != '_' && !(i == 0 ? Character.isLetter(ch) : Character.isLetterOrDigit(ch))) {
+                return name;
+            }
+        }
+        if (dbType == DBTypes.POSTGIS || dbType == DBTypes.POSTGRESQL) {
+            return name.toLowerCase(Locale.ENGLISH);
+        }
+        return name.toUpperCase(Locale.ENGLISH);
+    }
+
+    private static int findColumn(String[] names, String name) throws SQLException {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name.trim())) {
+                return i;
+            }
+        }
+        throw new SQLException("The geometry column " + name + " is not in the file");
+    }
+
+    /**
+     * Create the output table and import the rows
+     *
+     * @param connection Active connection
+     * @param outputTable Output table reference, the table must not exist
+     * @param inputStream File content, not closed
+     * @param channel File channel used to compute the progress, may be null
+     * @param progress Progress visitor following the execution
+     */
+    public void importFile(Connection connection, String outputTable, InputStream inputStream, FileChannel channel,
+                           ProgressVisitor progress) throws SQLException, IOException {
+        checkCharset();
+        CSVTokenizer tokenizer = new CSVTokenizer(inputStream, separator, quote, BUFFER_SIZE);
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            tokenizer.skipByteOrderMark();
+        }
+        if (!tokenizer.next()) {
+            throw new SQLException("The file has no header");
+        }
+        if (quote == 0 && separator == '\t' && tokenizer.isEmpty(0)) {
+            throw new SQLException("The header starts with a tab, the values are delimited by tabs as written by "
+                    + "TSVWrite. The typed import reads TSV files without delimiters");
+        }
+        DBTypes dbType = DBUtils.getDBType(connection);
+        int columnCount = tokenizer.getFieldCount();
+        String[] names = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = columnName(tokenizer.getString(i, charset), i, dbType);
+        }
+        // Find the column types from the first rows, then read them again
+        ColumnType[] types = new ColumnType[columnCount];
+        tokenizer.mark();
+        for (int row = 0; row < sampleSize && tokenizer.getMarkedSize() < SAMPLE_MAX_BYTES && tokenizer.next(); row++) {
+            for (int i = 0; i < Math.min(columnCount, tokenizer.getFieldCount()); i++) {
+                if (!tokenizer.isEmpty(i)) {
+                    types[i] = ColumnType.merge(types[i], ColumnType.of(tokenizer, i));
+                }
+            }
+        }
+        tokenizer.reset();
+        for (int i = 0; i < columnCount; i++) {
+            if (types[i] == null) {
+                types[i] = ColumnType.VARCHAR;
+            }
+        }
+        int xColumn = -1;
+        int yColumn = -1;
+        if (geometryColumns != null && geometryColumns.length == 2) {
+            xColumn = findColumn(names, geometryColumns[0]);
+            yColumn = findColumn(names, geometryColumns[1]);
+            types[xColumn] = ColumnType.DOUBLE;
+            types[yColumn] = ColumnType.DOUBLE;
+        } else if (geometryColumns != null) {
+            types[findColumn(names, geometryColumns[0])] = ColumnType.GEOMETRY;
+        }
+        String geometryType = srid != 0 ? "(%s, " + srid + ")" : "(%s)";
+        StringBuilder createTable = new StringBuilder("CREATE TABLE ").append(outputTable).append("(");
+        StringBuilder insertTable = new StringBuilder("INSERT INTO ").append(outputTable).append(" VALUES(");
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                createTable.append(",");
+                insertTable.append(",");
+            }
+            createTable.append(TableLocation.quoteIdentifier(names[i])).append(" ").append(types[i].sqlType);
+            if (types[i] == ColumnType.GEOMETRY && srid != 0) {
+                createTable.append(String.format(geometryType, "GEOMETRY"));
+            }
+            insertTable.append("?");
+        }
+        if (xColumn >= 0) {
+            createTable.append(", THE_GEOM GEOMETRY").append(String.format(geometryType, "POINT"));
+            insertTable.append(",?");
+        }
+        createTable.append(")");
+        insertTable.append(")");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(createTable.toString());
+        }
+        GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), srid);
+        WKTReader wktReader = new WKTReader(geometryFactory);
+        long fileSize = channel != null ? channel.size() : 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement pst = connection.prepareStatement(insertTable.toString())) {
+            long batchSize = 0;
+            long rowCount = 0;
+            while (tokenizer.next()) {
+                if (progress.isCanceled()) {
+                    throw new SQLException("Canceled by user");
+                }
+                for (int i = columnCount; i < tokenizer.getFieldCount(); i++) {
+                    if (!tokenizer.isEmpty(i)) {
+                        throw new SQLException("The line " + tokenizer.getLineNumber() + " has "
+                                + tokenizer.getFieldCount() + " values, expected " + columnCount);
+                    }
+                }
+                for (int i = 0; i < columnCount; i++) {
+                    ColumnType type = types[i];
+                    if (type == ColumnType.VARCHAR ? tokenizer.isNull(i) : tokenizer.isEmpty(i)) {
+                        pst.setNull(i + 1, type.jdbcType);
+                        continue;
+                    }
+                    try {
+                        switch (type) {
+                            case INTEGER:
+                                long value = tokenizer.getLong(i);
+                                if (value != (int) value) {
+                                    throw new NumberFormatException("Integer out of range");
+                                }
+                                pst.setInt(i + 1, (int) value);
+                                break;
+                            case BIGINT:
+                                pst.setLong(i + 1, tokenizer.getLong(i));
+                                break;
+                            case DOUBLE:
+                                pst.setDouble(i + 1, tokenizer.getDouble(i));
+                                break;
+                            case BOOLEAN:
+                                pst.setBoolean(i + 1, tokenizer.getBoolean(i));
+                                break;
+                            case GEOMETRY:
+                                String wkt = tokenizer.getString(i, charset);
+                                if (wkt.regionMatches(true, 0, "SRID=", 0, 5) && wkt.indexOf(';') > 0) {
+                                    wkt = wkt.substring(wkt.indexOf(';') + 1);
+                                }
+                                pst.setObject(i + 1, wktReader.read(wkt));
+                                break;
+                            default:
+                                pst.setString(i + 1, tokenizer.getString(i, charset));
+                        }
+                    } catch (IllegalArgumentException | ParseException ex) {
+                        throw new SQLException("Unexpected value '" + tokenizer.getString(i, charset) + "' for the "
+                                + type.sqlType + " column " + names[i] + " in the line " + tokenizer.getLineNumber()
+                                + ", increase the " + SAMPLE_SIZE + " option to find the column types from more rows", ex);
+                    }
+                }
+                if (xColumn >= 0) {
+                    if (tokenizer.isEmpty(xColumn) || tokenizer.isEmpty(yColumn)) {
+                        pst.setNull(columnCount + 1, Types.OTHER);
+                    } else {
+                        Geometry point = geometryFactory.createPoint(new Coordinate(tokenizer.getDouble(xColumn),
+                                tokenizer.getDouble(yColumn)));
+                        pst.setObject(columnCount + 1, point);
+                    }
+                }
+                pst.addBatch();
+                batchSize++;
+                if (batchSize >= BATCH_MAX_SIZE) {
+                    pst.executeBatch();
+                    connection.commit();
+                    pst.clearBatch();
+                    batchSize = 0;
+                }
+                if (++rowCount % PROGRESS_ROWS == 0 && fileSize > 0) {
+                    progress.setStep((int) (((double) channel.position() / fileSize) * 100));
+                }
+            }
+            if (batchSize > 0) {
+                pst.executeBatch();
+                connection.commit();
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
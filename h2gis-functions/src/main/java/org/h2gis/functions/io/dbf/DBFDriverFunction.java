@@ -32,6 +32,8 @@ import org.h2gis.functions.io.dbf.internal.DbaseFileException;
 import org.h2gis.functions.io.dbf.internal.DbaseFileHeader;
 import org.h2gis.functions.io.file_table.FileEngine;
 import org.h2gis.functions.io.file_table.H2TableIndex;
+import org.h2gis.functions.io.utility.DeferredIndexes;
+import org.h2gis.functions.io.utility.ImportOptions;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 
@@ -231,8 +233,10 @@ public class DBFDriverFunction implements DriverFunction {
             }
             //Check if a cpg file exists
             //TODO:
+            ImportOptions importOptions = new ImportOptions(options);
+            DeferredIndexes indexes = new DeferredIndexes(connection, importOptions);
             DBFDriver dbfDriver = new DBFDriver();
-            dbfDriver.initDriverFromFile(fileName, options);
+            dbfDriver.initDriverFromFile(fileName, importOptions.getEncoding());
             DbaseFileHeader dbfHeader = dbfDriver.getDbaseFileHeader();
             ProgressVisitor copyProgress = progress.subProcess((int) (dbfDriver.getRowCount() / BATCH_MAX_SIZE));
             if (dbfHeader.getNumFields() == 0) {
@@ -244,8 +248,8 @@ public class DBFDriverFunction implements DriverFunction {
                         List<Column> otherCols = new ArrayList<>(dbfHeader.getNumFields() + 1);
                         String types = getSQLColumnTypes(dbfHeader, DBUtils.getDBType(connection), otherCols);
                         String pkColName = FileEngine.getUniqueColumnName(H2TableIndex.PK_COLUMN_NAME, otherCols);
-                        st.execute(String.format("CREATE TABLE %s (" + pkColName + " INT PRIMARY KEY, %s)", outputTable,
-                                types));
+                        st.execute(String.format("CREATE TABLE %s (" + pkColName + " INT"
+                                + indexes.primaryKey(outputTable, pkColName) + ", %s)", outputTable, types));
                     }
                     try {
                         connection.setAutoCommit(false);
@@ -276,6 +280,7 @@ public class DBFDriverFunction implements DriverFunction {
                                 preparedStatement.clearBatch();
                             }
                         }
+                        indexes.create();
                     } catch (Exception ex) {
                         connection.setAutoCommit(true);
                         connection.createStatement().execute("DROP TABLE IF EXISTS " + outputTable);
@@ -46,7 +46,9 @@ public class DBFRead  extends AbstractFunction implements ScalarFunction {
                         "\n path of the file, table name"+
                         "\n path of the file, table name, true to delete the table name"+
                         "\n path of the file, table name, encoding chartset"+
-                        "\n path of the file, table name, encoding chartset, true to delete the table name");
+                        "\n path of the file, table name, encoding chartset, true to delete the table name"+
+                        "\n The encoding chartset can be replaced by options 'encoding=cp1252 bulkLoad=true'"+
+                        "\n bulkLoad creates the primary key after loading the rows");
     }
 
     @Override
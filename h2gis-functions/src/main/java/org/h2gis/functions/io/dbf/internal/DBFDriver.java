@@ -36,6 +36,7 @@ public class DBFDriver implements FileDriver {
     private File dbfFile;
     protected DbaseFileReader dbaseFileReader;
     protected DbaseFileWriter dbaseFileWriter;
+    private boolean memoryMapped = false;
 
     /**
      * Init file header for DBF File
@@ -54,7 +55,35 @@ public class DBFDriver implements FileDriver {
         // Read columns from files metadata
         this.dbfFile = dbfFile;
         FileInputStream fis = new FileInputStream(dbfFile);
-        dbaseFileReader = new DbaseFileReader(fis.getChannel(), forceEncoding);
+        dbaseFileReader = new DbaseFileReader(fis.getChannel(), forceEncoding, memoryMapped);
+    }
+
+    /**
+     * @return A driver that reads the same file with its own read state
+     */
+    @Override
+    public DBFDriver createReader() {
+        checkReader();
+        DBFDriver reader = new DBFDriver();
+        reader.dbfFile = dbfFile;
+        reader.memoryMapped = memoryMapped;
+        reader.dbaseFileReader = dbaseFileReader.duplicate();
+        return reader;
+    }
+
+    /**
+     * @return True if the file is mapped in memory
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * @param memoryMapped If true the file is mapped in memory, in order to avoid copying the file content on
+     *                     random access. Must be set before calling initDriverFromFile.
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
     }
 
     public void initDriver(File dbfFile, DbaseFileHeader dbaseHeader) throws IOException {
@@ -147,6 +176,13 @@ public class DBFDriver implements FileDriver {
         return dbaseFileReader.getFieldValue((int)rowId, columnId);
     }
 
+    @Override
+    public int getRows(long firstRowId, int rowCount, int[] columns, Object[][] buffer) throws IOException {
+        int readCount = (int) Math.max(0, Math.min(rowCount, getRowCount() - firstRowId));
+        dbaseFileReader.getFieldValues((int) firstRowId, readCount, columns, columns, buffer);
+        return readCount;
+    }
+
     /**
      * Get the file reader
      * @return {@link DbaseFileReader}
@@ -31,6 +31,7 @@ import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 
 /**
@@ -73,6 +74,22 @@ public class DbaseFileReader {
     private CharsetDecoder decoder;
     private char[] fieldTypes;
     private int[] fieldLengths;
+    /**
+     * Offset of each field from the start of the record, the first byte of the record is the deletion flag
+     */
+    private int[] fieldOffsets;
+    /**
+     * True if the file encoding reads ASCII bytes as ASCII characters, then fields are parsed from bytes
+     */
+    private boolean asciiCompatible;
+    /**
+     * Reusable buffer of a single field
+     */
+    private byte[] fieldBuffer;
+    /**
+     * False if the channel is shared with the reader that created this one
+     */
+    private boolean ownsChannel = true;
     private static final Logger LOG = LoggerFactory.getLogger(DbaseFileReader.class);
 
     /**
@@ -83,16 +100,29 @@ public class DbaseFileReader {
      */
     public DbaseFileReader(FileChannel channel, String forceEncoding)
             throws IOException {
+        this(channel, forceEncoding, false);
+    }
+
+    /**
+     * Creates a new instance of DBaseFileReader
+     *
+     * @param channel The readable channel to use.
+     * @param forceEncoding File encoding to use, null will use the file encoding provided in the file header
+     * @param memoryMapped True to map the file in memory, see {@link ReadBufferManager}
+     * @throws java.io.IOException If an error occurs while initializing.
+     */
+    public DbaseFileReader(FileChannel channel, String forceEncoding, boolean memoryMapped)
+            throws IOException {
         this.channel = channel;
 
         header = new DbaseFileHeader();
         header.readHeader(channel, forceEncoding);
 
-        init();
+        init(memoryMapped);
     }
 
-    private void init() throws IOException {
-        buffer = new ReadBufferManager(channel);
+    private void init(boolean memoryMapped) throws IOException {
+        buffer = new ReadBufferManager(channel, memoryMapped);
 
         // The entire file is in little endian
         buffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -101,14 +131,52 @@ public class DbaseFileReader {
         // Set up some buffers and lookups for efficiency
         fieldTypes = new char[numFields];
         fieldLengths = new int[numFields];
+        fieldOffsets = new int[numFields];
+        int fieldOffset = 1;
         for (int i = 0, ii = numFields; i < ii; i++) {
             fieldTypes[i] = header.getFieldType(i);
             fieldLengths[i] = header.getFieldLength(i);
+            fieldOffsets[i] = fieldOffset;
+            fieldOffset += fieldLengths[i];
         }
 
         charBuffer = CharBuffer.allocate(header.getRecordLength() - 1);
+        fieldBuffer = new byte[Math.max(0, header.getRecordLength())];
         Charset chars = Charset.forName(header.getFileEncoding());
         decoder = chars.newDecoder();
+        asciiCompatible = isAsciiCompatible(chars);
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        return new String(ascii, charset).equals(new String(ascii, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Create a reader of the same file with its own read state. The channel is not closed by the new reader.
+     *
+     * @return A reader that can be used concurrently with this one
+     */
+    public DbaseFileReader duplicate() {
+        DbaseFileReader reader = new DbaseFileReader();
+        reader.channel = channel;
+        reader.header = header;
+        reader.buffer = buffer.duplicate();
+        reader.fieldTypes = fieldTypes;
+        reader.fieldLengths = fieldLengths;
+        reader.fieldOffsets = fieldOffsets;
+        reader.asciiCompatible = asciiCompatible;
+        reader.fieldBuffer = new byte[fieldBuffer.length];
+        reader.charBuffer = CharBuffer.allocate(charBuffer.capacity());
+        reader.decoder = decoder.charset().newDecoder();
+        reader.ownsChannel = false;
+        return reader;
+    }
+
+    private DbaseFileReader() {
     }
 
     /**
@@ -128,7 +196,7 @@ public class DbaseFileReader {
      * @throws java.io.IOException If an error occurs.
      */
     public void close() throws IOException {
-        if (channel != null && channel.isOpen()) {
+        if (ownsChannel && channel != null && channel.isOpen()) {
             channel.close();
         }
 
@@ -151,17 +219,41 @@ public class DbaseFileReader {
     }
 
     public Value getFieldValue(int row, int column) throws IOException {
-        long fieldPosition = getPositionFor(row, column);
-        int fieldLength = getLengthFor(column);
-        byte[] fieldBytes = getBytes(fieldPosition, fieldLength);
-        ByteBuffer field = ByteBuffer.wrap(fieldBytes);
+        buffer.get(getPositionFor(row, column), fieldBuffer, 0, fieldLengths[column]);
+        return readValue(fieldBuffer, 0, column);
+    }
 
+    /**
+     * Read the fields of consecutive records. The records are read from the file in a single block.
+     * @param firstRow First record index
+     * @param rowCount Number of records to read
+     * @param columns Field index to read
+     * @param targetColumns Index in the destination row of each read field
+     * @param rows Destination rows
+     * @throws IOException Read error
+     */
+    public void getFieldValues(int firstRow, int rowCount, int[] columns, int[] targetColumns, Object[][] rows)
+            throws IOException {
+        if (rowCount <= 0 || columns.length == 0) {
+            return;
+        }
+        int recordLength = header.getRecordLength();
+        byte[] records = getBytes(header.getHeaderLength() + (long) firstRow * recordLength,
+                rowCount * recordLength);
+        for (int row = 0; row < rowCount; row++) {
+            int recordOffset = row * recordLength;
+            for (int i = 0; i < columns.length; i++) {
+                rows[row][targetColumns[i]] = readValue(records, recordOffset + fieldOffsets[columns[i]],
+                        columns[i]);
+            }
+        }
+    }
+
+    private Value decodeField(ByteBuffer field, int column) throws IOException {
         charBuffer.clear();
         decoder.decode(field, charBuffer, true);
         charBuffer.flip();
-
         return readObject(0, column);
-
     }
 
     public int getLengthFor(int column) {
@@ -169,14 +261,183 @@ public class DbaseFileReader {
     }
 
     protected long getPositionFor(int row, int column) {
-        long recordOffset = header.getHeaderLength() + (long) row
-                * header.getRecordLength() + 1;
-        long fieldOffset = 0;
-        for (int i = 0; i < column; i++) {
-            fieldOffset += header.getFieldLength(i);
+        return header.getHeaderLength() + (long) row * header.getRecordLength() + fieldOffsets[column];
+    }
+
+    /**
+     * Parse a field. Numbers, dates and booleans are parsed from the bytes, strings made of ASCII characters
+     * are built without the charset decoder.
+     * @param bytes Bytes that contain the field
+     * @param offset Offset of the field in the array
+     * @param column Field index
+     * @return Field value
+     */
+    private Value readValue(byte[] bytes, int offset, int column) throws IOException {
+        final int fieldLen = fieldLengths[column];
+        if (!asciiCompatible || fieldLen <= 0) {
+            return decodeField(ByteBuffer.wrap(bytes, offset, fieldLen), column);
+        }
+        switch (fieldTypes[column]) {
+            case 'l':
+            case 'L':
+                switch (bytes[offset]) {
+                    case 't':
+                    case 'T':
+                    case 'Y':
+                    case 'y':
+                        return ValueBoolean.TRUE;
+                    case 'f':
+                    case 'F':
+                    case 'N':
+                    case 'n':
+                        return ValueBoolean.FALSE;
+                    default:
+                        //Should be interpreted as null
+                        return ValueNull.INSTANCE;
+                }
+            case 'c':
+            case 'C':
+                return readString(bytes, offset, fieldLen, column);
+            case 'd':
+            case 'D':
+                if (fieldLen < 8) {
+                    break;
+                }
+                return readDate(bytes, offset, fieldLen);
+            case 'n':
+            case 'N':
+                // numbers that begin with '*' are considered null
+                if (bytes[offset] == '*') {
+                    return ValueNull.INSTANCE;
+                }
+                if (header.getFieldDecimalCount(column) == 0) {
+                    Value value = readInteger(bytes, offset, fieldLen);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                // Not an integer, parse a floating point number
+            case 'f':
+            case 'F':
+                //Null float
+                if (bytes[offset] == '*') {
+                    return ValueNull.INSTANCE;
+                }
+                String numberString = new String(bytes, offset, fieldLen, StandardCharsets.ISO_8859_1).trim();
+                try {
+                    return ValueDouble.get(Double.parseDouble(numberString));
+                } catch (NumberFormatException e) {
+                    // May be the decimal operator is exotic
+                    if (numberString.contains(",")) {
+                        return ValueDouble.get(Double.parseDouble(numberString.replace(",", ".")));
+                    } else {
+                        return ValueNull.INSTANCE;
+                    }
+                }
+            default:
+                break;
+        }
+        return decodeField(ByteBuffer.wrap(bytes, offset, fieldLen), column);
+    }
+
+    private static boolean isBlank(byte b) {
+        // Same as c == 0 || Character.isWhitespace(c) for ASCII characters
+        return b == 0 || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x20);
+    }
+
+    private Value readString(byte[] bytes, int offset, int fieldLen, int column) throws IOException {
+        //Null String
+        if (bytes[offset] == 0) {
+            return ValueNull.INSTANCE;
+        }
+        int start = offset;
+        int end = offset + fieldLen - 1;
+        // trim off whitespace and 'zero' chars
+        while (start < end && isBlank(bytes[start])) {
+            start++;
+        }
+        while (end > start && isBlank(bytes[end])) {
+            end--;
+        }
+        for (int i = start; i <= end; i++) {
+            if (bytes[i] < 0) {
+                // Not an ASCII character, use the charset decoder
+                return decodeField(ByteBuffer.wrap(bytes, offset, fieldLen), column);
+            }
+        }
+        return ValueVarchar.get(new String(bytes, start, end + 1 - start, StandardCharsets.ISO_8859_1));
+    }
+
+    private Value readDate(byte[] bytes, int offset, int fieldLen) {
+        String date = new String(bytes, offset, fieldLen, StandardCharsets.ISO_8859_1);
+        if (date.equals("00000000")) {
+            return ValueNull.INSTANCE;
         }
+        try {
+            if (!date.substring(0, 4).trim().isEmpty()) {
+                Integer.parseInt(date.substring(0, 4));
+                Integer.parseInt(date.substring(4, 6));
+                Integer.parseInt(date.substring(6, 8));
+            }
+            // Dates are not read
+            return ValueNull.INSTANCE;
+        } catch (NumberFormatException nfe) {
+            LOG.warn("There was an error parsing a date. Ignoring it.", nfe);
+            return null;
+        }
+    }
 
-        return fieldOffset + recordOffset;
+    /**
+     * @return The integer value or null if the field is not an integer
+     */
+    private static Value readInteger(byte[] bytes, int offset, int fieldLen) {
+        int start = offset;
+        int end = offset + fieldLen;
+        // Same as String.trim()
+        while (start < end && (bytes[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        boolean negative = false;
+        int pos = start;
+        if (pos < end && (bytes[pos] == '-' || bytes[pos] == '+')) {
+            negative = bytes[pos] == '-';
+            pos++;
+        }
+        // Up to 18 digits cannot overflow a long
+        if (pos == end || end - pos > 18) {
+            return pos == end ? null : readLargeInteger(bytes, start, end);
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = bytes[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return ValueInteger.get((int) value);
+        }
+        return ValueBigint.get(value);
+    }
+
+    private static Value readLargeInteger(byte[] bytes, int start, int end) {
+        try {
+            // May contain leading zeros
+            long value = Long.parseLong(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return ValueInteger.get((int) value);
+            }
+            return ValueBigint.get(value);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
     }
 
     private Value readObject(final int fieldOffset, final int fieldNum) throws IOException {
@@ -27,6 +27,8 @@ import org.h2gis.api.DriverFunction;
 import org.h2gis.api.ProgressVisitor;
 import org.h2gis.functions.io.DriverManager;
 import org.h2gis.functions.io.fgb.fileTable.FGBDriver;
+import org.h2gis.functions.io.utility.DeferredIndexes;
+import org.h2gis.functions.io.utility.ImportOptions;
 import org.h2gis.utilities.FileUtilities;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
@@ -101,6 +103,10 @@ public class FGBDriverFunction implements DriverFunction {
                     fgbWriteDriver.setCreateIndex(Boolean.parseBoolean(value));
                 } else if (key.equalsIgnoreCase("nodeSize")) {
                     fgbWriteDriver.setPackedRTreeNodeSize(Short.parseShort(value.trim()));
+                } else if (key.equalsIgnoreCase("hilbertOrder")) {
+                    fgbWriteDriver.setHilbertOrder(Boolean.parseBoolean(value));
+                } else if (key.equalsIgnoreCase("spillThreshold")) {
+                    fgbWriteDriver.setSpillThreshold(Long.parseLong(value.trim()));
                 }
             }
         }
@@ -138,6 +144,7 @@ public class FGBDriverFunction implements DriverFunction {
         final DBTypes dbType = DBUtils.getDBType(connection);
         if (FileUtilities.isFileImportable(fileName, "fgb")) {
         String sqlTableName = TableLocation.parse(tableReference, dbType).toString();
+        ImportOptions importOptions = new ImportOptions(options);
         // forge the sql query to create table
         try(Statement st = connection.createStatement()) {
             if(deleteTables) {
@@ -163,6 +170,8 @@ public class FGBDriverFunction implements DriverFunction {
             }
             createTableQuery.append(")");
             st.execute(createTableQuery.toString());
+            DeferredIndexes indexes = new DeferredIndexes(connection, importOptions);
+            indexes.spatialIndex(sqlTableName, "THE_GEOM");
             StringBuilder preparedStatementQuery = new StringBuilder("INSERT INTO ");
             preparedStatementQuery.append(sqlTableName);
             preparedStatementQuery.append("(");
@@ -203,6 +212,7 @@ public class FGBDriverFunction implements DriverFunction {
                     pst.clearBatch();
                 }
             }
+            indexes.create();
             return new String[]{sqlTableName};
         }
         }
@@ -20,13 +20,17 @@
 package org.h2gis.functions.io.fgb;
 
 import org.h2.command.ddl.CreateTableData;
+import org.h2.result.SortOrder;
 import org.h2.table.Column;
+import org.h2.table.IndexColumn;
 import org.h2.value.ExtTypeInfo;
 import org.h2.value.ExtTypeInfoGeometry;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2gis.functions.io.fgb.fileTable.FGBDriver;
+import org.h2gis.functions.io.fgb.fileTable.FGBSpatialIndex;
 import org.h2gis.functions.io.file_table.FileEngine;
+import org.h2gis.functions.io.file_table.H2MVTable;
 import org.h2gis.utilities.GeometryTypeCodes;
 import org.wololo.flatgeobuf.ColumnMeta;
 import org.wololo.flatgeobuf.HeaderMeta;
@@ -146,6 +150,20 @@ public class FGBEngine extends FileEngine<FGBDriver> {
         }
     }
 
+    @Override
+    protected void feedIndexes(FGBDriver driver, H2MVTable table, CreateTableData data) {
+        if (driver.hasSpatialIndex()) {
+            // First column is the primary key
+            Column geometryColumn = table.getColumn(driver.getGeometryFieldIndex() + 1);
+            IndexColumn indexColumn = new IndexColumn(geometryColumn.getName());
+            indexColumn.column = geometryColumn;
+            indexColumn.sortType = SortOrder.ASCENDING;
+            table.addDriverIndex(new FGBSpatialIndex(driver, table, table.getId(),
+                    data.schema.getUniqueIndexName(data.session, table, data.tableName + "." +
+                            geometryColumn.getName() + "_SPATIAL_INDEX_"), indexColumn));
+        }
+    }
+
     /**
      * @param columnMeta
      * @return H2 {@see Value}
@@ -19,6 +19,10 @@
  */
 package org.h2gis.functions.io.fgb;
 
+import org.h2.value.Value;
+import org.h2.value.ValueBoolean;
+import org.h2.value.ValueNull;
+import org.h2.value.ValueVarchar;
 import org.h2gis.api.AbstractFunction;
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.api.ScalarFunction;
@@ -42,7 +46,10 @@ public class FGBRead extends AbstractFunction implements ScalarFunction {
                 + "\nFGBRead(..."
                 + "\n Supported arguments :"
                 + "\n path of the file, table name"
-                + "\n path of the file, table name, true to delete the table if exists");
+                + "\n path of the file, table name, true to delete the table if exists"
+                + "\n path of the file, table name, options"
+                + "\n path of the file, table name, options, true to delete the table if exists"
+                + "\n The options are 'bulkLoad=true spatialIndex=true', spatialIndex creates a spatial index");
     }
 
     @Override
@@ -57,11 +64,34 @@ public class FGBRead extends AbstractFunction implements ScalarFunction {
      * @param fileName       FlatGeobuf file name or URI
      * @param tableReference Table name or select query Note : The select query
      *                       must be enclosed in parenthesis
+     * @param option         true to delete the table if exists, or key=value options
      */
-    public static void execute(Connection connection, String fileName, String tableReference, boolean deleteTable) throws SQLException, IOException {
+    public static void execute(Connection connection, String fileName, String tableReference, Value option) throws SQLException, IOException {
+        String options = null;
+        boolean deleteTable = false;
+        if (option instanceof ValueBoolean) {
+            deleteTable = option.getBoolean();
+        } else if (option instanceof ValueVarchar) {
+            options = option.getString();
+        } else if (!(option instanceof ValueNull)) {
+            throw new SQLException("Supported optional parameter is boolean or varchar");
+        }
+        execute(connection, fileName, tableReference, options, deleteTable);
+    }
+
+    /**
+     * Read a FlatGeobuf file and copy it into a table.
+     *
+     * @param connection     Active connection
+     * @param fileName       FlatGeobuf file name or URI
+     * @param tableReference Table name
+     * @param options        key=value options see {@link org.h2gis.functions.io.utility.ImportOptions}
+     * @param deleteTable    true to delete the table if exists
+     */
+    public static void execute(Connection connection, String fileName, String tableReference, String options, boolean deleteTable) throws SQLException, IOException {
         File file = URIUtilities.fileFromString(fileName);
         FGBDriverFunction driver = new FGBDriverFunction();
-        driver.importFile(connection, tableReference, file, deleteTable ,new EmptyProgressVisitor());
+        driver.importFile(connection, tableReference, file, options, deleteTable, new EmptyProgressVisitor());
     }
 
     /**
@@ -73,6 +103,6 @@ public class FGBRead extends AbstractFunction implements ScalarFunction {
      *                       must be enclosed in parenthesis
      */
     public static void execute(Connection connection, String fileName, String tableReference) throws IOException, SQLException {
-        execute(connection, fileName, tableReference, false);
+        execute(connection, fileName, tableReference, null, false);
     }
 }
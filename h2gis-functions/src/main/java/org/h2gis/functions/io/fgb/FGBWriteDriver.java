@@ -37,17 +37,23 @@ import org.wololo.flatgeobuf.generated.ColumnType;
 import org.wololo.flatgeobuf.generated.Feature;
 import org.wololo.flatgeobuf.generated.GeometryType;
 
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -58,6 +64,7 @@ import java.sql.Types;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -71,11 +78,22 @@ import java.util.regex.Pattern;
  */
 public class FGBWriteDriver {
     private final static int BYTEBUFFER_CACHE = 1024;
+    // Hilbert curve resolution of the reference FlatGeobuf writer
+    final static int HILBERT_MAX = (1 << 16) - 1;
+    // PackedRTree.calcSize fails above this number of items
+    private final static long MAX_MEMORY_ITEMS = 1 << 24;
 
     short packedRTreeNodeSize = 16;
 
     boolean createIndex = true;
 
+    boolean hilbertOrder = false;
+
+    long spillThreshold = 1 << 20;
+
+    // Number of feature items sorted in memory at once when they are kept in temporary files
+    int spillRunSize = 1 << 19;
+
     private final Connection connection;
 
     public FGBWriteDriver(Connection connection) {
@@ -99,6 +117,35 @@ public class FGBWriteDriver {
         this.createIndex = createIndex;
     }
 
+    public boolean isHilbertOrder() {
+        return hilbertOrder;
+    }
+
+    /**
+     * Write the features in the order of the Hilbert curve of their envelope center, as the reference FlatGeobuf
+     * writer does. The spatial index then reference contiguous features. The features are written in a temporary
+     * file before being copied in the output file.
+     *
+     * @param hilbertOrder true to sort the features
+     */
+    public void setHilbertOrder(boolean hilbertOrder) {
+        this.hilbertOrder = hilbertOrder;
+    }
+
+    public long getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    /**
+     * Number of features above which the envelopes and the offsets of the features are kept in temporary files
+     * instead of the heap, to build the spatial index or the Hilbert order of a large table.
+     *
+     * @param spillThreshold maximum number of feature items kept in memory
+     */
+    public void setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
     /**
      * Write the spatial table to a FlatGeobuf file
      *
@@ -202,6 +249,12 @@ public class FGBWriteDriver {
     }
 
     private String doExport(ProgressVisitor progress, ResultSet rs, String geometryColumn, String geometryType, int srid,  int recordCount, FileOutputStream outputStream, String fileName) throws SQLException, IOException {
+        try (TemporaryFiles temporaryFiles = new TemporaryFiles()) {
+            return doExport(progress, rs, geometryColumn, geometryType, srid, recordCount, outputStream, fileName, temporaryFiles);
+        }
+    }
+
+    private String doExport(ProgressVisitor progress, ResultSet rs, String geometryColumn, String geometryType, int srid,  int recordCount, FileOutputStream outputStream, String fileName, TemporaryFiles temporaryFiles) throws SQLException, IOException {
 
         FlatBufferBuilder bufferBuilder = new FlatBufferBuilder();
 
@@ -212,9 +265,17 @@ public class FGBWriteDriver {
         //Columns numbers
         int columnCount = header.columns.size();
         List<PackedRTree.Item> envelopes = null;
-        if(createIndex && header.featuresCount < Integer.MAX_VALUE) {
-            envelopes = new ArrayList<>((int) header.featuresCount);
-            long indexSize = PackedRTree.calcSize((int) header.featuresCount, packedRTreeNodeSize);
+        FeatureItemSpill spilledItems = null;
+        if(createIndex || hilbertOrder) {
+            if (header.featuresCount > spillThreshold || header.featuresCount > MAX_MEMORY_ITEMS) {
+                spilledItems = temporaryFiles.createSpill(spillRunSize);
+            } else {
+                envelopes = new ArrayList<>((int) header.featuresCount);
+            }
+        }
+        boolean keepItems = envelopes != null || spilledItems != null;
+        if(createIndex && keepItems) {
+            long indexSize = FeatureItemSpill.calcSize(header.featuresCount, packedRTreeNodeSize);
             byte[] buffer = new byte[512];
             long written = 0;
             while (written < indexSize) {
@@ -225,6 +286,13 @@ public class FGBWriteDriver {
                 written += buffer.length;
             }
         }
+        // The features are sorted after being written in a temporary file
+        FileChannel featuresChannel = null;
+        OutputStream featuresStream = outputStream;
+        if (hilbertOrder && keepItems) {
+            featuresChannel = temporaryFiles.createFeaturesChannel();
+            featuresStream = new BufferedOutputStream(Channels.newOutputStream(featuresChannel));
+        }
         //Let's iterate the resultset
         long featureAddressPointer = 0;
         ByteBuffer bufferManager = ByteBuffer.allocate(BYTEBUFFER_CACHE);
@@ -320,8 +388,9 @@ public class FGBWriteDriver {
                 geometryOffset = GeometryConversions.serialize(bufferBuilder, geom, header.geometryType);
             }
             int featureOffset = Feature.createFeature(bufferBuilder, geometryOffset, propertiesOffset, 0);
-            if (envelopes != null) {
-                PackedRTree.FeatureItem featureItem = new PackedRTree.FeatureItem();
+            PackedRTree.FeatureItem featureItem = null;
+            if (keepItems) {
+                featureItem = new PackedRTree.FeatureItem();
                 Envelope geomEnvelope;
                 if(geom != null && !geom.isEmpty()) {
                     geomEnvelope = geom.getEnvelopeInternal();
@@ -331,16 +400,48 @@ public class FGBWriteDriver {
                 }
                 featureItem.nodeItem = new NodeItem(geomEnvelope.getMinX(), geomEnvelope.getMinY(),
                         geomEnvelope.getMaxX(), geomEnvelope.getMaxY(), featureAddressPointer);
-                envelopes.add(featureItem);
+                featureItem.offset = featureAddressPointer;
+                if (envelopes != null) {
+                    envelopes.add(featureItem);
+                }
             }
             bufferBuilder.finishSizePrefixed(featureOffset);
             byte[] featureData = bufferBuilder.sizedByteArray();
+            if (featureItem != null) {
+                featureItem.size = featureData.length;
+                if (spilledItems != null) {
+                    spilledItems.add(featureItem.nodeItem, featureItem.offset, featureItem.size);
+                }
+            }
             featureAddressPointer += featureData.length;
-            outputStream.write(featureData);
+            featuresStream.write(featureData);
             bufferBuilder.clear();
             copyProgress.endStep();
         }
-        if(envelopes != null) {
+        if (spilledItems != null) {
+            spilledItems.sort();
+            if (featuresChannel != null) {
+                featuresStream.flush();
+                spilledItems.copyFeatures(featuresChannel, outputStream);
+            }
+            if (createIndex) {
+                FileChannel fileChannel = outputStream.getChannel();
+                fileChannel.position(endHeaderPosition);
+                spilledItems.writeIndex(fileChannel, packedRTreeNodeSize, featuresChannel != null);
+            }
+        } else if (featuresChannel != null) {
+            featuresStream.flush();
+            NodeItem extend = new NodeItem(0);
+            envelopes.forEach(x -> extend.expand(x.nodeItem));
+            envelopes = hilbertSort(envelopes, extend);
+            copySortedFeatures(featuresChannel, envelopes, outputStream);
+            if (createIndex) {
+                // The leaves follow the order of the features
+                PackedRTree packedRTree = new PackedRTree(envelopes, packedRTreeNodeSize);
+                outputStream.getChannel().position(endHeaderPosition);
+                packedRTree.write(outputStream);
+            }
+        } else if(createIndex && envelopes != null) {
             // Write spatial index after the header and before the first feature
             NodeItem extend = new NodeItem(0);
             envelopes.forEach(x -> extend.expand(x.nodeItem));
@@ -354,6 +455,99 @@ public class FGBWriteDriver {
         return "";
     }
 
+    /**
+     * Sort the items on the Hilbert curve of their envelope center, in the same order as
+     * {@link PackedRTree#hilbertSort(List, NodeItem)}. The Hilbert value of each item is computed once.
+     *
+     * @param items items to sort
+     * @param extent envelope of all the items
+     * @return sorted items
+     */
+    static List<PackedRTree.Item> hilbertSort(List<PackedRTree.Item> items, NodeItem extent) {
+        long[] keys = new long[items.size()];
+        double width = extent.width();
+        double height = extent.height();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = hilbertKey(items.get(i).nodeItem, i, extent, width, height);
+        }
+        Arrays.sort(keys);
+        List<PackedRTree.Item> sorted = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            sorted.add(items.get(hilbertKeyIndex(key)));
+        }
+        return sorted;
+    }
+
+    /**
+     * Sort key of an item on the Hilbert curve. The Hilbert value fits in 32 bits, the item index is kept
+     * in the low bits for a stable sort.
+     *
+     * @param nodeItem item envelope
+     * @param index item index
+     * @param extent envelope of all the items
+     * @param width width of the extent
+     * @param height height of the extent
+     * @return sort key
+     */
+    static long hilbertKey(NodeItem nodeItem, int index, NodeItem extent, double width, double height) {
+        long hilbert = PackedRTree.hibert(nodeItem, HILBERT_MAX, extent.minX, extent.minY, width, height);
+        return (hilbert << 31) | index;
+    }
+
+    /**
+     * @param key sort key built by {@link #hilbertKey(NodeItem, int, NodeItem, double, double)}
+     * @return item index
+     */
+    static int hilbertKeyIndex(long key) {
+        return (int) (key & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Copy the features from the temporary file in the order of the items, and set the item offsets to the
+     * location of the features in the output file
+     *
+     * @param featuresChannel temporary file that contains the features
+     * @param items feature items, the offset and size give the location in the temporary file
+     * @param outputStream output file, positioned on the first feature
+     */
+    private static void copySortedFeatures(FileChannel featuresChannel, List<PackedRTree.Item> items,
+                                           OutputStream outputStream) throws IOException {
+        OutputStream output = new BufferedOutputStream(outputStream, 64 * 1024);
+        ByteBuffer buffer = ByteBuffer.allocate(BYTEBUFFER_CACHE);
+        long featureAddressPointer = 0;
+        for (PackedRTree.Item item : items) {
+            PackedRTree.FeatureItem featureItem = (PackedRTree.FeatureItem) item;
+            int size = (int) featureItem.size;
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+            }
+            buffer.clear().limit(size);
+            readFully(featuresChannel, buffer, featureItem.offset);
+            output.write(buffer.array(), 0, size);
+            featureItem.offset = featureAddressPointer;
+            featureItem.nodeItem.offset = featureAddressPointer;
+            featureAddressPointer += size;
+        }
+        output.flush();
+    }
+
+    /**
+     * Fill the buffer from the given position of a temporary file
+     *
+     * @param channel temporary file
+     * @param buffer buffer to fill up to its limit
+     * @param position position in the file
+     */
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of the temporary file");
+            }
+            position += read;
+        }
+    }
+
     /**
      * Write the header
      *
@@ -365,6 +559,45 @@ public class FGBWriteDriver {
      * @param metadata flatbuffer metadata
      * @return flatbuffer header object
      */
+    /**
+     * Temporary files used to sort the features, deleted when the export ends
+     */
+    private static class TemporaryFiles implements Closeable {
+        private File featuresFile;
+        private FileChannel featuresChannel;
+        private FeatureItemSpill spilledItems;
+
+        /**
+         * @return channel of a temporary file receiving the unsorted features
+         */
+        FileChannel createFeaturesChannel() throws IOException {
+            featuresFile = File.createTempFile("h2gis_fgb", ".tmp");
+            featuresChannel = FileChannel.open(featuresFile.toPath(), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return featuresChannel;
+        }
+
+        /**
+         * @param runSize number of items sorted in memory
+         * @return items kept in temporary files
+         */
+        FeatureItemSpill createSpill(int runSize) throws IOException {
+            spilledItems = new FeatureItemSpill(runSize);
+            return spilledItems;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (featuresChannel != null) {
+                featuresChannel.close();
+                Files.deleteIfExists(featuresFile.toPath());
+            }
+            if (spilledItems != null) {
+                spilledItems.close();
+            }
+        }
+    }
+
     private HeaderMeta writeHeader(FileOutputStream outputStream, String fileName, FlatBufferBuilder bufferBuilder, long rowCount, String geometryType, int srid, ResultSetMetaData metadata) throws SQLException, IOException {
         outputStream.write(Constants.MAGIC_BYTES);
         //Get the column information
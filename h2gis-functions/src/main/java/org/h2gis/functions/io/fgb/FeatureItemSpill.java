@@ -0,0 +1,426 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; you can
+ * redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation; version 3.0 of
+ * the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.fgb;
+
+import org.wololo.flatgeobuf.NodeItem;
+import org.wololo.flatgeobuf.PackedRTree;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Feature items of a FlatGeobuf export kept in temporary files, to write the spatial index of a large table with a
+ * bounded heap. Each item is a fixed size record with the Hilbert value, the envelope, the offset and the size of
+ * a feature. The items are sorted by runs in memory, then the sorted runs are merged. The packed R-tree is built
+ * level by level in a temporary file, each level is computed by reading the level below.
+ */
+public class FeatureItemSpill implements Closeable {
+    // Hilbert value, minX, minY, maxX, maxY, offset, size
+    private static final int RECORD_SIZE = 7 * Long.BYTES;
+    private static final int HILBERT = 0;
+    private static final int MIN_X = 8;
+    private static final int MIN_Y = 16;
+    private static final int MAX_X = 24;
+    private static final int MAX_Y = 32;
+    private static final int OFFSET = 40;
+    private static final int SIZE = 48;
+    // minX, minY, maxX, maxY, offset
+    private static final int NODE_ITEM_LEN = 5 * Long.BYTES;
+    private static final int BUFFER_RECORDS = 1024;
+
+    private final int runSize;
+    private final List<Path> files = new ArrayList<>();
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final NodeItem extent = new NodeItem(0);
+    private FileChannel itemsChannel;
+    private long count = 0;
+    private boolean sorted = false;
+
+    /**
+     * @param runSize number of items sorted in memory at once
+     */
+    FeatureItemSpill(int runSize) throws IOException {
+        this.runSize = Math.max(2, runSize);
+        itemsChannel = createTempChannel();
+    }
+
+    /**
+     * Size of a packed R-tree, without the limit on the number of items of {@link PackedRTree#calcSize(int, int)}
+     *
+     * @param numItems number of features
+     * @param nodeSize number of children of a node
+     * @return size of the index in bytes
+     */
+    public static long calcSize(long numItems, int nodeSize) {
+        List<long[]> levels = levelBounds(numItems, nodeSize);
+        return levels.get(0)[1] * NODE_ITEM_LEN;
+    }
+
+    /**
+     * Range of the nodes of each level, from the leaves to the root. The root is the first node of the tree.
+     *
+     * @param numItems number of features
+     * @param nodeSize number of children of a node
+     * @return first node and node after the last one of each level
+     */
+    private static List<long[]> levelBounds(long numItems, int nodeSize) {
+        if (nodeSize < 2) {
+            throw new IllegalArgumentException("Node size must be at least 2");
+        }
+        if (numItems <= 0) {
+            throw new IllegalArgumentException("Number of items must be greater than 0");
+        }
+        nodeSize = Math.min(nodeSize, 65535);
+        List<Long> levelNumNodes = new ArrayList<>();
+        long n = numItems;
+        long numNodes = n;
+        levelNumNodes.add(n);
+        do {
+            n = (n + nodeSize - 1) / nodeSize;
+            numNodes += n;
+            levelNumNodes.add(n);
+        } while (n != 1);
+        List<long[]> levels = new ArrayList<>(levelNumNodes.size());
+        long offset = numNodes;
+        for (long size : levelNumNodes) {
+            offset -= size;
+            levels.add(new long[]{offset, offset + size});
+        }
+        return levels;
+    }
+
+    private FileChannel createTempChannel() throws IOException {
+        Path path = Files.createTempFile("h2gis_fgb", ".tmp");
+        files.add(path);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channels.add(channel);
+        return channel;
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Add a feature, in the order of the features in the file
+     *
+     * @param nodeItem envelope of the feature
+     * @param offset offset of the feature
+     * @param size size of the feature in bytes
+     */
+    void add(NodeItem nodeItem, long offset, long size) throws IOException {
+        if (writeBuffer.remaining() < RECORD_SIZE) {
+            flush(writeBuffer, itemsChannel);
+        }
+        writeBuffer.putLong(0).putDouble(nodeItem.minX).putDouble(nodeItem.minY).putDouble(nodeItem.maxX)
+                .putDouble(nodeItem.maxY).putLong(offset).putLong(size);
+        extent.expand(nodeItem);
+        count++;
+    }
+
+    /**
+     * @return number of items
+     */
+    long size() {
+        return count;
+    }
+
+    /**
+     * Sort the items on the Hilbert curve of their envelope center, in the same order as
+     * {@link FGBWriteDriver#hilbertSort(List, NodeItem)}
+     */
+    void sort() throws IOException {
+        flush(writeBuffer, itemsChannel);
+        int maxRunSize = (int) Math.min(count, runSize);
+        ByteBuffer run = ByteBuffer.allocate(maxRunSize * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long[] keys = new long[maxRunSize];
+        NodeItem nodeItem = new NodeItem(0);
+        double width = extent.width();
+        double height = extent.height();
+        FileChannel runsChannel = createTempChannel();
+        for (long first = 0; first < count; first += runSize) {
+            int runCount = (int) Math.min(runSize, count - first);
+            run.clear().limit(runCount * RECORD_SIZE);
+            FGBWriteDriver.readFully(itemsChannel, run, first * RECORD_SIZE);
+            for (int i = 0; i < runCount; i++) {
+                int base = i * RECORD_SIZE;
+                nodeItem.minX = run.getDouble(base + MIN_X);
+                nodeItem.minY = run.getDouble(base + MIN_Y);
+                nodeItem.maxX = run.getDouble(base + MAX_X);
+                nodeItem.maxY = run.getDouble(base + MAX_Y);
+                keys[i] = FGBWriteDriver.hilbertKey(nodeItem, i, extent, width, height);
+            }
+            Arrays.sort(keys, 0, runCount);
+            for (int i = 0; i < runCount; i++) {
+                int base = FGBWriteDriver.hilbertKeyIndex(keys[i]) * RECORD_SIZE;
+                if (writeBuffer.remaining() < RECORD_SIZE) {
+                    flush(writeBuffer, runsChannel);
+                }
+                writeBuffer.putLong(keys[i] >>> 31).put(run.array(), base + MIN_X, RECORD_SIZE - MIN_X);
+            }
+        }
+        flush(writeBuffer, runsChannel);
+        itemsChannel = count > runSize ? merge(runsChannel) : runsChannel;
+        sorted = true;
+    }
+
+    /**
+     * Merge the sorted runs, the items of the first run come first for equal Hilbert values
+     */
+    private FileChannel merge(FileChannel runsChannel) throws IOException {
+        FileChannel mergedChannel = createTempChannel();
+        PriorityQueue<RecordReader> queue = new PriorityQueue<>((a, b) -> {
+            int compare = Long.compare(a.getLong(HILBERT), b.getLong(HILBERT));
+            return compare != 0 ? compare : Long.compare(a.first, b.first);
+        });
+        for (long first = 0; first < count; first += runSize) {
+            RecordReader reader = new RecordReader(runsChannel, first * RECORD_SIZE,
+                    Math.min(runSize, count - first), RECORD_SIZE, false);
+            if (reader.next()) {
+                queue.add(reader);
+            }
+        }
+        while (!queue.isEmpty()) {
+            RecordReader reader = queue.poll();
+            if (writeBuffer.remaining() < RECORD_SIZE) {
+                flush(writeBuffer, mergedChannel);
+            }
+            writeBuffer.put(reader.buffer.array(), reader.base, RECORD_SIZE);
+            if (reader.next()) {
+                queue.add(reader);
+            }
+        }
+        flush(writeBuffer, mergedChannel);
+        return mergedChannel;
+    }
+
+    /**
+     * Copy the features from the temporary file in the order of the sorted items
+     *
+     * @param featuresChannel temporary file that contains the features
+     * @param outputStream output file, positioned on the first feature
+     */
+    void copyFeatures(FileChannel featuresChannel, OutputStream outputStream) throws IOException {
+        checkSorted();
+        OutputStream output = new BufferedOutputStream(outputStream, 64 * 1024);
+        ByteBuffer feature = ByteBuffer.allocate(1024);
+        RecordReader reader = new RecordReader(itemsChannel, 0, count, RECORD_SIZE, false);
+        while (reader.next()) {
+            int size = (int) reader.getLong(SIZE);
+            if (feature.capacity() < size) {
+                feature = ByteBuffer.allocate(Math.max(size, feature.capacity() * 2));
+            }
+            feature.clear().limit(size);
+            FGBWriteDriver.readFully(featuresChannel, feature, reader.getLong(OFFSET));
+            output.write(feature.array(), 0, size);
+        }
+        output.flush();
+    }
+
+    /**
+     * Write the packed R-tree of the sorted items
+     *
+     * @param outputChannel output file, positioned on the index
+     * @param nodeSize number of children of a node
+     * @param featuresCopied true if the features have been copied in the order of the items, the leaves are then
+     *                       in the same order. Otherwise, the leaves are written in the reverse order with the offsets
+     *                       of the features as they were added.
+     */
+    void writeIndex(FileChannel outputChannel, int nodeSize, boolean featuresCopied) throws IOException {
+        checkSorted();
+        FileChannel indexChannel = createTempChannel();
+        List<long[]> levels = levelBounds(count, nodeSize);
+        ByteBuffer nodes = ByteBuffer.allocate(BUFFER_RECORDS * NODE_ITEM_LEN).order(ByteOrder.LITTLE_ENDIAN);
+        // Leaves
+        long position = levels.get(0)[0] * NODE_ITEM_LEN;
+        RecordReader reader = new RecordReader(itemsChannel, 0, count, RECORD_SIZE, !featuresCopied);
+        long featureOffset = 0;
+        while (reader.next()) {
+            if (!nodes.hasRemaining()) {
+                position = write(nodes, indexChannel, position);
+            }
+            nodes.putDouble(reader.getDouble(MIN_X)).putDouble(reader.getDouble(MIN_Y))
+                    .putDouble(reader.getDouble(MAX_X)).putDouble(reader.getDouble(MAX_Y))
+                    .putLong(featuresCopied ? featureOffset : reader.getLong(OFFSET));
+            featureOffset += reader.getLong(SIZE);
+        }
+        write(nodes, indexChannel, position);
+        // Each parent level is computed from the level below, its offset is the index of its first child
+        NodeItem node = new NodeItem(0);
+        for (int level = 0; level < levels.size() - 1; level++) {
+            long[] bounds = levels.get(level);
+            position = levels.get(level + 1)[0] * NODE_ITEM_LEN;
+            RecordReader children = new RecordReader(indexChannel, bounds[0] * NODE_ITEM_LEN,
+                    bounds[1] - bounds[0], NODE_ITEM_LEN, false);
+            long child = bounds[0];
+            boolean hasNext = children.next();
+            while (hasNext) {
+                node.minX = Double.POSITIVE_INFINITY;
+                node.minY = Double.POSITIVE_INFINITY;
+                node.maxX = Double.NEGATIVE_INFINITY;
+                node.maxY = Double.NEGATIVE_INFINITY;
+                node.offset = child;
+                for (int i = 0; i < nodeSize && hasNext; i++) {
+                    double minX = children.getDouble(0);
+                    double minY = children.getDouble(8);
+                    double maxX = children.getDouble(16);
+                    double maxY = children.getDouble(24);
+                    // Same comparisons as NodeItem.expand
+                    if (minX < node.minX) {
+                        node.minX = minX;
+                    }
+                    if (minY < node.minY) {
+                        node.minY = minY;
+                    }
+                    if (maxX > node.maxX) {
+                        node.maxX = maxX;
+                    }
+                    if (maxY > node.maxY) {
+                        node.maxY = maxY;
+                    }
+                    child++;
+                    hasNext = children.next();
+                }
+                if (!nodes.hasRemaining()) {
+                    position = write(nodes, indexChannel, position);
+                }
+                nodes.putDouble(node.minX).putDouble(node.minY).putDouble(node.maxX).putDouble(node.maxY)
+                        .putLong(node.offset);
+            }
+            write(nodes, indexChannel, position);
+        }
+        long indexSize = levels.get(0)[1] * NODE_ITEM_LEN;
+        for (long copied = 0; copied < indexSize; ) {
+            copied += indexChannel.transferTo(copied, indexSize - copied, outputChannel);
+        }
+    }
+
+    private static long write(ByteBuffer buffer, FileChannel channel, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return position;
+    }
+
+    private void checkSorted() {
+        if (!sorted) {
+            throw new IllegalStateException("The feature items must be sorted first");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                exception = ex;
+            }
+        }
+        for (Path path : files) {
+            Files.deleteIfExists(path);
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Read fixed size records of a file with positional reads, forward or backward
+     */
+    private static class RecordReader {
+        private final FileChannel channel;
+        private final long first;
+        private final long count;
+        private final int recordSize;
+        private final boolean backward;
+        private final ByteBuffer buffer;
+        // Number of records read from the file
+        private long read = 0;
+        private int loaded = 0;
+        private int index = 0;
+        // Position of the current record in the buffer
+        private int base = -1;
+
+        /**
+         * @param channel file to read
+         * @param first position of the first record in the file
+         * @param count number of records
+         * @param recordSize size of a record
+         * @param backward true to read the records from the last one
+         */
+        RecordReader(FileChannel channel, long first, long count, int recordSize, boolean backward) {
+            this.channel = channel;
+            this.first = first;
+            this.count = count;
+            this.recordSize = recordSize;
+            this.backward = backward;
+            this.buffer = ByteBuffer.allocate((int) Math.min(BUFFER_RECORDS, Math.max(1, count)) * recordSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        boolean next() throws IOException {
+            if (index == loaded) {
+                if (read == count) {
+                    return false;
+                }
+                loaded = (int) Math.min(buffer.capacity() / recordSize, count - read);
+                long record = backward ? count - read - loaded : read;
+                buffer.clear().limit(loaded * recordSize);
+                FGBWriteDriver.readFully(channel, buffer, first + record * recordSize);
+                read += loaded;
+                index = 0;
+            }
+            int record = backward ? loaded - 1 - index : index;
+            base = record * recordSize;
+            index++;
+            return true;
+        }
+
+        long getLong(int field) {
+            return buffer.getLong(base + field);
+        }
+
+        double getDouble(int field) {
+            return buffer.getDouble(base + field);
+        }
+    }
+}
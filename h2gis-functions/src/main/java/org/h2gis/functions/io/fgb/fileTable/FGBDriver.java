@@ -26,6 +26,7 @@ import org.h2.result.Row;
 import org.h2.result.SearchRow;
 import org.h2.value.*;
 import org.h2gis.api.FileDriver;
+import org.h2gis.functions.io.fgb.FeatureItemSpill;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.io.WKTReader;
 import org.slf4j.Logger;
@@ -38,17 +39,20 @@ import org.wololo.flatgeobuf.generated.Feature;
 import org.wololo.flatgeobuf.generated.Geometry;
 import org.wololo.flatgeobuf.generated.GeometryType;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NoSuchElementException;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * FlatGeobuffer reader driver
@@ -64,6 +68,14 @@ public class FGBDriver implements FileDriver {
     private FileChannel fileChannel;
     private Value[] currentRow = new Value[0];
     private long rowIdPrevious = -1;
+    /**
+     * File position of the feature following rowIdPrevious
+     */
+    private long nextFeaturePosition;
+    /**
+     * False if this driver is a reader that shares the file of another driver
+     */
+    private boolean ownsFile = true;
 
     private boolean cacheRowAddress = true;
 
@@ -88,15 +100,36 @@ public class FGBDriver implements FileDriver {
         long treeSize =
                 headerMeta.featuresCount > 0 && headerMeta.indexNodeSize > 0
                         ?
-                        PackedRTree.calcSize(
-                                (int)headerMeta.featuresCount, headerMeta.indexNodeSize)
+                        FeatureItemSpill.calcSize(headerMeta.featuresCount, headerMeta.indexNodeSize)
                         : 0;
         featuresOffset = headerMeta.offset + treeSize;
         srid = headerMeta.srid;
-        rowIndexToFileLocation = new TreeMap<>();
+        rowIndexToFileLocation = new ConcurrentSkipListMap<>();
         currentRow = new Value[fieldCount];
     }
 
+    /**
+     * The features are read with positional reads, so the readers share the file channel and the cache of
+     * feature addresses.
+     * @return A driver that reads the same file with its own read position
+     */
+    @Override
+    public FGBDriver createReader() {
+        FGBDriver reader = new FGBDriver();
+        reader.headerMeta = headerMeta;
+        reader.fieldCount = fieldCount;
+        reader.geometryFieldIndex = geometryFieldIndex;
+        reader.srid = srid;
+        reader.fis = fis;
+        reader.fileChannel = fileChannel;
+        reader.cacheRowAddress = cacheRowAddress;
+        reader.featuresOffset = featuresOffset;
+        reader.rowIndexToFileLocation = rowIndexToFileLocation;
+        reader.currentRow = new Value[fieldCount];
+        reader.ownsFile = false;
+        return reader;
+    }
+
     public boolean isCacheRowAddress() {
         return cacheRowAddress;
     }
@@ -135,14 +168,42 @@ public class FGBDriver implements FileDriver {
 
     @Override
     public void close() throws IOException {
-        if (fis != null) fis.close();
+        if (fis != null && ownsFile) fis.close();
     }
 
     public Cursor queryIndex(Envelope queryEnvelope) throws IOException {
-        fileChannel.position(headerMeta.offset);
-        PackedRTree.SearchResult searchResult = PackedRTree.search(fis, 0, (int)headerMeta.featuresCount,
-                headerMeta.indexNodeSize, queryEnvelope);
-        return new FGBDriverCursor(searchResult, this);
+        return new FGBDriverCursor(searchIndex(queryEnvelope), this);
+    }
+
+    /**
+     * @return True if the file contains a packed R-tree that can be queried with {@link #searchIndex(Envelope)}
+     */
+    public boolean hasSpatialIndex() {
+        return headerMeta.featuresCount > 0 && headerMeta.indexNodeSize > 0;
+    }
+
+    /**
+     * Search the packed R-tree of the file
+     * @param queryEnvelope Envelope to intersect
+     * @return Features offset and index that intersects the provided envelope
+     * @throws IOException Read error
+     */
+    public PackedRTree.SearchResult searchIndex(Envelope queryEnvelope) throws IOException {
+        // The stream depends on the channel position, shared with the other readers
+        synchronized (fileChannel) {
+            fileChannel.position(headerMeta.offset);
+            return PackedRTree.search(fis, 0, (int)headerMeta.featuresCount,
+                    headerMeta.indexNodeSize, queryEnvelope);
+        }
+    }
+
+    /**
+     * @param featureAddress Feature address in the file relative to the first feature
+     * @return values from the a flatgeobuffer feature
+     * @throws IOException Read error
+     */
+    public Value[] getFieldsFromFileLocation(long featureAddress) throws IOException {
+        return getFieldsFromFileLocation(fileChannel, featureAddress, featuresOffset, headerMeta, geometryFieldIndex);
     }
 
     /**
@@ -151,13 +212,16 @@ public class FGBDriver implements FileDriver {
      */
     public void cacheFeatureAddressFromIndex() throws IOException {
         if(headerMeta.indexNodeSize > 0) {
-            fileChannel.position(headerMeta.offset);
-            LittleEndianDataInputStream data = new LittleEndianDataInputStream(Channels.newInputStream(fileChannel));
             long[] fids = new long[(int) headerMeta.featuresCount];
             for (long id = 0; id < fids.length; id++) {
                 fids[(int) id] = id;
             }
-            long[] featuresAddress = PackedRTree.readFeatureOffsets(data, fids, headerMeta);
+            long[] featuresAddress;
+            synchronized (fileChannel) {
+                fileChannel.position(headerMeta.offset);
+                LittleEndianDataInputStream data = new LittleEndianDataInputStream(Channels.newInputStream(fileChannel));
+                featuresAddress = PackedRTree.readFeatureOffsets(data, fids, headerMeta);
+            }
             for (int i = 0, featuresAddressLength = featuresAddress.length; i < featuresAddressLength; i++) {
                 long address = featuresAddress[i];
                 rowIndexToFileLocation.put(i, address + featuresOffset);
@@ -171,14 +235,36 @@ public class FGBDriver implements FileDriver {
      */
     public static Value[] getFieldsFromFileLocation(FileChannel fileChannel, long featureAddress, long featuresOffset,
                                                     HeaderMeta headerMeta, int geometryFieldIndex) throws IOException {
+        return getFieldsFromFeature(readFeature(fileChannel, featuresOffset + featureAddress), headerMeta,
+                geometryFieldIndex);
+    }
+
+    /**
+     * Read a feature with positional reads, the channel position is not used
+     * @param fileChannel File channel
+     * @param position Feature position in the file
+     * @return Feature content, without the size prefix
+     * @throws IOException Read error
+     */
+    private static ByteBuffer readFeature(FileChannel fileChannel, long position) throws IOException {
+        ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(fileChannel, size, position);
+        ByteBuffer bb = ByteBuffer.allocate(size.getInt(0));
+        readFully(fileChannel, bb, position + 4);
+        bb.clear();
+        return bb;
+    }
+
+    private static void readFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+        }
+    }
+
+    private static Value[] getFieldsFromFeature(ByteBuffer bb, HeaderMeta headerMeta, int geometryFieldIndex) {
         Value[] values = new Value[headerMeta.columns.size()+1];
-        fileChannel.position(featuresOffset + featureAddress);
-        // Read the current row from the input stream
-        LittleEndianDataInputStream data = new LittleEndianDataInputStream(Channels.newInputStream(fileChannel));
-        int featureSize = data.readInt();
-        byte[] bytes = new byte[featureSize];
-        data.readFully(bytes);
-        ByteBuffer bb = ByteBuffer.wrap(bytes);
         Feature feature = Feature.getRootAsFeature(bb);
         Geometry geometry = feature.geometry();
         byte geometryType = headerMeta.geometryType;
@@ -246,42 +332,66 @@ public class FGBDriver implements FileDriver {
     @Override
     public Value getField(long rowId, int columnId) throws IOException {
         try {
-            if(rowId == 0) {
-                fileChannel.position(featuresOffset);
+            readRow(rowId);
+            return currentRow[columnId];
+        } catch (IOException e) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    @Override
+    public int getRows(long firstRowId, int rowCount, int[] columns, Object[][] buffer) throws IOException {
+        int readCount = (int) Math.max(0, Math.min(rowCount, getRowCount() - firstRowId));
+        for (int row = 0; row < readCount; row++) {
+            // Features are read sequentially from the current file position
+            readRow(firstRowId + row);
+            for (int columnId : columns) {
+                buffer[row][columnId] = currentRow[columnId];
+            }
+        }
+        return readCount;
+    }
+
+    /**
+     * Move to the feature then read it into currentRow, nothing is read if the feature is already the current one
+     * @param rowId Row index [0-getRowCount()].
+     * @throws IOException Read error
+     */
+    private void readRow(long rowId) throws IOException {
+        if(rowId == 0) {
+            nextFeaturePosition = featuresOffset;
+            rowIdPrevious = -1;
+        } else if (rowId > rowIdPrevious + 1 || rowId < rowIdPrevious) {
+            // We have to seek to the desired location
+            Map.Entry<Integer, Long> lowerEntry = rowIndexToFileLocation.floorEntry((int)rowId);
+            if(lowerEntry == null) {
+                nextFeaturePosition = featuresOffset;
                 rowIdPrevious = -1;
-            } else if (rowId > rowIdPrevious + 1 || rowId < rowIdPrevious) {
-                // We have to seek to the desired location
-                Integer lowerKey = rowIndexToFileLocation.floorKey((int)rowId);
-                if(lowerKey == null) {
-                    fileChannel.position(featuresOffset);
-                    rowIdPrevious = -1;
-                } else {
-                    fileChannel.position(rowIndexToFileLocation.get(lowerKey));
-                    rowIdPrevious = lowerKey - 1;
-                }
-                // Make our way until rowId
-                while (rowIdPrevious + 1 < rowId) {
-                    LittleEndianDataInputStream data = new LittleEndianDataInputStream(Channels.newInputStream(fileChannel));
-                    int featureSize = data.readInt();
-                    fileChannel.position(fileChannel.position() + featureSize);
-                    rowIdPrevious++;
-                    if(cacheRowAddress) {
-                        rowIndexToFileLocation.put((int) rowIdPrevious + 1, fileChannel.position());
-                    }
-                }
+            } else {
+                nextFeaturePosition = lowerEntry.getValue();
+                rowIdPrevious = lowerEntry.getKey() - 1;
             }
-            if (rowIdPrevious + 1 == rowId) {
-                // Read the current row from the input stream
-                rowIdPrevious = rowId;
-                currentRow = getFieldsFromFileLocation(fileChannel,fileChannel.position()-featuresOffset,
-                        featuresOffset, headerMeta, geometryFieldIndex);
+            // Make our way until rowId
+            ByteBuffer featureSize = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (rowIdPrevious + 1 < rowId) {
+                featureSize.clear();
+                readFully(fileChannel, featureSize, nextFeaturePosition);
+                nextFeaturePosition += 4 + featureSize.getInt(0);
+                rowIdPrevious++;
                 if(cacheRowAddress) {
-                    rowIndexToFileLocation.put((int) rowId + 1, fileChannel.position());
+                    rowIndexToFileLocation.put((int) rowIdPrevious + 1, nextFeaturePosition);
                 }
             }
-            return currentRow[columnId];
-        } catch (IOException e) {
-            throw new NoSuchElementException();
+        }
+        if (rowIdPrevious + 1 == rowId) {
+            // Read the current row
+            rowIdPrevious = rowId;
+            ByteBuffer feature = readFeature(fileChannel, nextFeaturePosition);
+            nextFeaturePosition += 4 + feature.capacity();
+            currentRow = getFieldsFromFeature(feature, headerMeta, geometryFieldIndex);
+            if(cacheRowAddress) {
+                rowIndexToFileLocation.put((int) rowId + 1, nextFeaturePosition);
+            }
         }
     }
 
@@ -0,0 +1,230 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.fgb.fileTable;
+
+import org.h2.api.ErrorCode;
+import org.h2.command.query.AllColumnsForPlan;
+import org.h2.engine.SessionLocal;
+import org.h2.index.Cursor;
+import org.h2.index.Index;
+import org.h2.index.IndexCondition;
+import org.h2.index.IndexType;
+import org.h2.index.SpatialIndex;
+import org.h2.message.DbException;
+import org.h2.result.Row;
+import org.h2.result.SearchRow;
+import org.h2.result.SortOrder;
+import org.h2.table.Column;
+import org.h2.table.IndexColumn;
+import org.h2.table.Table;
+import org.h2.table.TableFilter;
+import org.h2.value.Value;
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueNull;
+import org.locationtech.jts.geom.Envelope;
+import org.wololo.flatgeobuf.PackedRTree;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read only spatial index of a linked FlatGeobuf table, backed by the packed R-tree stored in the file.
+ * The index is not persisted in the database, it is provided by the file itself.
+ */
+public class FGBSpatialIndex extends Index implements SpatialIndex {
+    private final FGBDriver driver;
+
+    /**
+     * Constructor
+     * @param driver Linked file driver, the file must contain a spatial index
+     * @param table Linked table
+     * @param id Index identifier
+     * @param indexName Unique index name
+     * @param indexColumn Geometry column
+     */
+    public FGBSpatialIndex(FGBDriver driver, Table table, int id, String indexName, IndexColumn indexColumn) {
+        super(table, id, indexName, new IndexColumn[]{indexColumn}, 0,
+                IndexType.createNonUnique(false, false, true));
+        this.driver = driver;
+    }
+
+    @Override
+    public void checkRename() {
+        // Nothing to check
+    }
+
+    @Override
+    public void close(SessionLocal session) {
+        // The driver is closed by the table
+    }
+
+    @Override
+    public void add(SessionLocal session, Row row) {
+        // Read only index
+    }
+
+    @Override
+    public void remove(SessionLocal session, Row row) {
+        throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "remove in FlatGeobuf files");
+    }
+
+    @Override
+    public Cursor find(SessionLocal session, SearchRow first, SearchRow last, boolean reverse) {
+        return table.getScanIndex(session).find(session, null, null, reverse);
+    }
+
+    @Override
+    public Cursor findByGeometry(SessionLocal session, SearchRow first, SearchRow last, boolean reverse,
+                                 SearchRow intersection) {
+        if (intersection == null) {
+            return find(session, first, last, reverse);
+        }
+        Value value = intersection.getValue(columnIds[0]);
+        double[] env;
+        if (value == null || value == ValueNull.INSTANCE ||
+                (env = value.convertToGeometry(null).getEnvelopeNoCopy()) == null) {
+            return new FGBIndexCursor(driver, table.getColumns().length, Collections.emptyList());
+        }
+        try {
+            PackedRTree.SearchResult searchResult = driver.searchIndex(
+                    new Envelope(env[0], env[1], env[2], env[3]));
+            return new FGBIndexCursor(driver, table.getColumns().length, searchResult.hits);
+        } catch (IOException ex) {
+            throw DbException.get(ErrorCode.IO_EXCEPTION_1, ex);
+        }
+    }
+
+    @Override
+    public double getCost(SessionLocal session, int[] masks, TableFilter[] tableFilters, int filter,
+                          SortOrder sortOrder, AllColumnsForPlan allColumnsForPlan) {
+        // Never use the spatial index without spatial filter
+        // Same rule as h2/src/main/org/h2/mvstore/db/MVSpatialIndex.java
+        if (masks == null) {
+            return Long.MAX_VALUE;
+        }
+        for (Column column : columns) {
+            int mask = masks[column.getColumnId()];
+            if ((mask & IndexCondition.SPATIAL_INTERSECTS) != IndexCondition.SPATIAL_INTERSECTS) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return 10 * getCostRangeIndex(masks, driver.getRowCount(), tableFilters, filter, sortOrder, true,
+                allColumnsForPlan);
+    }
+
+    @Override
+    public void remove(SessionLocal session) {
+        throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "remove in FlatGeobuf files");
+    }
+
+    @Override
+    public void truncate(SessionLocal session) {
+        throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "truncate in FlatGeobuf files");
+    }
+
+    @Override
+    public boolean needRebuild() {
+        return false;
+    }
+
+    @Override
+    public Row getRow(SessionLocal session, long key) {
+        return table.getRow(session, key);
+    }
+
+    @Override
+    public long getRowCount(SessionLocal session) {
+        return driver.getRowCount();
+    }
+
+    @Override
+    public long getRowCountApproximation(SessionLocal session) {
+        return driver.getRowCount();
+    }
+
+    @Override
+    public long getDiskSpaceUsed(boolean approximate) {
+        return 0;
+    }
+
+    /**
+     * Iterate over the R-tree hits, the row key is the feature index [1-n].
+     */
+    private static class FGBIndexCursor implements Cursor {
+        private final FGBDriver driver;
+        private final int columnCount;
+        private final List<PackedRTree.SearchHit> hits;
+        private int position = -1;
+        private Row currentRow;
+
+        private FGBIndexCursor(FGBDriver driver, int columnCount, List<PackedRTree.SearchHit> hits) {
+            this.driver = driver;
+            this.columnCount = columnCount;
+            this.hits = hits;
+        }
+
+        @Override
+        public Row get() {
+            if (currentRow == null && position >= 0 && position < hits.size()) {
+                PackedRTree.SearchHit hit = hits.get(position);
+                try {
+                    Value[] fields = driver.getFieldsFromFileLocation(hit.offset);
+                    Value[] values = new Value[columnCount];
+                    values[0] = ValueBigint.get(hit.index + 1);
+                    for (int i = 0; i < fields.length && i + 1 < columnCount; i++) {
+                        values[i + 1] = fields[i] == null ? ValueNull.INSTANCE : fields[i];
+                    }
+                    currentRow = Row.get(values, SearchRow.MEMORY_CALCULATE, hit.index + 1);
+                } catch (IOException ex) {
+                    throw DbException.get(ErrorCode.IO_EXCEPTION_1, ex);
+                }
+            }
+            return currentRow;
+        }
+
+        @Override
+        public SearchRow getSearchRow() {
+            return get();
+        }
+
+        @Override
+        public boolean next() {
+            currentRow = null;
+            if (position < hits.size() - 1) {
+                position++;
+                return true;
+            }
+            position = hits.size();
+            return false;
+        }
+
+        @Override
+        public boolean previous() {
+            currentRow = null;
+            if (position > 0) {
+                position--;
+                return true;
+            }
+            position = -1;
+            return false;
+        }
+    }
+}
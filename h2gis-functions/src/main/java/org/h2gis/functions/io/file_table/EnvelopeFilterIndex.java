@@ -0,0 +1,240 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.file_table;
+
+import org.h2.api.ErrorCode;
+import org.h2.command.query.AllColumnsForPlan;
+import org.h2.engine.SessionLocal;
+import org.h2.index.Cursor;
+import org.h2.index.Index;
+import org.h2.index.IndexCondition;
+import org.h2.index.IndexType;
+import org.h2.index.SpatialIndex;
+import org.h2.message.DbException;
+import org.h2.result.Row;
+import org.h2.result.SearchRow;
+import org.h2.result.SortOrder;
+import org.h2.table.Column;
+import org.h2.table.IndexColumn;
+import org.h2.table.Table;
+import org.h2.table.TableFilter;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+import org.locationtech.jts.geom.Envelope;
+
+import java.io.IOException;
+
+/**
+ * Full scan of a linked table that rejects the rows from the envelope stored in the file, before decoding
+ * the geometry and the other fields. Used for {@code &&} filters when the table has no spatial index.
+ * The index is provided by the driver, it is neither persisted in the database nor listed in the
+ * information schema.
+ */
+public class EnvelopeFilterIndex extends Index implements SpatialIndex {
+    private final SpatialFileDriver driver;
+
+    /**
+     * Constructor
+     * @param driver Linked file driver
+     * @param table Linked table
+     * @param id Index identifier
+     * @param indexName Unique index name
+     * @param indexColumn Geometry column
+     */
+    public EnvelopeFilterIndex(SpatialFileDriver driver, Table table, int id, String indexName,
+                               IndexColumn indexColumn) {
+        super(table, id, indexName, new IndexColumn[]{indexColumn}, 0, IndexType.createNonUnique(false));
+        this.driver = driver;
+    }
+
+    @Override
+    public String getCreateSQL() {
+        // Not a schema object
+        return null;
+    }
+
+    @Override
+    public void checkRename() {
+        // Nothing to check
+    }
+
+    @Override
+    public void close(SessionLocal session) {
+        // The driver is closed by the table
+    }
+
+    @Override
+    public void add(SessionLocal session, Row row) {
+        // Read only index
+    }
+
+    @Override
+    public void remove(SessionLocal session, Row row) {
+        throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "remove in file");
+    }
+
+    @Override
+    public Cursor find(SessionLocal session, SearchRow first, SearchRow last, boolean reverse) {
+        return table.getScanIndex(session).find(session, null, null, reverse);
+    }
+
+    @Override
+    public Cursor findByGeometry(SessionLocal session, SearchRow first, SearchRow last, boolean reverse,
+                                 SearchRow intersection) {
+        if (intersection == null) {
+            return find(session, first, last, reverse);
+        }
+        Value value = intersection.getValue(columnIds[0]);
+        double[] env;
+        Envelope searchEnvelope = null;
+        if (value != null && value != ValueNull.INSTANCE &&
+                (env = value.convertToGeometry(null).getEnvelopeNoCopy()) != null) {
+            searchEnvelope = new Envelope(env[0], env[1], env[2], env[3]);
+        }
+        try {
+            return new EnvelopeCursor(driver.createReader(), searchEnvelope, reverse);
+        } catch (IOException ex) {
+            throw DbException.get(ErrorCode.IO_EXCEPTION_1, ex);
+        }
+    }
+
+    @Override
+    public double getCost(SessionLocal session, int[] masks, TableFilter[] tableFilters, int filter,
+                          SortOrder sortOrder, AllColumnsForPlan allColumnsForPlan) {
+        // Never use this index without spatial filter
+        if (masks == null) {
+            return Long.MAX_VALUE;
+        }
+        for (Column column : columns) {
+            int mask = masks[column.getColumnId()];
+            if ((mask & IndexCondition.SPATIAL_INTERSECTS) != IndexCondition.SPATIAL_INTERSECTS) {
+                return Long.MAX_VALUE;
+            }
+        }
+        // All the envelopes are read: cheaper than the scan index that decodes all the rows,
+        // but more expensive than a spatial index
+        return 5 * getCostRangeIndex(null, driver.getRowCount(), tableFilters, filter, sortOrder, true,
+                allColumnsForPlan);
+    }
+
+    @Override
+    public void remove(SessionLocal session) {
+        throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "remove in file");
+    }
+
+    @Override
+    public void truncate(SessionLocal session) {
+        throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "truncate in file");
+    }
+
+    @Override
+    public boolean needRebuild() {
+        return false;
+    }
+
+    @Override
+    public Row getRow(SessionLocal session, long key) {
+        return table.getRow(session, key);
+    }
+
+    @Override
+    public long getRowCount(SessionLocal session) {
+        return driver.getRowCount();
+    }
+
+    @Override
+    public long getRowCountApproximation(SessionLocal session) {
+        return driver.getRowCount();
+    }
+
+    @Override
+    public long getDiskSpaceUsed(boolean approximate) {
+        return 0;
+    }
+
+    /**
+     * Iterate over the rows whose envelope intersects the search envelope, the row key is the row index + 1.
+     */
+    private static class EnvelopeCursor implements Cursor {
+        private final SpatialFileDriver reader;
+        private final Envelope searchEnvelope;
+        private final boolean reverse;
+        private final long rowCount;
+        private long rowId;
+        private Row currentRow;
+
+        /**
+         * @param reader Driver reader of this cursor
+         * @param searchEnvelope Envelope to intersect, null if no row can intersect it
+         * @param reverse Iterate from the last row
+         */
+        private EnvelopeCursor(SpatialFileDriver reader, Envelope searchEnvelope, boolean reverse) {
+            this.reader = reader;
+            this.searchEnvelope = searchEnvelope;
+            this.reverse = reverse;
+            this.rowCount = reader.getRowCount();
+            this.rowId = reverse ? rowCount : -1;
+        }
+
+        @Override
+        public Row get() {
+            if (currentRow == null && rowId >= 0 && rowId < rowCount) {
+                currentRow = new H2TableIndex.DriverRow(reader, rowId + 1);
+            }
+            return currentRow;
+        }
+
+        @Override
+        public SearchRow getSearchRow() {
+            return get();
+        }
+
+        @Override
+        public boolean next() {
+            return move(reverse ? -1 : 1);
+        }
+
+        @Override
+        public boolean previous() {
+            return move(reverse ? 1 : -1);
+        }
+
+        private boolean move(int step) {
+            currentRow = null;
+            if (searchEnvelope == null) {
+                rowId = step > 0 ? rowCount : -1;
+                return false;
+            }
+            try {
+                for (rowId += step; rowId >= 0 && rowId < rowCount; rowId += step) {
+                    Envelope envelope = reader.getEnvelope(rowId);
+                    if (envelope != null && envelope.intersects(searchEnvelope)) {
+                        return true;
+                    }
+                }
+            } catch (IOException ex) {
+                throw DbException.get(ErrorCode.IO_EXCEPTION_1, ex);
+            }
+            rowId = step > 0 ? rowCount : -1;
+            return false;
+        }
+    }
+}
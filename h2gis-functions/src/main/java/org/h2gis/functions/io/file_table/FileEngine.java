@@ -45,6 +45,12 @@ import java.util.List;
 public abstract class FileEngine<Driver extends FileDriver> implements TableEngine {
     private Logger LOGGER = LoggerFactory.getLogger(FileEngine.class);
 
+    /**
+     * System property, set it to true to map the files of the linked tables in memory.
+     * A mapped file stays locked on Windows until the mapping is garbage collected.
+     */
+    public static final String MEMORY_MAPPED_PROPERTY = "h2gis.fileTable.memoryMapped";
+
     @Override
     public TableBase createTable(CreateTableData data) {
         if(data.tableEngineParams.isEmpty()) {
@@ -69,6 +75,7 @@ public abstract class FileEngine<Driver extends FileDriver> implements TableEngi
             }
             H2MVTable table = new H2MVTable(driver, data);
             table.init(data.session);
+            feedIndexes(driver, table, data);
             return table;
         } catch (IOException ex) {
             throw DbException.get(ErrorCode.IO_EXCEPTION_1,ex);
@@ -100,6 +107,14 @@ public abstract class FileEngine<Driver extends FileDriver> implements TableEngi
         }
         return cursor;
     }
+
+    /**
+     * @return True if the files of the linked tables have to be mapped in memory, false by default
+     */
+    protected static boolean isMemoryMapped() {
+        return Boolean.getBoolean(MEMORY_MAPPED_PROPERTY);
+    }
+
     /**
      * Create the driver instance using the file name and additional arguments provided in SQL create table request.
      * @param filePath First argument, file name
@@ -115,4 +130,15 @@ public abstract class FileEngine<Driver extends FileDriver> implements TableEngi
      * @param data Data to initialise
      */
     protected abstract void feedCreateTableData(Driver driver,CreateTableData data) throws IOException;
+
+    /**
+     * Add the indexes already available in the file, such as a spatial index, into the table.
+     * Override this method if the file format provides its own indexes.
+     * @param driver driver object
+     * @param table Linked table
+     * @param data Table creation data
+     */
+    protected void feedIndexes(Driver driver, H2MVTable table, CreateTableData data) throws IOException {
+        // No index in the file by default
+    }
 }
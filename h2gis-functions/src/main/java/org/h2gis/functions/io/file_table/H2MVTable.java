@@ -61,6 +61,10 @@ public class H2MVTable extends MVTable {
     private static final Logger LOG = LoggerFactory.getLogger(H2MVTable.class);
     private final ArrayList<Index> indexes = new ArrayList<>();
     private Column rowIdColumn;
+    /**
+     * Number of indexes provided by the driver, theses indexes are not removed with the table resources
+     */
+    private int driverIndexCount = 1;
 
     public H2MVTable(FileDriver driver, CreateTableData data) {
         super(data, data.session.getDatabase().getStore());
@@ -80,6 +84,15 @@ public class H2MVTable extends MVTable {
         IndexColumn indexColumn = new IndexColumn("pk");
         indexColumn.column = new Column("pk", TypeInfo.TYPE_BIGINT);
         indexes.add(0, new H2TableIndex(driver,this,this.getId(), indexColumn));
+        driverIndexCount++;
+    }
+
+    /**
+     * Add an index provided by the file itself, this index is not stored in the database
+     * @param index Read only index backed by the file
+     */
+    public void addDriverIndex(Index index) {
+        indexes.add(driverIndexCount++, index);
     }
 
     @Override
@@ -126,9 +139,18 @@ public class H2MVTable extends MVTable {
         if (!isSessionTemporary) {
             database.lockMeta(session);
         }
-        Index index;
+        Index index = null;
         if (indexType.isSpatial()) {
-            index = new MVSpatialIndex(session.getDatabase(), this, indexId, indexName, cols,  uniqueColumnCount, indexType);
+            if (driver instanceof SpatialFileDriver) {
+                try {
+                    index = new SpatialFileIndex((SpatialFileDriver) driver, this, indexId, indexName, cols, indexType);
+                } catch (IOException ex) {
+                    LOG.warn("Unable to use a spatial index file, the spatial index will be stored in the database", ex);
+                }
+            }
+            if (index == null) {
+                index = new MVSpatialIndex(session.getDatabase(), this, indexId, indexName, cols, uniqueColumnCount, indexType);
+            }
         } else {
             index = new MVSecondaryIndex(session.getDatabase(), this, indexId, indexName, cols,uniqueColumnCount, indexType);
         }
@@ -185,8 +207,8 @@ public class H2MVTable extends MVTable {
 
     @Override
     public void removeChildrenAndResources(SessionLocal session) {
-        while (indexes.size() > 2) {
-            Index index = indexes.get(2);
+        while (indexes.size() > driverIndexCount) {
+            Index index = indexes.get(driverIndexCount);
             index.remove(session);
             if (index.getName() != null) {
                 database.removeSchemaObject(session, index);
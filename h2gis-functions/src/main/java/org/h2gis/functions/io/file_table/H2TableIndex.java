@@ -43,11 +43,17 @@ import java.io.IOException;
 
 /**
  * ScanIndex of {@link org.h2gis.api.FileDriver}, the key is the row index [1-n].
+ * Each cursor reads the file with its own driver reader, so that sessions can scan the same file concurrently.
+ * The rows fetched by key share the table driver, the access to this driver is synchronized.
  * @author Nicolas Fortin
  * @author Erwan Bocher, CNRS, 2020
  */
 public class H2TableIndex extends Index {
     public static final String PK_COLUMN_NAME = "PK";
+    /**
+     * Number of rows read at once by the cursor
+     */
+    public static final int PREFETCH_ROW_COUNT = 128;
 
     private FileDriver driver;
     private final boolean isScanIndex;
@@ -126,7 +132,7 @@ public class H2TableIndex extends Index {
             first = remakefirst;
             last = remakeLast;
         }
-        return new SHPCursor(this, first, last, session);
+        return new SHPCursor(this, first, last, reverse, session);
     }
 
     @Override
@@ -192,6 +198,9 @@ public class H2TableIndex extends Index {
         private long rowIndex;
         private SessionLocal session;
         private SearchRow begin, end;
+        private boolean reverse;
+        private RowBlock block;
+        private FileDriver reader;
 
         private SHPCursor(H2TableIndex tIndex, long rowIndex, SessionLocal session) {
             this.tIndex = tIndex;
@@ -199,17 +208,57 @@ public class H2TableIndex extends Index {
             this.session = session;
         }
 
-        private SHPCursor(H2TableIndex tIndex, SearchRow begin, SearchRow end, SessionLocal session) {
+        private SHPCursor(H2TableIndex tIndex, SearchRow begin, SearchRow end, boolean reverse,
+                          SessionLocal session) {
             this.tIndex = tIndex;
             this.session = session;
             this.begin = begin;
             this.end = end;
-            this.rowIndex = begin == null ? 0 : begin.getKey() - 1;
+            this.reverse = reverse;
+            if (reverse) {
+                long rowCount = tIndex.getRowCount(session);
+                this.rowIndex = (end == null ? rowCount : Math.min(end.getKey(), rowCount)) + 1;
+            } else {
+                this.rowIndex = begin == null ? 0 : begin.getKey() - 1;
+            }
         }
 
         @Override
         public Row get() {
-            return tIndex.getRow(session, rowIndex);
+            long rowCount = tIndex.getRowCount(session);
+            if (rowIndex < 1 || rowIndex > rowCount) {
+                return tIndex.getRow(session, rowIndex);
+            }
+            long rowId = rowIndex - 1;
+            if (block == null || !block.contains(rowId)) {
+                // Prefetch the following rows in the direction of the cursor, without leaving the searched range
+                long firstRowId;
+                long lastRowId;
+                if (block != null ? rowId < block.firstRowId : reverse) {
+                    lastRowId = rowId;
+                    firstRowId = Math.max(begin == null ? 0 : begin.getKey() - 1,
+                            rowId - PREFETCH_ROW_COUNT + 1);
+                } else {
+                    firstRowId = rowId;
+                    lastRowId = Math.min(end == null ? rowCount - 1 : end.getKey() - 1,
+                            rowId + PREFETCH_ROW_COUNT - 1);
+                }
+                firstRowId = Math.min(firstRowId, rowId);
+                lastRowId = Math.max(lastRowId, rowId);
+                block = new RowBlock(getReader(), firstRowId, (int) (lastRowId - firstRowId + 1));
+            }
+            return new DriverRow(block.driver, rowIndex, block);
+        }
+
+        private FileDriver getReader() {
+            if (reader == null) {
+                try {
+                    reader = tIndex.getDriver().createReader();
+                } catch (IOException ex) {
+                    throw DbException.get(ErrorCode.IO_EXCEPTION_1, ex);
+                }
+            }
+            return reader;
         }
 
         @Override
@@ -227,16 +276,22 @@ public class H2TableIndex extends Index {
 
         @Override
         public boolean next() {
-            if(rowIndex < tIndex.getRowCount(session) && (end == null || rowIndex < end.getKey())) {
-                rowIndex ++;
-                return true;
-            } else {
-                return false;
+            if(reverse) {
+                if(rowIndex > 1 && (begin == null || rowIndex > begin.getKey())) {
+                    rowIndex --;
+                    return true;
+                } else {
+                    return false;
+                }
             }
+            return moveForward();
         }
 
         @Override
         public boolean previous() {
+            if(reverse) {
+                return moveForward();
+            }
             if(rowIndex > 0 && (begin == null || rowIndex >= begin.getKey())) {
                 rowIndex --;
                 return true;
@@ -244,6 +299,15 @@ public class H2TableIndex extends Index {
                 return false;
             }
         }
+
+        private boolean moveForward() {
+            if(rowIndex < tIndex.getRowCount(session) && (end == null || rowIndex < end.getKey())) {
+                rowIndex ++;
+                return true;
+            } else {
+                return false;
+            }
+        }
     }
 
     /**
@@ -251,6 +315,7 @@ public class H2TableIndex extends Index {
      */
     public static class DriverRow extends Row {
         FileDriver driver;
+        RowBlock block;
         int memory; // estimated row size in bytes
 
         public DriverRow(FileDriver driver, long key) {
@@ -258,14 +323,27 @@ public class H2TableIndex extends Index {
             this.key = key;
         }
 
+        /**
+         * @param driver Linked file driver
+         * @param key Row key [1-n]
+         * @param block Prefetched rows that contains this row
+         */
+        public DriverRow(FileDriver driver, long key, RowBlock block) {
+            this(driver, key);
+            this.block = block;
+        }
+
         @Override
         public Value[] getValueList() {
             try {
                 int columnCount = getColumnCount();
                 Value[] values = new Value[columnCount];
                 values[0] = ValueBigint.get(key);
+                if(block != null) {
+                    block.loadAllColumns();
+                }
                 for(int i = 1; i < columnCount; i++) {
-                    values[i] = (Value)(driver.getField(key - 1, i - 1));
+                    values[i] = getDriverField(i - 1);
                 }
                 return values;
             } catch (IOException ex) {
@@ -288,7 +366,7 @@ public class H2TableIndex extends Index {
                         // pk
                         return ValueBigint.get(key);
                     } else {
-                        return (Value)(driver.getField(key - 1, column - 1));
+                        return getDriverField(column - 1);
                     }
                 } catch (IOException ex) {
                     throw DbException.get(ErrorCode.IO_EXCEPTION_1,ex);
@@ -296,6 +374,15 @@ public class H2TableIndex extends Index {
             }
         }
 
+        private Value getDriverField(int columnId) throws IOException {
+            if(block != null) {
+                return block.getValue(key - 1, columnId);
+            }
+            synchronized (driver) {
+                return (Value) (driver.getField(key - 1, columnId));
+            }
+        }
+
         @Override
         public void setValue(int i, Value value) {
             if (i == ROWID_INDEX) {
@@ -341,8 +428,88 @@ public class H2TableIndex extends Index {
          */
         int calculateMemory() {
             int m = Constants.MEMORY_ROW + Constants.MEMORY_ARRAY + getColumnCount() * Constants.MEMORY_POINTER;
-            m += driver.getEstimatedRowSize(key - 1);
+            synchronized (driver) {
+                m += driver.getEstimatedRowSize(key - 1);
+            }
             return m;
         }
     }
+
+    /**
+     * Consecutive rows read with {@link FileDriver#getRows(long, int, int[], Object[][])}.
+     * A column is read for all the rows of the block on the first access to this column.
+     */
+    public static class RowBlock {
+        private final FileDriver driver;
+        private final long firstRowId;
+        private final int rowCount;
+        private final Object[][] values;
+        private final boolean[] loadedColumns;
+
+        /**
+         * @param driver Linked file driver
+         * @param firstRowId First row index [0-getRowCount()]
+         * @param rowCount Number of rows of the block
+         */
+        public RowBlock(FileDriver driver, long firstRowId, int rowCount) {
+            this.driver = driver;
+            this.firstRowId = firstRowId;
+            this.rowCount = rowCount;
+            int fieldCount = driver.getFieldCount();
+            this.values = new Object[rowCount][fieldCount];
+            this.loadedColumns = new boolean[fieldCount];
+        }
+
+        /**
+         * @param rowId Row index [0-getRowCount()]
+         * @return True if the row is part of this block
+         */
+        public boolean contains(long rowId) {
+            return rowId >= firstRowId && rowId < firstRowId + rowCount;
+        }
+
+        /**
+         * @param rowId Row index [0-getRowCount()]
+         * @param columnId Driver column index
+         * @return Field value
+         * @throws IOException Read error
+         */
+        public Value getValue(long rowId, int columnId) throws IOException {
+            synchronized (driver) {
+                if (!loadedColumns[columnId]) {
+                    driver.getRows(firstRowId, rowCount, new int[]{columnId}, values);
+                    loadedColumns[columnId] = true;
+                }
+                return (Value) values[(int) (rowId - firstRowId)][columnId];
+            }
+        }
+
+        /**
+         * Read all the columns not yet read with a single call to the driver
+         * @throws IOException Read error
+         */
+        public void loadAllColumns() throws IOException {
+            synchronized (driver) {
+                int missing = 0;
+                for (boolean loaded : loadedColumns) {
+                    if (!loaded) {
+                        missing++;
+                    }
+                }
+                if (missing > 0) {
+                    int[] columns = new int[missing];
+                    int i = 0;
+                    for (int columnId = 0; columnId < loadedColumns.length; columnId++) {
+                        if (!loadedColumns[columnId]) {
+                            columns[i++] = columnId;
+                        }
+                    }
+                    driver.getRows(firstRowId, rowCount, columns, values);
+                    for (int columnId : columns) {
+                        loadedColumns[columnId] = true;
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.file_table;
+
+import org.h2gis.api.FileDriver;
+import org.locationtech.jts.geom.Envelope;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A {@link FileDriver} able to read the envelope of a row without decoding the geometry.
+ * The spatial index of the linked table is stored in a file next to the data file instead of the database.
+ */
+public interface SpatialFileDriver extends FileDriver {
+
+    /**
+     * @return The data file, its size and last modification date are used to check the spatial index file
+     */
+    File getFile();
+
+    /**
+     * @return Location of the spatial index file
+     */
+    File getSpatialIndexFile();
+
+    /**
+     * Read the envelope of the geometry
+     *
+     * @param rowId Row index [0-getRowCount()].
+     * @return The envelope or null if the geometry is null
+     * @throws IOException Read error.
+     */
+    Envelope getEnvelope(long rowId) throws IOException;
+
+    @Override
+    SpatialFileDriver createReader() throws IOException;
+}
@@ -0,0 +1,244 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.file_table;
+
+import org.h2.api.ErrorCode;
+import org.h2.command.query.AllColumnsForPlan;
+import org.h2.engine.SessionLocal;
+import org.h2.index.Cursor;
+import org.h2.index.Index;
+import org.h2.index.IndexCondition;
+import org.h2.index.IndexType;
+import org.h2.index.SpatialIndex;
+import org.h2.message.DbException;
+import org.h2.result.Row;
+import org.h2.result.SearchRow;
+import org.h2.result.SortOrder;
+import org.h2.table.Column;
+import org.h2.table.IndexColumn;
+import org.h2.table.Table;
+import org.h2.table.TableFilter;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+import org.locationtech.jts.geom.Envelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Spatial index of a linked table stored in a {@link SpatialIndexFile} next to the data file.
+ * The index file is created on the first use then reused each time the database is opened.
+ */
+public class SpatialFileIndex extends Index implements SpatialIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(SpatialFileIndex.class);
+    private final SpatialFileDriver driver;
+    private SpatialIndexFile indexFile;
+
+    /**
+     * Constructor, open the spatial index file or create it if it does not exists or is not up to date.
+     * @param driver Linked file driver
+     * @param table Linked table
+     * @param id Index identifier
+     * @param indexName Unique index name
+     * @param columns Geometry column
+     * @param indexType Spatial index type
+     * @throws IOException The spatial index file cannot be read or written
+     */
+    public SpatialFileIndex(SpatialFileDriver driver, Table table, int id, String indexName, IndexColumn[] columns,
+                            IndexType indexType) throws IOException {
+        super(table, id, indexName, columns, 0, indexType);
+        if (columns.length != 1 || columns[0].column.getType().getValueType() != Value.GEOMETRY) {
+            throw DbException.getUnsupportedException("Spatial index on a single geometry column only");
+        }
+        this.driver = driver;
+        File file = driver.getSpatialIndexFile();
+        indexFile = SpatialIndexFile.open(file, driver.getFile(), driver.getRowCount());
+        if (indexFile == null) {
+            LOG.info("Create the spatial index file " + file.getAbsolutePath());
+            // Read the envelopes with a dedicated reader, the table may be read by other sessions
+            SpatialFileDriver reader = driver.createReader();
+            try {
+                SpatialIndexFile.write(reader, file, SpatialIndexFile.DEFAULT_NODE_SIZE);
+            } finally {
+                reader.close();
+            }
+            indexFile = SpatialIndexFile.open(file, driver.getFile(), driver.getRowCount());
+            if (indexFile == null) {
+                throw new IOException("The data file has been modified while creating the spatial index file");
+            }
+        }
+    }
+
+    @Override
+    public void checkRename() {
+        // Nothing to check
+    }
+
+    @Override
+    public void close(SessionLocal session) {
+        try {
+            indexFile.close();
+        } catch (IOException ex) {
+            LOG.error("Error while closing the spatial index file", ex);
+        }
+    }
+
+    @Override
+    public void add(SessionLocal session, Row row) {
+        // Read only index
+    }
+
+    @Override
+    public void remove(SessionLocal session, Row row) {
+        throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "remove in file");
+    }
+
+    @Override
+    public Cursor find(SessionLocal session, SearchRow first, SearchRow last, boolean reverse) {
+        return table.getScanIndex(session).find(session, null, null, reverse);
+    }
+
+    @Override
+    public Cursor findByGeometry(SessionLocal session, SearchRow first, SearchRow last, boolean reverse,
+                                 SearchRow intersection) {
+        if (intersection == null) {
+            return find(session, first, last, reverse);
+        }
+        Value value = intersection.getValue(columnIds[0]);
+        double[] env;
+        if (value == null || value == ValueNull.INSTANCE ||
+                (env = value.convertToGeometry(null).getEnvelopeNoCopy()) == null) {
+            return new RowIdCursor(session, table, new long[0]);
+        }
+        try {
+            return new RowIdCursor(session, table, indexFile.search(new Envelope(env[0], env[1], env[2], env[3])));
+        } catch (IOException ex) {
+            throw DbException.get(ErrorCode.IO_EXCEPTION_1, ex);
+        }
+    }
+
+    @Override
+    public double getCost(SessionLocal session, int[] masks, TableFilter[] tableFilters, int filter,
+                          SortOrder sortOrder, AllColumnsForPlan allColumnsForPlan) {
+        // Never use the spatial index without spatial filter
+        if (masks == null) {
+            return Long.MAX_VALUE;
+        }
+        for (Column column : columns) {
+            int mask = masks[column.getColumnId()];
+            if ((mask & IndexCondition.SPATIAL_INTERSECTS) != IndexCondition.SPATIAL_INTERSECTS) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return 10 * getCostRangeIndex(masks, indexFile.getItemCount(), tableFilters, filter, sortOrder, true,
+                allColumnsForPlan);
+    }
+
+    @Override
+    public void remove(SessionLocal session) {
+        // Keep the index file, it will be reused if the index is created again
+        close(session);
+    }
+
+    @Override
+    public void truncate(SessionLocal session) {
+        throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "truncate in file");
+    }
+
+    @Override
+    public boolean needRebuild() {
+        return false;
+    }
+
+    @Override
+    public Row getRow(SessionLocal session, long key) {
+        return table.getRow(session, key);
+    }
+
+    @Override
+    public long getRowCount(SessionLocal session) {
+        return indexFile.getItemCount();
+    }
+
+    @Override
+    public long getRowCountApproximation(SessionLocal session) {
+        return indexFile.getItemCount();
+    }
+
+    @Override
+    public long getDiskSpaceUsed(boolean approximate) {
+        return 0;
+    }
+
+    /**
+     * Iterate over row index found in the spatial index, the row key is the row index + 1.
+     */
+    private static class RowIdCursor implements Cursor {
+        private final SessionLocal session;
+        private final Table table;
+        private final long[] rowIds;
+        private int position = -1;
+        private Row currentRow;
+
+        private RowIdCursor(SessionLocal session, Table table, long[] rowIds) {
+            this.session = session;
+            this.table = table;
+            this.rowIds = rowIds;
+        }
+
+        @Override
+        public Row get() {
+            if (currentRow == null && position >= 0 && position < rowIds.length) {
+                currentRow = table.getRow(session, rowIds[position] + 1);
+            }
+            return currentRow;
+        }
+
+        @Override
+        public SearchRow getSearchRow() {
+            return get();
+        }
+
+        @Override
+        public boolean next() {
+            currentRow = null;
+            if (position < rowIds.length - 1) {
+                position++;
+                return true;
+            }
+            position = rowIds.length;
+            return false;
+        }
+
+        @Override
+        public boolean previous() {
+            currentRow = null;
+            if (position > 0) {
+                position--;
+                return true;
+            }
+            position = -1;
+            return false;
+        }
+    }
+}
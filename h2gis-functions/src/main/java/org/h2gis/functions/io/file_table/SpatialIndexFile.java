@@ -0,0 +1,221 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.file_table;
+
+import org.locationtech.jts.geom.Envelope;
+import org.wololo.flatgeobuf.NodeItem;
+import org.wololo.flatgeobuf.PackedRTree;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packed Hilbert R-tree stored in a file next to a linked data file.
+ * The header keeps the size and the last modification date of the data file, an outdated index is never used.
+ * The tree is the one of the FlatGeobuf format, the leaf offset is the row index of the data file.
+ *
+ * File layout:
+ * <ul>
+ * <li>Magic bytes (8 bytes)</li>
+ * <li>Version (int)</li>
+ * <li>Data file size (long)</li>
+ * <li>Data file last modification time (long)</li>
+ * <li>Data file row count (long)</li>
+ * <li>Number of indexed rows (long)</li>
+ * <li>Node size (short)</li>
+ * <li>Packed R-tree</li>
+ * </ul>
+ */
+public class SpatialIndexFile implements Closeable {
+    public static final short DEFAULT_NODE_SIZE = 16;
+    private static final byte[] MAGIC_BYTES = "H2GISHRT".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8 + 4 + 8 + 8 + 8 + 8 + 2;
+
+    private final FileChannel channel;
+    private final int itemCount;
+    private final short nodeSize;
+    /**
+     * Mapped tree, null if the tree is too large to be mapped in a single buffer
+     */
+    private final ByteBuffer tree;
+
+    private SpatialIndexFile(FileChannel channel, int itemCount, short nodeSize, ByteBuffer tree) {
+        this.channel = channel;
+        this.itemCount = itemCount;
+        this.nodeSize = nodeSize;
+        this.tree = tree;
+    }
+
+    /**
+     * Open an existing spatial index file
+     * @param indexFile Spatial index file
+     * @param dataFile Indexed file
+     * @param rowCount Row count of the indexed file
+     * @return The spatial index or null if the index file does not exists or is not up to date
+     * @throws IOException Read error
+     */
+    public static SpatialIndexFile open(File indexFile, File dataFile, long rowCount) throws IOException {
+        if (!indexFile.isFile() || indexFile.length() < HEADER_SIZE) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    channel.close();
+                    return null;
+                }
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC_BYTES.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC_BYTES) || header.getInt() != VERSION ||
+                    header.getLong() != dataFile.length() || header.getLong() != dataFile.lastModified() ||
+                    header.getLong() != rowCount) {
+                channel.close();
+                return null;
+            }
+            long itemCount = header.getLong();
+            short nodeSize = header.getShort();
+            long treeSize = itemCount > 0 ? PackedRTree.calcSize((int) itemCount, nodeSize) : 0;
+            if (itemCount > Integer.MAX_VALUE || nodeSize < 2 || channel.size() != HEADER_SIZE + treeSize) {
+                channel.close();
+                return null;
+            }
+            ByteBuffer tree = null;
+            if (treeSize > 0 && treeSize < Integer.MAX_VALUE) {
+                tree = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, treeSize);
+                tree.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new SpatialIndexFile(channel, (int) itemCount, nodeSize, tree);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Read the envelope of all rows of the driver then write the spatial index file.
+     * @param driver Data source
+     * @param indexFile Spatial index file to write, replaced if it exists
+     * @param nodeSize R-tree node size
+     * @throws IOException Read or write error
+     */
+    public static void write(SpatialFileDriver driver, File indexFile, short nodeSize) throws IOException {
+        long rowCount = driver.getRowCount();
+        if (rowCount > Integer.MAX_VALUE) {
+            throw new IOException("Too many rows to build the spatial index file");
+        }
+        // Read the data file attributes before reading the rows, in order to detect a concurrent update
+        long dataLength = driver.getFile().length();
+        long dataLastModified = driver.getFile().lastModified();
+        List<PackedRTree.Item> items = new ArrayList<>((int) rowCount);
+        NodeItem extent = new NodeItem(0);
+        for (long rowId = 0; rowId < rowCount; rowId++) {
+            Envelope envelope = driver.getEnvelope(rowId);
+            if (envelope != null && !envelope.isNull()) {
+                PackedRTree.Item item = new PackedRTree.Item();
+                item.nodeItem = new NodeItem(envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(),
+                        envelope.getMaxY(), rowId);
+                extent.expand(item.nodeItem);
+                items.add(item);
+            }
+        }
+        File tempFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getAbsoluteFile().getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tempFile)))) {
+                out.write(MAGIC_BYTES);
+                out.writeInt(VERSION);
+                out.writeLong(dataLength);
+                out.writeLong(dataLastModified);
+                out.writeLong(rowCount);
+                out.writeLong(items.size());
+                out.writeShort(nodeSize);
+                if (!items.isEmpty()) {
+                    PackedRTree.hilbertSort(items, extent);
+                    new PackedRTree(items, nodeSize).write(out);
+                }
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * @param queryEnvelope Search envelope
+     * @return Row index [0-n] of the rows that intersects the envelope, in ascending order
+     * @throws IOException Read error
+     */
+    public long[] search(Envelope queryEnvelope) throws IOException {
+        if (itemCount == 0) {
+            return new long[0];
+        }
+        List<PackedRTree.SearchHit> hits;
+        if (tree != null) {
+            hits = PackedRTree.search(tree, 0, itemCount, nodeSize, queryEnvelope);
+        } else {
+            synchronized (channel) {
+                channel.position(HEADER_SIZE);
+                InputStream inputStream = Channels.newInputStream(channel);
+                hits = PackedRTree.search(inputStream, 0, itemCount, nodeSize, queryEnvelope).hits;
+            }
+        }
+        long[] rowIds = new long[hits.size()];
+        for (int i = 0; i < rowIds.length; i++) {
+            rowIds[i] = hits.get(i).offset;
+        }
+        // Read the data file sequentially
+        Arrays.sort(rowIds);
+        return rowIds;
+    }
+
+    /**
+     * @return Number of rows with a non null envelope
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
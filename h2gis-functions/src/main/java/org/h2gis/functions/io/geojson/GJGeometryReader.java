@@ -24,6 +24,8 @@ package org.h2gis.functions.io.geojson;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.impl.CoordinateArraySequence;
+import org.locationtech.jts.geom.util.GeometryEditor;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -38,6 +40,10 @@ public class GJGeometryReader {
     private final GeometryFactory GF;
 
     private String geomType;
+    // Lowest and highest number of ordinates of the coordinates of the last parsed geometry
+    private int minCoordinateDimension;
+    private int maxCoordinateDimension;
+
     public GJGeometryReader(GeometryFactory GF) {
         this.GF=GF;        
     }  
@@ -50,10 +56,14 @@ public class GJGeometryReader {
      * "geometry":{"type": "Point", "coordinates": [102.0,0.5]}
      *
      * @param jsParser {@link JsonParser}
-     * @return Geometry
+     * @return Geometry, null if the geometry is a null value
      */
     public Geometry parseGeometry(JsonParser jsParser) throws IOException, SQLException {        
-        jsParser.nextToken(); // START_OBJECT {        
+        minCoordinateDimension = 4;
+        maxCoordinateDimension = 2;
+        if (jsParser.nextToken() == JsonToken.VALUE_NULL) { // START_OBJECT { in case of null geometry
+            return null;
+        }
         jsParser.nextToken(); // FIELD_NAME type     
         jsParser.nextToken(); // VALUE_STRING Point or whatever supported
         String geomType = jsParser.getText();
@@ -144,7 +154,9 @@ public class GJGeometryReader {
         String coordinatesField = jp.getText();
         if (coordinatesField.equalsIgnoreCase(GeoJsonField.COORDINATES)) {
             jp.nextToken(); // START_ARRAY [ coordinates
-            return GF.createMultiPoint(parseCoordinates(jp));
+            MultiPoint mPoint = GF.createMultiPoint(parseCoordinates(jp));
+            jp.nextToken();//END_OBJECT } geometry
+            return mPoint;
         } else {
             throw new SQLException("Malformed GeoJSON file. Expected 'coordinates', found '" + coordinatesField + "'");
         }
@@ -373,19 +385,79 @@ public class GJGeometryReader {
         jp.nextToken(); // second value
         double y = jp.getDoubleValue();
         Coordinate coord;
+        int dimension = 2;
         //We look for a z value
         jp.nextToken();
         if (jp.getCurrentToken() == JsonToken.END_ARRAY) {
             coord = new Coordinate(x, y);
         } else {
             double z = jp.getDoubleValue();
-            jp.nextToken(); // exit array
-            coord = new Coordinate(x, y, z);
+            //We look for a m value
+            jp.nextToken();
+            if (jp.getCurrentToken() == JsonToken.END_ARRAY) {
+                coord = new Coordinate(x, y, z);
+                dimension = 3;
+            } else {
+                coord = new CoordinateXYZM(x, y, z, jp.getDoubleValue());
+                dimension = 4;
+                while (jp.nextToken() != JsonToken.END_ARRAY) {
+                    // Ignore the next ordinates
+                }
+            }
         }
+        minCoordinateDimension = Math.min(minCoordinateDimension, dimension);
+        maxCoordinateDimension = Math.max(maxCoordinateDimension, dimension);
         jp.nextToken();
         return coord;
     }
 
+    /**
+     * @return The highest number of ordinates of the coordinates of the last geometry read by
+     * {@link #parseGeometry(JsonParser)}: 2 for XY, 3 for XYZ and 4 for XYZM
+     */
+    public int getCoordinateDimension() {
+        return maxCoordinateDimension;
+    }
+
+    /**
+     * @return True if the coordinates of the last geometry read by {@link #parseGeometry(JsonParser)}
+     * do not have the same number of ordinates
+     */
+    public boolean hasMixedCoordinateDimension() {
+        return minCoordinateDimension < maxCoordinateDimension;
+    }
+
+    /**
+     * Rebuild the coordinates of a geometry with the given number of ordinates,
+     * missing ordinates are set to 0
+     *
+     * @param geometry Geometry
+     * @param coordinateDimension 2 for XY, 3 for XYZ and 4 for XYZM
+     * @return Geometry with the given coordinate dimension
+     */
+    public static Geometry forceCoordinateDimension(Geometry geometry, int coordinateDimension) {
+        final int hasM = coordinateDimension > 3 ? 1 : 0;
+        return new GeometryEditor(geometry.getFactory()).edit(geometry, new GeometryEditor.CoordinateSequenceOperation() {
+            @Override
+            public CoordinateSequence edit(CoordinateSequence coordSeq, Geometry geometry) {
+                Coordinate[] coordinates = new Coordinate[coordSeq.size()];
+                for (int i = 0; i < coordinates.length; i++) {
+                    Coordinate coordinate = coordSeq.getCoordinate(i);
+                    double z = Double.isNaN(coordinate.getZ()) ? 0 : coordinate.getZ();
+                    double m = Double.isNaN(coordinate.getM()) ? 0 : coordinate.getM();
+                    if (coordinateDimension == 4) {
+                        coordinates[i] = new CoordinateXYZM(coordinate.x, coordinate.y, z, m);
+                    } else if (coordinateDimension == 3) {
+                        coordinates[i] = new Coordinate(coordinate.x, coordinate.y, z);
+                    } else {
+                        coordinates[i] = new Coordinate(coordinate.x, coordinate.y);
+                    }
+                }
+                return new CoordinateArraySequence(coordinates, coordinateDimension, hasM);
+            }
+        });
+    }
+
     /**
      *
      * @return GeoJSON geometry type
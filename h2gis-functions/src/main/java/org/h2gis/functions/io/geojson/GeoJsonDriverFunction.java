@@ -47,18 +47,20 @@ public class GeoJsonDriverFunction implements DriverFunction {
 
     @Override
     public String[] getImportFormats() {
-        return new String[]{"json", "geojson", "geojson.gz"};
+        return new String[]{"json", "geojson", "geojson.gz", "geojsonl", "geojsons"};
     }
 
     @Override
     public String[] getExportFormats() {
-        return new String[]{"json", "geojson", "geojson.gz"};
+        return new String[]{"json", "geojson", "geojson.gz", "geojsonl", "geojsons"};
     }
 
     @Override
     public String getFormatDescription(String format) {
         if (format.equalsIgnoreCase("geojson")) {
             return "GeoJSON 1.0";
+        } else if (format.equalsIgnoreCase("geojsonl") || format.equalsIgnoreCase("geojsons")) {
+            return "GeoJSON text sequence";
         } else {
             return "";
         }
@@ -66,7 +68,7 @@ public class GeoJsonDriverFunction implements DriverFunction {
 
     @Override
     public boolean isSpatialFormat(String extension) {
-        return extension.equals("geojson");
+        return extension.equals("geojson") || extension.equals("geojsonl") || extension.equals("geojsons");
     }
 
     @Override
@@ -41,14 +41,16 @@ import java.sql.SQLException;
 public class GeoJsonRead extends AbstractFunction implements ScalarFunction {
 
     public GeoJsonRead() {
-        addProperty(PROP_REMARKS, "Import a GeoJSON 1.0 file."
+        addProperty(PROP_REMARKS, "Import a GeoJSON 1.0 file, or a GeoJSON text sequence (.geojsonl or .geojsons)."
                 + "\n GeoJsonRead(..."
                 + "\n Supported arguments :"
                 + "\n path of the file"
                 + "\n path of the file, table name"
                 + "\n path of the file, table name, true to delete the table name"
                 + "\n path of the file, table name, encoding chartset"
-                + "\n path of the file, table name, encoding chartset, true to delete the table name");
+                + "\n path of the file, table name, encoding chartset, true to delete the table name"
+                + "\n The encoding chartset can be replaced by options 'encoding=UTF8 spatialIndex=true'"
+                + "\n spatialIndex creates a spatial index after loading the rows");
     }
 
     @Override
@@ -21,11 +21,17 @@ package org.h2gis.functions.io.geojson;
 
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
 import org.h2.util.geometry.JTSUtils;
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.api.ProgressVisitor;
+import org.h2gis.functions.io.utility.DeferredIndexes;
+import org.h2gis.functions.io.utility.ImportOptions;
+import org.h2gis.functions.io.utility.LineChunkReader;
+import org.h2gis.functions.io.utility.OrderedPipeline;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.h2gis.utilities.dbtypes.DBTypes;
@@ -45,10 +51,10 @@ import java.util.zip.GZIPInputStream;
  *
  * Supported geometries are POINT, LINESTRING, POLYGON and GEOMETRYCOLLECTION.
  *
- * The driver requires all Feature objects in a collection to have the same
- * schema of properties. To build the table schema the first feature of the
- * FeatureCollection is parsed. If the GeoJSON format does not contain any
- * properties, a default primary key is added.
+ * The file is read once. The table schema is built from the first features
+ * of the FeatureCollection, then a column is added or converted to a wider
+ * type when a next feature does not fit the schema. If the GeoJSON format
+ * does not contain any properties, a default primary key is added.
  *
  * @author Erwan Bocher
  * @author Hai Trung Pham
@@ -59,10 +65,11 @@ public class GeoJsonReaderDriver {
     private final Connection connection;
     private static GeometryFactory GF;
     private final String encoding;
+    private final ImportOptions importOptions;
+    private DeferredIndexes indexes;
     private final boolean deleteTable;
     private PreparedStatement preparedStatement = null;
     private JsonFactory jsFactory;
-    private int nbFeature = 1;
     private int featureCounter = 1;
     private ProgressVisitor progress = new EmptyProgressVisitor();
     // For progression information return
@@ -81,18 +88,34 @@ public class GeoJsonReaderDriver {
 
     private int coordinateDimension = 2;
 
+    // Number of features read to build the table schema before inserting the first feature
+    private static final int DEFAULT_SCHEMA_SAMPLE_SIZE = 1000;
+    // Maximum number of characters of the features read to build the table schema
+    private static final long SCHEMA_SAMPLE_MAX_LENGTH = 10_000_000;
+    private int schemaSampleSize = DEFAULT_SCHEMA_SAMPLE_SIZE;
+    // True when the table schema is updated from the features being inserted
+    private boolean updateSchema = false;
+    private boolean schemaChanged = false;
+    private Map<String, Integer> tableColumnTypes;
+    private String tableGeometryType;
+    private int tableCoordinateDimension;
+    // Size of the blocks of lines of a GeoJSON text sequence parsed by the worker threads
+    private static final int SEQUENCE_CHUNK_SIZE = 1 << 20;
+    private int threadCount = OrderedPipeline.getDefaultThreadCount();
+
     /**
      * Driver to import a GeoJSON file into a spatial table.
      *
      * @param connection database connection
      * @param fileName input file
-     * @param encoding file encoding
+     * @param options file encoding, or key=value options see {@link ImportOptions}
      * @param deleteTable true to delete the table
      */
-    public GeoJsonReaderDriver(Connection connection, File fileName, String encoding, boolean deleteTable) {
+    public GeoJsonReaderDriver(Connection connection, File fileName, String options, boolean deleteTable) {
         this.connection = connection;
         this.fileName = fileName;
-        this.encoding = encoding;
+        this.importOptions = new ImportOptions(options);
+        this.encoding = importOptions.getEncoding();
         this.deleteTable = deleteTable;
     }
 
@@ -105,7 +128,9 @@ public class GeoJsonReaderDriver {
      */
     public String read(ProgressVisitor progress, String tableReference) throws SQLException, IOException {
         String fileNameLower = fileName.getName().toLowerCase();
-        if (fileName != null && (fileNameLower.endsWith(".geojson") || fileNameLower.endsWith(".json"))) {
+        boolean textSequence = fileNameLower.endsWith(".geojsonl") || fileNameLower.endsWith(".geojsons");
+        if (fileName != null && (fileNameLower.endsWith(".geojson") || fileNameLower.endsWith(".json")
+                || fileNameLower.endsWith(".gz") || textSequence)) {
             if (!fileName.exists()) {
                 throw new SQLException("The file " + fileName + " doesn't exist ");
             }
@@ -117,46 +142,69 @@ public class GeoJsonReaderDriver {
                 stmt.close();
             }
             if (fileName.length() > 0) {
-                parseGeoJson(progress);
-                return tableLocation;
-            } else {
-                JDBCUtilities.createEmptyTable(connection, tableLocation);
-                return tableLocation;
-            }
-        } else if (fileName != null && fileName.getName().toLowerCase().endsWith(".gz")) {
-            if (!fileName.exists()) {
-                throw new SQLException("The file " + tableLocation + " doesn't exist ");
-            }
-            this.dbType = DBUtils.getDBType(connection);
-            this.tableLocation = TableLocation.parse(tableReference, dbType).toString();
-
-            if (deleteTable) {
-                Statement stmt = connection.createStatement();
-                stmt.execute("DROP TABLE IF EXISTS " + tableLocation);
-                stmt.close();
-            }
-
-            if (fileName.length() > 0) {
-                this.progress = progress.subProcess(100);
-                init();
-                FileInputStream fis = new FileInputStream(fileName);
-                if (parseMetadata(new GZIPInputStream(fis))) {
-                    connection.setAutoCommit(false);
-                    GF = new GeometryFactory(new PrecisionModel(), parsedSRID);
-                    fis = new FileInputStream(fileName);
-                    parseData(new GZIPInputStream(fis));
-                    connection.setAutoCommit(true);
-                    return tableLocation;
+                indexes = new DeferredIndexes(connection, importOptions);
+                if (textSequence) {
+                    parseGeoJsonSeq(progress);
                 } else {
-                    throw new SQLException("Cannot create the table " + tableLocation + " to import the GeoJSON data");
+                    parseGeoJson(progress);
                 }
+                indexes.create();
+                return tableLocation;
             } else {
                 JDBCUtilities.createEmptyTable(connection, tableLocation);
                 return tableLocation;
             }
         } else {
-            throw new SQLException("The geojson read driver supports only geojson or gz extensions");
+            throw new SQLException("The geojson read driver supports only geojson, geojsonl, geojsons or gz extensions");
+        }
+    }
+
+    /**
+     * @return Number of features read to build the table schema before inserting the first feature
+     */
+    public int getSchemaSampleSize() {
+        return schemaSampleSize;
+    }
+
+    /**
+     * @param schemaSampleSize Number of features read to build the table schema before inserting the first
+     *                         feature. The columns of the next features that do not fit this schema are added
+     *                         or converted to a wider type during the import.
+     */
+    public void setSchemaSampleSize(int schemaSampleSize) {
+        if (schemaSampleSize < 1) {
+            throw new IllegalArgumentException("The schema sample size must be positive");
+        }
+        this.schemaSampleSize = schemaSampleSize;
+    }
+
+    /**
+     * @return Number of threads used to parse a GeoJSON text sequence
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param threadCount Number of threads used to parse a GeoJSON text sequence
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count must be positive");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Open the file, uncompressed if the file is a gz file
+     * @param fis File stream
+     * @return The stream of the GeoJSON content
+     */
+    private InputStream openStream(FileInputStream fis) throws IOException {
+        if (fileName.getName().toLowerCase().endsWith(".gz")) {
+            return new GZIPInputStream(fis);
         }
+        return fis;
     }
 
     /**
@@ -187,14 +235,436 @@ public class GeoJsonReaderDriver {
     private void parseGeoJson(ProgressVisitor progress) throws SQLException, IOException {
         this.progress = progress.subProcess(100);
         init();
-        if (parseMetadata(new FileInputStream(fileName))) {
-            connection.setAutoCommit(false);
+        if (!parseFeatureCollection()) {
+            // A single feature or geometry, read the metadata then the data
+            if (parseMetadata(openStream(new FileInputStream(fileName)))) {
+                connection.setAutoCommit(false);
+                GF = new GeometryFactory(new PrecisionModel(), parsedSRID);
+                parseData(openStream(new FileInputStream(fileName)));
+                connection.setAutoCommit(true);
+            } else {
+                throw new SQLException("Cannot create the table " + tableLocation + " to import the GeoJSON data");
+            }
+        }
+    }
+
+    /**
+     * Import a FeatureCollection reading the file once. The table schema is built from the first features,
+     * then the columns are added or converted to a wider type when a feature does not fit the schema.
+     *
+     * @return False if the file does not contain a FeatureCollection
+     */
+    private boolean parseFeatureCollection() throws SQLException, IOException {
+        cachedColumnNames = new LinkedHashMap<>();
+        finalGeometryTypes = new HashSet<String>();
+        FileInputStream fis = new FileInputStream(fileName);
+        try (JsonParser jp = jsFactory.createParser(new InputStreamReader(openStream(fis), jsonEncoding.getJavaName()))) {
+            jp.nextToken();//START_OBJECT
+            jp.nextToken(); // field_name (type)
+            String dataType = jp.getText();
+            if (dataType.equalsIgnoreCase(GeoJsonField.TYPE)) {
+                jp.nextToken(); // value_string (FeatureCollection)
+                if (!jp.getText().equalsIgnoreCase(GeoJsonField.FEATURECOLLECTION)) {
+                    return false;
+                }
+                jp.nextToken(); // FIELD_NAME features
+            } else if (!dataType.equalsIgnoreCase(GeoJsonField.FEATURES)) {
+                throw new SQLException("Malformed GeoJSON file. Found '" + dataType + "'");
+            }
+            // Passes all the properties until "Feature" object is found
+            while (!jp.getText().equalsIgnoreCase(GeoJsonField.FEATURES)
+                    && !jp.getText().equalsIgnoreCase(GeoJsonField.CRS)) {
+                jp.nextToken();
+                if (jp.getCurrentToken().equals(JsonToken.START_ARRAY) || jp.getCurrentToken().equals(JsonToken.START_OBJECT)) {
+                    jp.skipChildren();
+                }
+                jp.nextToken();
+            }
+            if (jp.getText().equalsIgnoreCase(GeoJsonField.CRS)) {
+                parsedSRID = readCRS(jp);
+            }
+            if (!jp.getText().equalsIgnoreCase(GeoJsonField.FEATURES)) {
+                throw new SQLException("Malformed GeoJSON file. Expected 'features', found '" + jp.getText() + "'");
+            }
             GF = new GeometryFactory(new PrecisionModel(), parsedSRID);
-            parseData(new FileInputStream(fileName));
-            connection.setAutoCommit(true);
+            jp.nextToken(); // START_ARRAY [
+            JsonToken token = jp.nextToken(); // START_OBJECT {
+            // Copy the first features in order to build the table schema
+            List<String> sample = new ArrayList<>();
+            long sampleLength = 0;
+            while (token != JsonToken.END_ARRAY && sample.size() < schemaSampleSize
+                    && sampleLength < SCHEMA_SAMPLE_MAX_LENGTH) {
+                checkFeatureStart(token);
+                String feature = copyCurrentStructure(jp);
+                try (JsonParser featureParser = jsFactory.createParser(feature)) {
+                    featureParser.nextToken(); // START_OBJECT {
+                    readFeatureType(featureParser);
+                    parseFeatureMetadata(featureParser);
+                }
+                sample.add(feature);
+                sampleLength += feature.length();
+                token = jp.nextToken(); //START_OBJECT new feature
+            }
+            if (!hasGeometryField && token == JsonToken.END_ARRAY) {
+                throw new SQLException("The geojson file  does not contain any geometry.");
+            }
+            createTable();
+            connection.setAutoCommit(false);
+            try {
+                updateSchema = true;
+                long fileLength = fileName.length();
+                int batchSize = 0;
+                for (String feature : sample) {
+                    try (JsonParser featureParser = jsFactory.createParser(feature)) {
+                        featureParser.nextToken(); // START_OBJECT {
+                        readFeatureType(featureParser);
+                        batchSize = addFeature(parseFeature(featureParser), batchSize);
+                    }
+                }
+                sample.clear();
+                while (token != JsonToken.END_ARRAY) {
+                    checkFeatureStart(token);
+                    readFeatureType(jp);
+                    batchSize = addFeature(parseFeature(jp), batchSize);
+                    if (batchSize == 0) {
+                        progress.setStep((int) (fis.getChannel().position() * 100 / fileLength));
+                    }
+                    token = jp.nextToken(); //START_OBJECT new feature
+                }
+                //LOOP END_ARRAY ]
+                if (batchSize > 0) {
+                    preparedStatement.executeBatch();
+                    connection.commit();
+                    preparedStatement.clearBatch();
+                }
+            } finally {
+                updateSchema = false;
+                connection.setAutoCommit(true);
+            }
+            if (!hasGeometryField) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("DROP TABLE IF EXISTS " + tableLocation);
+                }
+                throw new SQLException("The geojson file  does not contain any geometry.");
+            }
+            log.debug(featureCounter - 1 + " geojson features have been imported.");
+            return true;
+        }
+    }
+
+    /**
+     * Import a GeoJSON text sequence (GeoJSONSeq or newline delimited GeoJSON), one feature per line.
+     * The file is split in blocks of lines that are parsed by several threads. The table schema is built
+     * from the first block, then the columns are added or converted to a wider type when a block does not
+     * fit the schema.
+     *
+     * @param progress Progress visitor following the execution.
+     */
+    private void parseGeoJsonSeq(ProgressVisitor progress) throws SQLException, IOException {
+        this.progress = progress.subProcess(100);
+        init();
+        cachedColumnNames = new LinkedHashMap<>();
+        finalGeometryTypes = new HashSet<String>();
+        GF = new GeometryFactory(new PrecisionModel(), parsedSRID);
+        GeometryFactory geometryFactory = GF;
+        JsonFactory jsonFactory = jsFactory;
+        long fileLength = fileName.length();
+        int batchSize = 0;
+        try (FileInputStream fis = new FileInputStream(fileName);
+             OrderedPipeline<GeoJsonSeqChunk> pipeline = new OrderedPipeline<>(threadCount, 2 * threadCount)) {
+            LineChunkReader chunkReader = new LineChunkReader(fis, SEQUENCE_CHUNK_SIZE);
+            boolean endOfFile = false;
+            while (!endOfFile || pipeline.hasNext()) {
+                while (!endOfFile && !pipeline.isFull()) {
+                    byte[] data = chunkReader.next();
+                    if (data == null) {
+                        endOfFile = true;
+                    } else {
+                        long endPosition = chunkReader.getPosition();
+                        pipeline.submit(() -> GeoJsonSeqChunk.parse(jsonFactory, geometryFactory, dbType, data, endPosition));
+                    }
+                }
+                if (pipeline.hasNext()) {
+                    if (this.progress.isCanceled()) {
+                        throw new SQLException("Canceled by user");
+                    }
+                    GeoJsonSeqChunk chunk = pipeline.next();
+                    batchSize = addFeatures(chunk, batchSize);
+                    this.progress.setStep((int) (chunk.getEndPosition() * 100 / fileLength));
+                }
+            }
+            if (batchSize > 0) {
+                preparedStatement.executeBatch();
+                connection.commit();
+                preparedStatement.clearBatch();
+            }
+        } finally {
+            if (preparedStatement != null) {
+                connection.setAutoCommit(true);
+            }
+        }
+        if (!hasGeometryField) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS " + tableLocation);
+            }
+            throw new SQLException("The geojson file  does not contain any geometry.");
+        }
+        log.debug(featureCounter - 1 + " geojson features have been imported.");
+    }
+
+    /**
+     * Merge the schema of a block of a GeoJSON text sequence, then add its features to the insert batch.
+     * The table is created with the first block of features.
+     *
+     * @param chunk Parsed features
+     * @param batchSize Number of features in the batch
+     * @return The new number of features in the batch
+     */
+    private int addFeatures(GeoJsonSeqChunk chunk, int batchSize) throws SQLException {
+        if (chunk.getFeatureCount() == 0) {
+            return batchSize;
+        }
+        for (Map.Entry<String, Integer> column : chunk.getColumnTypes().entrySet()) {
+            String columnName = column.getKey();
+            Integer dataType = cachedColumnNames.get(columnName);
+            int newType = widenColumnType(dataType, column.getValue());
+            if (dataType == null || newType != dataType) {
+                cachedColumnNames.put(columnName, newType);
+                if (cachedColumnIndex != null && !cachedColumnIndex.containsKey(columnName)) {
+                    cachedColumnIndex.put(columnName, cachedColumnIndex.size() + 1);
+                }
+                schemaChanged = true;
+            }
+        }
+        if (finalGeometryTypes.addAll(chunk.getGeometryTypes())) {
+            schemaChanged = true;
+        }
+        if (chunk.getCoordinateDimension() > coordinateDimension) {
+            coordinateDimension = chunk.getCoordinateDimension();
+            schemaChanged = true;
+        }
+        hasGeometryField |= chunk.hasGeometryField();
+        if (preparedStatement == null) {
+            createTable();
+            connection.setAutoCommit(false);
+            schemaChanged = false;
+        }
+        for (int i = 0; i < chunk.getFeatureCount(); i++) {
+            Object[] values = new Object[cachedColumnIndex.size() + 1];
+            Geometry geometry = chunk.getGeometry(i);
+            if (geometry != null) {
+                if (chunk.getGeometryDimension(i) != coordinateDimension) {
+                    geometry = GJGeometryReader.forceCoordinateDimension(geometry, coordinateDimension);
+                }
+                values[0] = JTSUtils.geometry2ewkb(geometry);
+            }
+            for (Map.Entry<String, Object> property : chunk.getProperties(i).entrySet()) {
+                values[cachedColumnIndex.get(property.getKey())] = property.getValue();
+            }
+            batchSize = addFeature(values, batchSize);
+        }
+        return batchSize;
+    }
+
+    /**
+     * Check the token that starts a feature of the FeatureCollection
+     *
+     * @param token Current token
+     */
+    private static void checkFeatureStart(JsonToken token) throws SQLException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new SQLException("Malformed GeoJSON file. Expected 'Start Object or End array', found '" + token + "'");
+        }
+    }
+
+    /**
+     * Read the type of the feature, the parser must be on the START_OBJECT token of the feature
+     *
+     * @param jp {@link JsonParser}
+     */
+    private void readFeatureType(JsonParser jp) throws IOException, SQLException {
+        jp.nextToken(); // FIELD_NAME type
+        jp.nextToken(); // VALUE_STRING Feature
+        String geomType = jp.getText();
+        if (!geomType.equalsIgnoreCase(GeoJsonField.FEATURE)) {
+            throw new SQLException("Malformed GeoJSON file. Expected 'Feature', found '" + geomType + "'");
+        }
+        if (progress.isCanceled()) {
+            throw new SQLException("Canceled by user");
+        }
+    }
+
+    /**
+     * Copy the current object
+     *
+     * @param jp {@link JsonParser} on the START_OBJECT token, moved to the END_OBJECT token
+     * @return The object as a JSON string
+     */
+    private String copyCurrentStructure(JsonParser jp) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsFactory.createGenerator(writer)) {
+            generator.copyCurrentStructure(jp);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Add the feature to the insert batch. The pending features are inserted and the table is updated
+     * if the feature does not fit the table schema.
+     *
+     * @param values Feature values
+     * @param batchSize Number of features in the batch
+     * @return The new number of features in the batch
+     */
+    private int addFeature(Object[] values, int batchSize) throws SQLException {
+        if (schemaChanged) {
+            if (batchSize > 0) {
+                preparedStatement.executeBatch();
+                preparedStatement.clearBatch();
+                batchSize = 0;
+            }
+            alterTable();
+        }
+        int columnCount = cachedColumnIndex.size() + 1;
+        for (int i = 0; i < columnCount; i++) {
+            preparedStatement.setObject(i + 1, i < values.length ? values[i] : null);
+        }
+        preparedStatement.addBatch();
+        batchSize++;
+        featureCounter++;
+        if (batchSize >= BATCH_MAX_SIZE) {
+            preparedStatement.executeBatch();
+            connection.commit();
+            preparedStatement.clearBatch();
+            batchSize = 0;
+        }
+        return batchSize;
+    }
+
+    /**
+     * Create the table from the collected metadata and prepare the insert statement
+     */
+    private void createTable() throws SQLException {
+        StringBuilder createTable = new StringBuilder();
+        createTable.append("CREATE TABLE ");
+        createTable.append(tableLocation);
+        createTable.append(" (");
+        //Add the geometry column
+        tableGeometryType = getGeometryColumnType();
+        tableCoordinateDimension = coordinateDimension;
+        createTable.append("THE_GEOM ").append(tableGeometryType);
+        cachedColumnIndex = new LinkedHashMap<>();
+        int i = 1;
+        for (Map.Entry<String, Integer> columns : cachedColumnNames.entrySet()) {
+            cachedColumnIndex.put(columns.getKey(), i++);
+            createTable.append(",").append(columns.getKey()).append(" ").append(getSQLTypeName(columns.getValue()));
+        }
+        createTable.append(")");
+        tableColumnTypes = new HashMap<>(cachedColumnNames);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(createTable.toString());
+        }
+        indexes.spatialIndex(tableLocation, "THE_GEOM");
+        preparedStatement = connection.prepareStatement(getInsertQuery());
+    }
+
+    /**
+     * @return The type of the geometry column, from the collected geometry types and coordinate dimension
+     */
+    private String getGeometryColumnType() {
+        if (finalGeometryTypes.size() == 1) {
+            String finalGeometryType = (String) finalGeometryTypes.iterator().next();
+            switch (coordinateDimension) {
+                case 3:
+                    finalGeometryType += "Z";
+                    break;
+                case 4:
+                    finalGeometryType += "ZM";
+                    break;
+            }
+            return "GEOMETRY(" + finalGeometryType + "," + parsedSRID + ")";
         } else {
-            throw new SQLException("Cannot create the table " + tableLocation + " to import the GeoJSON data");
+            return "GEOMETRY(GEOMETRY," + parsedSRID + ")";
+        }
+    }
+
+    /**
+     * @return The insert query of the table columns
+     */
+    private String getInsertQuery() {
+        StringBuilder insertTable = new StringBuilder("INSERT INTO ");
+        insertTable.append(tableLocation).append(" VALUES(?");
+        for (Integer columnType : cachedColumnNames.values()) {
+            if (columnType == Types.ARRAY) {
+                if (dbType == DBTypes.H2 || dbType == DBTypes.H2GIS) {
+                    insertTable.append(",").append(" ? FORMAT json");
+                } else {
+                    insertTable.append(",").append("cast(? as json)");
+                }
+            } else {
+                insertTable.append(",").append("?");
+            }
+        }
+        insertTable.append(")");
+        return insertTable.toString();
+    }
+
+    /**
+     * Add the new columns and convert the columns and the geometry column to the types collected
+     * from the features already read, then prepare the new insert statement.
+     * Values already inserted are converted by the database.
+     */
+    private void alterTable() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (Map.Entry<String, Integer> column : cachedColumnNames.entrySet()) {
+                String columnName = column.getKey();
+                String sqlType = getSQLTypeName(column.getValue());
+                Integer tableType = tableColumnTypes.get(columnName);
+                if (tableType == null) {
+                    stmt.execute("ALTER TABLE " + tableLocation + " ADD COLUMN " + columnName + " " + sqlType);
+                } else if (!getSQLTypeName(tableType).equals(sqlType)) {
+                    stmt.execute(getAlterColumnTypeQuery(columnName, sqlType, null));
+                }
+            }
+            String geometryType = getGeometryColumnType();
+            if (coordinateDimension != tableCoordinateDimension) {
+                String forceFunction = coordinateDimension == 3 ? "ST_Force3D" : "ST_Force4D";
+                if (dbType == DBTypes.H2 || dbType == DBTypes.H2GIS) {
+                    String genericType = "GEOMETRY(GEOMETRY," + parsedSRID + ")";
+                    if (!tableGeometryType.equals(genericType)) {
+                        stmt.execute(getAlterColumnTypeQuery("THE_GEOM", genericType, null));
+                    }
+                    stmt.execute("UPDATE " + tableLocation + " SET THE_GEOM = " + forceFunction + "(THE_GEOM)");
+                    if (!geometryType.equals(genericType)) {
+                        stmt.execute(getAlterColumnTypeQuery("THE_GEOM", geometryType, null));
+                    }
+                } else {
+                    stmt.execute(getAlterColumnTypeQuery("THE_GEOM", geometryType, forceFunction + "(THE_GEOM)"));
+                }
+            } else if (!geometryType.equals(tableGeometryType)) {
+                stmt.execute(getAlterColumnTypeQuery("THE_GEOM", geometryType, null));
+            }
+            tableGeometryType = geometryType;
+            tableCoordinateDimension = coordinateDimension;
+        }
+        tableColumnTypes = new HashMap<>(cachedColumnNames);
+        preparedStatement.close();
+        preparedStatement = connection.prepareStatement(getInsertQuery());
+        schemaChanged = false;
+    }
+
+    /**
+     * @param columnName Quoted column name
+     * @param sqlType New SQL type of the column
+     * @param using Expression of the new column value, null to cast the value
+     * @return The query that changes the type of a column
+     */
+    private String getAlterColumnTypeQuery(String columnName, String sqlType, String using) {
+        if (dbType == DBTypes.H2 || dbType == DBTypes.H2GIS) {
+            return "ALTER TABLE " + tableLocation + " ALTER COLUMN " + columnName + " SET DATA TYPE " + sqlType;
         }
+        return "ALTER TABLE " + tableLocation + " ALTER COLUMN " + columnName + " TYPE " + sqlType + " USING "
+                + (using == null ? columnName + "::" + sqlType : using);
     }
 
     /**
@@ -212,11 +682,7 @@ public class GeoJsonReaderDriver {
                 if (dataType.equalsIgnoreCase(GeoJsonField.TYPE)) {
                     jp.nextToken(); // value_string (FeatureCollection)
                     dataType = jp.getText();
-                    if (dataType.equalsIgnoreCase(GeoJsonField.FEATURECOLLECTION)) {
-                        jp.nextToken(); // FIELD_NAME features
-                        parseFeaturesMetadata(jp);
-                    }
-                    else if(dataType.equalsIgnoreCase(GeoJsonField.FEATURE)){
+                    if(dataType.equalsIgnoreCase(GeoJsonField.FEATURE)){
                         parseFeatureMetadata(jp);
                     }
                     else if(dataType.equalsIgnoreCase(GeoJsonField.POINT)){
@@ -250,8 +716,6 @@ public class GeoJsonReaderDriver {
                     else {
                         throw new SQLException("Malformed GeoJSON file. Found '" + dataType + "'");
                     }
-                } else if (dataType.equalsIgnoreCase(GeoJsonField.FEATURES)) {
-                    parseFeaturesMetadata(jp);
                 } else {
                     throw new SQLException("Malformed GeoJSON file. Found '" + dataType + "'");
                 }
@@ -271,107 +735,14 @@ public class GeoJsonReaderDriver {
         }
         // Now we create the table if there is at least one geometry field.          
         if (hasGeometryField) {
-            StringBuilder createTable = new StringBuilder();
-            createTable.append("CREATE TABLE ");
-            createTable.append(tableLocation);
-            createTable.append(" (");
-            //Add the geometry column
-            String finalGeometryType = GeoJsonField.GEOMETRY;
-            if (finalGeometryTypes.size() == 1) {
-                finalGeometryType = (String) finalGeometryTypes.iterator().next();
-                switch (coordinateDimension) {
-                    case 3:
-                        finalGeometryType+="Z";
-                        break;
-                    case 4:
-                        finalGeometryType+="ZM";
-                        break;
-                }
-                createTable.append("THE_GEOM GEOMETRY(").append(finalGeometryType).append(",").append(parsedSRID).append(")");
-            }
-            else{
-                createTable.append("THE_GEOM GEOMETRY(GEOMETRY,").append(parsedSRID).append(")");
-            }
-            cachedColumnIndex = new LinkedHashMap<>();
-            StringBuilder insertTable = new StringBuilder("INSERT INTO ");
-            insertTable.append(tableLocation).append(" VALUES(?");
-
-            int i = 1;
-            for (Map.Entry<String, Integer> columns : cachedColumnNames.entrySet()) {
-                String columnName = columns.getKey();
-                Integer columnType = columns.getValue();
-                cachedColumnIndex.put(columnName, i++);
-                createTable.append(",").append(columns.getKey()).append(" ").append(getSQLTypeName(columnType));
-                if(columnType==Types.ARRAY){
-                    if(dbType == DBTypes.H2 || dbType == DBTypes.H2GIS){
-                        insertTable.append(",").append(" ? FORMAT json");
-                    }else {
-                        insertTable.append(",").append("cast(? as json)");
-                    }
-                }else {
-                    insertTable.append(",").append("?");
-                }
-            }
-            createTable.append(")");
-            insertTable.append(")");
-
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute(createTable.toString());
-            }
-            preparedStatement = connection.prepareStatement(insertTable.toString());
+            createTable();
             return true;
-
         } else {
             throw new SQLException("The geojson file  does not contain any geometry.");
         }
 
     }
 
-    /**
-     * Parses the featureCollection to collect the field properties
-     *
-     * @param jp
-     */
-    private void parseFeaturesMetadata(JsonParser jp) throws IOException, SQLException {
-        // Passes all the properties until "Feature" object is found
-        while (!jp.getText().equalsIgnoreCase(GeoJsonField.FEATURES)
-                && !jp.getText().equalsIgnoreCase(GeoJsonField.CRS)) {
-            jp.nextToken();
-            if (jp.getCurrentToken().equals(JsonToken.START_ARRAY) || jp.getCurrentToken().equals(JsonToken.START_OBJECT)) {
-                jp.skipChildren();
-            }
-            jp.nextToken();
-        }
-        if (jp.getText().equalsIgnoreCase(GeoJsonField.CRS)) {
-            parsedSRID = readCRS(jp);
-        }
-        if (jp.getText().equalsIgnoreCase(GeoJsonField.FEATURES)) {
-            jp.nextToken(); // START_ARRAY [
-            JsonToken token = jp.nextToken(); // START_OBJECT {
-            while (token != JsonToken.END_ARRAY) {
-                jp.nextToken(); // FIELD_NAME type
-                jp.nextToken(); // VALUE_STRING Feature
-                String geomType = jp.getText();
-                if (geomType.equalsIgnoreCase(GeoJsonField.FEATURE)) {
-                    if (progress.isCanceled()) {
-                        throw new SQLException("Canceled by user");
-                    }
-                    parseFeatureMetadata(jp);
-                    token = jp.nextToken(); //START_OBJECT new feature
-                    if(token != JsonToken.START_OBJECT && token != JsonToken.END_ARRAY) {
-                        throw new SQLException("Malformed GeoJSON file. Expected 'Start Object or End array', found '" + token + "'");
-                    }
-                    nbFeature++;
-                } else {
-                    throw new SQLException("Malformed GeoJSON file. Expected 'Feature', found '" + geomType + "'");
-                }
-            }
-            //LOOP END_ARRAY ]
-        } else {
-            throw new SQLException("Malformed GeoJSON file. Expected 'features', found '" + jp.getText() + "'");
-        }
-    }
-
     /**
      * Features in GeoJSON contain a geometry object and additional properties
      * This method is used to collect metadata
@@ -712,64 +1083,87 @@ public class GeoJsonReaderDriver {
         fieldName = TableLocation.quoteIdentifier(fieldName, dbType);
         JsonToken value = jp.nextToken();
         if (null != value) {
-            Integer dataType = cachedColumnNames.get(fieldName);
-            boolean hasField = cachedColumnNames.containsKey(fieldName);
-            switch (value) {
-                case VALUE_STRING:
-                    cachedColumnNames.put(fieldName, Types.VARCHAR);
-                    break;
-                case VALUE_TRUE:
-                case VALUE_FALSE:
-                    if (!hasField || dataType == Types.NULL) {
-                        cachedColumnNames.put(fieldName, Types.BOOLEAN);
-                    } else if (hasField && dataType != Types.BOOLEAN) {
-                        cachedColumnNames.put(fieldName, Types.VARCHAR);
-                    }
-                    break;
-                case VALUE_NUMBER_FLOAT:
-                    if (!hasField || dataType == Types.NULL) {
-                        cachedColumnNames.put(fieldName, Types.DOUBLE);
-                    } else if (hasField) {
-                        if (dataType == Types.BIGINT) {
-                            cachedColumnNames.put(fieldName, Types.DOUBLE);
-                        } else if (dataType != Types.DOUBLE) {
-                            cachedColumnNames.put(fieldName, Types.VARCHAR);
-                        }
-                    }
-                    break;
-                case VALUE_NUMBER_INT:
-                    if (!hasField || dataType == Types.NULL) {
-                        cachedColumnNames.put(fieldName, Types.BIGINT);
-                    } else if (hasField && dataType != Types.BIGINT && dataType != Types.DOUBLE) {
-                        cachedColumnNames.put(fieldName, Types.VARCHAR);
-                    }
-                    break;
-                case START_ARRAY:
-                    if (!hasField || dataType == Types.NULL) {
-                        cachedColumnNames.put(fieldName, Types.ARRAY);
-                    } else if (hasField && dataType != Types.ARRAY) {
-                        cachedColumnNames.put(fieldName, Types.VARCHAR);
-                    }
-                    parseArrayMetadata(jp);
-                    break;
-                case START_OBJECT:
-                    if (!hasField || dataType == Types.NULL) {
-                        cachedColumnNames.put(fieldName, Types.ARRAY);
-                    } else if (hasField && dataType != Types.ARRAY) {
-                        cachedColumnNames.put(fieldName, Types.VARCHAR);
-                    }
-                    parseObjectMetadata(jp);
-                    break;
-                case VALUE_NULL:
-                    if (!hasField) {
-                        cachedColumnNames.put(fieldName, Types.NULL);
-                    }
-                    //ignore other value
-                default:
-                    break;
+            updateColumnType(fieldName, value);
+            if (value == JsonToken.START_ARRAY) {
+                parseArrayMetadata(jp);
+            } else if (value == JsonToken.START_OBJECT) {
+                parseObjectMetadata(jp);
             }
         }
     }
+
+    /**
+     * Set or widen the type of a column from a property value
+     *
+     * @param fieldName Quoted column name
+     * @param value Token of the property value
+     * @return True if the column has been added or its type has been changed
+     */
+    private boolean updateColumnType(String fieldName, JsonToken value) {
+        Integer valueType = getValueType(value);
+        if (valueType == null) {
+            //ignore other value
+            return false;
+        }
+        Integer dataType = cachedColumnNames.get(fieldName);
+        int newType = widenColumnType(dataType, valueType);
+        if (dataType == null || newType != dataType) {
+            cachedColumnNames.put(fieldName, newType);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param value Token of a property value
+     * @return The SQL type of the value, null if the value is ignored
+     */
+    static Integer getValueType(JsonToken value) {
+        switch (value) {
+            case VALUE_STRING:
+                return Types.VARCHAR;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return Types.BOOLEAN;
+            case VALUE_NUMBER_FLOAT:
+                return Types.DOUBLE;
+            case VALUE_NUMBER_INT:
+                return Types.BIGINT;
+            case START_ARRAY:
+            case START_OBJECT:
+                return Types.ARRAY;
+            case VALUE_NULL:
+                return Types.NULL;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Return the type of a column that stores the values of the column type and of the given type.
+     * Integers are stored in a DOUBLE column if there are decimal values, the values that do not share
+     * a type are stored as VARCHAR.
+     *
+     * @param dataType Column type, null if the column is new
+     * @param valueType Type of the value to store
+     * @return The new type of the column
+     */
+    static int widenColumnType(Integer dataType, int valueType) {
+        if (dataType == null || dataType == Types.NULL) {
+            return valueType;
+        }
+        switch (valueType) {
+            case Types.NULL:
+                return dataType;
+            case Types.DOUBLE:
+                return dataType == Types.BIGINT || dataType == Types.DOUBLE ? Types.DOUBLE : Types.VARCHAR;
+            case Types.BIGINT:
+                return dataType == Types.BIGINT || dataType == Types.DOUBLE ? dataType : Types.VARCHAR;
+            default:
+                return dataType == valueType ? dataType : Types.VARCHAR;
+        }
+    }
+
     /**
      * Parses the properties of a feature
      *
@@ -802,6 +1196,8 @@ public class GeoJsonReaderDriver {
         jsFactory.configure(JsonParser.Feature.ALLOW_COMMENTS, true);
         jsFactory.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
         jsFactory.configure(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS, true);
+        // Keep NaN and Infinity as numbers when the features are copied
+        jsFactory.configure(JsonWriteFeature.WRITE_NAN_AS_STRINGS.mappedFeature(), false);
     }
 
     /**
@@ -832,9 +1228,9 @@ public class GeoJsonReaderDriver {
             if (field.equalsIgnoreCase(GeoJsonField.GEOMETRY)) {
                 setGeometry(jp, values);
             } else if (field.equalsIgnoreCase(GeoJsonField.PROPERTIES)) {
-                parseProperties(jp, values);
+                values = parseProperties(jp, values);
             } else if (field.equalsIgnoreCase(GeoJsonField.FEATURE_ID)) {
-                parseProperty(jp, values);
+                values = parseProperty(jp, values);
             }
         }
 
@@ -847,11 +1243,20 @@ public class GeoJsonReaderDriver {
      * @param jp {@link JsonParser}
      */
     private void setGeometry(JsonParser jp, Object[] values) throws IOException, SQLException {
+        if (updateSchema) {
+            hasGeometryField = true;
+        }
         if (jp.nextToken() != JsonToken.VALUE_NULL) {//START_OBJECT { in case of null geometry
             jp.nextToken(); // FIELD_NAME type     
             jp.nextToken(); //VALUE_STRING Point
             String geometryType = jp.getText();
-            values[0] = JTSUtils.geometry2ewkb(parseGeometry(jp, geometryType));
+            int dimension = coordinateDimension;
+            Geometry geometry = parseGeometry(jp, geometryType);
+            if (dimension != coordinateDimension) {
+                // The first coordinates have been read with the previous dimension
+                geometry = GJGeometryReader.forceCoordinateDimension(geometry, coordinateDimension);
+            }
+            values[0] = JTSUtils.geometry2ewkb(geometry);
         }
     }
 
@@ -867,29 +1272,51 @@ public class GeoJsonReaderDriver {
      * @return Geometry
      */
     private Geometry parseGeometry(JsonParser jp, String geometryType) throws IOException, SQLException {
+        Geometry geometry;
+        String finalGeometryType;
         if (geometryType.equalsIgnoreCase(GeoJsonField.POINT)) {
-            return parsePoint(jp);
+            geometry = parsePoint(jp);
+            finalGeometryType = GeoJsonField.POINT;
         } else if (geometryType.equalsIgnoreCase(GeoJsonField.MULTIPOINT)) {
-            return parseMultiPoint(jp);
+            geometry = parseMultiPoint(jp);
+            finalGeometryType = GeoJsonField.MULTIPOINT;
         } else if (geometryType.equalsIgnoreCase(GeoJsonField.LINESTRING)) {
-            return parseLinestring(jp);
+            geometry = parseLinestring(jp);
+            finalGeometryType = GeoJsonField.LINESTRING;
         } else if (geometryType.equalsIgnoreCase(GeoJsonField.MULTILINESTRING)) {
-            return parseMultiLinestring(jp);
+            geometry = parseMultiLinestring(jp);
+            finalGeometryType = GeoJsonField.MULTILINESTRING;
         } else if (geometryType.equalsIgnoreCase(GeoJsonField.POLYGON)) {
-            return parsePolygon(jp);
+            geometry = parsePolygon(jp);
+            finalGeometryType = GeoJsonField.POLYGON;
         } else if (geometryType.equalsIgnoreCase(GeoJsonField.MULTIPOLYGON)) {
-            return parseMultiPolygon(jp);
+            geometry = parseMultiPolygon(jp);
+            finalGeometryType = GeoJsonField.MULTIPOLYGON;
         } else if (geometryType.equalsIgnoreCase(GeoJsonField.GEOMETRYCOLLECTION)) {
-            return parseGeometryCollection(jp);
+            geometry = parseGeometryCollection(jp);
+            finalGeometryType = GeoJsonField.GEOMETRYCOLLECTION;
         } else {
             throw new SQLException("Unsupported geometry : " + geometryType);
         }
+        if (updateSchema && finalGeometryTypes.add(finalGeometryType)) {
+            schemaChanged = true;
+        }
+        return geometry;
     }
 
-    private void parseProperty(JsonParser jp, Object[] values) throws IOException {
+    private Object[] parseProperty(JsonParser jp, Object[] values) throws IOException {
         String fieldName = TableLocation.capsIdentifier(jp.getText(), dbType); //FIELD_NAME columnName
         fieldName = TableLocation.quoteIdentifier(fieldName, dbType);
         JsonToken value = jp.nextToken();
+        if (updateSchema && value != null && updateColumnType(fieldName, value)) {
+            schemaChanged = true;
+            if (!cachedColumnIndex.containsKey(fieldName)) {
+                cachedColumnIndex.put(fieldName, cachedColumnIndex.size() + 1);
+            }
+            if (values.length <= cachedColumnIndex.size()) {
+                values = Arrays.copyOf(values, cachedColumnIndex.size() + 1);
+            }
+        }
         if (null == value) {
             //ignore other value
         } else switch (value) {
@@ -931,6 +1358,7 @@ public class GeoJsonReaderDriver {
             default:
                 break;
         }
+        return values;
     }
 
     /**
@@ -942,77 +1370,12 @@ public class GeoJsonReaderDriver {
      *
      * @param jp
      */
-    private void parseProperties(JsonParser jp, Object[] values) throws IOException, SQLException {
+    private Object[] parseProperties(JsonParser jp, Object[] values) throws IOException, SQLException {
         jp.nextToken();//START_OBJECT {
         while (jp.nextToken() != JsonToken.END_OBJECT) {
-            parseProperty(jp, values);
-        }
-    }
-
-    /**
-     * Parses the featureCollection
-     *
-     * @param jp {@link JsonParser}
-     */
-    private void parseFeatures(JsonParser jp) throws IOException, SQLException {
-        // Passes all the properties until "Feature" object is found
-        while (!jp.getText().equalsIgnoreCase(GeoJsonField.FEATURES)
-                && !jp.getText().equalsIgnoreCase(GeoJsonField.CRS)) {
-            jp.nextToken();
-            if (jp.getCurrentToken().equals(JsonToken.START_ARRAY) || jp.getCurrentToken().equals(JsonToken.START_OBJECT)) {
-                jp.skipChildren();
-            }
-            jp.nextToken();
-        }
-        String firstParam = jp.getText();
-        if (firstParam.equalsIgnoreCase(GeoJsonField.CRS)) {
-            firstParam = skipCRS(jp);
-        }
-        if (firstParam.equalsIgnoreCase(GeoJsonField.FEATURES)) {
-            connection.setAutoCommit(false);
-            jp.nextToken(); // START_ARRAY [
-            JsonToken token = jp.nextToken(); // START_OBJECT {
-            long batchSize = 0;
-            while (token != JsonToken.END_ARRAY) {
-                jp.nextToken(); // FIELD_NAME type
-                jp.nextToken(); // VALUE_STRING Feature
-                String geomType = jp.getText();
-                if (geomType.equalsIgnoreCase(GeoJsonField.FEATURE)) {
-                    if (progress.isCanceled()) {
-                        throw new SQLException("Canceled by user");
-                    }
-                    Object[] values = parseFeature(jp);
-                    for (int i = 0; i < values.length; i++) {
-                        preparedStatement.setObject(i + 1, values[i]);
-                    }
-                    preparedStatement.addBatch();
-                    batchSize++;
-                    if (batchSize >= BATCH_MAX_SIZE) {
-                        preparedStatement.executeBatch();
-                        connection.commit();
-                        preparedStatement.clearBatch();
-                        batchSize = 0;
-                    }
-                    token = jp.nextToken(); //START_OBJECT new feature                    
-                    featureCounter++;
-                    progress.setStep((featureCounter / nbFeature) * 100);
-
-                } else {
-                    connection.setAutoCommit(true);
-                    throw new SQLException("Malformed GeoJSON file. Expected 'Feature', found '" + geomType + "'");
-                }
-            }
-            if (batchSize > 0) {
-                preparedStatement.executeBatch();
-                connection.commit();
-                preparedStatement.clearBatch();
-            }
-            connection.setAutoCommit(true);
-            //LOOP END_ARRAY ]
-            log.debug(featureCounter-1 + " geojson features have been imported.");
-        } else {
-            throw new SQLException("Malformed GeoJSON file. Expected 'features', found '" + firstParam + "'");
+            values = parseProperty(jp, values);
         }
+        return values;
     }
 
     /**
@@ -1302,27 +1665,38 @@ public class GeoJsonReaderDriver {
             coordinates.add(jp.getDoubleValue());
             jp.nextToken();
         }
-        Coordinate coord;
-        if(coordinateDimension == 4) {
-            coord = new CoordinateXYZM(
-                    getOrDefault(coordinates, 0, 0),
-                    getOrDefault(coordinates, 1, 0),
-                    getOrDefault(coordinates, 2, 0),
-                    getOrDefault(coordinates, 3, 0));
-        } else if(coordinateDimension == 3) {
-            coord = new Coordinate(
-                    getOrDefault(coordinates, 0, 0),
-                    getOrDefault(coordinates, 1, 0),
-                    getOrDefault(coordinates, 2, 0));
-        } else {
-            coord = new Coordinate(
-                    getOrDefault(coordinates, 0, 0),
-                    getOrDefault(coordinates, 1, 0));
+        if (updateSchema && coordinates.size() > coordinateDimension && coordinateDimension < 4) {
+            coordinateDimension = Math.min(coordinates.size(), 4);
+            schemaChanged = true;
         }
+        Coordinate coord = createCoordinate(
+                getOrDefault(coordinates, 0, 0),
+                getOrDefault(coordinates, 1, 0),
+                getOrDefault(coordinates, 2, 0),
+                getOrDefault(coordinates, 3, 0));
         jp.nextToken(); // exit end array
         return coord;
     }
 
+    /**
+     * Create a coordinate of the current coordinate dimension
+     *
+     * @param x X value
+     * @param y Y value
+     * @param z Z value, ignored in 2D
+     * @param m M value, ignored in 2D and 3D
+     * @return Coordinate
+     */
+    private Coordinate createCoordinate(double x, double y, double z, double m) {
+        if (coordinateDimension == 4) {
+            return new CoordinateXYZM(x, y, z, m);
+        } else if (coordinateDimension == 3) {
+            return new Coordinate(x, y, z);
+        } else {
+            return new Coordinate(x, y);
+        }
+    }
+
     /**
      * Parses the GeoJSON data and set the values to the table.
      * @param is {@link InputStream}
@@ -1336,10 +1710,7 @@ public class GeoJsonReaderDriver {
                 if (dataType.equalsIgnoreCase(GeoJsonField.TYPE)) {
                     jp.nextToken(); // value_string (FeatureCollection)
                     dataType = jp.getText();
-                    if (dataType.equalsIgnoreCase(GeoJsonField.FEATURECOLLECTION)) {
-                        jp.nextToken(); // FIELD_NAME features
-                        parseFeatures(jp);
-                    }else if(dataType.equalsIgnoreCase(GeoJsonField.FEATURE)){
+                    if(dataType.equalsIgnoreCase(GeoJsonField.FEATURE)){
                         Object[] values = parseFeature(jp);
                         for (int i = 0; i < values.length; i++) {
                         preparedStatement.setObject(i + 1, values[i]);
@@ -1377,8 +1748,6 @@ public class GeoJsonReaderDriver {
                     else {
                         throw new SQLException("Malformed GeoJSON file. Found '" + dataType + "'");
                     }
-                } else if (dataType.equalsIgnoreCase(GeoJsonField.FEATURES)) {
-                    parseFeatures(jp);
                 } else {
                     throw new SQLException("Malformed GeoJSON file. Found '" + dataType + "'");
                 }
@@ -1452,20 +1821,6 @@ public class GeoJsonReaderDriver {
         return srid;
     }
 
-    /**
-     * We skip the CRS because it has been already parsed.
-     *
-     *
-     * @param jp
-     */
-    private String skipCRS(JsonParser jp) throws IOException {
-        jp.nextToken(); //START_OBJECT {
-        jp.skipChildren();
-        jp.nextToken(); //Go to features
-        return jp.getText();
-    }
-
-
     /**
      * Parses Json Array. Syntax: Json Array: {"member1": value1}, value2,
      * value3, {"member4": value4}]
@@ -0,0 +1,270 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; you can
+ * redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation; version 3.0 of
+ * the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.geojson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.h2gis.utilities.TableLocation;
+import org.h2gis.utilities.dbtypes.DBTypes;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Features of a block of lines of a GeoJSON text sequence. The blocks are parsed independently, then their
+ * column types are merged in the file order to build the table schema.
+ */
+class GeoJsonSeqChunk {
+    /** ASCII record separator written before each feature of a RFC 8142 text sequence */
+    static final byte RECORD_SEPARATOR = 0x1E;
+    private final LinkedHashMap<String, Integer> columnTypes = new LinkedHashMap<>();
+    private final Set<String> geometryTypes = new HashSet<>();
+    private final List<Geometry> geometries = new ArrayList<>();
+    private final List<Integer> geometryDimensions = new ArrayList<>();
+    private final List<Map<String, Object>> properties = new ArrayList<>();
+    private final long endPosition;
+    private final JsonFactory jsFactory;
+    private final DBTypes dbType;
+    private int coordinateDimension = 2;
+    private boolean hasGeometryField = false;
+
+    private GeoJsonSeqChunk(JsonFactory jsFactory, DBTypes dbType, long endPosition) {
+        this.jsFactory = jsFactory;
+        this.dbType = dbType;
+        this.endPosition = endPosition;
+    }
+
+    /**
+     * Parse a block of features, one feature per line
+     *
+     * @param jsFactory Factory of the JSON parser
+     * @param geometryFactory Factory of the geometries
+     * @param dbType Database type, used to format the column names
+     * @param data Lines of the file
+     * @param endPosition Position in the file of the end of the block
+     * @return The parsed features
+     */
+    static GeoJsonSeqChunk parse(JsonFactory jsFactory, GeometryFactory geometryFactory, DBTypes dbType,
+                                 byte[] data, long endPosition) throws IOException, SQLException {
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == RECORD_SEPARATOR) {
+                data[i] = ' ';
+            }
+        }
+        GeoJsonSeqChunk chunk = new GeoJsonSeqChunk(jsFactory, dbType, endPosition);
+        GJGeometryReader geometryReader = new GJGeometryReader(geometryFactory);
+        try (JsonParser jp = jsFactory.createParser(data)) {
+            JsonToken token;
+            while ((token = jp.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new SQLException("Malformed GeoJSON sequence. Expected 'Start Object', found '" + token + "'");
+                }
+                chunk.parseFeature(jp, geometryReader);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Parse one feature
+     *
+     * { "type": "Feature", "geometry":{"type": "Point", "coordinates": [102.0,
+     * 0.5]}, "properties": {"prop0": "value0"} }
+     *
+     * @param jp Parser on the START_OBJECT token of the feature
+     */
+    private void parseFeature(JsonParser jp, GJGeometryReader geometryReader) throws IOException, SQLException {
+        Geometry geometry = null;
+        int dimension = 2;
+        Map<String, Object> values = new HashMap<>();
+        while (jp.nextToken() != JsonToken.END_OBJECT) {
+            String field = jp.getText();
+            if (field.equalsIgnoreCase(GeoJsonField.TYPE)) {
+                jp.nextToken();
+                if (!jp.getText().equalsIgnoreCase(GeoJsonField.FEATURE)) {
+                    throw new SQLException("Malformed GeoJSON sequence. Expected 'Feature', found '" + jp.getText() + "'");
+                }
+            } else if (field.equalsIgnoreCase(GeoJsonField.GEOMETRY)) {
+                hasGeometryField = true;
+                geometry = geometryReader.parseGeometry(jp);
+                if (geometry != null) {
+                    dimension = geometryReader.getCoordinateDimension();
+                    if (geometryReader.hasMixedCoordinateDimension()) {
+                        geometry = GJGeometryReader.forceCoordinateDimension(geometry, dimension);
+                    }
+                    coordinateDimension = Math.max(coordinateDimension, dimension);
+                    addGeometryTypes(geometry);
+                }
+            } else if (field.equalsIgnoreCase(GeoJsonField.PROPERTIES)) {
+                if (jp.nextToken() == JsonToken.START_OBJECT) {
+                    while (jp.nextToken() != JsonToken.END_OBJECT) {
+                        parseProperty(jp, values);
+                    }
+                }
+            } else if (field.equalsIgnoreCase(GeoJsonField.FEATURE_ID)) {
+                parseProperty(jp, values);
+            } else {
+                //Avoid all token which are not 'id' 'properties', 'geometry', 'type'
+                JsonToken currentToken = jp.nextToken(); // get value
+                if (currentToken.equals(JsonToken.START_ARRAY) || currentToken.equals(JsonToken.START_OBJECT)) {
+                    jp.skipChildren();
+                }
+            }
+        }
+        geometries.add(geometry);
+        geometryDimensions.add(dimension);
+        properties.add(values);
+    }
+
+    /**
+     * Collect the geometry type, and the types of the members of a geometry collection
+     *
+     * @param geometry Geometry
+     */
+    private void addGeometryTypes(Geometry geometry) {
+        geometryTypes.add(geometry.getGeometryType().toLowerCase());
+        if (geometry.getClass() == GeometryCollection.class) {
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                addGeometryTypes(geometry.getGeometryN(i));
+            }
+        }
+    }
+
+    /**
+     * Parse a property value and widen the type of its column
+     *
+     * @param jp Parser on the FIELD_NAME token of the property
+     * @param values Values of the feature
+     */
+    private void parseProperty(JsonParser jp, Map<String, Object> values) throws IOException {
+        String fieldName = TableLocation.capsIdentifier(jp.getText(), dbType); //FIELD_NAME columnName
+        fieldName = TableLocation.quoteIdentifier(fieldName, dbType);
+        JsonToken value = jp.nextToken();
+        Integer valueType = GeoJsonReaderDriver.getValueType(value);
+        if (valueType == null) {
+            //ignore other value
+            return;
+        }
+        columnTypes.put(fieldName, GeoJsonReaderDriver.widenColumnType(columnTypes.get(fieldName), valueType));
+        switch (value) {
+            case VALUE_STRING:
+                values.put(fieldName, jp.getText());
+                break;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                values.put(fieldName, jp.getValueAsBoolean());
+                break;
+            case VALUE_NUMBER_FLOAT:
+                values.put(fieldName, jp.getValueAsDouble());
+                break;
+            case VALUE_NUMBER_INT:
+                if (jp.getNumberType() == JsonParser.NumberType.INT) {
+                    values.put(fieldName, jp.getIntValue());
+                } else {
+                    values.put(fieldName, jp.getLongValue());
+                }
+                break;
+            case START_ARRAY:
+            case START_OBJECT:
+                StringWriter writer = new StringWriter();
+                try (JsonGenerator generator = jsFactory.createGenerator(writer)) {
+                    generator.copyCurrentStructure(jp);
+                }
+                values.put(fieldName, writer.toString());
+                break;
+            default:
+                values.put(fieldName, null);
+                break;
+        }
+    }
+
+    /**
+     * @return Type of the columns, in the order of their first value
+     */
+    Map<String, Integer> getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * @return Types of the geometries, {@link GeoJsonField} geometry names
+     */
+    Set<String> getGeometryTypes() {
+        return geometryTypes;
+    }
+
+    /**
+     * @return The highest coordinate dimension of the geometries
+     */
+    int getCoordinateDimension() {
+        return coordinateDimension;
+    }
+
+    /**
+     * @return True if a feature has a geometry member
+     */
+    boolean hasGeometryField() {
+        return hasGeometryField;
+    }
+
+    /**
+     * @return Number of features
+     */
+    int getFeatureCount() {
+        return geometries.size();
+    }
+
+    /**
+     * @param index Feature index
+     * @return Geometry of the feature, null if the feature has no geometry
+     */
+    Geometry getGeometry(int index) {
+        return geometries.get(index);
+    }
+
+    /**
+     * @param index Feature index
+     * @return Coordinate dimension of the geometry of the feature
+     */
+    int getGeometryDimension(int index) {
+        return geometryDimensions.get(index);
+    }
+
+    /**
+     * @param index Feature index
+     * @return Properties of the feature, the keys are the quoted column names
+     */
+    Map<String, Object> getProperties(int index) {
+        return properties.get(index);
+    }
+
+    /**
+     * @return Position in the file of the end of the block
+     */
+    long getEndPosition() {
+        return endPosition;
+    }
+}
@@ -41,7 +41,8 @@ public class GeoJsonWrite extends AbstractFunction implements ScalarFunction {
                 + "\nGeoJsonWrite(..."
                 + "\n Supported arguments :"
                 + "\n path of the file, table name"
-                + "\n path of the file, table name, true to delete the file if exists");
+                + "\n path of the file, table name, true to delete the file if exists"
+                + "\n The features of a .geojsonl or .geojsons file are written one per line (GeoJSON text sequence).");
     }
 
     @Override
@@ -23,6 +23,10 @@ import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import org.h2gis.api.ProgressVisitor;
+import org.h2gis.functions.io.utility.CoordinateFormatter;
+import org.h2gis.functions.io.utility.OrderedJsonWriter;
+import org.h2gis.functions.io.utility.OrderedPipeline;
+import org.h2gis.functions.io.utility.ParallelDeflaterOutputStream;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.h2gis.utilities.dbtypes.DBTypes;
@@ -36,9 +40,6 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import org.h2gis.utilities.FileUtilities;
 
 import org.h2gis.utilities.GeometryTableUtilities;
@@ -67,6 +68,13 @@ public class GeoJsonWriteDriver {
     private Map<String, String> cachedSpecificColumns;
     private LinkedHashMap<String, Integer> cachedColumnIndex;
     private int columnCountProperties = -1;
+    // Columns read as a String, indexed from 0
+    private boolean[] stringColumns;
+    private int threadCount = OrderedPipeline.getDefaultThreadCount();
+    // RFC 8142 record separator, written before each feature of a .geojsons file
+    private static final char RECORD_SEPARATOR = '\u001e';
+    // The features are serialized on several threads, a formatter is not thread safe
+    private static final ThreadLocal<CoordinateFormatter> FORMATTER = ThreadLocal.withInitial(CoordinateFormatter::new);
 
     /**
      * A simple GeoJSON driver to write a spatial table to a GeoJSON file.
@@ -75,7 +83,25 @@ public class GeoJsonWriteDriver {
      */
     public GeoJsonWriteDriver(Connection connection) {
         this.connection = connection;
-    }    
+    }
+
+    /**
+     * @return Number of threads used to serialize the features
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param threadCount Number of threads used to serialize the features, 1 to serialize the features on the
+     *                    thread that reads the rows
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count must be positive");
+        }
+        this.threadCount = threadCount;
+    }
 
     /**
      * Write a resulset to a geojson file
@@ -94,16 +120,24 @@ public class GeoJsonWriteDriver {
                 throw new IOException("The geojson file already exist.");
             }
             geojsonWriter(progress, rs, new FileOutputStream(fileName), encoding);
+        } else if (isTextSequence(fileName)) {
+            if (deleteFile) {
+                Files.deleteIfExists(fileName.toPath());
+            } else if (fileName.exists()) {
+                throw new IOException("The geojson file already exist.");
+            }
+            geojsonSeqWriter(progress, rs, new FileOutputStream(fileName), encoding,
+                    FileUtilities.isExtensionWellFormated(fileName, "geojsons"));
         } else if (FileUtilities.isExtensionWellFormated(fileName, "gz")) {
             if (deleteFile) {
                 Files.deleteIfExists(fileName.toPath());
             } else if (fileName.exists()) {
                 throw new IOException("The gz file already exist.");
             }
-            GZIPOutputStream gzos = null;
+            ParallelDeflaterOutputStream gzos = null;
             try {
                 FileOutputStream fos = new FileOutputStream(fileName);
-                gzos = new GZIPOutputStream(fos);
+                gzos = new ParallelDeflaterOutputStream(fos, threadCount);
                 geojsonWriter(progress, rs, gzos, encoding);
             } finally {
                 try {
@@ -120,10 +154,11 @@ public class GeoJsonWriteDriver {
             } else if (fileName.exists()) {
                 throw new IOException("The zip file already exist.");
             }
-            ZipOutputStream zip = null;
+            ParallelDeflaterOutputStream zip = null;
             try {
                 FileOutputStream fos = new FileOutputStream(fileName);
-                zip = new ZipOutputStream(fos);
+                zip = new ParallelDeflaterOutputStream(fos,
+                        ParallelDeflaterOutputStream.getZipEntryName(fileName.getName()), threadCount);
                 geojsonWriter(progress, rs, zip, encoding);
             } finally {
                 try {
@@ -169,7 +204,8 @@ public class GeoJsonWriteDriver {
             ProgressVisitor copyProgress = progress.subProcess(rowCount);
             Tuple<String, Integer> geometryInfo = GeometryTableUtilities.getFirstGeometryColumnNameAndIndex(resultSetMetaData);
             JsonFactory jsonFactory = new JsonFactory();
-            JsonGenerator jsonGenerator = jsonFactory.createGenerator(new BufferedOutputStream(fos), jsonEncoding);
+            OutputStream out = new BufferedOutputStream(fos);
+            JsonGenerator jsonGenerator = jsonFactory.createGenerator(out, jsonEncoding);
 
             // header of the GeoJSON file
             jsonGenerator.writeStartObject();
@@ -186,23 +222,20 @@ public class GeoJsonWriteDriver {
                     srid = Integer.parseInt(authAndSrid[1]);
                 }
                 jsonGenerator.writeArrayFieldStart("features");
-                //Don't forget to save the first geom
-                // feature header
-                jsonGenerator.writeStartObject();
-                jsonGenerator.writeStringField("type", "Feature");
-                //Write the first geometry
-                writeGeometry((Geometry) rs.getObject(geometryInfo.second()), jsonGenerator);
-                //Write the properties
-                writeProperties(jsonGenerator, rs);
-                // feature footer
-                jsonGenerator.writeEndObject();
-                copyProgress.endStep();
-
-                //Iterate next rows and check SRID
-                while (rs.next()) {
-                    writeFeatureCheckSRID(jsonGenerator, rs, geometryInfo.second(), srid);
-                    copyProgress.endStep();
-                }
+                jsonGenerator.flush();
+                //Write the features from the first one and check the SRID of the next rows
+                int fileSrid = srid;
+                int geometryIndex = geometryInfo.second();
+                new OrderedJsonWriter(jsonFactory, jsonEncoding, threadCount).write(rs, true,
+                        (resultSet, rowNumber) -> {
+                            Object[] row = readRow(resultSet);
+                            if (rowNumber > 0) {
+                                checkSRID((Geometry) row[geometryIndex - 1], fileSrid);
+                            }
+                            return row;
+                        },
+                        (generator, row, rowNumber) -> writeFeature(generator, row, geometryIndex, rowNumber),
+                        out, copyProgress);
                 copyProgress.endOfProgress();
                 // footer
                 jsonGenerator.writeEndArray();
@@ -256,23 +289,26 @@ public class GeoJsonWriteDriver {
                 try ( // Read table content
                         Statement st = connection.createStatement()) {
                     JsonFactory jsonFactory = new JsonFactory();
-                    JsonGenerator jsonGenerator = jsonFactory.createGenerator(new BufferedOutputStream(fos), jsonEncoding);
+                    OutputStream out = new BufferedOutputStream(fos);
+                    JsonGenerator jsonGenerator = jsonFactory.createGenerator(out, jsonEncoding);
 
                     // header of the GeoJSON file
                     jsonGenerator.writeStartObject();
                     jsonGenerator.writeStringField("type", "FeatureCollection");
                     writeCRS(jsonGenerator, GeometryTableUtilities.getAuthorityAndSRID(connection, parse, geometryTableInfo.first()));
                     jsonGenerator.writeArrayFieldStart("features");
+                    jsonGenerator.flush();
 
                     ResultSet rs = st.executeQuery(String.format("select * from %s", tableName));
 
                     try {
                         ResultSetMetaData resultSetMetaData = rs.getMetaData();
                         cacheMetadata(resultSetMetaData);
-                        while (rs.next()) {
-                            writeFeature(jsonGenerator, rs, geometryTableInfo.second());
-                            copyProgress.endStep();
-                        }
+                        int geometryIndex = geometryTableInfo.second();
+                        new OrderedJsonWriter(jsonFactory, jsonEncoding, threadCount).write(rs, false,
+                                (resultSet, rowNumber) -> readRow(resultSet),
+                                (generator, row, rowNumber) -> writeFeature(generator, row, geometryIndex, rowNumber),
+                                out, copyProgress);
                         copyProgress.endOfProgress();
                         // footer
                         jsonGenerator.writeEndArray();
@@ -320,16 +356,26 @@ public class GeoJsonWriteDriver {
                     PreparedStatement ps = connection.prepareStatement(tableName, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
                     ResultSet rs = ps.executeQuery();
                     geojsonWriter(progress, rs, new FileOutputStream(fileName), encoding);
+                } else if (isTextSequence(fileName)) {
+                    if (deleteFile) {
+                        Files.deleteIfExists(fileName.toPath());
+                    } else if (fileName.exists()) {
+                        throw new IOException("The geojson file already exist.");
+                    }
+                    PreparedStatement ps = connection.prepareStatement(tableName, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+                    ResultSet rs = ps.executeQuery();
+                    geojsonSeqWriter(progress, rs, new FileOutputStream(fileName), encoding,
+                            FileUtilities.isExtensionWellFormated(fileName, "geojsons"));
                 } else if (FileUtilities.isExtensionWellFormated(fileName, "gz")) {
                     if (deleteFile) {
                         Files.deleteIfExists(fileName.toPath());
                     } else if (fileName.exists()) {
                         throw new IOException("The gz file already exist.");
                     }
-                    GZIPOutputStream gzos = null;
+                    ParallelDeflaterOutputStream gzos = null;
                     try {
                         FileOutputStream fos = new FileOutputStream(fileName);
-                        gzos = new GZIPOutputStream(fos);
+                        gzos = new ParallelDeflaterOutputStream(fos, threadCount);
                         PreparedStatement ps = connection.prepareStatement(tableName, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
                         ResultSet rs = ps.executeQuery();
                         geojsonWriter(progress, rs, gzos, encoding);
@@ -348,11 +394,11 @@ public class GeoJsonWriteDriver {
                     } else if (fileName.exists()) {
                         throw new IOException("The zip file already exist.");
                     }
-                    ZipOutputStream zip = null;
+                    ParallelDeflaterOutputStream zip = null;
                     try {
                         FileOutputStream fos = new FileOutputStream(fileName);
-                        zip = new ZipOutputStream(fos);
-                        zip.putNextEntry(new ZipEntry(fileName.getName().substring(0, fileName.getName().length()-4)));
+                        zip = new ParallelDeflaterOutputStream(fos,
+                                ParallelDeflaterOutputStream.getZipEntryName(fileName.getName()), threadCount);
                         PreparedStatement ps = connection.prepareStatement(tableName, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
                         ResultSet rs = ps.executeQuery();
                         geojsonWriter(progress, rs, zip, encoding);
@@ -379,16 +425,27 @@ public class GeoJsonWriteDriver {
                     throw new IOException("The geojson file already exist.");
                 }
                 geojsonWriter(progress, tableName, new FileOutputStream(fileName), encoding);
+            } else if (isTextSequence(fileName)) {
+                if (deleteFile) {
+                    Files.deleteIfExists(fileName.toPath());
+                } else if (fileName.exists()) {
+                    throw new IOException("The geojson file already exist.");
+                }
+                try (Statement st = connection.createStatement()) {
+                    ResultSet rs = st.executeQuery(String.format("select * from %s", tableName));
+                    geojsonSeqWriter(progress, rs, new FileOutputStream(fileName), encoding,
+                            FileUtilities.isExtensionWellFormated(fileName, "geojsons"));
+                }
             } else if (FileUtilities.isExtensionWellFormated(fileName, "gz")) {
                 if (deleteFile) {
                     Files.deleteIfExists(fileName.toPath());
                 } else if (fileName.exists()) {
                     throw new IOException("The gz file already exist.");
                 }
-                GZIPOutputStream gzos = null;
+                ParallelDeflaterOutputStream gzos = null;
                 try {
                     FileOutputStream fos = new FileOutputStream(fileName);
-                    gzos = new GZIPOutputStream(fos);
+                    gzos = new ParallelDeflaterOutputStream(fos, threadCount);
                     geojsonWriter(progress, tableName, gzos, encoding);
                 } finally {
                     try {
@@ -405,11 +462,11 @@ public class GeoJsonWriteDriver {
                 } else if (fileName.exists()) {
                     throw new IOException("The zip file already exist.");
                 }
-                ZipOutputStream zip = null;
+                ParallelDeflaterOutputStream zip = null;
                 try {
                     FileOutputStream fos = new FileOutputStream(fileName);
-                    zip = new ZipOutputStream(fos);
-                    zip.putNextEntry(new ZipEntry(fileName.getName().substring(0, fileName.getName().length()-4)));
+                    zip = new ParallelDeflaterOutputStream(fos,
+                            ParallelDeflaterOutputStream.getZipEntryName(fileName.getName()), threadCount);
                     geojsonWriter(progress, tableName, zip, encoding);
                 } finally {
                     try {
@@ -427,43 +484,114 @@ public class GeoJsonWriteDriver {
     }
 
     /**
-     * Write a GeoJSON feature and check its SRID.
-     *
-     * Features in GeoJSON contain a geometry object and additional properties,
-     * and a feature collection represents a list of features.
-     *
-     * A complete GeoJSON data structure is always an object (in JSON terms). In
-     * GeoJSON, an object consists of a collection of name/value pairs -- also
-     * called members. For each member, the name is always a string. Member
-     * values are either a string, number, object, array or one of the literals:
-     * true, false, and null. An array consists of elements where each element
-     * is a value as described above.
+     * @param fileName Output file
+     * @return True if the file is a GeoJSON text sequence, one feature per line
+     */
+    private static boolean isTextSequence(File fileName) {
+        return FileUtilities.isExtensionWellFormated(fileName, "geojsonl")
+                || FileUtilities.isExtensionWellFormated(fileName, "geojsons");
+    }
+
+    /**
+     * Method to write a resulset to a GeoJSON text sequence. Each feature is written on its own line,
+     * without the FeatureCollection object and the CRS member.
      *
      * Syntax:
      *
      * { "type": "Feature", "geometry":{"type": "Point", "coordinates": [102.0,
      * 0.5]}, "properties": {"prop0": "value0"} }
+     * { "type": "Feature", "geometry":{"type": "Point", "coordinates": [103.0,
+     * 1.5]}, "properties": {"prop0": "value1"} }
      *
-     * @param jsonGenerator
-     * @param rs
-     * @param geoFieldIndex
+     * @param progress Progress visitor following the execution.
+     * @param rs input resulset
+     * @param fos {@link OutputStream}
+     * @param encoding file encoding
+     * @param recordSeparator true to write the RFC 8142 record separator before each feature
      */
-    private void writeFeatureCheckSRID(JsonGenerator jsonGenerator, ResultSet rs, int geoFieldIndex, int srid) throws IOException, SQLException {
-        // feature header
-        jsonGenerator.writeStartObject();
-        jsonGenerator.writeStringField("type", "Feature");
-        //Write the first geometry
-        Geometry geom = (Geometry) rs.getObject(geoFieldIndex);
+    private void geojsonSeqWriter(ProgressVisitor progress, ResultSet rs, OutputStream fos, String encoding,
+                                  boolean recordSeparator) throws SQLException, IOException {
+        JsonEncoding jsonEncoding = JsonEncoding.UTF8;
+        if (encoding != null && !encoding.isEmpty()) {
+            try {
+                jsonEncoding = JsonEncoding.valueOf(encoding);
+            } catch (IllegalArgumentException ex) {
+                throw new SQLException("Only UTF-8, UTF-16BE, UTF-16LE, UTF-32BE, UTF-32LE encoding is supported");
+            }
+        }
+        try {
+            int rowCount = 0;
+            int type = rs.getType();
+            if (type == ResultSet.TYPE_SCROLL_INSENSITIVE || type == ResultSet.TYPE_SCROLL_SENSITIVE) {
+                rs.last();
+                rowCount = rs.getRow();
+                rs.beforeFirst();
+            }
+            ProgressVisitor copyProgress = progress.subProcess(rowCount);
+            ResultSetMetaData resultSetMetaData = rs.getMetaData();
+            int geometryIndex = GeometryTableUtilities.getFirstGeometryColumnNameAndIndex(resultSetMetaData).second();
+            cacheMetadata(resultSetMetaData);
+            try (OutputStream out = new BufferedOutputStream(fos)) {
+                // The features are separated by line feeds
+                new OrderedJsonWriter(new JsonFactory(), jsonEncoding, threadCount).write(rs, false,
+                        (resultSet, rowNumber) -> readRow(resultSet),
+                        (generator, row, rowNumber) -> {
+                            if (recordSeparator) {
+                                generator.writeRaw(RECORD_SEPARATOR);
+                            }
+                            writeFeature(generator, row, geometryIndex);
+                            generator.writeRaw('\n');
+                        },
+                        out, copyProgress);
+                copyProgress.endOfProgress();
+            }
+        } finally {
+            rs.close();
+            fos.close();
+        }
+    }
+
+    /**
+     * Check that the geometry has the SRID of the file.
+     *
+     * @param geom geometry of a feature
+     * @param srid SRID of the file
+     */
+    private static void checkSRID(Geometry geom, int srid) throws SQLException {
         int geomSRID = geom.getSRID();
         if (geomSRID != srid) {
             throw new SQLException("Geojson file doesn't support mixed srid. \n"
                     + srid + " != " + geomSRID);
         }
-        writeGeometry(geom, jsonGenerator);
-        //Write the properties
-        writeProperties(jsonGenerator, rs);
-        // feature footer
-        jsonGenerator.writeEndObject();
+    }
+
+    /**
+     * Read the values of the current row, the values are serialized by {@link #writeFeature}
+     *
+     * @param rs result set positioned on a row
+     * @return values of the row, indexed from 0
+     */
+    private Object[] readRow(ResultSet rs) throws SQLException {
+        Object[] row = new Object[stringColumns.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = stringColumns[i] ? rs.getString(i + 1) : rs.getObject(i + 1);
+        }
+        return row;
+    }
+
+    /**
+     * Write a GeoJSON feature of a FeatureCollection, after a comma if it is not the first feature.
+     *
+     * @param jsonGenerator
+     * @param row values of the row
+     * @param geoFieldIndex
+     * @param rowNumber number of the feature, from 0
+     */
+    private void writeFeature(JsonGenerator jsonGenerator, Object[] row, int geoFieldIndex, long rowNumber) throws IOException {
+        if (rowNumber > 0) {
+            jsonGenerator.writeRaw(',');
+        }
+        writeFeature(jsonGenerator, row, geoFieldIndex);
     }
 
     /**
@@ -485,17 +613,17 @@ public class GeoJsonWriteDriver {
      * 0.5]}, "properties": {"prop0": "value0"} }
      *
      * @param jsonGenerator
-     * @param rs
+     * @param row values of the row
      * @param geoFieldIndex
      */
-    private void writeFeature(JsonGenerator jsonGenerator, ResultSet rs, int geoFieldIndex) throws IOException, SQLException {
+    private void writeFeature(JsonGenerator jsonGenerator, Object[] row, int geoFieldIndex) throws IOException {
         // feature header
         jsonGenerator.writeStartObject();
         jsonGenerator.writeStringField("type", "Feature");
         //Write the first geometry
-        writeGeometry((Geometry) rs.getObject(geoFieldIndex), jsonGenerator);
+        writeGeometry((Geometry) row[geoFieldIndex - 1], jsonGenerator);
         //Write the properties
-        writeProperties(jsonGenerator, rs);
+        writeProperties(jsonGenerator, row);
         // feature footer
         jsonGenerator.writeEndObject();
     }
@@ -518,6 +646,10 @@ public class GeoJsonWriteDriver {
                 columnCountProperties++;
             }
         }
+        stringColumns = new boolean[columnCount];
+        for (Map.Entry<String, Integer> entry : cachedColumnIndex.entrySet()) {
+            stringColumns[entry.getValue() - 1] = "JSON".equals(cachedSpecificColumns.get(entry.getKey()));
+        }
     }
 
     /**
@@ -570,7 +702,12 @@ public class GeoJsonWriteDriver {
     private void write(Point point, JsonGenerator gen) throws IOException {
         gen.writeStringField("type", "Point");
         gen.writeFieldName("coordinates");
-        writeCoordinate(point.getCoordinate(), gen);
+        if (point.isEmpty()) {
+            gen.writeStartArray();
+            gen.writeEndArray();
+        } else {
+            writeCoordinate(point.getCoordinateSequence(), 0, gen);
+        }
     }
 
     /**
@@ -586,7 +723,15 @@ public class GeoJsonWriteDriver {
     private void write(MultiPoint points, JsonGenerator gen) throws IOException {
         gen.writeStringField("type", "MultiPoint");
         gen.writeFieldName("coordinates");
-        writeCoordinates(points.getCoordinates(), gen);
+        gen.writeStartArray();
+        int size = points.getNumGeometries();
+        for (int i = 0; i < size; ++i) {
+            Point point = (Point) points.getGeometryN(i);
+            if (!point.isEmpty()) {
+                writeCoordinate(point.getCoordinateSequence(), 0, gen);
+            }
+        }
+        gen.writeEndArray();
     }
 
     /**
@@ -601,7 +746,7 @@ public class GeoJsonWriteDriver {
     private void write(LineString geom, JsonGenerator gen) throws IOException {
         gen.writeStringField("type", "LineString");
         gen.writeFieldName("coordinates");
-        writeCoordinates(geom.getCoordinates(), gen);
+        writeCoordinates(geom.getCoordinateSequence(), gen);
     }
 
     /**
@@ -621,7 +766,7 @@ public class GeoJsonWriteDriver {
         gen.writeStartArray();
         int size = geom.getNumGeometries();
         for (int i = 0; i < size; ++i) {
-            writeCoordinates(geom.getGeometryN(i).getCoordinates(), gen);
+            writeCoordinates(((LineString) geom.getGeometryN(i)).getCoordinateSequence(), gen);
         }
         gen.writeEndArray();
     }
@@ -691,9 +836,9 @@ public class GeoJsonWriteDriver {
         gen.writeStringField("type", "Polygon");
         gen.writeFieldName("coordinates");
         gen.writeStartArray();
-        writeCoordinates(geom.getExteriorRing().getCoordinates(), gen);
+        writeCoordinates(geom.getExteriorRing().getCoordinateSequence(), gen);
         for (int i = 0; i < geom.getNumInteriorRing(); ++i) {
-            writeCoordinates(geom.getInteriorRingN(i).getCoordinates(), gen);
+            writeCoordinates(geom.getInteriorRingN(i).getCoordinateSequence(), gen);
         }
         gen.writeEndArray();
     }
@@ -720,9 +865,9 @@ public class GeoJsonWriteDriver {
         for (int i = 0; i < size; ++i) {
             Polygon p = (Polygon) geom.getGeometryN(i);
             gen.writeStartArray();
-            writeCoordinates(p.getExteriorRing().getCoordinates(), gen);
+            writeCoordinates(p.getExteriorRing().getCoordinateSequence(), gen);
             for (int j = 0; j < p.getNumInteriorRing(); ++j) {
-                writeCoordinates(p.getInteriorRingN(j).getCoordinates(), gen);
+                writeCoordinates(p.getInteriorRingN(j).getCoordinateSequence(), gen);
             }
             gen.writeEndArray();
         }
@@ -730,36 +875,57 @@ public class GeoJsonWriteDriver {
     }
 
     /**
-     * Write coordinate positions.
+     * Write a coordinate position of a sequence, without copying the coordinate.
      *
-     * @param coordinate
+     * @param sequence
+     * @param index
      * @param gen
      * @throws IOException
      */
-    private void writeCoordinate(Coordinate coordinate, JsonGenerator gen) throws IOException {
+    private void writeCoordinate(CoordinateSequence sequence, int index, JsonGenerator gen) throws IOException {
+        CoordinateFormatter formatter = FORMATTER.get();
         gen.writeStartArray();
-        gen.writeNumber(coordinate.x);
-        gen.writeNumber(coordinate.y);
-        if (!Double.isNaN(coordinate.getZ())) {
-            gen.writeNumber(coordinate.getZ());
+        writeOrdinate(sequence.getX(index), formatter, gen);
+        writeOrdinate(sequence.getY(index), formatter, gen);
+        double z = sequence.getZ(index);
+        if (!Double.isNaN(z)) {
+            writeOrdinate(z, formatter, gen);
         }
-        if(!Double.isNaN(coordinate.getM())) {
-            gen.writeNumber(coordinate.getM());
+        double m = sequence.getM(index);
+        if (!Double.isNaN(m)) {
+            writeOrdinate(m, formatter, gen);
         }
         gen.writeEndArray();
     }
 
     /**
-     * Write coordinate array.
+     * Write an ordinate with the formatter buffer, the non finite values are written by the generator.
      *
-     * @param coordinates
+     * @param value
+     * @param formatter
      * @param gen
      * @throws IOException
      */
-    private void writeCoordinates(Coordinate[] coordinates, JsonGenerator gen) throws IOException {
+    private static void writeOrdinate(double value, CoordinateFormatter formatter, JsonGenerator gen) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            gen.writeNumber(value);
+        } else {
+            gen.writeNumber(formatter.getBuffer(), 0, formatter.format(value));
+        }
+    }
+
+    /**
+     * Write coordinate sequence.
+     *
+     * @param sequence
+     * @param gen
+     * @throws IOException
+     */
+    private void writeCoordinates(CoordinateSequence sequence, JsonGenerator gen) throws IOException {
         gen.writeStartArray();
-        for (Coordinate coord : coordinates) {
-            writeCoordinate(coord, gen);
+        int size = sequence.size();
+        for (int i = 0; i < size; i++) {
+            writeCoordinate(sequence, i, gen);
         }
         gen.writeEndArray();
     }
@@ -768,39 +934,38 @@ public class GeoJsonWriteDriver {
      * Write the GeoJSON properties.
      *
      * @param jsonGenerator
-     * @param rs
+     * @param row values of the row
      * @throws IOException
      */
-    private void writeProperties(JsonGenerator jsonGenerator, ResultSet rs) throws IOException, SQLException {
+    private void writeProperties(JsonGenerator jsonGenerator, Object[] row) throws IOException {
         if (columnCountProperties != -1) {
             jsonGenerator.writeObjectFieldStart("properties");
             for (Map.Entry<String, Integer> entry : cachedColumnIndex.entrySet()) {
                 String columnName = entry.getKey();
-                Integer fieldId = entry.getValue();
+                Object value = row[entry.getValue() - 1];
                 if(cachedSpecificColumns.containsKey(columnName)){
                     String specificType = cachedSpecificColumns.get(columnName);
                     if(specificType.equalsIgnoreCase("JSON")) {
                         jsonGenerator.writeFieldName(columnName);
-                        jsonGenerator.writeString(rs.getString(fieldId));
+                        jsonGenerator.writeString((String) value);
                     }
                     else if (specificType.equalsIgnoreCase("TIME")){
-                        Object obj = rs.getObject(fieldId);
-                        jsonGenerator.writeStringField(columnName, obj == null ? "null" : obj.toString());
+                        jsonGenerator.writeStringField(columnName, value == null ? "null" : value.toString());
                     }
                 }
-                else if (rs.getObject(fieldId) instanceof Object[]) {
-                    Object[] array = (Object[]) rs.getObject(fieldId);
+                else if (value instanceof Object[]) {
+                    Object[] array = (Object[]) value;
                     jsonGenerator.writeArrayFieldStart(columnName);
                     writeArray(jsonGenerator, array, true);
                     jsonGenerator.writeEndArray();
-                } else if (rs.getObject(fieldId) != null && rs.getObject(fieldId).equals("{}")) {
+                } else if (value != null && value.equals("{}")) {
                     jsonGenerator.writeObjectFieldStart(columnName);
                     jsonGenerator.writeEndObject();
-                } else if (rs.getObject(fieldId) == "null") {
+                } else if (value == "null") {
                     jsonGenerator.writeFieldName(columnName);
                     jsonGenerator.writeNull();
                 } else {
-                    jsonGenerator.writeObjectField(columnName, rs.getObject(fieldId));
+                    jsonGenerator.writeObjectField(columnName, value);
                 }
             }
             jsonGenerator.writeEndObject();
@@ -873,7 +1038,7 @@ public class GeoJsonWriteDriver {
      * @param array
      * @throw IOException
      */
-    private void writeArray(JsonGenerator jsonGenerator, Object[] array, boolean firstInHierarchy) throws IOException, SQLException {
+    private void writeArray(JsonGenerator jsonGenerator, Object[] array, boolean firstInHierarchy) throws IOException {
         if (!firstInHierarchy) {
             jsonGenerator.writeStartArray();
         }
@@ -21,7 +21,7 @@
 package org.h2gis.functions.io.geojson;
 
 import org.h2gis.api.DeterministicScalarFunction;
-import org.h2gis.utilities.jts_utils.CoordinateUtils;
+import org.h2gis.functions.io.utility.CoordinateFormatter;
 import org.locationtech.jts.geom.*;
 
 /**
@@ -84,20 +84,31 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      * @param sb buffer to store the geojson
      */
     public static void toGeojsonGeometry(Geometry geom, int maxdecimaldigits, StringBuilder sb) {
+        toGeojsonGeometry(geom, new CoordinateFormatter(maxdecimaldigits), sb);
+    }
+
+    /**
+     * Transform a JTS geometry to a GeoJSON representation.
+     *
+     * @param geom input geometry
+     * @param formatter formatter of the coordinates, that limits the number of decimal places
+     * @param sb buffer to store the geojson
+     */
+    public static void toGeojsonGeometry(Geometry geom, CoordinateFormatter formatter, StringBuilder sb) {
         if (geom instanceof Point) {
-            toGeojsonPoint((Point) geom, maxdecimaldigits,sb);
+            toGeojsonPoint((Point) geom, formatter, sb);
         } else if (geom instanceof LineString) {
-            toGeojsonLineString((LineString) geom, maxdecimaldigits, sb);
+            toGeojsonLineString((LineString) geom, formatter, sb);
         } else if (geom instanceof Polygon) {
-            toGeojsonPolygon((Polygon) geom,maxdecimaldigits, sb);
+            toGeojsonPolygon((Polygon) geom, formatter, sb);
         } else if (geom instanceof MultiPoint) {
-            toGeojsonMultiPoint((MultiPoint) geom, maxdecimaldigits,sb);
+            toGeojsonMultiPoint((MultiPoint) geom, formatter, sb);
         } else if (geom instanceof MultiLineString) {
-            toGeojsonMultiLineString((MultiLineString) geom, maxdecimaldigits,sb);
+            toGeojsonMultiLineString((MultiLineString) geom, formatter, sb);
         } else if (geom instanceof MultiPolygon) {
-            toGeojsonMultiPolygon((MultiPolygon) geom,maxdecimaldigits, sb);
+            toGeojsonMultiPolygon((MultiPolygon) geom, formatter, sb);
         } else {
-            toGeojsonGeometryCollection((GeometryCollection) geom, maxdecimaldigits,sb);
+            toGeojsonGeometryCollection((GeometryCollection) geom, formatter, sb);
         }
     }
 
@@ -124,18 +135,23 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      * { "type": "Point", "coordinates": [100.0, 0.0] }
      *
      * @param point input point
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonPoint(Point point, int maxdecimaldigits, StringBuilder sb) {
-        Coordinate coord = point.getCoordinate();
+    public static void toGeojsonPoint(Point point, CoordinateFormatter formatter, StringBuilder sb) {
+        CoordinateSequence sequence = point.getCoordinateSequence();
         sb.append("{\"type\":\"Point\",\"coordinates\":[");
-        sb.append(CoordinateUtils.round(coord.x, maxdecimaldigits)).append(",").append(CoordinateUtils.round(coord.y, maxdecimaldigits));
-        if (!Double.isNaN(coord.z)) {
-            sb.append(",").append(CoordinateUtils.round(coord.z, maxdecimaldigits));
-        }
-        if (!Double.isNaN(coord.getM())) {
-            sb.append(",").append(CoordinateUtils.round(coord.getM(), maxdecimaldigits));
+        if (sequence.size() > 0) {
+            formatter.append(sb, sequence.getX(0)).append(",");
+            formatter.append(sb, sequence.getY(0));
+            double z = sequence.getZ(0);
+            if (!Double.isNaN(z)) {
+                formatter.append(sb.append(","), z);
+            }
+            double m = sequence.getM(0);
+            if (!Double.isNaN(m)) {
+                formatter.append(sb.append(","), m);
+            }
         }
         sb.append("]}");
     }
@@ -148,13 +164,24 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      * { "type": "MultiPoint", "coordinates": [ [100.0, 0.0], [101.0, 1.0] ] }
      *
      * @param multiPoint input {@link MultiPoint}
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonMultiPoint(MultiPoint multiPoint,int maxdecimaldigits,  StringBuilder sb) {
-        sb.append("{\"type\":\"MultiPoint\",\"coordinates\":");
-        toGeojsonCoordinates(multiPoint.getCoordinates(), maxdecimaldigits, sb);
-        sb.append("}");
+    public static void toGeojsonMultiPoint(MultiPoint multiPoint,CoordinateFormatter formatter, StringBuilder sb) {
+        sb.append("{\"type\":\"MultiPoint\",\"coordinates\":[");
+        boolean first = true;
+        for (int i = 0; i < multiPoint.getNumGeometries(); i++) {
+            CoordinateSequence sequence = ((Point) multiPoint.getGeometryN(i)).getCoordinateSequence();
+            // Empty points have no position
+            if (sequence.size() > 0) {
+                if (!first) {
+                    sb.append(",");
+                }
+                toGeojsonCoordinate(sequence, 0, formatter, sb);
+                first = false;
+            }
+        }
+        sb.append("]}");
     }
 
     /**
@@ -165,12 +192,12 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      * { "type": "LineString", "coordinates": [ [100.0, 0.0], [101.0, 1.0] ] }
      *
      * @param lineString input {@link MultiLineString}
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonLineString(LineString lineString, int maxdecimaldigits, StringBuilder sb) {
+    public static void toGeojsonLineString(LineString lineString, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("{\"type\":\"LineString\",\"coordinates\":");
-        toGeojsonCoordinates(lineString.getCoordinates(),maxdecimaldigits, sb);
+        toGeojsonCoordinates(lineString.getCoordinateSequence(), formatter, sb);
         sb.append("}");
     }
 
@@ -184,14 +211,14 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      * 1.0] ], [ [102.0, 2.0], [103.0, 3.0] ] ] }
      *
      * @param multiLineString input {@link MultiLineString}
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonMultiLineString(MultiLineString multiLineString,int maxdecimaldigits,  StringBuilder sb) {
+    public static void toGeojsonMultiLineString(MultiLineString multiLineString,CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("{\"type\":\"MultiLineString\",\"coordinates\":[");
         int size = multiLineString.getNumGeometries();
         for (int i = 0; i < size; i++) {
-            toGeojsonCoordinates(multiLineString.getGeometryN(i).getCoordinates(),maxdecimaldigits, sb);
+            toGeojsonCoordinates(((LineString) multiLineString.getGeometryN(i)).getCoordinateSequence(), formatter, sb);
             if (i < size - 1) {
                 sb.append(",");
             }
@@ -219,17 +246,17 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      *
      *
      * @param polygon input {@link Polygon}
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonPolygon(Polygon polygon,int maxdecimaldigits,  StringBuilder sb) {
+    public static void toGeojsonPolygon(Polygon polygon,CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("{\"type\":\"Polygon\",\"coordinates\":[");
         //Process exterior ring
-        toGeojsonCoordinates(polygon.getExteriorRing().getCoordinates(),maxdecimaldigits, sb);
+        toGeojsonCoordinates(polygon.getExteriorRing().getCoordinateSequence(), formatter, sb);
         //Process interior rings
         for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
             sb.append(",");
-            toGeojsonCoordinates(polygon.getInteriorRingN(i).getCoordinates(),maxdecimaldigits, sb);
+            toGeojsonCoordinates(polygon.getInteriorRingN(i).getCoordinateSequence(), formatter, sb);
         }
         sb.append("]}");
     }
@@ -245,22 +272,22 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      * [100.8, 0.8], [100.2, 0.8], [100.2, 0.2]]] ] }
      *
      * @param multiPolygon input {@link MultiPolygon}
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonMultiPolygon(MultiPolygon multiPolygon, int maxdecimaldigits, StringBuilder sb) {
+    public static void toGeojsonMultiPolygon(MultiPolygon multiPolygon, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("{\"type\":\"MultiPolygon\",\"coordinates\":[");
         int size = multiPolygon.getNumGeometries();
         for (int i = 0; i < size; i++) {
             Polygon p = (Polygon) multiPolygon.getGeometryN(i);
             sb.append("[");
             //Process exterior ring
-            toGeojsonCoordinates(p.getExteriorRing().getCoordinates(),maxdecimaldigits, sb);
+            toGeojsonCoordinates(p.getExteriorRing().getCoordinateSequence(), formatter, sb);
             //Process interior rings
             int size_p = p.getNumInteriorRing();
             for (int j = 0; j < size_p; j++) {
                 sb.append(",");
-                toGeojsonCoordinates(p.getInteriorRingN(j).getCoordinates(), maxdecimaldigits,sb);
+                toGeojsonCoordinates(p.getInteriorRingN(j).getCoordinateSequence(), formatter, sb);
             }
             sb.append("]");
             if (i < size - 1) {
@@ -285,20 +312,20 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      * [101.0, 0.0], [102.0, 1.0] ] } ] }
      *
      * @param geometryCollection input {@link GeometryCollection}
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonGeometryCollection(GeometryCollection geometryCollection,int maxdecimaldigits,  StringBuilder sb) {
+    public static void toGeojsonGeometryCollection(GeometryCollection geometryCollection,CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("{\"type\":\"GeometryCollection\",\"geometries\":[");
         int size = geometryCollection.getNumGeometries();
         for (int i = 0; i < size; i++) {
             Geometry geom = geometryCollection.getGeometryN(i);
             if (geom instanceof Point) {
-                toGeojsonPoint((Point) geom, maxdecimaldigits, sb);
+                toGeojsonPoint((Point) geom, formatter, sb);
             } else if (geom instanceof LineString) {
-                toGeojsonLineString((LineString) geom, maxdecimaldigits, sb);
+                toGeojsonLineString((LineString) geom, formatter, sb);
             } else if (geom instanceof Polygon) {
-                toGeojsonPolygon((Polygon) geom,maxdecimaldigits, sb);
+                toGeojsonPolygon((Polygon) geom, formatter, sb);
             }
             if (i < size - 1) {
                 sb.append(",");
@@ -308,22 +335,23 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
     }
 
     /**
-     * Convert a jts array of coordinates to a GeoJSON coordinates
+     * Convert a jts sequence of coordinates to a GeoJSON coordinates
      * representation.
      *
      * Syntax:
      *
      * [[X1,Y1],[X2,Y2]]
      *
-     * @param coords input coordinates array
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param sequence input coordinates sequence
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonCoordinates(Coordinate[] coords, int maxdecimaldigits, StringBuilder sb) {
+    public static void toGeojsonCoordinates(CoordinateSequence sequence, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("[");
-        for (int i = 0; i < coords.length; i++) {
-            toGeojsonCoordinate(coords[i],maxdecimaldigits, sb);
-            if (i < coords.length - 1) {
+        int size = sequence.size();
+        for (int i = 0; i < size; i++) {
+            toGeojsonCoordinate(sequence, i, formatter, sb);
+            if (i < size - 1) {
                 sb.append(",");
             }
         }
@@ -339,15 +367,18 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      *
      * [X,Y] or [X,Y,Z]
      *
-     * @param coord input {@link Coordinate}
-     * @param maxdecimaldigits argument may be used to reduce the maximum number of decimal places
+     * @param sequence input coordinates sequence
+     * @param index index of the coordinate in the sequence
+     * @param formatter formatter of the coordinates
      * @param sb buffer to store the geojson
      */
-    public static void toGeojsonCoordinate(Coordinate coord, int maxdecimaldigits, StringBuilder sb) {
+    public static void toGeojsonCoordinate(CoordinateSequence sequence, int index, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("[");
-        sb.append(CoordinateUtils.round(coord.x, maxdecimaldigits)).append(",").append(CoordinateUtils.round(coord.y, maxdecimaldigits));
-        if (!Double.isNaN(coord.z)) {
-            sb.append(",").append(CoordinateUtils.round(coord.z, maxdecimaldigits));
+        formatter.append(sb, sequence.getX(index)).append(",");
+        formatter.append(sb, sequence.getY(index));
+        double z = sequence.getZ(index);
+        if (!Double.isNaN(z)) {
+            formatter.append(sb.append(","), z);
         }
         sb.append("]");
     }
@@ -361,8 +392,12 @@ public class ST_AsGeoJSON extends DeterministicScalarFunction {
      * @return The envelope encoded as GeoJSON
      */
     public String toGeoJsonEnvelope(Envelope e, int maxdecimaldigits) {
-        return new StringBuffer().append("[").append(CoordinateUtils.round(e.getMinX(), maxdecimaldigits)).append(",")
-                .append(CoordinateUtils.round(e.getMinY(), maxdecimaldigits)).append(",").append(CoordinateUtils.round(e.getMaxX(), maxdecimaldigits)).append(",")
-                .append(CoordinateUtils.round(e.getMaxY(), maxdecimaldigits)).append("]").toString();
+        CoordinateFormatter formatter = new CoordinateFormatter(maxdecimaldigits);
+        StringBuilder sb = new StringBuilder().append("[");
+        formatter.append(sb, e.getMinX()).append(",");
+        formatter.append(sb, e.getMinY()).append(",");
+        formatter.append(sb, e.getMaxX()).append(",");
+        formatter.append(sb, e.getMaxY()).append("]");
+        return sb.toString();
     }
 }
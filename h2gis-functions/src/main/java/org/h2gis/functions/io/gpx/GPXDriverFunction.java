@@ -23,7 +23,7 @@ package org.h2gis.functions.io.gpx;
 import org.h2gis.api.DriverFunction;
 import org.h2gis.api.ProgressVisitor;
 import org.h2gis.functions.io.DriverManager;
-import org.h2gis.functions.io.gpx.model.GpxParser;
+import org.h2gis.functions.io.gpx.model.GpxStaxParser;
 
 import java.io.File;
 import java.io.IOException;
@@ -95,7 +95,7 @@ public class GPXDriverFunction implements DriverFunction {
     @Override
     public String[] importFile(Connection connection, String tableReference, File fileName, String encoding, boolean deleteTables, ProgressVisitor progress) throws SQLException, IOException {
         progress = DriverManager.check(connection, tableReference, fileName, progress);
-        GpxParser gpd = new GpxParser(connection, fileName, encoding, deleteTables);
+        GpxStaxParser gpd = new GpxStaxParser(connection, fileName, encoding, deleteTables);
         return gpd.read(tableReference, progress);
     }
 
@@ -50,7 +50,9 @@ public class GPXRead extends AbstractFunction implements ScalarFunction {
                 "\n path of the file, table name"+
                 "\n path of the file, table name, true to delete the table name"+
                 "\n path of the file, table name, encoding chartset"+
-                "\n path of the file, table name, encoding chartset, true to delete the table name");
+                "\n path of the file, table name, encoding chartset, true to delete the table name"+
+                "\n The encoding chartset can be replaced by options 'encoding=UTF-8 spatialIndex=true'"+
+                "\n spatialIndex creates the spatial indexes after loading the rows");
     }
 
     @Override
@@ -97,7 +99,7 @@ public class GPXRead extends AbstractFunction implements ScalarFunction {
      * @param connection Active connection
      * @param tableReference [[catalog.]schema.]table reference
      * @param fileName File path of the SHP file
-     * @param encoding  charset encoding
+     * @param encoding  charset encoding, or key=value options see {@link org.h2gis.functions.io.utility.ImportOptions}
      * @param deleteTables  true to delete the existing tables
      */
     public static void importTable(Connection connection, String fileName, String tableReference, String encoding, boolean deleteTables) throws IOException, SQLException {
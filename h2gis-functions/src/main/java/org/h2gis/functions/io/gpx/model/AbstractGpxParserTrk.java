@@ -110,7 +110,7 @@ public abstract class AbstractGpxParserTrk extends AbstractGpxParser {
             trackPoint.setValue(GpxMetadata.PTLON, coordinate.getX());
             trackPoint.setValue(GpxMetadata.PTELE, coordinate.getZ());
             trackPoint.setValue(GpxMetadata.PTID, trkptID++);
-            trackPoint.setValue(GpxMetadata.TRKPT_TRKSEGID, trksegID);
+            trackPoint.setValue(GpxMetadata.TRKPT_TRKSEGID, getCurrentSegment().getValues()[GpxMetadata.LINEID]);
             trksegList.add(coordinate);
             setCurrentPoint(trackPoint);
         }
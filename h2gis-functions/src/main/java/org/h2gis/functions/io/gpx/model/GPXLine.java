@@ -50,13 +50,13 @@ public class GPXLine {
     /**
      * Set an attribute for a line. The String currentElement gives the
      * information of which attribute have to be setted. The attribute to set is
-     * given by the StringBuilder contentBuffer.
+     * given by contentBuffer.
      *
      * @param currentElement a string presenting the text of the current markup.
      * @param contentBuffer it contains all informations about the current
      * element.
      */
-    public final void setAttribute(String currentElement, StringBuilder contentBuffer) {
+    public final void setAttribute(String currentElement, CharSequence contentBuffer) {
         if (currentElement.equalsIgnoreCase(GPXTags.NAME)) {
             setName(contentBuffer);
         } else if (currentElement.equalsIgnoreCase(GPXTags.CMT)) {
@@ -83,7 +83,7 @@ public class GPXLine {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setName(StringBuilder contentBuffer) {
+    public final void setName(CharSequence contentBuffer) {
         lineValues[GpxMetadata.LINENAME] = contentBuffer.toString();
     }
 
@@ -92,7 +92,7 @@ public class GPXLine {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setCmt(StringBuilder contentBuffer) {
+    public final void setCmt(CharSequence contentBuffer) {
         lineValues[GpxMetadata.LINECMT] = contentBuffer.toString();
     }
 
@@ -101,7 +101,7 @@ public class GPXLine {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setDesc(StringBuilder contentBuffer) {
+    public final void setDesc(CharSequence contentBuffer) {
         lineValues[GpxMetadata.LINEDESC] = contentBuffer.toString();
     }
 
@@ -110,7 +110,7 @@ public class GPXLine {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setSrc(StringBuilder contentBuffer) {
+    public final void setSrc(CharSequence contentBuffer) {
         lineValues[GpxMetadata.LINESRC] = contentBuffer.toString();
     }
 
@@ -128,7 +128,7 @@ public class GPXLine {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setLink(StringBuilder contentBuffer) {
+    public final void setLink(CharSequence contentBuffer) {
         lineValues[GpxMetadata.LINELINK_HREF] = contentBuffer.toString();
     }
 
@@ -137,7 +137,7 @@ public class GPXLine {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setLinkText(StringBuilder contentBuffer) {
+    public final void setLinkText(CharSequence contentBuffer) {
      lineValues[GpxMetadata.LINELINK_HREFTITLE] = contentBuffer.toString();
      }
     /**
@@ -146,7 +146,7 @@ public class GPXLine {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setNumber(StringBuilder contentBuffer) {
+    public final void setNumber(CharSequence contentBuffer) {
         lineValues[GpxMetadata.LINENUMBER] = Integer.parseInt(contentBuffer.toString());
     }
 
@@ -155,7 +155,7 @@ public class GPXLine {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setType(StringBuilder contentBuffer) {
+    public final void setType(CharSequence contentBuffer) {
         lineValues[GpxMetadata.LINETYPE] = contentBuffer.toString();
     }
 
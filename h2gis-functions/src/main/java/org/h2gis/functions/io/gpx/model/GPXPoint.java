@@ -52,13 +52,13 @@ public class GPXPoint {
     /**
      * Set an attribute for a point. The String currentElement gives the
      * information of which attribute have to be setted. The attribute to set is
-     * given by the StringBuilder contentBuffer.
+     * given by contentBuffer.
      *
      * @param currentElement a string presenting the text of the current markup.
      * @param contentBuffer it contains all informations about the current
      * element.
      */
-    public final void setAttribute(String currentElement, StringBuilder contentBuffer) {
+    public final void setAttribute(String currentElement, CharSequence contentBuffer) {
         if (currentElement.equalsIgnoreCase(GPXTags.TIME)) {
             setTime(contentBuffer);
         } else if (currentElement.equalsIgnoreCase(GPXTags.MAGVAR)) {
@@ -101,7 +101,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setElevation(StringBuilder contentBuffer) {
+    public final void setElevation(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTELE] = Double.parseDouble(contentBuffer.toString());
     }
 
@@ -113,7 +113,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setTime(StringBuilder contentBuffer) {
+    public final void setTime(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTTIME] = contentBuffer.toString();
     }
 
@@ -122,7 +122,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setMagvar(StringBuilder contentBuffer) {
+    public final void setMagvar(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTMAGVAR] = Double.parseDouble(contentBuffer.toString());
     }
 
@@ -132,7 +132,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setGeoidheight(StringBuilder contentBuffer) {
+    public final void setGeoidheight(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTGEOIDWEIGHT] = Double.parseDouble(contentBuffer.toString());
     }
 
@@ -141,7 +141,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setName(StringBuilder contentBuffer) {
+    public final void setName(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTNAME] = contentBuffer.toString();
     }
 
@@ -150,7 +150,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setCmt(StringBuilder contentBuffer) {
+    public final void setCmt(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTCMT] = contentBuffer.toString();
     }
 
@@ -159,7 +159,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setDesc(StringBuilder contentBuffer) {
+    public final void setDesc(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTDESC] = contentBuffer.toString();
     }
 
@@ -168,7 +168,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setSrc(StringBuilder contentBuffer) {
+    public final void setSrc(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTSRC] = contentBuffer.toString();
     }
 
@@ -186,7 +186,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setLink(StringBuilder contentBuffer) {
+    public final void setLink(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTLINK] = contentBuffer.toString();
     }
 
@@ -195,7 +195,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setLinkText(StringBuilder contentBuffer) {
+    public final void setLinkText(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTLINKTEXT] = contentBuffer.toString();
     }
 
@@ -204,7 +204,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setSym(StringBuilder contentBuffer) {
+    public final void setSym(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTSYM] = contentBuffer.toString();
     }
 
@@ -213,7 +213,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setType(StringBuilder contentBuffer) {
+    public final void setType(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTTYPE] = contentBuffer.toString();
     }
 
@@ -222,7 +222,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setFix(StringBuilder contentBuffer) {
+    public final void setFix(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTFIX] = contentBuffer.toString();
     }
 
@@ -231,7 +231,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setSat(StringBuilder contentBuffer) {
+    public final void setSat(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTSAT] = Integer.parseInt(contentBuffer.toString());
     }
 
@@ -240,7 +240,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setHdop(StringBuilder contentBuffer) {
+    public final void setHdop(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTHDOP] = Double.parseDouble(contentBuffer.toString());
     }
 
@@ -249,7 +249,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setVdop(StringBuilder contentBuffer) {
+    public final void setVdop(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTVDOP] = Double.parseDouble(contentBuffer.toString());
     }
 
@@ -258,7 +258,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setPdop(StringBuilder contentBuffer) {
+    public final void setPdop(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTPDOP] = Double.parseDouble(contentBuffer.toString());
     }
 
@@ -267,7 +267,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setAgeofdgpsdata(StringBuilder contentBuffer) {
+    public final void setAgeofdgpsdata(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTAGEOFDGPSDATA] = Double.parseDouble(contentBuffer.toString());
     }
 
@@ -276,7 +276,7 @@ public class GPXPoint {
      *
      * @param contentBuffer Contains the information to put in the table
      */
-    public final void setDgpsid(StringBuilder contentBuffer) {
+    public final void setDgpsid(CharSequence contentBuffer) {
         ptValues[GpxMetadata.PTDGPSID] = Integer.parseInt(contentBuffer.toString());
     }
 
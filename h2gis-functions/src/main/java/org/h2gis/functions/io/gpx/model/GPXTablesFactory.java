@@ -20,6 +20,7 @@
 
 package org.h2gis.functions.io.gpx.model;
 
+import org.h2gis.functions.io.utility.DeferredIndexes;
 import org.h2gis.utilities.TableLocation;
 import org.h2gis.utilities.TableUtilities;
 import org.h2gis.utilities.dbtypes.DBTypes;
@@ -56,6 +57,19 @@ public class GPXTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createWayPointsTable(Connection connection, String wayPointsTableName) throws SQLException {
+        return createWayPointsTable(connection, wayPointsTableName, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the waypoints table that will be used to import GPX data, its spatial index is declared
+     * in the deferred indexes.
+     *
+     * @param connection database connection
+     * @param wayPointsTableName table name
+     * @param indexes indexes created once the rows are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createWayPointsTable(Connection connection, String wayPointsTableName, DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(wayPointsTableName).append(" (");
@@ -85,6 +99,7 @@ public class GPXTablesFactory {
             sb.append(GPXTags.EXTENSIONS.toLowerCase()).append(" BOOLEAN);");
             stmt.execute(sb.toString());
         }
+        indexes.spatialIndex(wayPointsTableName, "THE_GEOM");
         //We return the preparedstatement of the waypoints table
         StringBuilder insert = new StringBuilder("INSERT INTO ").append(wayPointsTableName).append(" VALUES ( ?");
         for (int i = 1; i < GpxMetadata.WPTFIELDCOUNT; i++) {
@@ -102,6 +117,19 @@ public class GPXTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createRouteTable(Connection connection, String routeTableName) throws SQLException {
+        return createRouteTable(connection, routeTableName, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the route table that will be used to import GPX data, its spatial index is declared
+     * in the deferred indexes.
+     *
+     * @param connection database connection
+     * @param routeTableName table name
+     * @param indexes indexes created once the rows are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createRouteTable(Connection connection, String routeTableName, DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(routeTableName).append(" (");
@@ -118,6 +146,7 @@ public class GPXTablesFactory {
             sb.append(GPXTags.EXTENSIONS.toLowerCase()).append(" TEXT);");
             stmt.execute(sb.toString());
         }
+        indexes.spatialIndex(routeTableName, "THE_GEOM");
 
         //We return the preparedstatement of the route table
         StringBuilder insert = new StringBuilder("INSERT INTO ").append(routeTableName).append(" VALUES ( ?");
@@ -136,6 +165,19 @@ public class GPXTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createRoutePointsTable(Connection connection, String routePointsTable) throws SQLException {
+        return createRoutePointsTable(connection, routePointsTable, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the route points table to store the route waypoints, its spatial index is declared
+     * in the deferred indexes.
+     *
+     * @param connection database
+     * @param routePointsTable table name
+     * @param indexes indexes created once the rows are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createRoutePointsTable(Connection connection, String routePointsTable, DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(routePointsTable).append(" (");
@@ -166,6 +208,7 @@ public class GPXTablesFactory {
             sb.append("route_id").append(" INT);");
             stmt.execute(sb.toString());
         }
+        indexes.spatialIndex(routePointsTable, "THE_GEOM");
         //We return the preparedstatement of the waypoints table
         StringBuilder insert = new StringBuilder("INSERT INTO ").append(routePointsTable).append(" VALUES ( ?");
         for (int i = 1; i < GpxMetadata.RTEPTFIELDCOUNT; i++) {
@@ -184,6 +227,19 @@ public class GPXTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createTrackTable(Connection connection, String trackTableName) throws SQLException {
+        return createTrackTable(connection, trackTableName, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the track table, its spatial index is declared
+     * in the deferred indexes.
+     *
+     * @param connection database
+     * @param trackTableName table name
+     * @param indexes indexes created once the rows are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createTrackTable(Connection connection, String trackTableName, DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(trackTableName).append(" (");
@@ -200,6 +256,7 @@ public class GPXTablesFactory {
             sb.append(GPXTags.EXTENSIONS.toLowerCase()).append(" TEXT);");
             stmt.execute(sb.toString());
         }
+        indexes.spatialIndex(trackTableName, "THE_GEOM");
 
         //We return the preparedstatement of the route table
         StringBuilder insert = new StringBuilder("INSERT INTO ").append(trackTableName).append(" VALUES ( ?");
@@ -218,6 +275,19 @@ public class GPXTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createTrackSegmentsTable(Connection connection, String trackSegementsTableName) throws SQLException {
+        return createTrackSegmentsTable(connection, trackSegementsTableName, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the track segments table to store the segments of a track, its spatial index is declared
+     * in the deferred indexes.
+     *
+     * @param connection database
+     * @param trackSegementsTableName table name
+     * @param indexes indexes created once the rows are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createTrackSegmentsTable(Connection connection, String trackSegementsTableName, DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(trackSegementsTableName).append(" (");
@@ -227,6 +297,7 @@ public class GPXTablesFactory {
             sb.append("id_track INT);");
             stmt.execute(sb.toString());
         }
+        indexes.spatialIndex(trackSegementsTableName, "THE_GEOM");
         //We return the preparedstatement of the waypoints table
         StringBuilder insert = new StringBuilder("INSERT INTO ").append(trackSegementsTableName).append(" VALUES ( ?");
         for (int i = 1; i < GpxMetadata.TRKSEGFIELDCOUNT; i++) {
@@ -245,6 +316,19 @@ public class GPXTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createTrackPointsTable(Connection connection, String trackPointsTableName) throws SQLException {
+        return createTrackPointsTable(connection, trackPointsTableName, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the track points table to store the track waypoints, its spatial index is declared
+     * in the deferred indexes.
+     *
+     * @param connection database
+     * @param trackPointsTableName table name
+     * @param indexes indexes created once the rows are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createTrackPointsTable(Connection connection, String trackPointsTableName, DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(trackPointsTableName).append(" (");
@@ -275,6 +359,7 @@ public class GPXTablesFactory {
             sb.append("track_segment_id").append(" INT);");
             stmt.execute(sb.toString());
         }
+        indexes.spatialIndex(trackPointsTableName, "THE_GEOM");
         //We return the preparedstatement of the waypoints table
         StringBuilder insert = new StringBuilder("INSERT INTO ").append(trackPointsTableName).append(" VALUES ( ?");
         for (int i = 1; i < GpxMetadata.RTEPTFIELDCOUNT; i++) {
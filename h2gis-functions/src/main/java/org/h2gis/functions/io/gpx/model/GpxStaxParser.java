@@ -0,0 +1,545 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.gpx.model;
+
+import org.h2gis.api.ProgressVisitor;
+import org.h2gis.functions.io.utility.DeferredIndexes;
+import org.h2gis.functions.io.utility.ImportOptions;
+import org.h2gis.utilities.FileUtilities;
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.h2gis.utilities.TableUtilities;
+import org.h2gis.utilities.dbtypes.DBTypes;
+import org.h2gis.utilities.dbtypes.DBUtils;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Pull parser of the GPX files. The document is read in one pass, the tables are created when the first waypoint,
+ * route or track is found. The coordinates are read from the attributes of the points, the lines are built while
+ * their points are read and the rows are inserted by batches.
+ * The tables and their values are the same as the ones of {@link GpxParser}.
+ */
+public class GpxStaxParser {
+
+    private static final int BATCH_MAX_SIZE = 1000;
+    // Update the progress every PROGRESS_POINTS points
+    private static final int PROGRESS_POINTS = 1000;
+    // Point children stored as text, the other ones are skipped
+    private static final Set<String> POINT_TEXT_ELEMENTS = new HashSet<>(Arrays.asList(GPXTags.TIME, GPXTags.MAGVAR,
+            GPXTags.GEOIDHEIGHT, GPXTags.NAME, GPXTags.CMT, GPXTags.DESC, GPXTags.SRC, GPXTags.SYM, GPXTags.TYPE,
+            GPXTags.FIX, GPXTags.SAT, GPXTags.HDOP, GPXTags.VDOP, GPXTags.PDOP, GPXTags.AGEOFDGPSDATA, GPXTags.DGPSID));
+    // Route and track children stored as text
+    private static final Set<String> LINE_TEXT_ELEMENTS = new HashSet<>(Arrays.asList(GPXTags.NAME, GPXTags.CMT,
+            GPXTags.DESC, GPXTags.SRC, GPXTags.NUMBER, GPXTags.TYPE));
+
+    private final Connection connection;
+    private final File fileName;
+    private final String encoding;
+    private final ImportOptions importOptions;
+    private final boolean deleteTable;
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+    private DBTypes dbType;
+    private DeferredIndexes indexes;
+    private TableLocation requestedTable;
+    // Created tables, in the order of the returned table names
+    private final String[] tableNames = new String[6];
+    private BatchInsert waypoints, routes, routePoints, tracks, trackSegments, trackPoints;
+    private int idWpt, idRte, idTrk;
+    // Coordinates of the line being read, x y z of each point
+    private double[] lineCoordinates = new double[3 * 256];
+    private int lineSize;
+    private ProgressVisitor progress;
+    private FileChannel channel;
+    private long fileSize;
+    private long pointCount;
+
+    /**
+     * @param connection Active connection, do not close this connection.
+     * @param fileName File path to read
+     * @param options File encoding, null to use the encoding of the XML declaration, or key=value options
+     *                see {@link ImportOptions}
+     * @param deleteTable true to delete the existing tables
+     */
+    public GpxStaxParser(Connection connection, File fileName, String options, boolean deleteTable) {
+        this.connection = connection;
+        this.fileName = fileName;
+        this.importOptions = new ImportOptions(options);
+        this.encoding = importOptions.getEncoding();
+        this.deleteTable = deleteTable;
+    }
+
+    /**
+     * Reads the document and copies it in the tables.
+     *
+     * @param tableName the table used to create all tables
+     * @param progress Progress visitor following the execution.
+     * @return the names of the created tables
+     * @throws SQLException or FileNotFoundException if the creation of the tables failed
+     */
+    public String[] read(String tableName, ProgressVisitor progress) throws SQLException, FileNotFoundException {
+        if (!FileUtilities.isFileImportable(fileName, "gpx")) {
+            return null;
+        }
+        dbType = DBUtils.getDBType(connection);
+        requestedTable = TableLocation.parse(tableName, dbType);
+        if (deleteTable) {
+            GPXTablesFactory.dropOSMTables(connection, requestedTable);
+        }
+        if (fileName.length() == 0) {
+            String outputEmptyTable = requestedTable.toString();
+            JDBCUtilities.createEmptyTable(connection, outputEmptyTable);
+            return new String[]{outputEmptyTable};
+        }
+        this.progress = progress.subProcess(100);
+        indexes = new DeferredIndexes(connection, importOptions);
+        idWpt = 1;
+        idRte = 1;
+        idTrk = 1;
+        pointCount = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (FileInputStream fs = new FileInputStream(fileName)) {
+            channel = fs.getChannel();
+            fileSize = channel.size();
+            XMLStreamReader reader = encoding != null && !encoding.isEmpty()
+                    ? factory.createXMLStreamReader(fs, encoding) : factory.createXMLStreamReader(fs);
+            connection.setAutoCommit(false);
+            try {
+                readDocument(reader);
+            } finally {
+                reader.close();
+            }
+            for (BatchInsert table : getTables()) {
+                if (table != null) {
+                    table.flush();
+                }
+            }
+            connection.commit();
+            indexes.create();
+            List<String> names = new ArrayList<>();
+            for (String name : tableNames) {
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+            return names.toArray(new String[0]);
+        } catch (SQLException | XMLStreamException | IOException | RuntimeException ex) {
+            try {
+                dropCreatedTables();
+            } catch (SQLException dropEx) {
+                ex.addSuppressed(dropEx);
+            }
+            if (ex instanceof SQLException) {
+                throw (SQLException) ex;
+            } else if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            }
+            throw new SQLException("Cannot parse the file " + fileName.getAbsolutePath(), ex);
+        } finally {
+            for (BatchInsert table : getTables()) {
+                if (table != null) {
+                    table.close();
+                }
+            }
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private BatchInsert[] getTables() {
+        return new BatchInsert[]{waypoints, routes, routePoints, tracks, trackSegments, trackPoints};
+    }
+
+    /**
+     * Read the waypoints, routes and tracks of the document, the other elements are ignored
+     */
+    private void readDocument(XMLStreamReader reader) throws XMLStreamException, SQLException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (name.equalsIgnoreCase(GPXTags.TRK)) {
+                    readTrack(reader);
+                } else if (name.equalsIgnoreCase(GPXTags.WPT)) {
+                    readWaypoint(reader);
+                } else if (name.equalsIgnoreCase(GPXTags.RTE)) {
+                    readRoute(reader);
+                }
+            }
+        }
+    }
+
+    private void readWaypoint(XMLStreamReader reader) throws XMLStreamException, SQLException {
+        if (waypoints == null) {
+            String name = checkTable(GPXTablesFactory.WAYPOINT);
+            waypoints = new BatchInsert(GPXTablesFactory.createWayPointsTable(connection, name, indexes));
+            tableNames[0] = name;
+        }
+        GPXPoint point = new GPXPoint(GpxMetadata.WPTFIELDCOUNT);
+        readPoint(reader, point, idWpt++);
+        insert(waypoints, point.getValues());
+    }
+
+    private void readRoute(XMLStreamReader reader) throws XMLStreamException, SQLException {
+        if (routes == null) {
+            String routeName = checkTable(GPXTablesFactory.ROUTE);
+            String routePointsName = checkTable(GPXTablesFactory.ROUTEPOINT);
+            routes = new BatchInsert(GPXTablesFactory.createRouteTable(connection, routeName, indexes));
+            tableNames[1] = routeName;
+            routePoints = new BatchInsert(GPXTablesFactory.createRoutePointsTable(connection, routePointsName, indexes));
+            tableNames[2] = routePointsName;
+        }
+        GPXLine route = new GPXLine(GpxMetadata.RTEFIELDCOUNT);
+        route.setValue(GpxMetadata.LINEID, idRte++);
+        int idRtPt = 1;
+        lineSize = 0;
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if (reader.getLocalName().equalsIgnoreCase(GPXTags.RTEPT)) {
+                GPXPoint routePoint = new GPXPoint(GpxMetadata.RTEPTFIELDCOUNT);
+                routePoint.setValue(GpxMetadata.RTEPT_RTEID, route.getValues()[GpxMetadata.LINEID]);
+                addCoordinate(readPoint(reader, routePoint, idRtPt++));
+                insert(routePoints, routePoint.getValues());
+            } else {
+                readLineElement(reader, route);
+            }
+        }
+        if (lineSize > 1) {
+            route.setGeometry(createLineString());
+        }
+        insert(routes, route.getValues());
+    }
+
+    private void readTrack(XMLStreamReader reader) throws XMLStreamException, SQLException {
+        if (tracks == null) {
+            String trackName = checkTable(GPXTablesFactory.TRACK);
+            String trackSegmentsName = checkTable(GPXTablesFactory.TRACKSEGMENT);
+            String trackPointsName = checkTable(GPXTablesFactory.TRACKPOINT);
+            tracks = new BatchInsert(GPXTablesFactory.createTrackTable(connection, trackName, indexes));
+            tableNames[3] = trackName;
+            trackSegments = new BatchInsert(GPXTablesFactory.createTrackSegmentsTable(connection, trackSegmentsName, indexes));
+            tableNames[4] = trackSegmentsName;
+            trackPoints = new BatchInsert(GPXTablesFactory.createTrackPointsTable(connection, trackPointsName, indexes));
+            tableNames[5] = trackPointsName;
+        }
+        GPXLine track = new GPXLine(GpxMetadata.TRKFIELDCOUNT);
+        track.setValue(GpxMetadata.LINEID, idTrk++);
+        List<LineString> lines = new ArrayList<>();
+        int trksegID = 1;
+        int trkptID = 1;
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if (reader.getLocalName().equalsIgnoreCase(GPXTags.TRKSEG)) {
+                GPXLine segment = new GPXLine(GpxMetadata.TRKSEGFIELDCOUNT);
+                segment.setValue(GpxMetadata.LINEID, trksegID++);
+                segment.setValue(GpxMetadata.TRKSEG_TRKID, track.getValues()[GpxMetadata.LINEID]);
+                lineSize = 0;
+                while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+                    if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String name = reader.getLocalName();
+                    if (name.equalsIgnoreCase(GPXTags.TRKPT)) {
+                        GPXPoint trackPoint = new GPXPoint(GpxMetadata.TRKPTFIELDCOUNT);
+                        trackPoint.setValue(GpxMetadata.TRKPT_TRKSEGID, segment.getValues()[GpxMetadata.LINEID]);
+                        addCoordinate(readPoint(reader, trackPoint, trkptID++));
+                        insert(trackPoints, trackPoint.getValues());
+                    } else {
+                        if (name.equalsIgnoreCase(GPXTags.EXTENSIONS)) {
+                            segment.setExtensions();
+                        }
+                        skipElement(reader);
+                    }
+                }
+                if (lineSize > 1) {
+                    LineString geometry = createLineString();
+                    segment.setGeometry(geometry);
+                    lines.add(geometry);
+                }
+                insert(trackSegments, segment.getValues());
+            } else {
+                readLineElement(reader, track);
+            }
+        }
+        track.setGeometry(geometryFactory.createMultiLineString(lines.toArray(new LineString[0])));
+        insert(tracks, track.getValues());
+    }
+
+    /**
+     * Read a waypoint, a route point or a track point, until its end element.
+     *
+     * @param reader Reader on the start element of the point
+     * @param point Point values
+     * @param id Point identifier
+     * @return the coordinate of the point
+     */
+    private Coordinate readPoint(XMLStreamReader reader, GPXPoint point, int id) throws XMLStreamException, SQLException {
+        if (progress.isCanceled()) {
+            throw new SQLException("Canceled by user");
+        }
+        Coordinate coordinate = readCoordinate(reader);
+        point.setValue(GpxMetadata.THE_GEOM, geometryFactory.createPoint(coordinate));
+        point.setValue(GpxMetadata.PTLAT, coordinate.y);
+        point.setValue(GpxMetadata.PTLON, coordinate.x);
+        point.setValue(GpxMetadata.PTELE, coordinate.getZ());
+        point.setValue(GpxMetadata.PTID, id);
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String name = reader.getLocalName().toLowerCase(Locale.ROOT);
+            if (POINT_TEXT_ELEMENTS.contains(name)) {
+                try {
+                    point.setAttribute(name, reader.getElementText());
+                } catch (NumberFormatException ex) {
+                    throw new XMLStreamException("Cannot parse the " + name + " value", reader.getLocation(), ex);
+                }
+            } else if (name.equals(GPXTags.LINK)) {
+                point.setValue(GpxMetadata.PTLINK, reader.getAttributeValue(null, GPXTags.HREF));
+                String linkText = readLinkText(reader);
+                if (linkText != null) {
+                    point.setLinkText(linkText);
+                }
+            } else {
+                if (name.equals(GPXTags.EXTENSIONS)) {
+                    point.setExtensions();
+                }
+                skipElement(reader);
+            }
+        }
+        if (++pointCount % PROGRESS_POINTS == 0 && fileSize > 0) {
+            try {
+                progress.setStep((int) (((double) channel.position() / fileSize) * 100));
+            } catch (IOException ex) {
+                // The progress is not updated
+            }
+        }
+        return coordinate;
+    }
+
+    /**
+     * Read a child element of a route or a track, which is not a point or a segment
+     */
+    private void readLineElement(XMLStreamReader reader, GPXLine line) throws XMLStreamException {
+        String name = reader.getLocalName().toLowerCase(Locale.ROOT);
+        if (LINE_TEXT_ELEMENTS.contains(name)) {
+            try {
+                line.setAttribute(name, reader.getElementText());
+            } catch (NumberFormatException ex) {
+                throw new XMLStreamException("Cannot parse the " + name + " value", reader.getLocation(), ex);
+            }
+        } else if (name.equals(GPXTags.LINK)) {
+            line.setValue(GpxMetadata.LINELINK_HREF, reader.getAttributeValue(null, GPXTags.HREF));
+            String linkText = readLinkText(reader);
+            if (linkText != null) {
+                line.setLinkText(linkText);
+            }
+        } else {
+            if (name.equals(GPXTags.EXTENSIONS)) {
+                line.setExtensions();
+            }
+            skipElement(reader);
+        }
+    }
+
+    /**
+     * @param reader Reader on the start element of a link
+     * @return The text of the link, null if the link has no text
+     */
+    private static String readLinkText(XMLStreamReader reader) throws XMLStreamException {
+        String text = null;
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+                if (reader.getLocalName().equalsIgnoreCase(GPXTags.TEXT)) {
+                    text = reader.getElementText();
+                } else {
+                    skipElement(reader);
+                }
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Move the reader to the end element of the current element
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Read the location of a point from the lat, lon and ele attributes
+     */
+    private static Coordinate readCoordinate(XMLStreamReader reader) throws XMLStreamException {
+        String lat = null;
+        String lon = null;
+        String ele = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = reader.getAttributeLocalName(i);
+            if (name.equals(GPXTags.LAT)) {
+                lat = reader.getAttributeValue(i);
+            } else if (name.equals(GPXTags.LON)) {
+                lon = reader.getAttributeValue(i);
+            } else if (name.equals(GPXTags.ELE)) {
+                ele = reader.getAttributeValue(i);
+            }
+        }
+        return new Coordinate(parseDouble(reader, lon, "longitude"), parseDouble(reader, lat, "latitude"),
+                ele == null ? Double.NaN : parseDouble(reader, ele, "elevation"));
+    }
+
+    private static double parseDouble(XMLStreamReader reader, String value, String name) throws XMLStreamException {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException | NullPointerException ex) {
+            throw new XMLStreamException("Cannot parse the " + name + " value", reader.getLocation(), ex);
+        }
+    }
+
+    private void addCoordinate(Coordinate coordinate) {
+        if (3 * lineSize + 3 > lineCoordinates.length) {
+            lineCoordinates = Arrays.copyOf(lineCoordinates, lineCoordinates.length * 2);
+        }
+        int offset = 3 * lineSize++;
+        lineCoordinates[offset] = coordinate.x;
+        lineCoordinates[offset + 1] = coordinate.y;
+        lineCoordinates[offset + 2] = coordinate.getZ();
+    }
+
+    /**
+     * @return the number of values the buffer of the line coordinates can hold
+     */
+    int getLineCapacity() {
+        return lineCoordinates.length;
+    }
+
+    private LineString createLineString() {
+        return geometryFactory.createLineString(new PackedCoordinateSequence.Double(
+                Arrays.copyOf(lineCoordinates, 3 * lineSize), 3, 0));
+    }
+
+    private void insert(BatchInsert table, Object[] values) throws SQLException {
+        if (table.insert(values)) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * @param suffix Suffix of the table name
+     * @return The table name
+     * @throws SQLException If the table already exists
+     */
+    private String checkTable(String suffix) throws SQLException {
+        String tableName = TableUtilities.caseIdentifier(requestedTable, requestedTable.getTable() + suffix, dbType);
+        if (JDBCUtilities.tableExists(connection, TableLocation.parse(tableName, dbType))) {
+            throw new SQLException("The table " + tableName + " already exists.");
+        }
+        return tableName;
+    }
+
+    /**
+     * Remove the tables of an import that failed
+     */
+    private void dropCreatedTables() throws SQLException {
+        connection.rollback();
+        try (Statement stmt = connection.createStatement()) {
+            for (String tableName : tableNames) {
+                if (tableName != null) {
+                    stmt.execute("DROP TABLE IF EXISTS " + tableName);
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    /**
+     * Insert the rows of a table by batches
+     */
+    private static final class BatchInsert {
+        private final PreparedStatement preparedStatement;
+        private int batchSize = 0;
+
+        BatchInsert(PreparedStatement preparedStatement) {
+            this.preparedStatement = preparedStatement;
+        }
+
+        /**
+         * @param values Row values
+         * @return True if the batch has been executed
+         */
+        boolean insert(Object[] values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                preparedStatement.setObject(i + 1, values[i]);
+            }
+            preparedStatement.addBatch();
+            if (++batchSize >= BATCH_MAX_SIZE) {
+                flush();
+                return true;
+            }
+            return false;
+        }
+
+        void flush() throws SQLException {
+            if (batchSize > 0) {
+                preparedStatement.executeBatch();
+                batchSize = 0;
+            }
+        }
+
+        void close() throws SQLException {
+            preparedStatement.close();
+        }
+    }
+}
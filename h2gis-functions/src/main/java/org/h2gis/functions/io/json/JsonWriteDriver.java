@@ -24,6 +24,9 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.api.ProgressVisitor;
+import org.h2gis.functions.io.utility.OrderedJsonWriter;
+import org.h2gis.functions.io.utility.OrderedPipeline;
+import org.h2gis.functions.io.utility.ParallelDeflaterOutputStream;
 import org.h2gis.utilities.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,9 +36,6 @@ import java.nio.file.Files;
 import java.sql.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import org.h2gis.utilities.dbtypes.DBTypes;
 import org.h2gis.utilities.dbtypes.DBUtils;
 
@@ -52,6 +52,8 @@ public class JsonWriteDriver {
 
     private final Connection connection;
 
+    private int threadCount = OrderedPipeline.getDefaultThreadCount();
+
     /**
      * A simple GeoJSON driver to write a spatial table to a GeoJSON file.
      *
@@ -61,6 +63,24 @@ public class JsonWriteDriver {
         this.connection = connection;
     }
 
+    /**
+     * @return Number of threads used to serialize the rows
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param threadCount Number of threads used to serialize the rows, 1 to serialize the rows on the thread that
+     *                    reads them
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count must be positive");
+        }
+        this.threadCount = threadCount;
+    }
+
     /**
      * Write a resulset to a json file
      * 
@@ -100,13 +120,13 @@ public class JsonWriteDriver {
             }
         } else if (FileUtilities.isExtensionWellFormated(file, "gz")) {
             try(FileOutputStream fos = new FileOutputStream(file);
-                GZIPOutputStream gzos = new GZIPOutputStream(fos)){
+                ParallelDeflaterOutputStream gzos = new ParallelDeflaterOutputStream(fos, threadCount)){
                 jsonWrite(progress, rs, gzos, encoding);
             }
         } else if (FileUtilities.isExtensionWellFormated(file, "zip")) {
             try (FileOutputStream fos = new FileOutputStream(file);
-                 ZipOutputStream zip = new ZipOutputStream(fos)) {
-                zip.putNextEntry(new ZipEntry(file.getName().substring(0, file.getName().length()-4)));
+                 ParallelDeflaterOutputStream zip = new ParallelDeflaterOutputStream(fos,
+                         ParallelDeflaterOutputStream.getZipEntryName(file.getName()), threadCount)) {
                 jsonWrite(progress, rs, zip, encoding);
             }
         }else {
@@ -149,10 +169,10 @@ public class JsonWriteDriver {
                     } else if (fileName.exists()) {
                         throw new IOException("The gz file already exist.");
                     }
-                    GZIPOutputStream gzos = null;
+                    ParallelDeflaterOutputStream gzos = null;
                     try {
                         FileOutputStream fos = new FileOutputStream(fileName);
-                        gzos = new GZIPOutputStream(fos);
+                        gzos = new ParallelDeflaterOutputStream(fos, threadCount);
                         PreparedStatement ps = connection.prepareStatement(tableName, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
                         ResultSet rs = ps.executeQuery();
                         jsonWrite(progress, rs, gzos, encoding);
@@ -172,11 +192,11 @@ public class JsonWriteDriver {
                     } else if (fileName.exists()) {
                         throw new IOException("The zip file already exist.");
                     }
-                    ZipOutputStream zip = null;
+                    ParallelDeflaterOutputStream zip = null;
                     try {
                         FileOutputStream fos = new FileOutputStream(fileName);
-                        zip = new ZipOutputStream(fos);
-                        zip.putNextEntry(new ZipEntry(fileName.getName().substring(0, fileName.getName().length()-4)));
+                        zip = new ParallelDeflaterOutputStream(fos,
+                                ParallelDeflaterOutputStream.getZipEntryName(fileName.getName()), threadCount);
                         PreparedStatement ps = connection.prepareStatement(tableName, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
                         ResultSet rs = ps.executeQuery();
                         jsonWrite(progress, rs, zip, encoding);
@@ -210,10 +230,10 @@ public class JsonWriteDriver {
                 } else if (fileName.exists()) {
                     throw new IOException("The gz file already exist.");
                 }
-                GZIPOutputStream gzos = null;
+                ParallelDeflaterOutputStream gzos = null;
                 try {
                     FileOutputStream fos = new FileOutputStream(fileName);
-                    gzos = new GZIPOutputStream(fos);
+                    gzos = new ParallelDeflaterOutputStream(fos, threadCount);
                     jsonWrite(progress, tableName, gzos, encoding);
                 } finally {
                     try {
@@ -230,11 +250,11 @@ public class JsonWriteDriver {
                 } else if (fileName.exists()) {
                     throw new IOException("The zip file already exist.");
                 }
-                ZipOutputStream zip = null;
+                ParallelDeflaterOutputStream zip = null;
                 try {
                     FileOutputStream fos = new FileOutputStream(fileName);
-                    zip = new ZipOutputStream(fos);
-                    zip.putNextEntry(new ZipEntry(fileName.getName().substring(0, fileName.getName().length()-4)));
+                    zip = new ParallelDeflaterOutputStream(fos,
+                            ParallelDeflaterOutputStream.getZipEntryName(fileName.getName()), threadCount);
                     jsonWrite(progress, tableName, zip, encoding);
                 } finally {
                     try {
@@ -272,25 +292,12 @@ public class JsonWriteDriver {
 
                 try ( // Read table content
                       Statement st = connection.createStatement()) {
-                    JsonFactory jsonFactory = new JsonFactory();
-                    JsonGenerator jsonGenerator = jsonFactory.createGenerator(new BufferedOutputStream(fos), jsonEncoding);
+                    OutputStream out = new BufferedOutputStream(fos);
                     ResultSet rs = st.executeQuery(String.format("select * from %s", outputTable));
                     try {
-                        ResultSetMetaData rsmd = rs.getMetaData();
-                        int numColumns = rsmd.getColumnCount();
-                        while (rs.next()) {
-                            jsonGenerator.writeStartObject();
-                            for (int i = 1; i < numColumns + 1; i++) {
-                                String columnName = rsmd.getColumnName(i);
-                                int t = rsmd.getColumnType(i);
-                                writeObject(t, rs, i, jsonGenerator, columnName);
-                            }
-                            jsonGenerator.writeEndObject();
-                            copyProgress.endStep();
-                        }
+                        writeRows(rs, out, jsonEncoding, copyProgress);
                         copyProgress.endOfProgress();
-                        jsonGenerator.flush();
-                        jsonGenerator.close();
+                        out.close();
                     } finally {
                         rs.close();
                     }
@@ -328,24 +335,51 @@ public class JsonWriteDriver {
             rs.beforeFirst();
         }
         ProgressVisitor copyProgress = p.subProcess(rowCount);
-        JsonFactory jsonFactory = new JsonFactory();
-        JsonGenerator jsonGenerator = jsonFactory.createGenerator(new BufferedOutputStream(os), jsonEncoding);
+        OutputStream out = new BufferedOutputStream(os);
+        writeRows(rs, out, jsonEncoding, copyProgress);
+        copyProgress.endOfProgress();
+        out.close();
+    }
 
+    /**
+     * Write one JSON object per row, the objects are separated by a space.
+     *
+     * @param rs       ResultSet containing the data to write.
+     * @param out      OutputStream used for writing data.
+     * @param jsonEncoding Encoding of the destination file.
+     * @param progress ProgressVisitor following the writing, one step per row.
+     * @throws SQLException Exception thrown when an SQL error occurs.
+     * @throws IOException  Exception when a file writing error occurs.
+     */
+    private void writeRows(ResultSet rs, OutputStream out, JsonEncoding jsonEncoding, ProgressVisitor progress)
+            throws SQLException, IOException {
         ResultSetMetaData rsmd = rs.getMetaData();
         int numColumns = rsmd.getColumnCount();
-        while (rs.next()) {
-            jsonGenerator.writeStartObject();
-            for (int i = 1; i < numColumns + 1; i++) {
-                String columnName = rsmd.getColumnName(i);
-                int t = rsmd.getColumnType(i);
-                writeObject(t, rs, i, jsonGenerator, columnName);
-            }
-            jsonGenerator.writeEndObject();
-            copyProgress.endStep();
+        String[] columnNames = new String[numColumns];
+        int[] columnTypes = new int[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            columnNames[i] = rsmd.getColumnName(i + 1);
+            columnTypes[i] = rsmd.getColumnType(i + 1);
         }
-        copyProgress.endOfProgress();
-        jsonGenerator.flush();
-        jsonGenerator.close();
+        new OrderedJsonWriter(new JsonFactory(), jsonEncoding, threadCount).write(rs, false,
+                (resultSet, rowNumber) -> {
+                    Object[] row = new Object[numColumns];
+                    for (int i = 0; i < numColumns; i++) {
+                        row[i] = readObject(columnTypes[i], resultSet, i + 1);
+                    }
+                    return row;
+                },
+                (jsonGenerator, row, rowNumber) -> {
+                    // Default root value separator of Jackson
+                    if (rowNumber > 0) {
+                        jsonGenerator.writeRaw(' ');
+                    }
+                    jsonGenerator.writeStartObject();
+                    for (int i = 0; i < numColumns; i++) {
+                        writeObject(columnTypes[i], row[i], jsonGenerator, columnNames[i]);
+                    }
+                    jsonGenerator.writeEndObject();
+                }, out, progress);
     }
 
     /**
@@ -384,108 +418,94 @@ public class JsonWriteDriver {
     }
 
     /**
-     * Write the object of the given ResultSet at the given index in the given column with the given type.
+     * Read the object of the given ResultSet at the given index with the given type.
      *
-     * @param type          Type of the data to write.
+     * @param type          Type of the data to read.
      * @param rs            ResultSet containing the data to write.
-     * @param index         Index of the data to save.
-     * @param jsonGenerator JsonGenerator used to write data.
-     * @param columnName    Name of the column to write.
+     * @param index         Index of the data to read.
+     * @return The value to write.
      * @throws SQLException Exception thrown when an SQL error occurs.
-     * @throws IOException  Exception when a file writing error occurs.
      */
-    private void writeObject(int type, ResultSet rs, int index, JsonGenerator jsonGenerator, String columnName)
-            throws IOException, SQLException {
+    private static Object readObject(int type, ResultSet rs, int index) throws SQLException {
         switch (type) {
             case java.sql.Types.ARRAY:
-                Object[] values = (Object[]) rs.getArray(index).getArray();
-                if(values !=null){
-                    jsonGenerator.writeArrayFieldStart(columnName);
-                    for (Object value : values) {
-                        jsonGenerator.writeObject(value);
-                    }
-                    jsonGenerator.writeEndArray();
-                }
-                break;
+                Array array = rs.getArray(index);
+                return array == null ? null : array.getArray();
             case java.sql.Types.BIGINT:
-                jsonGenerator.writeObjectField(columnName, rs.getLong(index));
-                break;
+                return rs.getLong(index);
             case java.sql.Types.REAL:
-                jsonGenerator.writeObjectField(columnName, rs.getFloat(index));
-                break;
+                return rs.getFloat(index);
             case java.sql.Types.BOOLEAN:
             case java.sql.Types.BIT:
-                jsonGenerator.writeObjectField(columnName, rs.getBoolean(index));
-                break;
+                return rs.getBoolean(index);
             case java.sql.Types.BLOB:
-                jsonGenerator.writeObjectField(columnName, rs.getBlob(index));
-                break;
+                return rs.getBlob(index);
             case java.sql.Types.DOUBLE:
             case java.sql.Types.FLOAT:
-                jsonGenerator.writeObjectField(columnName, rs.getDouble(index));
-                break;
+                return rs.getDouble(index);
             case java.sql.Types.INTEGER:
-                jsonGenerator.writeObjectField(columnName, rs.getInt(index));
-                break;
+                return rs.getInt(index);
             case java.sql.Types.NVARCHAR:
             case java.sql.Types.LONGNVARCHAR:
             case java.sql.Types.NCHAR:
-                jsonGenerator.writeObjectField(columnName, rs.getNString(index));
-                break;
+                return rs.getNString(index);
             case java.sql.Types.TINYINT:
-                jsonGenerator.writeObjectField(columnName, rs.getByte(index));
-                break;
+                return rs.getByte(index);
             case java.sql.Types.SMALLINT:
-                jsonGenerator.writeObjectField(columnName, rs.getShort(index));
-                break;
+                return rs.getShort(index);
             case java.sql.Types.DATE:
-                jsonGenerator.writeObjectField(columnName, rs.getDate(index));
-                break;
+                return rs.getDate(index);
             case java.sql.Types.TIME:
-                jsonGenerator.writeObjectField(columnName, rs.getTime(index));
-                break;
+                return rs.getTime(index);
             case java.sql.Types.TIMESTAMP:
-                jsonGenerator.writeObjectField(columnName, rs.getTimestamp(index));
-                break;
+                return rs.getTimestamp(index);
             case java.sql.Types.BINARY:
-                jsonGenerator.writeObjectField(columnName, rs.getBytes(index));
-                break;
             case java.sql.Types.VARBINARY:
-                jsonGenerator.writeObjectField(columnName, rs.getBytes(index));
-                break;
             case java.sql.Types.LONGVARBINARY:
-                jsonGenerator.writeObjectField(columnName, rs.getBinaryStream(index));
-                break;
+                // The rows are serialized after the result set has moved, the bytes are read now
+                return rs.getBytes(index);
             case java.sql.Types.CLOB:
-                jsonGenerator.writeObjectField(columnName, rs.getClob(index));
-                break;
+                return rs.getClob(index);
             case java.sql.Types.NUMERIC:
-                jsonGenerator.writeObjectField(columnName, rs.getBigDecimal(index));
-                break;
             case java.sql.Types.DECIMAL:
-                jsonGenerator.writeObjectField(columnName, rs.getBigDecimal(index));
-                break;
+                return rs.getBigDecimal(index);
             case java.sql.Types.DATALINK:
-                jsonGenerator.writeObjectField(columnName, rs.getURL(index));
-                break;
+                return rs.getURL(index);
             case java.sql.Types.REF:
-                jsonGenerator.writeObjectField(columnName, rs.getRef(index));
-                break;
+                return rs.getRef(index);
             case java.sql.Types.STRUCT:
-                jsonGenerator.writeObjectField(columnName, rs.getObject(index));
-                break;
             case java.sql.Types.DISTINCT:
-                jsonGenerator.writeObjectField(columnName, rs.getObject(index));
-                break;
             case java.sql.Types.JAVA_OBJECT:
-                jsonGenerator.writeObjectField(columnName, rs.getObject(index));
-                break;
+                return rs.getObject(index);
             case java.sql.Types.LONGVARCHAR:
             case java.sql.Types.CHAR:
             case java.sql.Types.VARCHAR:
             default:
-                jsonGenerator.writeObjectField(columnName, rs.getString(index));
-                break;
+                return rs.getString(index);
+        }
+    }
+
+    /**
+     * Write the object read by {@link #readObject(int, ResultSet, int)} in the given column with the given type.
+     *
+     * @param type          Type of the data to write.
+     * @param value         Value to write.
+     * @param jsonGenerator JsonGenerator used to write data.
+     * @param columnName    Name of the column to write.
+     * @throws IOException  Exception when a file writing error occurs.
+     */
+    private static void writeObject(int type, Object value, JsonGenerator jsonGenerator, String columnName)
+            throws IOException {
+        if (type == java.sql.Types.ARRAY) {
+            if (value != null) {
+                jsonGenerator.writeArrayFieldStart(columnName);
+                for (Object item : (Object[]) value) {
+                    jsonGenerator.writeObject(item);
+                }
+                jsonGenerator.writeEndArray();
+            }
+        } else {
+            jsonGenerator.writeObjectField(columnName, value);
         }
     }
 }
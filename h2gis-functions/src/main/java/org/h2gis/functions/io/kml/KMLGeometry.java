@@ -20,6 +20,7 @@
 
 package org.h2gis.functions.io.kml;
 
+import org.h2gis.functions.io.utility.CoordinateFormatter;
 import org.locationtech.jts.geom.*;
 
 import java.sql.SQLException;
@@ -53,14 +54,27 @@ public class KMLGeometry {
      * @param sb buffer to store the KML
      */
     public static void toKMLGeometry(Geometry geometry, ExtrudeMode extrude, int altitudeModeEnum, StringBuilder sb) throws SQLException {
+        toKMLGeometry(geometry, extrude, altitudeModeEnum, new CoordinateFormatter(), sb);
+    }
+
+    /**
+     * Convert JTS geometry to a kml geometry representation.
+     *
+     * @param geometry input geometry
+     * @param extrude extrude mode
+     * @param altitudeModeEnum altitude mode
+     * @param formatter formatter of the coordinates
+     * @param sb buffer to store the KML
+     */
+    public static void toKMLGeometry(Geometry geometry, ExtrudeMode extrude, int altitudeModeEnum, CoordinateFormatter formatter, StringBuilder sb) throws SQLException {
         if (geometry instanceof Point) {
-            toKMLPoint((Point) geometry, extrude, altitudeModeEnum, sb);
+            toKMLPoint((Point) geometry, extrude, altitudeModeEnum, formatter, sb);
         } else if (geometry instanceof LineString) {
-            toKMLLineString((LineString) geometry, extrude, altitudeModeEnum, sb);
+            toKMLLineString((LineString) geometry, extrude, altitudeModeEnum, formatter, sb);
         } else if (geometry instanceof Polygon) {
-            toKMLPolygon((Polygon) geometry, extrude, altitudeModeEnum, sb);
+            toKMLPolygon((Polygon) geometry, extrude, altitudeModeEnum, formatter, sb);
         } else if (geometry instanceof GeometryCollection) {
-            toKMLMultiGeometry((GeometryCollection) geometry, extrude, altitudeModeEnum, sb);
+            toKMLMultiGeometry((GeometryCollection) geometry, extrude, altitudeModeEnum, formatter, sb);
         } else {
             throw new SQLException("This geometry type is not supported : " + geometry.toString());
         }
@@ -94,16 +108,16 @@ public class KMLGeometry {
      * @param point
      * @param extrude
      * @param altitudeModeEnum
+     * @param formatter formatter of the coordinates
      */
-    public static void toKMLPoint(Point point, ExtrudeMode extrude, int altitudeModeEnum, StringBuilder sb) {
+    public static void toKMLPoint(Point point, ExtrudeMode extrude, int altitudeModeEnum, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("<Point>");
         appendExtrude(extrude, sb);
         appendAltitudeMode(altitudeModeEnum, sb);
         sb.append("<coordinates>");
-        Coordinate coord = point.getCoordinate();
-        sb.append(coord.x).append(",").append(coord.y);
-        if (!Double.isNaN(coord.z)) {
-            sb.append(",").append(coord.z);
+        CoordinateSequence sequence = point.getCoordinateSequence();
+        if (sequence.size() > 0) {
+            appendKMLCoordinate(sequence, 0, formatter, sb);
         }
         sb.append("</coordinates>").append("</Point>");
     }
@@ -137,11 +151,11 @@ public class KMLGeometry {
      * }
      * @param lineString
      */
-    public static void toKMLLineString(LineString lineString, ExtrudeMode extrude, int altitudeModeEnum, StringBuilder sb) {
+    public static void toKMLLineString(LineString lineString, ExtrudeMode extrude, int altitudeModeEnum, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("<LineString>");
         appendExtrude(extrude, sb);
         appendAltitudeMode(altitudeModeEnum, sb);
-        appendKMLCoordinates(lineString.getCoordinates(), sb);
+        appendKMLCoordinates(lineString.getCoordinateSequence(), formatter, sb);
         sb.append("</LineString>");
     }
 
@@ -174,11 +188,11 @@ public class KMLGeometry {
      *
      * @param lineString
      */
-    public static void toKMLLinearRing(LineString lineString, ExtrudeMode extrude, int altitudeModeEnum, StringBuilder sb) {
+    public static void toKMLLinearRing(LineString lineString, ExtrudeMode extrude, int altitudeModeEnum, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("<LinearRing>");
         appendExtrude(extrude, sb);
         appendAltitudeMode(altitudeModeEnum, sb);
-        appendKMLCoordinates(lineString.getCoordinates(), sb);
+        appendKMLCoordinates(lineString.getCoordinateSequence(), formatter, sb);
         sb.append("</LinearRing>");
     }
 
@@ -229,16 +243,16 @@ public class KMLGeometry {
      *
      * @param polygon
      */
-    public static void toKMLPolygon(Polygon polygon, ExtrudeMode extrude, int altitudeModeEnum, StringBuilder sb) {
+    public static void toKMLPolygon(Polygon polygon, ExtrudeMode extrude, int altitudeModeEnum, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("<Polygon>");
         appendExtrude(extrude, sb);
         appendAltitudeMode(altitudeModeEnum, sb);
         sb.append("<outerBoundaryIs>");
-        toKMLLinearRing(polygon.getExteriorRing(), extrude, altitudeModeEnum, sb);
+        toKMLLinearRing(polygon.getExteriorRing(), extrude, altitudeModeEnum, formatter, sb);
         sb.append("</outerBoundaryIs>");
         for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
             sb.append("<innerBoundaryIs>");
-            toKMLLinearRing(polygon.getInteriorRingN(i), extrude, altitudeModeEnum, sb);
+            toKMLLinearRing(polygon.getInteriorRingN(i), extrude, altitudeModeEnum, formatter, sb);
             sb.append("</innerBoundaryIs>");
         }
         sb.append("</Polygon>");
@@ -258,17 +272,17 @@ public class KMLGeometry {
      *
      * @param gc
      */
-    public static void toKMLMultiGeometry(GeometryCollection gc, ExtrudeMode extrude, int altitudeModeEnum, StringBuilder sb) {
+    public static void toKMLMultiGeometry(GeometryCollection gc, ExtrudeMode extrude, int altitudeModeEnum, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("<MultiGeometry>");
         int size = gc.getNumGeometries();
         for (int i = 0; i < size; i++) {
             Geometry geom = gc.getGeometryN(i);
             if (geom instanceof Point) {
-                toKMLPoint((Point) geom, extrude, altitudeModeEnum, sb);
+                toKMLPoint((Point) geom, extrude, altitudeModeEnum, formatter, sb);
             } else if (geom instanceof LineString) {
-                toKMLLineString((LineString) geom, extrude, altitudeModeEnum, sb);
+                toKMLLineString((LineString) geom, extrude, altitudeModeEnum, formatter, sb);
             } else if (geom instanceof Polygon) {
-                toKMLPolygon((Polygon) geom, extrude, altitudeModeEnum, sb);
+                toKMLPolygon((Polygon) geom, extrude, altitudeModeEnum, formatter, sb);
             }
         }
         sb.append("</MultiGeometry>");
@@ -281,23 +295,39 @@ public class KMLGeometry {
      * {@code
      * <coordinates>...</coordinates> <!-- lon,lat[,alt] tuples -->
      * }
-     * @param coords coordinates array
+     * @param sequence coordinates sequence
+     * @param formatter formatter of the coordinates
+     * @param sb buffer to store the KML
      */
-    public static void appendKMLCoordinates(Coordinate[] coords, StringBuilder sb) {
+    public static void appendKMLCoordinates(CoordinateSequence sequence, CoordinateFormatter formatter, StringBuilder sb) {
         sb.append("<coordinates>");
-        for (int i = 0; i < coords.length; i++) {
-            Coordinate coord = coords[i];
-            sb.append(coord.x).append(",").append(coord.y);
-            if (!Double.isNaN(coord.z)) {
-                sb.append(",").append(coord.z);
-            }
-            if (i < coords.length - 1) {
+        int size = sequence.size();
+        for (int i = 0; i < size; i++) {
+            appendKMLCoordinate(sequence, i, formatter, sb);
+            if (i < size - 1) {
                 sb.append(" ");
             }
         }
         sb.append("</coordinates>");
     }
 
+    /**
+     * Append a lon,lat[,alt] tuple
+     *
+     * @param sequence coordinates sequence
+     * @param index index of the coordinate in the sequence
+     * @param formatter formatter of the coordinates
+     * @param sb buffer to store the KML
+     */
+    private static void appendKMLCoordinate(CoordinateSequence sequence, int index, CoordinateFormatter formatter, StringBuilder sb) {
+        formatter.append(sb, sequence.getX(index)).append(",");
+        formatter.append(sb, sequence.getY(index));
+        double z = sequence.getZ(index);
+        if (!Double.isNaN(z)) {
+            formatter.append(sb.append(","), z);
+        }
+    }
+
     /**
      * Append the extrude value
      *
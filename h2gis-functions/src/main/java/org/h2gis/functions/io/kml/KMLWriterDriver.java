@@ -33,8 +33,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import org.h2gis.functions.io.utility.CoordinateFormatter;
+import org.h2gis.functions.io.utility.OrderedPipeline;
+import org.h2gis.functions.io.utility.ParallelDeflaterOutputStream;
 import org.h2gis.utilities.FileUtilities;
 import org.h2gis.utilities.GeometryTableUtilities;
 import org.h2gis.utilities.Tuple;
@@ -53,6 +54,7 @@ public class KMLWriterDriver {
     private HashMap<Integer, String> kmlFields;
     private int columnCount = -1;
     private String tableName;
+    private final CoordinateFormatter formatter = new CoordinateFormatter();
 
     public KMLWriterDriver(Connection connection, File fileName, String encoding, boolean deleteFile) {
         this.connection = connection;
@@ -180,11 +182,11 @@ public class KMLWriterDriver {
      * @param fileNameWithExtension file name
      */
     private void writeKMZ(ProgressVisitor progress,File fileName, String fileNameWithExtension, ResultSet rs,String geomField,  String encoding) throws SQLException {
-        ZipOutputStream zos = null;
+        ParallelDeflaterOutputStream zos = null;
         try {
-            zos = new ZipOutputStream(new FileOutputStream(fileName));
             // Create a zip entry for the main KML file
-            zos.putNextEntry(new ZipEntry(fileNameWithExtension));
+            zos = new ParallelDeflaterOutputStream(new FileOutputStream(fileName), fileNameWithExtension,
+                    OrderedPipeline.getDefaultThreadCount());
             writeKMLDocument(progress, zos, rs, geomField, encoding);
         } catch (FileNotFoundException ex) {
             throw new SQLException(ex);
@@ -193,7 +195,6 @@ public class KMLWriterDriver {
         } finally {
             try {
                 if (zos != null) {
-                    zos.closeEntry();
                     zos.finish();
                 }
             } catch (IOException ex) {
@@ -366,7 +367,7 @@ public class KMLWriterDriver {
         } else if (inputSRID != 4326) {
             throw new SQLException("The kml format supports only the WGS84 projection.");
         }
-        KMLGeometry.toKMLGeometry(geom, ExtrudeMode.NONE, AltitudeMode.NONE, sb);
+        KMLGeometry.toKMLGeometry(geom, ExtrudeMode.NONE, AltitudeMode.NONE, formatter, sb);
         //Write geometry
         xmlOut.writeCharacters(sb.toString());
         xmlOut.writeEndElement();//Write Placemark
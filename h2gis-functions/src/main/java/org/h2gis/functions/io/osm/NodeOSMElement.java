@@ -45,6 +45,29 @@ public class NodeOSMElement extends OSMElement {
         this.longitude = longitude;
     }
 
+    /**
+     * Constructor of a node to be located with {@link #setLocation(double, double)}
+     */
+    public NodeOSMElement() {
+    }
+
+    /**
+     * @param latitude Latitude value
+     * @param longitude Longitude value
+     */
+    public void setLocation(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        latitude = 0;
+        longitude = 0;
+        elevation = null;
+    }
+
     /**
      * @param elevation Elevation (also known as altitude or height) above mean sea level in metre,
      *                  based on geoid model EGM 96 which is used by WGS 84 (GPS).
@@ -53,6 +76,20 @@ public class NodeOSMElement extends OSMElement {
         this.elevation = elevation;
     }
 
+    /**
+     * @return Latitude in degrees
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * @return Longitude in degrees
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
     /**
      * The geometry of the node
      *
@@ -39,6 +39,7 @@ public class OSMDriverFunction implements DriverFunction {
     public static String DESCRIPTION = "OSM file (0.6)";
     public static String DESCRIPTION_GZ = "OSM Gzipped file (0.6)";
     public static String DESCRIPTION_BZ2 = "OSM Bzipped file (0.6)";
+    public static String DESCRIPTION_PBF = "OSM Protocolbuffer Binary Format file (0.6)";
 
 
     @Override
@@ -59,6 +60,8 @@ public class OSMDriverFunction implements DriverFunction {
             return DESCRIPTION_GZ;
         } else  if (format.equalsIgnoreCase("bz2")) {
             return DESCRIPTION_BZ2;
+        } else  if (format.equalsIgnoreCase("pbf")) {
+            return DESCRIPTION_PBF;
         } else {
             return "";
         }
@@ -68,7 +71,8 @@ public class OSMDriverFunction implements DriverFunction {
     public boolean isSpatialFormat(String extension) {
         return extension.equalsIgnoreCase("osm") ||
                 extension.equalsIgnoreCase("gz") ||
-                extension.equalsIgnoreCase("bz2");
+                extension.equalsIgnoreCase("bz2") ||
+                extension.equalsIgnoreCase("pbf");
     }
 
     @Override
@@ -122,14 +126,32 @@ public class OSMDriverFunction implements DriverFunction {
 
     @Override
     public String[] importFile(Connection connection, String tableReference, File fileName, String options, boolean deleteTables, ProgressVisitor progress) throws SQLException, IOException {
+        return importFile(connection, tableReference, fileName, options, deleteTables, false, progress);
+    }
+
+    /**
+     *
+     * @param connection Active connection, do not close this connection.
+     * @param tableReference prefix uses to store the OSM tables
+     * @param fileName File path to read
+     * @param options file encoding, or key=value options see {@link org.h2gis.functions.io.utility.ImportOptions}
+     * @param deleteTables  true to delete the existing tables
+     * @param buildGeometries true to build the geometries of the ways and relations
+     * @param progress Progress visitor following the execution.
+     * @throws SQLException Table write error
+     * @throws IOException File read error
+     */
+    public String[] importFile(Connection connection, String tableReference, File fileName, String options, boolean deleteTables,
+                               boolean buildGeometries, ProgressVisitor progress) throws SQLException, IOException {
         progress = DriverManager.check(connection,tableReference,fileName, progress);
         OSMParser osmp = new OSMParser(connection, fileName, options, deleteTables);
+        osmp.setBuildGeometries(buildGeometries);
         return osmp.read(tableReference, progress);
     }
 
     @Override
     public String[] getImportFormats() {
-        return new String[]{"osm","osm.gz","osm.bz2"};
+        return new String[]{"osm","osm.gz","osm.bz2","osm.pbf"};
     }
 
 }
@@ -23,20 +23,25 @@ package org.h2gis.functions.io.osm;
 import org.xml.sax.SAXException;
 
 import java.sql.Timestamp;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 
 /**
  * A class to manage all common element properties.
  *
+ * An element can be reused for the next element of the file after a call
+ * to {@link #clear()}.
+ *
  * @author Erwan Bocher
  */
 public class OSMElement {
 
-    private final SimpleDateFormat dataFormat1 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-    private final SimpleDateFormat dataFormat2 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
     private final HashMap<String, String> tags;
+    // Last parsed time stamp, consecutive elements often share the same one
+    private String timestampText;
+    private Timestamp parsedTimestamp;
     private long id, uid;
     private String user;
     private int version, changeset;
@@ -48,6 +53,22 @@ public class OSMElement {
         tags = new HashMap<String, String>();
     }
 
+    /**
+     * Reset the properties and the tags, in order to reuse this object
+     * for another element.
+     */
+    public void clear() {
+        id = 0;
+        uid = 0;
+        user = null;
+        version = 0;
+        changeset = 0;
+        visible = false;
+        timestamp = null;
+        name = "";
+        tags.clear();
+    }
+
     /**
      * The id of the element
      *
@@ -63,7 +84,16 @@ public class OSMElement {
      * @param id set id value
      */
     public void setId(String id) {
-        this.id = Long.valueOf(id);
+        this.id = Long.parseLong(id);
+    }
+
+    /**
+     * Set an id to the element
+     *
+     * @param id set id value
+     */
+    public void setId(long id) {
+        this.id = id;
     }
 
     /**
@@ -85,10 +115,14 @@ public class OSMElement {
 
     public void setUid(String uid) {
         if (uid != null) {
-            this.uid = Long.valueOf(uid);
+            this.uid = Long.parseLong(uid);
         }
     }
 
+    public void setUid(long uid) {
+        this.uid = uid;
+    }
+
     /**
      * @return The way name (extracted from tag)
      */
@@ -113,10 +147,14 @@ public class OSMElement {
 
     public void setVisible(String visible) {
         if(visible!=null){
-            this.visible = Boolean.valueOf(visible);
+            this.visible = Boolean.parseBoolean(visible);
         }
     }
 
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+    }
+
     /**
      *
      * @return GPX version
@@ -126,7 +164,11 @@ public class OSMElement {
     }
 
     public void setVersion(String version) {
-        this.version = version != null ? Integer.valueOf(version) : 0;
+        this.version = version != null ? Integer.parseInt(version) : 0;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
     }
 
     /**
@@ -139,10 +181,14 @@ public class OSMElement {
 
     public void setChangeset(String changeset) {
         if(changeset!=null){
-            this.changeset = Integer.valueOf(changeset);
+            this.changeset = Integer.parseInt(changeset);
         }
     }
 
+    public void setChangeset(int changeset) {
+        this.changeset = changeset;
+    }
+
     /**
      *
      * @return time stamp
@@ -152,17 +198,54 @@ public class OSMElement {
 
     }
 
+    /**
+     * Set the time stamp from an ISO-8601 date and time, yyyy-MM-ddTHH:mm:ss
+     * followed by an optional suffix that is ignored, usually Z.
+     *
+     * @param OSMtime time stamp text
+     */
     public void setTimestamp(String OSMtime) throws SAXException {
-        if(OSMtime!=null){
-        try {
-            timestamp = new Timestamp(dataFormat1.parse(OSMtime).getTime());
-        } catch (ParseException ex) {
+        if (OSMtime == null) {
+            return;
+        }
+        if (!OSMtime.equals(timestampText)) {
             try {
-                timestamp = new Timestamp(dataFormat2.parse(OSMtime).getTime());
-            } catch (ParseException ex1) {
+                if (OSMtime.length() < 19 || OSMtime.charAt(4) != '-' || OSMtime.charAt(7) != '-'
+                        || OSMtime.charAt(10) != 'T' || OSMtime.charAt(13) != ':' || OSMtime.charAt(16) != ':') {
+                    throw new DateTimeException(OSMtime);
+                }
+                parsedTimestamp = Timestamp.valueOf(LocalDateTime.of(parseDigits(OSMtime, 0, 4),
+                        parseDigits(OSMtime, 5, 7), parseDigits(OSMtime, 8, 10), parseDigits(OSMtime, 11, 13),
+                        parseDigits(OSMtime, 14, 16), parseDigits(OSMtime, 17, 19)));
+                timestampText = OSMtime;
+            } catch (DateTimeException ex) {
                 throw new SAXException("Cannot parse the timestamp for the node  :  " + getID(), ex);
             }
-        }}
+        }
+        timestamp = parsedTimestamp;
+    }
+
+    private static int parseDigits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DateTimeException(text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Set the time stamp from a number of milliseconds since the epoch. The time stamp keeps the UTC date and
+     * time fields, as the text time stamps of the OSM files.
+     *
+     * @param epochMillis milliseconds since 1970-01-01T00:00:00Z
+     */
+    public void setTimestamp(long epochMillis) {
+        timestamp = Timestamp.valueOf(LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1000000, ZoneOffset.UTC));
     }
 
     /**
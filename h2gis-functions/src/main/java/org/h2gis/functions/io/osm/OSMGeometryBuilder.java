@@ -0,0 +1,277 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; 
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.osm;
+
+import org.h2gis.functions.io.utility.MappedLongArray;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.operation.polygonize.Polygonizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build the geometries of the ways and relations while the OSM file is read.
+ *
+ * The node locations are kept in a store mapped in memory, as fixed point coordinates in 1e-7 degrees, the
+ * precision of the OSM data. The node references of the ways are kept too, for the relations.
+ * The elements of the OSM files are usually sorted by identifier: the stores are searched by dichotomy, and
+ * sorted once before the first search otherwise.
+ */
+class OSMGeometryBuilder implements AutoCloseable {
+    private static final double PRECISION = 1e7;
+    private final GeometryFactory gf;
+    private final RecordStore nodes;
+    private final RecordStore ways;
+    private final MappedLongArray wayNodes;
+
+    /**
+     * @param gf Factory of the geometries
+     */
+    OSMGeometryBuilder(GeometryFactory gf) throws IOException {
+        this.gf = gf;
+        nodes = new RecordStore(2);
+        ways = new RecordStore(3);
+        wayNodes = new MappedLongArray();
+    }
+
+    /**
+     * Store the location of a node
+     *
+     * @param id Node identifier
+     * @param longitude Longitude in degrees
+     * @param latitude Latitude in degrees
+     */
+    void addNode(long id, double longitude, double latitude) throws IOException {
+        long lon = Math.round(longitude * PRECISION);
+        long lat = Math.round(latitude * PRECISION);
+        nodes.add(id, (lon << 32) | (lat & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Store the nodes of a way, and build its geometry
+     *
+     * @param way Way
+     * @return The line of the stored nodes, null if less than 2 nodes are stored
+     */
+    LineString addWay(WayOSMElement way) throws IOException {
+        ways.add(way.getID(), wayNodes.size(), way.getNodesRefCount());
+        List<Coordinate> coordinates = new ArrayList<>(way.getNodesRefCount());
+        for (int i = 0; i < way.getNodesRefCount(); i++) {
+            wayNodes.add(way.getNodeRef(i));
+            addCoordinate(coordinates, way.getNodeRef(i));
+        }
+        // Built from the way, searching the stored way would sort the ways again after each unordered identifier
+        return createLine(coordinates);
+    }
+
+    /**
+     * Build the geometry of a relation from the stored nodes and ways. The ways of the multipolygon and boundary
+     * relations are polygonized, the nodes and ways of the other relations are collected.
+     * The members that are relations are ignored.
+     *
+     * @param relation Relation
+     * @return The geometry of the relation, null if none of its members is stored
+     */
+    Geometry buildRelation(RelationOSMElement relation) {
+        String type = relation.getTags().get("type");
+        boolean area = "multipolygon".equals(type) || "boundary".equals(type);
+        List<Geometry> parts = new ArrayList<>();
+        for (RelationOSMElement.Member member : relation.getMembers()) {
+            if (member.getType().equalsIgnoreCase("way")) {
+                LineString line = createLine(member.getRef());
+                if (line != null) {
+                    parts.add(line);
+                }
+            } else if (!area && member.getType().equalsIgnoreCase("node")) {
+                long record = nodes.find(member.getRef());
+                if (record >= 0) {
+                    parts.add(gf.createPoint(toCoordinate(nodes.get(record, 1))));
+                }
+            }
+        }
+        if (parts.isEmpty()) {
+            return null;
+        }
+        if (area) {
+            // Node the ways before building the rings
+            Polygonizer polygonizer = new Polygonizer(true);
+            polygonizer.add(gf.buildGeometry(parts).union());
+            Geometry polygons = polygonizer.getGeometry();
+            return polygons.isEmpty() ? null : polygons;
+        }
+        return gf.buildGeometry(parts);
+    }
+
+    private LineString createLine(long wayId) {
+        long record = ways.find(wayId);
+        if (record < 0) {
+            return null;
+        }
+        long start = ways.get(record, 1);
+        int count = (int) ways.get(record, 2);
+        List<Coordinate> coordinates = new ArrayList<>(count);
+        for (long i = start; i < start + count; i++) {
+            addCoordinate(coordinates, wayNodes.get(i));
+        }
+        return createLine(coordinates);
+    }
+
+    private void addCoordinate(List<Coordinate> coordinates, long nodeId) {
+        long node = nodes.find(nodeId);
+        // Nodes out of the extract are skipped
+        if (node >= 0) {
+            coordinates.add(toCoordinate(nodes.get(node, 1)));
+        }
+    }
+
+    private LineString createLine(List<Coordinate> coordinates) {
+        if (coordinates.size() < 2) {
+            return null;
+        }
+        return gf.createLineString(coordinates.toArray(new Coordinate[0]));
+    }
+
+    /**
+     * @return Number of times the node and way stores have been sorted
+     */
+    int getSortCount() {
+        return nodes.sortCount + ways.sortCount;
+    }
+
+    private static Coordinate toCoordinate(long location) {
+        // Division by an exact power of ten, to get the same value as the decimal text of the OSM files
+        return new Coordinate((location >> 32) / PRECISION, ((int) location) / PRECISION);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            nodes.close();
+        } finally {
+            try {
+                ways.close();
+            } finally {
+                wayNodes.close();
+            }
+        }
+    }
+
+    /**
+     * Records of longs, the first long of each record is the key.
+     */
+    private static class RecordStore implements AutoCloseable {
+        private final MappedLongArray values;
+        private final int recordSize;
+        private long lastKey = Long.MIN_VALUE;
+        private boolean sorted = true;
+        private int sortCount = 0;
+
+        RecordStore(int recordSize) throws IOException {
+            this.recordSize = recordSize;
+            values = new MappedLongArray();
+        }
+
+        void add(long... record) throws IOException {
+            if (record[0] <= lastKey) {
+                sorted = false;
+            }
+            lastKey = record[0];
+            for (long value : record) {
+                values.add(value);
+            }
+        }
+
+        long get(long record, int field) {
+            return values.get(record * recordSize + field);
+        }
+
+        /**
+         * @param key Key of the record
+         * @return Index of the record, -1 if not found
+         */
+        long find(long key) {
+            if (!sorted) {
+                sort();
+            }
+            long low = 0;
+            long high = values.size() / recordSize - 1;
+            while (low <= high) {
+                long middle = (low + high) >>> 1;
+                long middleKey = get(middle, 0);
+                if (middleKey < key) {
+                    low = middle + 1;
+                } else if (middleKey > key) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Heap sort of the records, in place
+         */
+        private void sort() {
+            long count = values.size() / recordSize;
+            for (long i = count / 2 - 1; i >= 0; i--) {
+                siftDown(i, count);
+            }
+            for (long end = count - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            sorted = true;
+            sortCount++;
+            lastKey = count > 0 ? get(count - 1, 0) : Long.MIN_VALUE;
+        }
+
+        private void siftDown(long root, long count) {
+            while (2 * root + 1 < count) {
+                long child = 2 * root + 1;
+                if (child + 1 < count && get(child + 1, 0) > get(child, 0)) {
+                    child++;
+                }
+                if (get(root, 0) >= get(child, 0)) {
+                    return;
+                }
+                swap(root, child);
+                root = child;
+            }
+        }
+
+        private void swap(long first, long second) {
+            for (int field = 0; field < recordSize; field++) {
+                long value = get(first, field);
+                values.set(first * recordSize + field, get(second, field));
+                values.set(second * recordSize + field, value);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            values.close();
+        }
+    }
+}
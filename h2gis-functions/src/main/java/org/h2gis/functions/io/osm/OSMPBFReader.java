@@ -0,0 +1,590 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; 
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.osm;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read the blocks of an OSM PBF file (.osm.pbf).
+ *
+ * The file is a sequence of blobs, each one preceded by its header. The first blob is an OSMHeader block, the
+ * other ones are OSMData blocks, named PrimitiveBlocks, that can be decoded independently.
+ * See <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">https://wiki.openstreetmap.org/wiki/PBF_Format</a>
+ *
+ * The blobs are read sequentially by {@link #next()}, then uncompressed and decoded by
+ * {@link #decodePrimitiveBlock(Blob)}, that can be called from worker threads.
+ */
+final class OSMPBFReader {
+    static final String OSM_HEADER = "OSMHeader";
+    static final String OSM_DATA = "OSMData";
+    private static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+    private static final Set<String> SUPPORTED_FEATURES = new HashSet<>(Arrays.asList("OsmSchema-V0.6", "DenseNodes"));
+    private static final String[] MEMBER_TYPES = new String[]{"node", "way", "relation"};
+    private final DataInputStream input;
+
+    /**
+     * @param inputStream Stream of the file, not closed by this reader
+     */
+    OSMPBFReader(InputStream inputStream) {
+        this.input = new DataInputStream(inputStream);
+    }
+
+    /**
+     * Read the next blob of the file
+     *
+     * @return The blob, null at the end of the file
+     */
+    Blob next() throws IOException {
+        int first = input.read();
+        if (first < 0) {
+            return null;
+        }
+        int headerSize = (first << 24) | (input.readUnsignedByte() << 16) | (input.readUnsignedByte() << 8)
+                | input.readUnsignedByte();
+        if (headerSize < 0 || headerSize > MAX_BLOB_HEADER_SIZE) {
+            throw new IOException("Invalid blob header size " + headerSize + " in the OSM PBF file");
+        }
+        byte[] header = new byte[headerSize];
+        input.readFully(header);
+        String type = null;
+        long dataSize = -1;
+        ProtobufInput blobHeader = new ProtobufInput(header);
+        while (blobHeader.hasRemaining()) {
+            int tag = blobHeader.readTag();
+            switch (tag >>> 3) {
+                case 1:
+                    type = blobHeader.readString();
+                    break;
+                case 3:
+                    dataSize = blobHeader.readVarint();
+                    break;
+                default:
+                    blobHeader.skipField(tag);
+            }
+        }
+        if (type == null || dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+            throw new IOException("Invalid blob header in the OSM PBF file");
+        }
+        byte[] data = new byte[(int) dataSize];
+        try {
+            input.readFully(data);
+        } catch (EOFException ex) {
+            throw new IOException("Truncated OSM PBF file", ex);
+        }
+        return new Blob(type, data);
+    }
+
+    /**
+     * Check that the features required by the OSMHeader block are supported
+     *
+     * @param blob OSMHeader blob
+     */
+    static void checkHeader(Blob blob) throws IOException {
+        ProtobufInput headerBlock = new ProtobufInput(blob.uncompress());
+        while (headerBlock.hasRemaining()) {
+            int tag = headerBlock.readTag();
+            if (tag >>> 3 == 4) {
+                String feature = headerBlock.readString();
+                if (!SUPPORTED_FEATURES.contains(feature)) {
+                    throw new IOException("The OSM PBF feature " + feature + " is not supported");
+                }
+            } else {
+                headerBlock.skipField(tag);
+            }
+        }
+    }
+
+    /**
+     * Uncompress and decode a PrimitiveBlock.
+     *
+     * @param blob OSMData blob
+     * @return The elements of the block
+     */
+    static PrimitiveBlock decodePrimitiveBlock(Blob blob) throws IOException {
+        ProtobufInput primitiveBlock = new ProtobufInput(blob.uncompress());
+        PrimitiveBlock block = new PrimitiveBlock();
+        List<ProtobufInput> groups = new ArrayList<>();
+        List<String> strings = new ArrayList<>();
+        while (primitiveBlock.hasRemaining()) {
+            int tag = primitiveBlock.readTag();
+            switch (tag >>> 3) {
+                case 1:
+                    ProtobufInput stringTable = primitiveBlock.readMessage();
+                    while (stringTable.hasRemaining()) {
+                        int stringTag = stringTable.readTag();
+                        if (stringTag >>> 3 == 1) {
+                            strings.add(stringTable.readString());
+                        } else {
+                            stringTable.skipField(stringTag);
+                        }
+                    }
+                    break;
+                case 2:
+                    // The groups are decoded once the granularity is known
+                    groups.add(primitiveBlock.readMessage());
+                    break;
+                case 17:
+                    block.granularity = primitiveBlock.readVarint();
+                    break;
+                case 18:
+                    block.dateGranularity = primitiveBlock.readVarint();
+                    break;
+                case 19:
+                    block.latOffset = primitiveBlock.readVarint();
+                    break;
+                case 20:
+                    block.lonOffset = primitiveBlock.readVarint();
+                    break;
+                default:
+                    primitiveBlock.skipField(tag);
+            }
+        }
+        block.strings = strings.toArray(new String[0]);
+        for (ProtobufInput group : groups) {
+            while (group.hasRemaining()) {
+                int tag = group.readTag();
+                switch (tag >>> 3) {
+                    case 1:
+                        block.decodeNode(group.readMessage());
+                        break;
+                    case 2:
+                        block.decodeDenseNodes(group.readMessage());
+                        break;
+                    case 3:
+                        block.decodeWay(group.readMessage());
+                        break;
+                    case 4:
+                        block.decodeRelation(group.readMessage());
+                        break;
+                    default:
+                        // Change sets are not imported
+                        group.skipField(tag);
+                }
+            }
+        }
+        return block;
+    }
+
+    /**
+     * A blob of the file, with its type.
+     */
+    static final class Blob {
+        private final String type;
+        private final byte[] data;
+
+        private Blob(String type, byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+
+        /**
+         * @return Type of the block, {@link #OSM_HEADER} or {@link #OSM_DATA}
+         */
+        String getType() {
+            return type;
+        }
+
+        /**
+         * @return The uncompressed block
+         */
+        byte[] uncompress() throws IOException {
+            ProtobufInput blob = new ProtobufInput(data);
+            int rawSize = -1;
+            while (blob.hasRemaining()) {
+                int tag = blob.readTag();
+                switch (tag >>> 3) {
+                    case 1:
+                        return blob.readBytes();
+                    case 2:
+                        rawSize = (int) blob.readVarint();
+                        break;
+                    case 3:
+                        if (rawSize < 0 || rawSize > MAX_BLOB_SIZE) {
+                            throw new IOException("Invalid raw size of a zlib compressed blob");
+                        }
+                        return inflate(blob.readBytes(), rawSize);
+                    case 4:
+                    case 5:
+                    case 6:
+                    case 7:
+                        throw new IOException("Only the raw and zlib compressions of the OSM PBF blobs are supported");
+                    default:
+                        blob.skipField(tag);
+                }
+            }
+            throw new IOException("Empty blob in the OSM PBF file");
+        }
+
+        private static byte[] inflate(byte[] compressed, int rawSize) throws IOException {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                byte[] raw = new byte[rawSize];
+                int length = 0;
+                while (length < rawSize && !inflater.finished()) {
+                    int read = inflater.inflate(raw, length, rawSize - length);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += read;
+                }
+                if (length != rawSize) {
+                    throw new IOException("Truncated zlib compressed blob");
+                }
+                return raw;
+            } catch (DataFormatException ex) {
+                throw new IOException("Cannot uncompress a zlib compressed blob", ex);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * The elements of a PrimitiveBlock, in the order of the block.
+     */
+    static final class PrimitiveBlock {
+        private final List<NodeOSMElement> nodes = new ArrayList<>();
+        private final List<WayOSMElement> ways = new ArrayList<>();
+        private final List<RelationOSMElement> relations = new ArrayList<>();
+        private String[] strings;
+        private long granularity = 100;
+        private long dateGranularity = 1000;
+        private long latOffset = 0;
+        private long lonOffset = 0;
+
+        private PrimitiveBlock() {
+        }
+
+        /**
+         * @return The nodes of the block
+         */
+        List<NodeOSMElement> getNodes() {
+            return nodes;
+        }
+
+        /**
+         * @return The ways of the block
+         */
+        List<WayOSMElement> getWays() {
+            return ways;
+        }
+
+        /**
+         * @return The relations of the block
+         */
+        List<RelationOSMElement> getRelations() {
+            return relations;
+        }
+
+        private String getString(long index) throws IOException {
+            if (index < 0 || index >= strings.length) {
+                throw new IOException("Invalid string index " + index + " in the OSM PBF block");
+            }
+            return strings[(int) index];
+        }
+
+        private double getLatitude(long lat) {
+            // Division by an exact power of ten, to get the same value as the decimal text of the OSM files
+            return (latOffset + granularity * lat) / 1e9;
+        }
+
+        private double getLongitude(long lon) {
+            return (lonOffset + granularity * lon) / 1e9;
+        }
+
+        private void addTags(OSMElement element, long[] keys, long[] values) throws IOException {
+            if (keys.length != values.length) {
+                throw new IOException("Mismatch between the tag keys and values of the element " + element.getID());
+            }
+            for (int i = 0; i < keys.length; i++) {
+                element.addTag(getString(keys[i]), getString(values[i]));
+            }
+        }
+
+        private void decodeInfo(OSMElement element, ProtobufInput info) throws IOException {
+            while (info.hasRemaining()) {
+                int tag = info.readTag();
+                switch (tag >>> 3) {
+                    case 1:
+                        element.setVersion((int) info.readVarint());
+                        break;
+                    case 2:
+                        element.setTimestamp(info.readVarint() * dateGranularity);
+                        break;
+                    case 3:
+                        element.setChangeset((int) info.readVarint());
+                        break;
+                    case 4:
+                        element.setUid((int) info.readVarint());
+                        break;
+                    case 5:
+                        long userSid = info.readVarint();
+                        element.setUser(userSid == 0 ? null : getString(userSid));
+                        break;
+                    case 6:
+                        element.setVisible(info.readVarint() != 0);
+                        break;
+                    default:
+                        info.skipField(tag);
+                }
+            }
+        }
+
+        private void decodeNode(ProtobufInput message) throws IOException {
+            long id = 0, lat = 0, lon = 0;
+            long[] keys = new long[0];
+            long[] values = new long[0];
+            ProtobufInput info = null;
+            while (message.hasRemaining()) {
+                int tag = message.readTag();
+                switch (tag >>> 3) {
+                    case 1:
+                        id = message.readSignedVarint();
+                        break;
+                    case 2:
+                        keys = message.readRepeatedVarint(tag, false, keys);
+                        break;
+                    case 3:
+                        values = message.readRepeatedVarint(tag, false, values);
+                        break;
+                    case 4:
+                        info = message.readMessage();
+                        break;
+                    case 8:
+                        lat = message.readSignedVarint();
+                        break;
+                    case 9:
+                        lon = message.readSignedVarint();
+                        break;
+                    default:
+                        message.skipField(tag);
+                }
+            }
+            NodeOSMElement node = new NodeOSMElement(getLatitude(lat), getLongitude(lon));
+            node.setId(id);
+            node.setVisible(true);
+            if (info != null) {
+                decodeInfo(node, info);
+            }
+            addTags(node, keys, values);
+            nodes.add(node);
+        }
+
+        private void decodeDenseNodes(ProtobufInput message) throws IOException {
+            long[] ids = new long[0];
+            long[] lats = new long[0];
+            long[] lons = new long[0];
+            long[] keysValues = new long[0];
+            long[] versions = null, timestamps = null, changesets = null, uids = null, userSids = null, visibles = null;
+            while (message.hasRemaining()) {
+                int tag = message.readTag();
+                switch (tag >>> 3) {
+                    case 1:
+                        ids = message.readRepeatedVarint(tag, true, ids);
+                        break;
+                    case 5:
+                        ProtobufInput denseInfo = message.readMessage();
+                        versions = new long[0];
+                        timestamps = new long[0];
+                        changesets = new long[0];
+                        uids = new long[0];
+                        userSids = new long[0];
+                        while (denseInfo.hasRemaining()) {
+                            int infoTag = denseInfo.readTag();
+                            switch (infoTag >>> 3) {
+                                case 1:
+                                    versions = denseInfo.readRepeatedVarint(infoTag, false, versions);
+                                    break;
+                                case 2:
+                                    timestamps = denseInfo.readRepeatedVarint(infoTag, true, timestamps);
+                                    break;
+                                case 3:
+                                    changesets = denseInfo.readRepeatedVarint(infoTag, true, changesets);
+                                    break;
+                                case 4:
+                                    uids = denseInfo.readRepeatedVarint(infoTag, true, uids);
+                                    break;
+                                case 5:
+                                    userSids = denseInfo.readRepeatedVarint(infoTag, true, userSids);
+                                    break;
+                                case 6:
+                                    visibles = denseInfo.readRepeatedVarint(infoTag, false,
+                                            visibles == null ? new long[0] : visibles);
+                                    break;
+                                default:
+                                    denseInfo.skipField(infoTag);
+                            }
+                        }
+                        break;
+                    case 8:
+                        lats = message.readRepeatedVarint(tag, true, lats);
+                        break;
+                    case 9:
+                        lons = message.readRepeatedVarint(tag, true, lons);
+                        break;
+                    case 10:
+                        keysValues = message.readRepeatedVarint(tag, false, keysValues);
+                        break;
+                    default:
+                        message.skipField(tag);
+                }
+            }
+            int count = ids.length;
+            if (lats.length != count || lons.length != count) {
+                throw new IOException("Mismatch between the identifiers and the coordinates of the dense nodes");
+            }
+            boolean hasInfo = versions != null && versions.length == count && timestamps.length == count
+                    && changesets.length == count && uids.length == count && userSids.length == count;
+            boolean hasVisible = visibles != null && visibles.length == count;
+            long id = 0, lat = 0, lon = 0, timestamp = 0, changeset = 0, uid = 0, userSid = 0;
+            int keyValueIndex = 0;
+            for (int i = 0; i < count; i++) {
+                // Delta coded values
+                id += ids[i];
+                lat += lats[i];
+                lon += lons[i];
+                NodeOSMElement node = new NodeOSMElement(getLatitude(lat), getLongitude(lon));
+                node.setId(id);
+                node.setVisible(!hasVisible || visibles[i] != 0);
+                if (hasInfo) {
+                    timestamp += timestamps[i];
+                    changeset += changesets[i];
+                    uid += uids[i];
+                    userSid += userSids[i];
+                    node.setVersion((int) versions[i]);
+                    node.setTimestamp(timestamp * dateGranularity);
+                    node.setChangeset((int) changeset);
+                    node.setUid(uid);
+                    node.setUser(userSid == 0 ? null : getString(userSid));
+                }
+                // Tags of all the nodes, each node ends with a 0
+                while (keyValueIndex < keysValues.length && keysValues[keyValueIndex] != 0) {
+                    if (keyValueIndex + 1 >= keysValues.length) {
+                        throw new IOException("Malformed tags of the dense node " + id);
+                    }
+                    node.addTag(getString(keysValues[keyValueIndex]), getString(keysValues[keyValueIndex + 1]));
+                    keyValueIndex += 2;
+                }
+                keyValueIndex++;
+                nodes.add(node);
+            }
+        }
+
+        private void decodeWay(ProtobufInput message) throws IOException {
+            WayOSMElement way = new WayOSMElement();
+            way.setVisible(true);
+            long[] keys = new long[0];
+            long[] values = new long[0];
+            long[] refs = new long[0];
+            while (message.hasRemaining()) {
+                int tag = message.readTag();
+                switch (tag >>> 3) {
+                    case 1:
+                        way.setId(message.readVarint());
+                        break;
+                    case 2:
+                        keys = message.readRepeatedVarint(tag, false, keys);
+                        break;
+                    case 3:
+                        values = message.readRepeatedVarint(tag, false, values);
+                        break;
+                    case 4:
+                        decodeInfo(way, message.readMessage());
+                        break;
+                    case 8:
+                        refs = message.readRepeatedVarint(tag, true, refs);
+                        break;
+                    default:
+                        message.skipField(tag);
+                }
+            }
+            addTags(way, keys, values);
+            long ref = 0;
+            for (long delta : refs) {
+                ref += delta;
+                way.addRef(ref);
+            }
+            ways.add(way);
+        }
+
+        private void decodeRelation(ProtobufInput message) throws IOException {
+            RelationOSMElement relation = new RelationOSMElement();
+            relation.setVisible(true);
+            long[] keys = new long[0];
+            long[] values = new long[0];
+            long[] roles = new long[0];
+            long[] memberIds = new long[0];
+            long[] types = new long[0];
+            while (message.hasRemaining()) {
+                int tag = message.readTag();
+                switch (tag >>> 3) {
+                    case 1:
+                        relation.setId(message.readVarint());
+                        break;
+                    case 2:
+                        keys = message.readRepeatedVarint(tag, false, keys);
+                        break;
+                    case 3:
+                        values = message.readRepeatedVarint(tag, false, values);
+                        break;
+                    case 4:
+                        decodeInfo(relation, message.readMessage());
+                        break;
+                    case 8:
+                        roles = message.readRepeatedVarint(tag, false, roles);
+                        break;
+                    case 9:
+                        memberIds = message.readRepeatedVarint(tag, true, memberIds);
+                        break;
+                    case 10:
+                        types = message.readRepeatedVarint(tag, false, types);
+                        break;
+                    default:
+                        message.skipField(tag);
+                }
+            }
+            if (roles.length != memberIds.length || types.length != memberIds.length) {
+                throw new IOException("Mismatch between the members of the relation " + relation.getID());
+            }
+            addTags(relation, keys, values);
+            long memberId = 0;
+            for (int i = 0; i < memberIds.length; i++) {
+                memberId += memberIds[i];
+                if (types[i] < 0 || types[i] >= MEMBER_TYPES.length) {
+                    throw new IOException("Invalid member type of the relation " + relation.getID());
+                }
+                relation.addMember(MEMBER_TYPES[(int) types[i]], memberId, getString(roles[i]));
+            }
+            relations.add(relation);
+        }
+    }
+}
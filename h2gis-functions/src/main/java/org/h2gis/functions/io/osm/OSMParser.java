@@ -24,6 +24,9 @@ import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.h2.api.ErrorCode;
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.api.ProgressVisitor;
+import org.h2gis.functions.io.utility.DeferredIndexes;
+import org.h2gis.functions.io.utility.ImportOptions;
+import org.h2gis.functions.io.utility.OrderedPipeline;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.h2gis.utilities.TableUtilities;
@@ -36,6 +39,7 @@ import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -44,11 +48,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.text.ParseException;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.zip.GZIPInputStream;
 import org.h2gis.utilities.dbtypes.DBTypes;
 import org.h2gis.utilities.dbtypes.DBUtils;
@@ -57,6 +58,9 @@ import org.h2gis.utilities.dbtypes.DBUtils;
  * Parse an OSM file and store the elements into a database. The database model
  * contains 10 tables.
  *
+ * The XML files (.osm, .osm.gz, .osm.bz2) are parsed with SAX. The blocks of the
+ * PBF files (.osm.pbf) are decoded in parallel, then inserted in the file order.
+ *
  *
  * @author Erwan Bocher
  */
@@ -65,6 +69,8 @@ public class OSMParser extends DefaultHandler {
 
     private final File fileName;
     private final String encoding;
+    private final ImportOptions importOptions;
+    private DeferredIndexes indexes;
     private final boolean deleteTable;
     // Set the same batch size as OSMOSIS
     private static final int BATCH_SIZE = 8000;
@@ -88,13 +94,18 @@ public class OSMParser extends DefaultHandler {
     private int wayMemberPreparedStmtBatchSize = 0;
     private int relationMemberPreparedStmtBatchSize = 0;
     private int wayNodePreparedStmtBatchSize = 0;
-    private Set<String> insertedTagsKeys = new HashSet<String>();
-    private int idMemberOrder = 1;
+    // Canonical instances of the tag keys, a file uses a few thousand distinct keys
+    private static final int MAX_TAG_KEYS = 100000;
+    private final Map<String, String> tagKeys = new HashMap<String, String>();
+    private int threadCount = OrderedPipeline.getDefaultThreadCount();
+    private boolean buildGeometries = false;
+    private OSMGeometryBuilder geometryBuilder;
     private TAG_LOCATION tagLocation;
     private final GeometryFactory gf = new GeometryFactory(new PrecisionModel(), 4326);
-    private NodeOSMElement nodeOSMElement;
-    private WayOSMElement wayOSMElement;
-    private OSMElement relationOSMElement;
+    // The XML elements are read in these objects, reused from an element to the next one
+    private final NodeOSMElement nodeOSMElement = new NodeOSMElement();
+    private final WayOSMElement wayOSMElement = new WayOSMElement();
+    private final RelationOSMElement relationOSMElement = new RelationOSMElement();
     private ProgressVisitor progress = new EmptyProgressVisitor();
     private FileChannel fc;
     private long fileSize = 0;
@@ -105,10 +116,17 @@ public class OSMParser extends DefaultHandler {
     private static String TAG_DUPLICATE_EXCEPTION = String.valueOf(ErrorCode.DUPLICATE_KEY_1);
     private Connection connection;
 
-    public OSMParser(Connection connection, File fileName, String encoding, boolean deleteTable) {
+    /**
+     * @param connection database connection
+     * @param fileName OSM file
+     * @param options file encoding, or key=value options see {@link ImportOptions}
+     * @param deleteTable true to delete the existing tables
+     */
+    public OSMParser(Connection connection, File fileName, String options, boolean deleteTable) {
         this.connection=connection;
         this.fileName=fileName;
-        this.encoding=encoding;
+        this.importOptions = new ImportOptions(options);
+        this.encoding=importOptions.getEncoding();
         this.deleteTable=deleteTable;
     }
 
@@ -120,8 +138,9 @@ public class OSMParser extends DefaultHandler {
      * @return list of table names created
      */
     public String[] read(String tableName, ProgressVisitor progress) throws SQLException {
-        if(fileName == null || !(fileName.getName().endsWith(".osm") || fileName.getName().endsWith("osm.gz") || fileName.getName().endsWith("osm.bz2"))) {
-            throw new SQLException(new IllegalArgumentException("This driver handle only .osm, .osm.gz and .osm.bz2 files"));
+        if(fileName == null || !(fileName.getName().endsWith(".osm") || fileName.getName().endsWith("osm.gz") || fileName.getName().endsWith("osm.bz2")
+                || fileName.getName().endsWith("osm.pbf"))) {
+            throw new SQLException(new IllegalArgumentException("This driver handle only .osm, .osm.gz, .osm.bz2 and .osm.pbf files"));
         }
         this.progress = progress.subProcess(100);
         // Initialisation
@@ -142,37 +161,36 @@ public class OSMParser extends DefaultHandler {
             this.fc = fs.getChannel();
             this.fileSize = fc.size();
             if (fileSize > 0) {
+                if (buildGeometries) {
+                    geometryBuilder = new OSMGeometryBuilder(gf);
+                }
                 // Given the file size and an average node file size.
                 // Skip how many nodes in order to update progression at a step of 1%
                 readFileSizeEachNode = Math.max(1, (this.fileSize / AVERAGE_NODE_SIZE) / 100);
                 nodeCountProgress = 0;
-                XMLReader parser = XMLReaderFactory.createXMLReader();
-                parser.setErrorHandler(this);
-                parser.setContentHandler(this);
-                if (fileName.getName().endsWith(".osm")) {
-                    InputSource is = new InputSource(fs);
-                    if(encoding!=null && !encoding.isEmpty()){
-                        is.setEncoding(encoding);
-                    }
-                    parser.parse(is);
-                    return outputOSMTableNames;
-                } else if (fileName.getName().endsWith(".osm.gz")) {
-                    InputSource is = new InputSource(new GZIPInputStream(fs));
-                    if(encoding!=null && !encoding.isEmpty()){
-                        is.setEncoding(encoding);
+                if (fileName.getName().endsWith(".osm.pbf")) {
+                    readPBF(fs);
+                } else {
+                    XMLReader parser = XMLReaderFactory.createXMLReader();
+                    parser.setErrorHandler(this);
+                    parser.setContentHandler(this);
+                    InputSource is;
+                    if (fileName.getName().endsWith(".osm")) {
+                        is = new InputSource(fs);
+                    } else if (fileName.getName().endsWith(".osm.gz")) {
+                        is = new InputSource(new GZIPInputStream(fs));
+                    } else if (fileName.getName().endsWith(".osm.bz2")) {
+                        is = new InputSource(new BZip2CompressorInputStream(fs));
+                    } else {
+                        throw new SQLException("Supported formats are .osm, .osm.gz, .osm.bz2, .osm.pbf");
                     }
-                    parser.parse(is);
-                    return outputOSMTableNames;
-                } else if (fileName.getName().endsWith(".osm.bz2")) {
-                    InputSource is = new InputSource(new BZip2CompressorInputStream(fs));
                     if(encoding!=null && !encoding.isEmpty()){
                         is.setEncoding(encoding);
                     }
                     parser.parse(is);
-                    return outputOSMTableNames;
-                } else {
-                    throw new SQLException("Supported formats are .osm, .osm.gz, .osm.bz2");
                 }
+                indexes.create();
+                return outputOSMTableNames;
             }
         } catch (SAXException ex) {
             throw new SQLException(ex);
@@ -183,6 +201,10 @@ public class OSMParser extends DefaultHandler {
                 if (fs != null) {
                     fs.close();
                 }
+                if (geometryBuilder != null) {
+                    geometryBuilder.close();
+                    geometryBuilder = null;
+                }
             } catch (IOException ex) {
                 throw new SQLException("Cannot close the file " + fileName.getAbsolutePath(), ex);
             }
@@ -254,17 +276,18 @@ public class OSMParser extends DefaultHandler {
      */
     private String[] createOSMDatabaseModel(Connection connection, DBTypes dbType, TableLocation requestedTable, String osmTableName) throws SQLException {
         String nodeTableName = TableUtilities.caseIdentifier(requestedTable, osmTableName + OSMTablesFactory.NODE, dbType);
-        nodePreparedStmt = OSMTablesFactory.createNodeTable(connection, nodeTableName);
+        indexes = new DeferredIndexes(connection, importOptions);
+        nodePreparedStmt = OSMTablesFactory.createNodeTable(connection, nodeTableName, indexes);
         String nodeTagTableName = TableUtilities.caseIdentifier(requestedTable, osmTableName + OSMTablesFactory.NODE_TAG, dbType);
         nodeTagPreparedStmt = OSMTablesFactory.createNodeTagTable(connection, nodeTagTableName);
         String wayTableName = TableUtilities.caseIdentifier(requestedTable, osmTableName + OSMTablesFactory.WAY, dbType);
-        wayPreparedStmt = OSMTablesFactory.createWayTable(connection, wayTableName);
+        wayPreparedStmt = OSMTablesFactory.createWayTable(connection, wayTableName, buildGeometries, indexes);
         String wayTagTableName = TableUtilities.caseIdentifier(requestedTable, osmTableName + OSMTablesFactory.WAY_TAG, dbType);
         wayTagPreparedStmt = OSMTablesFactory.createWayTagTable(connection, wayTagTableName);
         String wayNodeTableName = TableUtilities.caseIdentifier(requestedTable, osmTableName + OSMTablesFactory.WAY_NODE, dbType);
         wayNodePreparedStmt = OSMTablesFactory.createWayNodeTable(connection, wayNodeTableName);
         String relationTableName = TableUtilities.caseIdentifier(requestedTable, osmTableName + OSMTablesFactory.RELATION, dbType);
-        relationPreparedStmt = OSMTablesFactory.createRelationTable(connection, relationTableName);
+        relationPreparedStmt = OSMTablesFactory.createRelationTable(connection, relationTableName, buildGeometries, indexes);
         String relationTagTableName = TableUtilities.caseIdentifier(requestedTable, osmTableName + OSMTablesFactory.RELATION_TAG, dbType);
         relationTagPreparedStmt = OSMTablesFactory.createRelationTagTable(connection, relationTagTableName);
         String nodeMemberTableName = TableUtilities.caseIdentifier(requestedTable, osmTableName + OSMTablesFactory.NODE_MEMBER, dbType);
@@ -279,182 +302,110 @@ public class OSMParser extends DefaultHandler {
 
     @Override
     public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-        String type = attributes.getValue("type");
         if(progress.isCanceled()) {
             throw new SAXException("Canceled by user");
         }
         if (localName.compareToIgnoreCase("node") == 0) {
-            nodeOSMElement = new NodeOSMElement(Double.valueOf(attributes.getValue("lat")),Double.valueOf(attributes.getValue("lon")));
+            nodeOSMElement.clear();
+            nodeOSMElement.setLocation(Double.parseDouble(attributes.getValue("lat")), Double.parseDouble(attributes.getValue("lon")));
             setCommonsAttributes(nodeOSMElement, attributes);
             tagLocation = TAG_LOCATION.NODE;
         } else if (localName.compareToIgnoreCase("way") == 0) {
-            wayOSMElement = new WayOSMElement();
+            wayOSMElement.clear();
             setCommonsAttributes(wayOSMElement, attributes);
             tagLocation = TAG_LOCATION.WAY;
         } else if (localName.compareToIgnoreCase("tag") == 0) {
-            String key = attributes.getValue("k");
+            String key = internTagKey(attributes.getValue("k"));
             String value = attributes.getValue("v");
-            boolean insertTag = true;
             switch (tagLocation) {
                 case NODE:
-                    insertTag = nodeOSMElement.addTag(key, value);
+                    nodeOSMElement.addTag(key, value);
                     break;
                 case WAY:
-                    insertTag = wayOSMElement.addTag(key, value);
+                    wayOSMElement.addTag(key, value);
                     break;
                 case RELATION:
-                    insertTag = relationOSMElement.addTag(key, value);
+                    relationOSMElement.addTag(key, value);
                     break;
             }
         } else if (localName.compareToIgnoreCase("nd") == 0) {
             wayOSMElement.addRef(attributes.getValue("ref"));
         } else if (localName.compareToIgnoreCase("relation") == 0) {
-            relationOSMElement = new OSMElement();
+            relationOSMElement.clear();
             setCommonsAttributes(relationOSMElement, attributes);
             tagLocation = TAG_LOCATION.RELATION;
         } else if (localName.compareToIgnoreCase("member") == 0) {
-            if (type.equalsIgnoreCase("node")) {
-                try {
-                    nodeMemberPreparedStmt.setObject(1, relationOSMElement.getID());
-                    nodeMemberPreparedStmt.setObject(2, Long.valueOf(attributes.getValue("ref")));
-                    nodeMemberPreparedStmt.setObject(3, attributes.getValue("role"));
-                    nodeMemberPreparedStmt.setObject(4, idMemberOrder);
-                    nodeMemberPreparedStmt.addBatch();
-                    nodeMemberPreparedStmtBatchSize++;
-                } catch (SQLException ex) {
-                    throw new SAXException("Cannot insert the node member for the relation :  " + relationOSMElement.getID(), ex);
-                }
-            } else if (type.equalsIgnoreCase("way")) {
-                try {
-                    wayMemberPreparedStmt.setObject(1, relationOSMElement.getID());
-                    wayMemberPreparedStmt.setObject(2, Long.valueOf(attributes.getValue("ref")));
-                    wayMemberPreparedStmt.setObject(3, attributes.getValue("role"));
-                    wayMemberPreparedStmt.setObject(4, idMemberOrder);
-                    wayMemberPreparedStmt.addBatch();
-                    wayMemberPreparedStmtBatchSize++;
-                } catch (SQLException ex) {
-                    throw new SAXException("Cannot insert the way member for the relation :  " + relationOSMElement.getID(), ex);
-                }
-            } else if (type.equalsIgnoreCase("relation")) {
-                try {
-                    relationMemberPreparedStmt.setObject(1, relationOSMElement.getID());
-                    relationMemberPreparedStmt.setObject(2, Long.valueOf(attributes.getValue("ref")));
-                    relationMemberPreparedStmt.setObject(3, attributes.getValue("role"));
-                    relationMemberPreparedStmt.setObject(4, idMemberOrder);
-                    relationMemberPreparedStmt.addBatch();
-                    relationMemberPreparedStmtBatchSize++;
-                } catch (SQLException ex) {
-                    throw new SAXException("Cannot insert the relation member for the relation :  " + relationOSMElement.getID(), ex);
-                }
-            }
+            relationOSMElement.addMember(attributes.getValue("type"), Long.parseLong(attributes.getValue("ref")), attributes.getValue("role"));
         }
     }
 
+    /**
+     * @param key tag key
+     * @return The canonical instance of the key, its hash code is computed once
+     */
+    private String internTagKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        String interned = tagKeys.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (tagKeys.size() < MAX_TAG_KEYS) {
+            tagKeys.put(key, key);
+        }
+        return key;
+    }
+
     @Override
     public void endDocument() throws SAXException {
         // Execute remaining batch
         try {
-            nodePreparedStmtBatchSize = insertBatch(nodePreparedStmt, nodePreparedStmtBatchSize, 1);
-            nodeTagPreparedStmtBatchSize = insertBatch(nodeTagPreparedStmt, nodeTagPreparedStmtBatchSize, 1);
-            wayPreparedStmtBatchSize = insertBatch(wayPreparedStmt, wayPreparedStmtBatchSize, 1);
-            wayTagPreparedStmtBatchSize = insertBatch(wayTagPreparedStmt, wayTagPreparedStmtBatchSize, 1);
-            relationPreparedStmtBatchSize = insertBatch(relationPreparedStmt, relationPreparedStmtBatchSize, 1);
-            relationTagPreparedStmtBatchSize = insertBatch(relationTagPreparedStmt, relationTagPreparedStmtBatchSize, 1);
-            nodeMemberPreparedStmtBatchSize = insertBatch(nodeMemberPreparedStmt,nodeMemberPreparedStmtBatchSize, 1);
-            wayMemberPreparedStmtBatchSize = insertBatch(wayMemberPreparedStmt, wayMemberPreparedStmtBatchSize, 1);
-            relationMemberPreparedStmtBatchSize = insertBatch(relationMemberPreparedStmt, relationMemberPreparedStmtBatchSize, 1);
-            wayNodePreparedStmtBatchSize = insertBatch(wayNodePreparedStmt, wayNodePreparedStmtBatchSize, 1);
+            insertRemainingBatch();
         } catch (SQLException ex) {
             throw new SAXException("Could not insert sql batch", ex);
         }
     }
 
+    /**
+     * Execute the remaining batches
+     */
+    private void insertRemainingBatch() throws SQLException {
+        nodePreparedStmtBatchSize = insertBatch(nodePreparedStmt, nodePreparedStmtBatchSize, 1);
+        nodeTagPreparedStmtBatchSize = insertBatch(nodeTagPreparedStmt, nodeTagPreparedStmtBatchSize, 1);
+        wayPreparedStmtBatchSize = insertBatch(wayPreparedStmt, wayPreparedStmtBatchSize, 1);
+        wayTagPreparedStmtBatchSize = insertBatch(wayTagPreparedStmt, wayTagPreparedStmtBatchSize, 1);
+        relationPreparedStmtBatchSize = insertBatch(relationPreparedStmt, relationPreparedStmtBatchSize, 1);
+        relationTagPreparedStmtBatchSize = insertBatch(relationTagPreparedStmt, relationTagPreparedStmtBatchSize, 1);
+        nodeMemberPreparedStmtBatchSize = insertBatch(nodeMemberPreparedStmt,nodeMemberPreparedStmtBatchSize, 1);
+        wayMemberPreparedStmtBatchSize = insertBatch(wayMemberPreparedStmt, wayMemberPreparedStmtBatchSize, 1);
+        relationMemberPreparedStmtBatchSize = insertBatch(relationMemberPreparedStmt, relationMemberPreparedStmtBatchSize, 1);
+        wayNodePreparedStmtBatchSize = insertBatch(wayNodePreparedStmt, wayNodePreparedStmtBatchSize, 1);
+    }
+
     @Override
     public void endElement(String uri, String localName, String qName) throws SAXException {
         if (localName.compareToIgnoreCase("node") == 0) {
             tagLocation = TAG_LOCATION.OTHER;
             try {
-                nodePreparedStmt.setObject(1, nodeOSMElement.getID());
-                nodePreparedStmt.setObject(2, nodeOSMElement.getPoint(gf));
-                nodePreparedStmt.setObject(3, nodeOSMElement.getElevation());
-                nodePreparedStmt.setObject(4, nodeOSMElement.getUser());
-                nodePreparedStmt.setObject(5, nodeOSMElement.getUID());
-                nodePreparedStmt.setObject(6, nodeOSMElement.getVisible());
-                nodePreparedStmt.setObject(7, nodeOSMElement.getVersion());
-                nodePreparedStmt.setObject(8, nodeOSMElement.getChangeSet());
-                nodePreparedStmt.setObject(9, nodeOSMElement.getTimeStamp(), Types.DATE);
-                nodePreparedStmt.setString(10, nodeOSMElement.getName());
-                nodePreparedStmt.addBatch();
-                nodePreparedStmtBatchSize++;
-                HashMap<String, String> tags = nodeOSMElement.getTags();
-                for (Map.Entry<String, String> entry : tags.entrySet()) {
-                    nodeTagPreparedStmt.setObject(1, nodeOSMElement.getID());
-                    nodeTagPreparedStmt.setObject(2, entry.getKey());
-                    nodeTagPreparedStmt.setObject(3, entry.getValue());
-                    nodeTagPreparedStmt.addBatch();
-                    nodeTagPreparedStmtBatchSize++;
-                }
+                insertNode(nodeOSMElement);
             } catch (SQLException ex) {
                 throw new SAXException("Cannot insert the node  :  " + nodeOSMElement.getID(), ex);
             }
         } else if (localName.compareToIgnoreCase("way") == 0) {
             tagLocation = TAG_LOCATION.OTHER;
             try {
-                wayPreparedStmt.setObject(1, wayOSMElement.getID());
-                wayPreparedStmt.setObject(2, wayOSMElement.getUser());
-                wayPreparedStmt.setObject(3, wayOSMElement.getUID());
-                wayPreparedStmt.setObject(4, wayOSMElement.getVisible());
-                wayPreparedStmt.setObject(5, wayOSMElement.getVersion());
-                wayPreparedStmt.setObject(6, wayOSMElement.getChangeSet());
-                wayPreparedStmt.setTimestamp(7, wayOSMElement.getTimeStamp());
-                wayPreparedStmt.setString(8, wayOSMElement.getName());
-                wayPreparedStmt.addBatch();
-                wayPreparedStmtBatchSize++;
-                HashMap<String, String> tags = wayOSMElement.getTags();
-                for (Map.Entry<String, String> entry : tags.entrySet()) {
-                    wayTagPreparedStmt.setObject(1, wayOSMElement.getID());
-                    wayTagPreparedStmt.setObject(2, entry.getKey());
-                    wayTagPreparedStmt.setObject(3, entry.getValue());
-                    wayTagPreparedStmt.addBatch();
-                    wayTagPreparedStmtBatchSize++;
-                }
-                int order = 1;
-                for (long ref :  wayOSMElement.getNodesRef()) {
-                    wayNodePreparedStmt.setObject(1, wayOSMElement.getID());
-                    wayNodePreparedStmt.setObject(2, ref);
-                    wayNodePreparedStmt.setObject(3, order++);
-                    wayNodePreparedStmt.addBatch();
-                    wayNodePreparedStmtBatchSize++;
-                }
+                insertWay(wayOSMElement);
             } catch (SQLException ex) {
                 throw new SAXException("Cannot insert the way  :  " + wayOSMElement.getID(), ex);
             }
         } else if (localName.compareToIgnoreCase("relation") == 0) {
             tagLocation = TAG_LOCATION.OTHER;
             try {
-                relationPreparedStmt.setObject(1, relationOSMElement.getID());
-                relationPreparedStmt.setObject(2, relationOSMElement.getUser());
-                relationPreparedStmt.setObject(3, relationOSMElement.getUID());
-                relationPreparedStmt.setObject(4, relationOSMElement.getVisible());
-                relationPreparedStmt.setObject(5, relationOSMElement.getVersion());
-                relationPreparedStmt.setObject(6, relationOSMElement.getChangeSet());
-                relationPreparedStmt.setTimestamp(7, relationOSMElement.getTimeStamp());
-                relationPreparedStmt.addBatch();
-                relationPreparedStmtBatchSize++;
-                HashMap<String, String> tags = relationOSMElement.getTags();
-                for (Map.Entry<String, String> entry : tags.entrySet()) {
-                    relationTagPreparedStmt.setObject(1, relationOSMElement.getID());
-                    relationTagPreparedStmt.setObject(2, entry.getKey());
-                    relationTagPreparedStmt.setObject(3, entry.getValue());
-                    relationTagPreparedStmt.addBatch();
-                    relationTagPreparedStmtBatchSize++;
-                }
-                idMemberOrder = 0;
+                insertRelation(relationOSMElement);
             } catch (SQLException ex) {
                 throw new SAXException("Cannot insert the relation  :  " + relationOSMElement.getID(), ex);
             }
-        } else if (localName.compareToIgnoreCase("member") == 0) {
-            idMemberOrder++;
         }
         try {
             insertBatch();
@@ -471,6 +422,215 @@ public class OSMParser extends DefaultHandler {
         }
     }
 
+    /**
+     * Add a node and its tags to the batches
+     *
+     * @param nodeOSMElement node
+     */
+    private void insertNode(NodeOSMElement nodeOSMElement) throws SQLException {
+        nodePreparedStmt.setLong(1, nodeOSMElement.getID());
+        nodePreparedStmt.setObject(2, nodeOSMElement.getPoint(gf));
+        nodePreparedStmt.setObject(3, nodeOSMElement.getElevation());
+        nodePreparedStmt.setString(4, nodeOSMElement.getUser());
+        nodePreparedStmt.setLong(5, nodeOSMElement.getUID());
+        nodePreparedStmt.setBoolean(6, nodeOSMElement.getVisible());
+        nodePreparedStmt.setInt(7, nodeOSMElement.getVersion());
+        nodePreparedStmt.setInt(8, nodeOSMElement.getChangeSet());
+        nodePreparedStmt.setObject(9, nodeOSMElement.getTimeStamp(), Types.DATE);
+        nodePreparedStmt.setString(10, nodeOSMElement.getName());
+        nodePreparedStmt.addBatch();
+        nodePreparedStmtBatchSize++;
+        if (geometryBuilder != null) {
+            try {
+                geometryBuilder.addNode(nodeOSMElement.getID(), nodeOSMElement.getLongitude(), nodeOSMElement.getLatitude());
+            } catch (IOException ex) {
+                throw new SQLException("Cannot store the location of the node " + nodeOSMElement.getID(), ex);
+            }
+        }
+        HashMap<String, String> tags = nodeOSMElement.getTags();
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            nodeTagPreparedStmt.setLong(1, nodeOSMElement.getID());
+            nodeTagPreparedStmt.setString(2, entry.getKey());
+            nodeTagPreparedStmt.setString(3, entry.getValue());
+            nodeTagPreparedStmt.addBatch();
+            nodeTagPreparedStmtBatchSize++;
+        }
+    }
+
+    /**
+     * Add a way, its tags and its nodes to the batches
+     *
+     * @param wayOSMElement way
+     */
+    private void insertWay(WayOSMElement wayOSMElement) throws SQLException {
+        wayPreparedStmt.setLong(1, wayOSMElement.getID());
+        wayPreparedStmt.setString(2, wayOSMElement.getUser());
+        wayPreparedStmt.setLong(3, wayOSMElement.getUID());
+        wayPreparedStmt.setBoolean(4, wayOSMElement.getVisible());
+        wayPreparedStmt.setInt(5, wayOSMElement.getVersion());
+        wayPreparedStmt.setInt(6, wayOSMElement.getChangeSet());
+        wayPreparedStmt.setTimestamp(7, wayOSMElement.getTimeStamp());
+        wayPreparedStmt.setString(8, wayOSMElement.getName());
+        if (geometryBuilder != null) {
+            try {
+                wayPreparedStmt.setObject(9, geometryBuilder.addWay(wayOSMElement));
+            } catch (IOException ex) {
+                throw new SQLException("Cannot store the nodes of the way " + wayOSMElement.getID(), ex);
+            }
+        }
+        wayPreparedStmt.addBatch();
+        wayPreparedStmtBatchSize++;
+        HashMap<String, String> tags = wayOSMElement.getTags();
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            wayTagPreparedStmt.setLong(1, wayOSMElement.getID());
+            wayTagPreparedStmt.setString(2, entry.getKey());
+            wayTagPreparedStmt.setString(3, entry.getValue());
+            wayTagPreparedStmt.addBatch();
+            wayTagPreparedStmtBatchSize++;
+        }
+        for (int i = 0; i < wayOSMElement.getNodesRefCount(); i++) {
+            wayNodePreparedStmt.setLong(1, wayOSMElement.getID());
+            wayNodePreparedStmt.setLong(2, wayOSMElement.getNodeRef(i));
+            wayNodePreparedStmt.setInt(3, i + 1);
+            wayNodePreparedStmt.addBatch();
+            wayNodePreparedStmtBatchSize++;
+        }
+    }
+
+    /**
+     * Add a relation, its tags and its members to the batches
+     *
+     * @param relationOSMElement relation
+     */
+    private void insertRelation(RelationOSMElement relationOSMElement) throws SQLException {
+        relationPreparedStmt.setLong(1, relationOSMElement.getID());
+        relationPreparedStmt.setString(2, relationOSMElement.getUser());
+        relationPreparedStmt.setLong(3, relationOSMElement.getUID());
+        relationPreparedStmt.setBoolean(4, relationOSMElement.getVisible());
+        relationPreparedStmt.setInt(5, relationOSMElement.getVersion());
+        relationPreparedStmt.setInt(6, relationOSMElement.getChangeSet());
+        relationPreparedStmt.setTimestamp(7, relationOSMElement.getTimeStamp());
+        if (geometryBuilder != null) {
+            relationPreparedStmt.setObject(8, geometryBuilder.buildRelation(relationOSMElement));
+        }
+        relationPreparedStmt.addBatch();
+        relationPreparedStmtBatchSize++;
+        HashMap<String, String> tags = relationOSMElement.getTags();
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            relationTagPreparedStmt.setLong(1, relationOSMElement.getID());
+            relationTagPreparedStmt.setString(2, entry.getKey());
+            relationTagPreparedStmt.setString(3, entry.getValue());
+            relationTagPreparedStmt.addBatch();
+            relationTagPreparedStmtBatchSize++;
+        }
+        // The members of all types share the same order
+        int order = 1;
+        for (RelationOSMElement.Member member : relationOSMElement.getMembers()) {
+            String type = member.getType();
+            if (type.equalsIgnoreCase("node")) {
+                nodeMemberPreparedStmtBatchSize = addMember(nodeMemberPreparedStmt, relationOSMElement, member, order,
+                        nodeMemberPreparedStmtBatchSize);
+            } else if (type.equalsIgnoreCase("way")) {
+                wayMemberPreparedStmtBatchSize = addMember(wayMemberPreparedStmt, relationOSMElement, member, order,
+                        wayMemberPreparedStmtBatchSize);
+            } else if (type.equalsIgnoreCase("relation")) {
+                relationMemberPreparedStmtBatchSize = addMember(relationMemberPreparedStmt, relationOSMElement, member,
+                        order, relationMemberPreparedStmtBatchSize);
+            }
+            order++;
+        }
+    }
+
+    private int addMember(PreparedStatement st, RelationOSMElement relationOSMElement, RelationOSMElement.Member member,
+                          int order, int batchSize) throws SQLException {
+        st.setLong(1, relationOSMElement.getID());
+        st.setLong(2, member.getRef());
+        st.setString(3, member.getRole());
+        st.setInt(4, order);
+        st.addBatch();
+        return batchSize + 1;
+    }
+
+    /**
+     * Read an OSM PBF file. The PrimitiveBlocks are uncompressed and decoded on worker threads, then their
+     * elements are inserted in the file order.
+     *
+     * @param fs file stream
+     */
+    private void readPBF(FileInputStream fs) throws IOException, SQLException {
+        OSMPBFReader reader = new OSMPBFReader(new BufferedInputStream(fs));
+        try (OrderedPipeline<OSMPBFReader.PrimitiveBlock> pipeline = new OrderedPipeline<>(threadCount, 2 * threadCount)) {
+            boolean hasMoreBlobs = true;
+            while (hasMoreBlobs || pipeline.hasNext()) {
+                while (hasMoreBlobs && !pipeline.isFull()) {
+                    OSMPBFReader.Blob blob = reader.next();
+                    if (blob == null) {
+                        hasMoreBlobs = false;
+                    } else if (blob.getType().equals(OSMPBFReader.OSM_HEADER)) {
+                        OSMPBFReader.checkHeader(blob);
+                    } else if (blob.getType().equals(OSMPBFReader.OSM_DATA)) {
+                        pipeline.submit(() -> OSMPBFReader.decodePrimitiveBlock(blob));
+                    }
+                    // Unknown blob types are ignored
+                }
+                if (pipeline.hasNext()) {
+                    if (progress.isCanceled()) {
+                        throw new SQLException("Canceled by user");
+                    }
+                    OSMPBFReader.PrimitiveBlock block = pipeline.next();
+                    for (NodeOSMElement node : block.getNodes()) {
+                        insertNode(node);
+                        insertBatch();
+                    }
+                    for (WayOSMElement way : block.getWays()) {
+                        insertWay(way);
+                        insertBatch();
+                    }
+                    for (RelationOSMElement relation : block.getRelations()) {
+                        insertRelation(relation);
+                        insertBatch();
+                    }
+                    progress.setStep((int) (((double) fc.position() / fileSize) * 100));
+                }
+            }
+        }
+        insertRemainingBatch();
+    }
+
+    /**
+     * @return True if the geometries of the ways and relations are built during the import
+     */
+    public boolean isBuildGeometries() {
+        return buildGeometries;
+    }
+
+    /**
+     * Build the geometries of the ways and relations during the import, from the node locations kept in a
+     * temporary file mapped in memory. The way and relation tables get a THE_GEOM column.
+     *
+     * @param buildGeometries true to build the geometries
+     */
+    public void setBuildGeometries(boolean buildGeometries) {
+        this.buildGeometries = buildGeometries;
+    }
+
+    /**
+     * @return Number of threads used to decode the blocks of the PBF files
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param threadCount Number of threads used to decode the blocks of the PBF files
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count must be positive");
+        }
+        this.threadCount = threadCount;
+    }
+
     private void insertBatch() throws SQLException {
         nodePreparedStmtBatchSize = insertBatch(nodePreparedStmt, nodePreparedStmtBatchSize);
         nodeTagPreparedStmtBatchSize = insertBatch(nodeTagPreparedStmt, nodeTagPreparedStmtBatchSize);
@@ -41,7 +41,7 @@ import java.sql.SQLException;
 public class OSMRead extends AbstractFunction implements ScalarFunction {
 
     public OSMRead() {
-        addProperty(PROP_REMARKS, "Read a OSM file and copy the content in the specified tables.\n"
+        addProperty(PROP_REMARKS, "Read a OSM file (.osm, .osm.gz, .osm.bz2, .osm.pbf) and copy the content in the specified tables.\n"
                 + "The user can set a prefix name for all OSM tables and specify if the existing OSM\n"
                 + " tables must be dropped."
                 + "\n OSMRead(..."
@@ -50,7 +50,10 @@ public class OSMRead extends AbstractFunction implements ScalarFunction {
                 + "\n path of the file, table name"
                 + "\n path of the file, true for delete the table with the same file name"
                 + "\n path of the file, table name, encoding chartset"
-                + "\n path of the file, table name, encoding chartset, true to delete the table name");
+                + "\n path of the file, table name, encoding chartset, true to delete the table name"
+                + "\n path of the file, table name, encoding chartset, true to delete the table name, true to build the way and relation geometries"
+                + "\n The encoding chartset can be replaced by options 'encoding=UTF-8 bulkLoad=true spatialIndex=true'"
+                + "\n bulkLoad creates the primary keys after loading the rows, spatialIndex creates the spatial indexes");
     }
 
     @Override
@@ -108,12 +111,26 @@ public class OSMRead extends AbstractFunction implements ScalarFunction {
      * @param connection database connection
      * @param fileName input file
      * @param tableReference output table name
-     * @param encoding file encoding
+     * @param encoding file encoding, or key=value options see {@link org.h2gis.functions.io.utility.ImportOptions}
      * @param deleteTables true to delete the tables
      */
     public static void importTable(Connection connection, String fileName, String tableReference, String encoding, boolean deleteTables) throws FileNotFoundException, SQLException, IOException {
+        importTable(connection, fileName, tableReference, encoding, deleteTables, false);
+    }
+
+    /**
+     *
+     * @param connection database connection
+     * @param fileName input file
+     * @param tableReference output table name
+     * @param encoding file encoding, or key=value options see {@link org.h2gis.functions.io.utility.ImportOptions}
+     * @param deleteTables true to delete the tables
+     * @param buildGeometries true to build the geometries of the ways and relations
+     */
+    public static void importTable(Connection connection, String fileName, String tableReference, String encoding, boolean deleteTables,
+                                   boolean buildGeometries) throws FileNotFoundException, SQLException, IOException {
         OSMDriverFunction osmdf = new OSMDriverFunction();
-        osmdf.importFile(connection, tableReference, URIUtilities.fileFromString(fileName), encoding, deleteTables, new EmptyProgressVisitor());
+        osmdf.importFile(connection, tableReference, URIUtilities.fileFromString(fileName), encoding, deleteTables, buildGeometries, new EmptyProgressVisitor());
     }
 
     /**
@@ -20,6 +20,7 @@
 
 package org.h2gis.functions.io.osm;
 
+import org.h2gis.functions.io.utility.DeferredIndexes;
 import org.h2gis.utilities.TableLocation;
 import org.h2gis.utilities.TableUtilities;
 import org.h2gis.utilities.dbtypes.DBTypes;
@@ -37,7 +38,7 @@ import java.sql.Statement;
  * 
  * (1) table_prefix + _node :  table that contains all nodes,
  * (2) table_prefix + _node_tag : table that contains a list of tags (key, value) for each node,
- * (3) table_prefix + _way : table that contains all ways with their geometries,
+ * (3) table_prefix + _way : table that contains all ways, with their geometries if they are built during the import,
  * (4) table_prefix + _way_tag : table that contains a list of tags (key, value) for each way,
  * (5) table_prefix + _way_node : table that contains the list of nodes used to represent a way,
  * (6) table_prefix + _relation: table that contains all relations,
@@ -83,10 +84,23 @@ public class OSMTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createNodeTable(Connection connection, String nodeTableName) throws SQLException {
+        return createNodeTable(connection, nodeTableName, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the nodes table, its primary key and spatial index are declared
+     * in the deferred indexes.
+     *
+     * @param connection database
+     * @param nodeTableName table name
+     * @param indexes indexes created once the nodes are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createNodeTable(Connection connection, String nodeTableName, DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(nodeTableName);
-            sb.append("(ID_NODE BIGINT PRIMARY KEY,  THE_GEOM ");
+            sb.append("(ID_NODE BIGINT").append(indexes.primaryKey(nodeTableName, "ID_NODE")).append(",  THE_GEOM ");
             sb.append("GEOMETRY(POINT, 4326)");
             sb.append(",ELE DOUBLE PRECISION,"
                     + "USER_NAME VARCHAR,"
@@ -98,6 +112,7 @@ public class OSMTablesFactory {
                     + "NAME VARCHAR);");
             stmt.execute(sb.toString());
         }
+        indexes.spatialIndex(nodeTableName, "THE_GEOM");
         return connection.prepareStatement("INSERT INTO " + nodeTableName + " VALUES (?,?,?,?,?,?,?,?,?,?);");
     }
     
@@ -132,13 +147,48 @@ public class OSMTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createWayTable(Connection connection, String wayTableName) throws SQLException {
+        return createWayTable(connection, wayTableName, false);
+    }
+
+    /**
+     * Create the ways table that will be used to import OSM ways, with the
+     * line of the way nodes if the geometries are built during the import.
+     *
+     * @param connection database
+     * @param wayTableName table name
+     * @param geometry true to add a THE_GEOM column
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createWayTable(Connection connection, String wayTableName, boolean geometry) throws SQLException {
+        return createWayTable(connection, wayTableName, geometry, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the ways table, its primary key and spatial index are declared
+     * in the deferred indexes.
+     *
+     * @param connection database
+     * @param wayTableName table name
+     * @param geometry true to add a THE_GEOM column
+     * @param indexes indexes created once the ways are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createWayTable(Connection connection, String wayTableName, boolean geometry,
+                                                   DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(wayTableName);
-            sb.append("(ID_WAY BIGINT PRIMARY KEY, USER_NAME VARCHAR, UID BIGINT, VISIBLE BOOLEAN, VERSION INTEGER, CHANGESET INTEGER, LAST_UPDATE TIMESTAMP, NAME VARCHAR);");
+            sb.append("(ID_WAY BIGINT").append(indexes.primaryKey(wayTableName, "ID_WAY")).append(", USER_NAME VARCHAR, UID BIGINT, VISIBLE BOOLEAN, VERSION INTEGER, CHANGESET INTEGER, LAST_UPDATE TIMESTAMP, NAME VARCHAR");
+            if (geometry) {
+                sb.append(", THE_GEOM GEOMETRY(LINESTRING, 4326)");
+            }
+            sb.append(");");
             stmt.execute(sb.toString());
         }
-        return connection.prepareStatement("INSERT INTO " + wayTableName + " VALUES (?,?,?,?,?,?,?,?);");
+        if (geometry) {
+            indexes.spatialIndex(wayTableName, "THE_GEOM");
+        }
+        return connection.prepareStatement("INSERT INTO " + wayTableName + (geometry ? " VALUES (?,?,?,?,?,?,?,?,?);" : " VALUES (?,?,?,?,?,?,?,?);"));
     }
 
     /**
@@ -183,19 +233,54 @@ public class OSMTablesFactory {
      * @return PreparedStatement
      */
     public static PreparedStatement createRelationTable(Connection connection, String relationTable) throws SQLException {
+        return createRelationTable(connection, relationTable, false);
+    }
+
+    /**
+     * Create the relation table, with the geometry of the members if the
+     * geometries are built during the import.
+     *
+     * @param connection database
+     * @param relationTable table name
+     * @param geometry true to add a THE_GEOM column
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createRelationTable(Connection connection, String relationTable, boolean geometry) throws SQLException {
+        return createRelationTable(connection, relationTable, geometry, new DeferredIndexes(connection, false, false));
+    }
+
+    /**
+     * Create the relation table, its primary key and spatial index are declared
+     * in the deferred indexes.
+     *
+     * @param connection database
+     * @param relationTable table name
+     * @param geometry true to add a THE_GEOM column
+     * @param indexes indexes created once the relations are loaded
+     * @return PreparedStatement
+     */
+    public static PreparedStatement createRelationTable(Connection connection, String relationTable, boolean geometry,
+                                                        DeferredIndexes indexes) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             StringBuilder sb = new StringBuilder("CREATE TABLE ");
             sb.append(relationTable);
-            sb.append("(ID_RELATION BIGINT PRIMARY KEY,"
+            sb.append("(ID_RELATION BIGINT").append(indexes.primaryKey(relationTable, "ID_RELATION")).append(","
                     + "USER_NAME VARCHAR,"
                     + "UID BIGINT,"
                     + "VISIBLE BOOLEAN,"
                     + "VERSION INTEGER,"
                     + "CHANGESET INTEGER,"
-                    + "LAST_UPDATE TIMESTAMP);");
+                    + "LAST_UPDATE TIMESTAMP");
+            if (geometry) {
+                sb.append(", THE_GEOM GEOMETRY(GEOMETRY, 4326)");
+            }
+            sb.append(");");
             stmt.execute(sb.toString());
         }
-        return connection.prepareStatement("INSERT INTO " + relationTable + " VALUES ( ?,?,?,?,?,?,?);");
+        if (geometry) {
+            indexes.spatialIndex(relationTable, "THE_GEOM");
+        }
+        return connection.prepareStatement("INSERT INTO " + relationTable + (geometry ? " VALUES ( ?,?,?,?,?,?,?,?);" : " VALUES ( ?,?,?,?,?,?,?);"));
     }
 
     /**
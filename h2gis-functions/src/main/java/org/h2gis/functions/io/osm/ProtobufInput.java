@@ -0,0 +1,202 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; 
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.osm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal reader of the protocol buffers wire format, used to decode the messages of the OSM PBF files.
+ * A message is read field by field: {@link #readTag()} returns the field key, then the value is read with the
+ * method matching the field type, or skipped with {@link #skipField(int)}.
+ */
+final class ProtobufInput {
+    static final int WIRE_VARINT = 0;
+    static final int WIRE_FIXED64 = 1;
+    static final int WIRE_LENGTH_DELIMITED = 2;
+    static final int WIRE_FIXED32 = 5;
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    /**
+     * @param buffer Encoded message
+     * @param offset Start of the message in the buffer
+     * @param length Length of the message
+     */
+    ProtobufInput(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * @param buffer Encoded message
+     */
+    ProtobufInput(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * @return True if the message has more fields
+     */
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * @return Key of the next field, the field number is {@code tag >>> 3} and the wire type {@code tag & 7}
+     */
+    int readTag() throws IOException {
+        return (int) readVarint();
+    }
+
+    /**
+     * @return Unsigned varint value
+     */
+    long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= limit) {
+                throw new IOException("Truncated protocol buffer message");
+            }
+            byte b = buffer[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in protocol buffer message");
+    }
+
+    /**
+     * @return Zigzag encoded varint value (sint32, sint64)
+     */
+    long readSignedVarint() throws IOException {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return Length delimited value, as a reader over the same buffer
+     */
+    ProtobufInput readMessage() throws IOException {
+        int length = readLength();
+        ProtobufInput message = new ProtobufInput(buffer, position, length);
+        position += length;
+        return message;
+    }
+
+    /**
+     * @return Length delimited value, as a copy of the bytes
+     */
+    byte[] readBytes() throws IOException {
+        int length = readLength();
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, position, bytes, 0, length);
+        position += length;
+        return bytes;
+    }
+
+    /**
+     * @return Length delimited value, as an UTF-8 string
+     */
+    String readString() throws IOException {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Read a repeated integer field. Packed values and unpacked single values are both accepted.
+     *
+     * @param tag Key of the field
+     * @param signed True for zigzag encoded values
+     * @param previous Values of the previous occurrences of the field
+     * @return The previous values followed by the values of this occurrence
+     */
+    long[] readRepeatedVarint(int tag, boolean signed, long[] previous) throws IOException {
+        int wireType = tag & 7;
+        long[] values;
+        if (wireType == WIRE_LENGTH_DELIMITED) {
+            ProtobufInput packed = readMessage();
+            // Each varint ends with a byte without continuation bit
+            int count = 0;
+            for (int i = packed.position; i < packed.limit; i++) {
+                if (buffer[i] >= 0) {
+                    count++;
+                }
+            }
+            values = Arrays.copyOf(previous, previous.length + count);
+            for (int i = previous.length; i < values.length; i++) {
+                values[i] = signed ? packed.readSignedVarint() : packed.readVarint();
+            }
+        } else if (wireType == WIRE_VARINT) {
+            values = Arrays.copyOf(previous, previous.length + 1);
+            values[previous.length] = signed ? readSignedVarint() : readVarint();
+        } else {
+            throw new IOException("Unexpected wire type " + wireType + " for a repeated integer field");
+        }
+        return values;
+    }
+
+    /**
+     * Skip the value of a field
+     *
+     * @param tag Key of the field
+     */
+    void skipField(int tag) throws IOException {
+        switch (tag & 7) {
+            case WIRE_VARINT:
+                readVarint();
+                break;
+            case WIRE_FIXED64:
+                skip(8);
+                break;
+            case WIRE_LENGTH_DELIMITED:
+                skip(readLength());
+                break;
+            case WIRE_FIXED32:
+                skip(4);
+                break;
+            default:
+                throw new IOException("Unsupported wire type " + (tag & 7) + " in protocol buffer message");
+        }
+    }
+
+    private void skip(int length) throws IOException {
+        if (length > limit - position) {
+            throw new IOException("Truncated protocol buffer message");
+        }
+        position += length;
+    }
+
+    private int readLength() throws IOException {
+        long length = readVarint();
+        if (length < 0 || length > limit - position) {
+            throw new IOException("Truncated protocol buffer message");
+        }
+        return (int) length;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software; 
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+package org.h2gis.functions.io.osm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class to manage the relation element properties.
+ *
+ */
+public class RelationOSMElement extends OSMElement {
+
+    private final List<Member> members = new ArrayList<Member>();
+
+    public RelationOSMElement() {
+        super();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        members.clear();
+    }
+
+    /**
+     * Add a member to the relation, in the order of the relation.
+     *
+     * @param type Type of the member : node, way or relation
+     * @param ref Identifier of the member
+     * @param role Role of the member in the relation
+     */
+    public void addMember(String type, long ref, String role) {
+        members.add(new Member(type, ref, role));
+    }
+
+    /**
+     * Return the list of members
+     *
+     * @return list of members
+     */
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    /**
+     * A member of the relation.
+     */
+    public static class Member {
+        private final String type;
+        private final long ref;
+        private final String role;
+
+        private Member(String type, long ref, String role) {
+            this.type = type;
+            this.ref = ref;
+            this.role = role;
+        }
+
+        /**
+         * @return Type of the member : node, way or relation
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return Identifier of the member
+         */
+        public long getRef() {
+            return ref;
+        }
+
+        /**
+         * @return Role of the member in the relation
+         */
+        public String getRole() {
+            return role;
+        }
+    }
+}
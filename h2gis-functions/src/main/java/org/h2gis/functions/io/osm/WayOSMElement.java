@@ -21,6 +21,7 @@
 package org.h2gis.functions.io.osm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -30,12 +31,19 @@ import java.util.List;
  */
 public class WayOSMElement extends OSMElement {
 
-    private final List<Long> nodesRef = new ArrayList<Long>();
+    private long[] nodesRef = new long[16];
+    private int nodesRefCount = 0;
 
     public WayOSMElement() {
         super();
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        nodesRefCount = 0;
+    }
+
     /**
      * Add in a list the ref of the node used to describe the way.
      *
@@ -43,8 +51,38 @@ public class WayOSMElement extends OSMElement {
      */
     public void addRef(String ref) {
         if(ref!=null) {
-            nodesRef.add(Long.valueOf(ref));
+            addRef(Long.parseLong(ref));
+        }
+    }
+
+    /**
+     * Add in a list the ref of the node used to describe the way.
+     *
+     * @param ref
+     */
+    public void addRef(long ref) {
+        if (nodesRefCount == nodesRef.length) {
+            nodesRef = Arrays.copyOf(nodesRef, nodesRefCount * 2);
         }
+        nodesRef[nodesRefCount++] = ref;
+    }
+
+    /**
+     * @return Number of nodes of the way
+     */
+    public int getNodesRefCount() {
+        return nodesRefCount;
+    }
+
+    /**
+     * @param index Index of the node in the way
+     * @return The ref of the node
+     */
+    public long getNodeRef(int index) {
+        if (index >= nodesRefCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + nodesRefCount);
+        }
+        return nodesRef[index];
     }
 
     /**
@@ -53,7 +91,11 @@ public class WayOSMElement extends OSMElement {
      * @return list of nodes
      */
     public List<Long> getNodesRef() {
-        return nodesRef;
+        List<Long> refs = new ArrayList<Long>(nodesRefCount);
+        for (int i = 0; i < nodesRefCount; i++) {
+            refs.add(nodesRef[i]);
+        }
+        return refs;
     }
 
 }
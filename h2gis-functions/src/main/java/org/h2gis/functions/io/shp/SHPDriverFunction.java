@@ -22,6 +22,7 @@ package org.h2gis.functions.io.shp;
 import org.h2.table.Column;
 import org.h2.util.JdbcUtils;
 import org.h2.value.TypeInfo;
+import org.h2.value.Value;
 import org.h2gis.api.DriverFunction;
 import org.h2gis.api.ProgressVisitor;
 import org.h2gis.functions.io.DriverManager;
@@ -32,6 +33,9 @@ import org.h2gis.functions.io.file_table.H2TableIndex;
 import org.h2gis.functions.io.shp.internal.SHPDriver;
 import org.h2gis.functions.io.shp.internal.ShapeType;
 import org.h2gis.functions.io.shp.internal.ShapefileHeader;
+import org.h2gis.functions.io.utility.DeferredIndexes;
+import org.h2gis.functions.io.utility.ImportOptions;
+import org.h2gis.functions.io.utility.OrderedPipeline;
 import org.h2gis.functions.io.utility.PRJUtil;
 import org.h2gis.utilities.GeometryTypeCodes;
 import org.h2gis.utilities.JDBCUtilities;
@@ -44,6 +48,7 @@ import java.nio.file.Files;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -64,6 +69,26 @@ public class SHPDriverFunction implements DriverFunction {
 
     public static String DESCRIPTION = "ESRI shapefile";
     private static final int BATCH_MAX_SIZE = 100;
+    /**
+     * Number of rows decoded by a worker thread at once on import
+     */
+    private static final int ROWS_PER_TASK = 10 * BATCH_MAX_SIZE;
+    private int threadCount = OrderedPipeline.getDefaultThreadCount();
+
+    /**
+     * @return Number of threads that decode the rows on import
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param threadCount Number of threads that decode the rows on import, 1 to decode the rows on the
+     *                    calling thread.
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
 
     @Override
     public String[] exportTable(Connection connection, String tableReference, File fileName, ProgressVisitor progress) throws SQLException, IOException {
@@ -285,8 +310,10 @@ public class SHPDriverFunction implements DriverFunction {
                 stmt.execute("DROP TABLE IF EXISTS " + outputTableName);
                 stmt.close();
             }
+            ImportOptions importOptions = new ImportOptions(options);
+            DeferredIndexes indexes = new DeferredIndexes(connection, importOptions);
             SHPDriver shpDriver = new SHPDriver();
-            shpDriver.initDriverFromFile(fileName, options);
+            shpDriver.initDriverFromFile(fileName, importOptions.getEncoding());
             ProgressVisitor copyProgress = progress.subProcess((int) (shpDriver.getRowCount() / BATCH_MAX_SIZE));
             String lastSql = "";
             int dbfNumFields =0;
@@ -308,8 +335,10 @@ public class SHPDriverFunction implements DriverFunction {
                     String pkColName = FileEngine.getUniqueColumnName(H2TableIndex.PK_COLUMN_NAME, otherCols);
                     srid = PRJUtil.getSRID(shpDriver.prjFile);
                     shpDriver.setSRID(srid);
-                    st.execute(String.format("CREATE TABLE %s (" + pkColName + " INT PRIMARY KEY , the_geom GEOMETRY(%s, %d) %s)", requestedTable,
+                    st.execute(String.format("CREATE TABLE %s (" + pkColName + " INT" + indexes.primaryKey(outputTableName, pkColName)
+                                    + " , the_geom GEOMETRY(%s, %d) %s)", requestedTable,
                                 getSFSGeometryType(shpHeader), srid, types));
+                    indexes.spatialIndex(outputTableName, "THE_GEOM");
 
                 }
                 try {
@@ -319,6 +348,11 @@ public class SHPDriverFunction implements DriverFunction {
                     final int columnCount = dbfNumFields+1;
                     connection.setAutoCommit(false);
                     try (PreparedStatement preparedStatement = connection.prepareStatement(lastSql)) {
+                        if (threadCount > 1 && shpDriver.getRowCount() > ROWS_PER_TASK) {
+                            importRows(connection, preparedStatement, shpDriver, columnCount, copyProgress);
+                            indexes.create();
+                            return new String[]{outputTableName};
+                        }
                         long batchSize = 0;
                         for (int rowId = 0; rowId < shpDriver.getRowCount(); rowId++) {
                             //Set the PK
@@ -340,6 +374,7 @@ public class SHPDriverFunction implements DriverFunction {
                             preparedStatement.executeBatch();
                             connection.commit();
                         }
+                        indexes.create();
                         return new String[]{outputTableName};
                     }
                 } catch (Exception ex) {
@@ -359,6 +394,79 @@ public class SHPDriverFunction implements DriverFunction {
         return null;
     }
 
+    /**
+     * Insert the rows of the shape file. The rows are decoded by blocks on the worker threads, each worker
+     * reads the files with its own reader. The calling thread inserts the decoded blocks in the file order.
+     *
+     * @param connection Active connection
+     * @param preparedStatement Insert statement, the first parameter is the primary key
+     * @param shpDriver Shape file driver
+     * @param columnCount Number of columns of the driver
+     * @param progress Progress visitor, one step by batch
+     */
+    private void importRows(Connection connection, PreparedStatement preparedStatement, SHPDriver shpDriver,
+                            int columnCount, ProgressVisitor progress) throws SQLException, IOException {
+        final long rowCount = shpDriver.getRowCount();
+        final int[] columns = new int[columnCount];
+        for (int columnId = 0; columnId < columnCount; columnId++) {
+            columns[columnId] = columnId;
+        }
+        // A reader by worker, a task never waits for a reader
+        List<SHPDriver> readers = new ArrayList<>(threadCount);
+        ConcurrentLinkedQueue<SHPDriver> availableReaders = new ConcurrentLinkedQueue<>();
+        try (OrderedPipeline<Object[][]> pipeline = new OrderedPipeline<>(threadCount, 2 * threadCount)) {
+            for (int i = 0; i < threadCount; i++) {
+                SHPDriver reader = shpDriver.createReader();
+                readers.add(reader);
+                availableReaders.add(reader);
+            }
+            long nextRowId = 0;
+            int pk = 1;
+            long batchSize = 0;
+            while (nextRowId < rowCount || pipeline.hasNext()) {
+                while (nextRowId < rowCount && !pipeline.isFull()) {
+                    final long firstRowId = nextRowId;
+                    final int taskRowCount = (int) Math.min(ROWS_PER_TASK, rowCount - firstRowId);
+                    pipeline.submit(() -> {
+                        SHPDriver reader = availableReaders.poll();
+                        try {
+                            Object[][] rows = new Object[taskRowCount][columnCount];
+                            reader.getRows(firstRowId, taskRowCount, columns, rows);
+                            return rows;
+                        } finally {
+                            availableReaders.add(reader);
+                        }
+                    });
+                    nextRowId += taskRowCount;
+                }
+                for (Object[] row : pipeline.next()) {
+                    //Set the PK
+                    preparedStatement.setInt(1, pk++);
+                    for (int columnId = 0; columnId < columnCount; columnId++) {
+                        JdbcUtils.set(preparedStatement, columnId + 2, (Value) row[columnId], null);
+                    }
+                    preparedStatement.addBatch();
+                    batchSize++;
+                    if (batchSize >= BATCH_MAX_SIZE) {
+                        preparedStatement.executeBatch();
+                        connection.commit();
+                        preparedStatement.clearBatch();
+                        batchSize = 0;
+                        progress.endStep();
+                    }
+                }
+            }
+            if (batchSize > 0) {
+                preparedStatement.executeBatch();
+                connection.commit();
+            }
+        } finally {
+            for (SHPDriver reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
     /**
      * Return the shape type supported by the shapefile format
      *
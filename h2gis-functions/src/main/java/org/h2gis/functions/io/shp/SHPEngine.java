@@ -21,12 +21,16 @@
 package org.h2gis.functions.io.shp;
 
 import org.h2.command.ddl.CreateTableData;
+import org.h2.result.SortOrder;
 import org.h2.table.Column;
+import org.h2.table.IndexColumn;
 import org.h2.value.ExtTypeInfo;
 import org.h2.value.ExtTypeInfoGeometry;
 import org.h2.value.TypeInfo;
 import org.h2gis.functions.io.dbf.DBFEngine;
+import org.h2gis.functions.io.file_table.EnvelopeFilterIndex;
 import org.h2gis.functions.io.file_table.FileEngine;
+import org.h2gis.functions.io.file_table.H2MVTable;
 import org.h2gis.functions.io.shp.internal.SHPDriver;
 import org.h2gis.functions.io.shp.internal.ShapeType;
 import org.h2gis.functions.io.utility.PRJUtil;
@@ -46,6 +50,7 @@ public class SHPEngine extends FileEngine<SHPDriver> {
     @Override
     protected SHPDriver createDriver(File filePath, List<String> args) throws IOException {
         SHPDriver driver = new SHPDriver();
+        driver.setMemoryMapped(isMemoryMapped());
         driver.initDriverFromFile(filePath, args.size() > 1 ? args.get(1) : null);        
         int srid = PRJUtil.getSRID(driver.prjFile);
         driver.setSRID(srid);
@@ -77,4 +82,17 @@ public class SHPEngine extends FileEngine<SHPDriver> {
 
         DBFEngine.feedTableDataFromHeader(driver.getDbaseFileHeader(), data);
     }
+
+    @Override
+    protected void feedIndexes(SHPDriver driver, H2MVTable table, CreateTableData data) {
+        // Each record starts with its bounding box, reject the records from it on && filters
+        // First column is the primary key
+        Column geometryColumn = table.getColumn(driver.getGeometryFieldIndex() + 1);
+        IndexColumn indexColumn = new IndexColumn(geometryColumn.getName());
+        indexColumn.column = geometryColumn;
+        indexColumn.sortType = SortOrder.ASCENDING;
+        table.addDriverIndex(new EnvelopeFilterIndex(driver, table, table.getId(),
+                data.schema.getUniqueIndexName(data.session, table, data.tableName + "." +
+                        geometryColumn.getName() + "_ENVELOPE_FILTER_"), indexColumn));
+    }
 }
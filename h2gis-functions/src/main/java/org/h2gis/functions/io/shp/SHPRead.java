@@ -48,7 +48,9 @@ public class SHPRead  extends AbstractFunction implements ScalarFunction {
                 "\n path of the file, table name"+
                 "\n path of the file, table name, true to delete the table name"+
                 "\n path of the file, table name, encoding chartset"+
-                "\n path of the file, table name, encoding chartset, true to delete the table name");
+                "\n path of the file, table name, encoding chartset, true to delete the table name"+
+                "\n The encoding chartset can be replaced by options 'encoding=cp1252 bulkLoad=true spatialIndex=true'"+
+                "\n bulkLoad creates the primary key after loading the rows, spatialIndex creates a spatial index");
     }
 
     @Override
@@ -80,7 +82,8 @@ public class SHPRead  extends AbstractFunction implements ScalarFunction {
      * Copy data from Shape File into a new table in specified connection.
      * @param connection Active connection
      * @param tableReference [[catalog.]schema.]table reference
-     * @param forceEncoding Use this encoding instead of DBF file header encoding property.
+     * @param forceEncoding Use this encoding instead of DBF file header encoding property, or key=value options
+     *                      see {@link org.h2gis.functions.io.utility.ImportOptions}
      * @param fileName File path of the SHP file or URI
      * @param deleteTables delete existing tables
      */
@@ -52,6 +52,11 @@ public class IndexFile {
 
 	private ShapefileHeader header = null;
 
+	/**
+	 * False if the channel is shared with the index file that created this one
+	 */
+	private boolean ownsChannel = true;
+
 	/**
 	 * Load the index file from the given channel.
 	 *
@@ -61,9 +66,39 @@ public class IndexFile {
 	 */
 	public IndexFile(FileChannel channel)
 			throws IOException {
+		this(channel, false);
+	}
+
+	/**
+	 * Load the index file from the given channel.
+	 *
+	 * @param channel
+	 *            The channel to read from.
+	 * @param memoryMapped True to map the file in memory, see {@link ReadBufferManager}
+	 * @throws java.io.IOException If an error occurs.
+	 */
+	public IndexFile(FileChannel channel, boolean memoryMapped)
+			throws IOException {
 		readHeader(channel);
 		this.channel = channel;
-		this.buf = new ReadBufferManager(channel, 8 * 128);
+		this.buf = memoryMapped ? new ReadBufferManager(channel, true) : new ReadBufferManager(channel, 8 * 128);
+	}
+
+	/**
+	 * Create a reader of the same file with its own read state. The channel is not closed by the new reader.
+	 *
+	 * @return An index file that can be used concurrently with this one
+	 */
+	public IndexFile duplicate() {
+		IndexFile indexFile = new IndexFile();
+		indexFile.channel = channel;
+		indexFile.header = header;
+		indexFile.buf = buf.duplicate();
+		indexFile.ownsChannel = false;
+		return indexFile;
+	}
+
+	private IndexFile() {
 	}
 
 	/**
@@ -93,7 +128,7 @@ public class IndexFile {
 	}
 
 	public void close() throws IOException {
-		if (channel != null && channel.isOpen()) {
+		if (ownsChannel && channel != null && channel.isOpen()) {
 			channel.close();
 		}
 		this.buf = null;
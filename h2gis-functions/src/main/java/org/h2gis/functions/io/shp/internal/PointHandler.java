@@ -23,6 +23,7 @@ package org.h2gis.functions.io.shp.internal;
 import org.h2gis.functions.io.utility.ReadBufferManager;
 import org.h2gis.functions.io.utility.WriteBufferManager;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
@@ -101,6 +102,17 @@ public class PointHandler implements ShapeHandler {
         return geometryFactory.createPoint(new Coordinate(x, y, z));
     }
 
+    @Override
+    public Envelope readEnvelope(ReadBufferManager buffer, ShapeType type) throws IOException {
+        if (type == ShapeType.NULL) {
+            return null;
+        }
+        // Point records do not have a bounding box
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
+        return new Envelope(x, x, y, y);
+    }
+
     @Override
     public void write(WriteBufferManager buffer, Geometry geometry) throws IOException {
         Coordinate c = ((Point) geometry).getCoordinate();
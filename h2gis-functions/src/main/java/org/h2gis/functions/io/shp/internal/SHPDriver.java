@@ -23,9 +23,10 @@ package org.h2gis.functions.io.shp.internal;
 import org.h2.value.Value;
 import org.h2.value.ValueGeometry;
 import org.h2.value.ValueNull;
-import org.h2gis.api.FileDriver;
 import org.h2gis.functions.io.dbf.internal.DBFDriver;
 import org.h2gis.functions.io.dbf.internal.DbaseFileHeader;
+import org.h2gis.functions.io.file_table.SpatialFileDriver;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 
 import java.io.*;
@@ -47,7 +48,11 @@ import java.nio.file.Paths;
  *
  * @author Nicolas Fortin
  */
-public class SHPDriver implements FileDriver {
+public class SHPDriver implements SpatialFileDriver {
+    /**
+     * Extension of the spatial index file created next to the shape file
+     */
+    public static final String SPATIAL_INDEX_EXTENSION = "hrt";
     private DBFDriver dbfDriver = new DBFDriver();
     public File shpFile;
     public File shxFile;
@@ -60,6 +65,7 @@ public class SHPDriver implements FileDriver {
     public File prjFile;
     public File cpgFile;
     private int srid =0;
+    private boolean memoryMapped = false;
 
 
     /**
@@ -189,6 +195,7 @@ public class SHPDriver implements FileDriver {
                     forceEncoding = codePage.trim();
                 }
             }
+            dbfDriver.setMemoryMapped(memoryMapped);
             dbfDriver.initDriverFromFile(dbfFile, forceEncoding);
         } else {
             throw new IllegalArgumentException("DBF File not found");
@@ -197,9 +204,48 @@ public class SHPDriver implements FileDriver {
             throw new IllegalArgumentException("SHX File not found");
         }
         FileInputStream shpFis = new FileInputStream(shpFile);
-        shapefileReader = new ShapefileReader(shpFis.getChannel());
+        shapefileReader = new ShapefileReader(shpFis.getChannel(), memoryMapped);
         FileInputStream shxFis = new FileInputStream(shxFile);
-        shxFileReader = new IndexFile(shxFis.getChannel());
+        shxFileReader = new IndexFile(shxFis.getChannel(), memoryMapped);
+    }
+
+    /**
+     * @return A driver that reads the same files with its own read state
+     */
+    @Override
+    public SHPDriver createReader() {
+        if (shapefileReader == null) {
+            throw new IllegalStateException("The driver is not in read mode");
+        }
+        SHPDriver reader = new SHPDriver();
+        reader.shpFile = shpFile;
+        reader.shxFile = shxFile;
+        reader.dbfFile = dbfFile;
+        reader.prjFile = prjFile;
+        reader.cpgFile = cpgFile;
+        reader.dbfDriver = dbfDriver.createReader();
+        reader.shapefileReader = shapefileReader.duplicate();
+        reader.shxFileReader = shxFileReader.duplicate();
+        reader.geometryFieldIndex = geometryFieldIndex;
+        reader.shapeType = shapeType;
+        reader.srid = srid;
+        reader.memoryMapped = memoryMapped;
+        return reader;
+    }
+
+    /**
+     * @return True if the files are mapped in memory
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * @param memoryMapped If true the shp, shx and dbf files are mapped in memory, in order to avoid copying the
+     *                     file content on random access. Must be set before calling initDriverFromFile.
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
     }
 
     /**
@@ -270,6 +316,57 @@ public class SHPDriver implements FileDriver {
         }
     }
 
+    @Override
+    public int getRows(long firstRowId, int rowCount, int[] columns, Object[][] buffer) throws IOException {
+        int readCount = (int) Math.max(0, Math.min(rowCount, getRowCount() - firstRowId));
+        if (readCount == 0) {
+            return 0;
+        }
+        // Split geometry and dbf columns
+        int dbfColumnCount = 0;
+        boolean readGeometry = false;
+        for (int column : columns) {
+            if (column == geometryFieldIndex) {
+                readGeometry = true;
+            } else {
+                dbfColumnCount++;
+            }
+        }
+        int[] dbfColumns = new int[dbfColumnCount];
+        int[] targetColumns = new int[dbfColumnCount];
+        int i = 0;
+        for (int column : columns) {
+            if (column != geometryFieldIndex) {
+                dbfColumns[i] = geometryFieldIndex < column ? column - 1 : column;
+                targetColumns[i++] = column;
+            }
+        }
+        dbfDriver.getDbaseFileReader().getFieldValues((int) firstRowId, readCount, dbfColumns, targetColumns,
+                buffer);
+        if (readGeometry) {
+            for (int row = 0; row < readCount; row++) {
+                buffer[row][geometryFieldIndex] = getField(firstRowId + row, geometryFieldIndex);
+            }
+        }
+        return readCount;
+    }
+
+    @Override
+    public File getFile() {
+        return shpFile;
+    }
+
+    @Override
+    public File getSpatialIndexFile() {
+        String path = shpFile.getAbsolutePath();
+        return new File(path.substring(0, path.lastIndexOf('.') + 1) + SPATIAL_INDEX_EXTENSION);
+    }
+
+    @Override
+    public Envelope getEnvelope(long rowId) throws IOException {
+        return shapefileReader.envelopeAt(shxFileReader.getOffset((int) rowId));
+    }
+
     /**
      * Set a SRID code that will be used for geometries.
      * @param srid 
@@ -21,6 +21,7 @@ package org.h2gis.functions.io.shp.internal;
 
 import org.h2gis.functions.io.utility.ReadBufferManager;
 import org.h2gis.functions.io.utility.WriteBufferManager;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 
 import java.io.IOException;
@@ -56,6 +57,26 @@ public interface ShapeHandler {
      */
     Geometry read(ReadBufferManager buffer, ShapeType type) throws IOException;
 
+    /**
+     * Read the bounding box of the record without decoding the geometry. The buffer is positioned as for
+     * {@link #read(ReadBufferManager, ShapeType)}. Multi point, line and polygon records start with their
+     * bounding box, so only 32 bytes are read.
+     *
+     * @param buffer The ByteBuffer to read from.
+     * @param type The shape type
+     * @return The envelope of the record or null if the record is a null shape.
+     */
+    default Envelope readEnvelope(ReadBufferManager buffer, ShapeType type) throws IOException {
+        if (type == ShapeType.NULL) {
+            return null;
+        }
+        double minX = buffer.getDouble();
+        double minY = buffer.getDouble();
+        double maxX = buffer.getDouble();
+        double maxY = buffer.getDouble();
+        return new Envelope(minX, maxX, minY, maxY);
+    }
+
     /**
      * Write the geometry into the ByteBuffer. The position, byteOrder, and
      * limit are all set. The handler is not responsible for writing the record
@@ -21,6 +21,7 @@
 package org.h2gis.functions.io.shp.internal;
 
 import org.h2gis.functions.io.utility.ReadBufferManager;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 
 import java.io.EOFException;
@@ -54,6 +55,10 @@ public class ShapefileReader {
         private FileChannel channel;
         private ReadBufferManager buffer;
         private ShapeType fileShapeType = ShapeType.UNDEFINED;
+        /**
+         * False if the channel is shared with the reader that created this one
+         */
+        private boolean ownsChannel = true;
 
         /**
          * Creates a new instance of ShapeFile.
@@ -64,9 +69,42 @@ public class ShapefileReader {
          * @throws ShapefileException If for some reason the file contains invalid records.
          */
         public ShapefileReader(FileChannel channel) throws IOException,
+                ShapefileException {
+                this(channel, false);
+        }
+
+        /**
+         * Creates a new instance of ShapeFile.
+         *
+         * @param channel
+         *            The ReadableByteChannel this reader will use.
+         * @param memoryMapped True to map the file in memory, see {@link ReadBufferManager}
+         * @throws java.io.IOException If problems arise.
+         * @throws ShapefileException If for some reason the file contains invalid records.
+         */
+        public ShapefileReader(FileChannel channel, boolean memoryMapped) throws IOException,
                 ShapefileException {
                 this.channel = channel;
-                init();
+                init(memoryMapped);
+        }
+
+        /**
+         * Create a reader of the same file with its own read position. The channel is not closed by the new reader.
+         *
+         * @return A reader that can be used concurrently with this one
+         */
+        public ShapefileReader duplicate() {
+                ShapefileReader reader = new ShapefileReader();
+                reader.channel = channel;
+                reader.header = header;
+                reader.handler = handler;
+                reader.fileShapeType = fileShapeType;
+                reader.buffer = buffer.duplicate();
+                reader.ownsChannel = false;
+                return reader;
+        }
+
+        private ShapefileReader() {
         }
 
         // convenience to peak at a header
@@ -88,7 +126,7 @@ public class ShapefileReader {
                 return header;
         }
 
-        private void init() throws IOException {
+        private void init(boolean memoryMapped) throws IOException {
                 header = readHeader(channel);
                 fileShapeType = header.getShapeType();
                 handler = fileShapeType.getShapeHandler();
@@ -99,7 +137,7 @@ public class ShapefileReader {
                 if (handler == null) {
                         throw new IOException("Unsuported shape type:" + fileShapeType);
                 }
-                buffer = new ReadBufferManager(channel);
+                buffer = new ReadBufferManager(channel, memoryMapped);
         }
 
         /**
@@ -119,7 +157,7 @@ public class ShapefileReader {
          * @throws java.io.IOException If errors occur while closing the channel.
          */
         public void close() throws IOException {
-                if (channel != null && channel.isOpen()) {
+                if (ownsChannel && channel != null && channel.isOpen()) {
                         channel.close();
                 }
                 channel = null;
@@ -156,6 +194,25 @@ public class ShapefileReader {
                 return handler.read(buffer, recordType);
         }
 
+        /**
+         * Read the bounding box stored in the record without decoding the geometry.
+         *
+         * @param offset data buffer offset to read the record
+         * @return The envelope of the record or null if the record is a null shape
+         */
+        public Envelope envelopeAt(int offset) throws IOException {
+                buffer.position(offset);
+                // record header
+                buffer.skip(8);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                ShapeType recordType = ShapeType.forID(buffer.getInt());
+                if (recordType != ShapeType.NULL && recordType != fileShapeType) {
+                        throw new IllegalStateException("ShapeType changed illegally from "
+                                + fileShapeType + " to " + recordType);
+                }
+                return handler.readEnvelope(buffer, recordType);
+        }
+
         /**
          * @param handler
          *            The handler to set.
@@ -23,6 +23,10 @@ import org.h2.tools.Csv;
 import org.h2gis.api.DriverFunction;
 import org.h2gis.api.ProgressVisitor;
 import org.h2gis.functions.io.DriverManager;
+import org.h2gis.functions.io.csv.CSVTypedImporter;
+import org.h2gis.functions.io.utility.ImportOptions;
+import org.h2gis.functions.io.utility.OrderedPipeline;
+import org.h2gis.functions.io.utility.ParallelDeflaterOutputStream;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 
@@ -33,8 +37,6 @@ import java.sql.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.ZipOutputStream;
 import org.h2gis.utilities.FileUtilities;
 import org.h2gis.utilities.dbtypes.DBTypes;
 import org.h2gis.utilities.dbtypes.DBUtils;
@@ -133,7 +135,8 @@ public class TSVDriverFunction implements DriverFunction {
                     final DBTypes dbType = DBUtils.getDBType(connection);
                     TableLocation location = TableLocation.parse(tableReference, dbType);
                     try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
-                            new GZIPOutputStream(new FileOutputStream(fileName))))) {
+                            new ParallelDeflaterOutputStream(new FileOutputStream(fileName),
+                                    OrderedPipeline.getDefaultThreadCount())))) {
                         try (Statement st = connection.createStatement()) {
                             JDBCUtilities.attachCancelResultSet(st, progress);
                             exportFromResultSet(connection, st.executeQuery(location.toString()), bw, encoding, progress);
@@ -151,7 +154,9 @@ public class TSVDriverFunction implements DriverFunction {
                     final DBTypes dbType = DBUtils.getDBType(connection);
                     TableLocation location = TableLocation.parse(tableReference, dbType);
                     try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
-                            new ZipOutputStream(new FileOutputStream(fileName))))) {
+                            new ParallelDeflaterOutputStream(new FileOutputStream(fileName),
+                                    ParallelDeflaterOutputStream.getZipEntryName(fileName.getName()),
+                                    OrderedPipeline.getDefaultThreadCount())))) {
                         try (Statement st = connection.createStatement()) {
                             JDBCUtilities.attachCancelResultSet(st, progress);
                             exportFromResultSet(connection, st.executeQuery(location.toString()), bw, encoding, progress);
@@ -192,7 +197,8 @@ public class TSVDriverFunction implements DriverFunction {
                 final DBTypes dbType = DBUtils.getDBType(connection);
                 TableLocation location = TableLocation.parse(tableReference, dbType);
                 try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
-                        new GZIPOutputStream(new FileOutputStream(fileName))))) {
+                        new ParallelDeflaterOutputStream(new FileOutputStream(fileName),
+                            OrderedPipeline.getDefaultThreadCount())))) {
                     try (Statement st = connection.createStatement()) {
                         JDBCUtilities.attachCancelResultSet(st, progress);
                         exportFromResultSet(connection, st.executeQuery("SELECT * FROM " + location.toString()), bw, encoding, progress);
@@ -208,7 +214,9 @@ public class TSVDriverFunction implements DriverFunction {
                 final DBTypes dbType = DBUtils.getDBType(connection);
                 TableLocation location = TableLocation.parse(tableReference, dbType);
                 try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
-                        new ZipOutputStream(new FileOutputStream(fileName))))) {
+                        new ParallelDeflaterOutputStream(new FileOutputStream(fileName),
+                            ParallelDeflaterOutputStream.getZipEntryName(fileName.getName()),
+                            OrderedPipeline.getDefaultThreadCount())))) {
                     try (Statement st = connection.createStatement()) {
                         JDBCUtilities.attachCancelResultSet(st, progress);
                         exportFromResultSet(connection, st.executeQuery("SELECT * FROM " + location.toString()), bw, encoding, progress);
@@ -285,6 +293,14 @@ public class TSVDriverFunction implements DriverFunction {
                 stmt.close();
             }
             String table = requestedTable.toString();
+            ImportOptions importOptions = new ImportOptions(options, CSVTypedImporter.OPTIONS);
+            if (CSVTypedImporter.isTyped(importOptions)) {
+                try (FileInputStream fis = new FileInputStream(fileName)) {
+                    new CSVTypedImporter(importOptions, '\t', (char) 0).importFile(connection, table, fis,
+                            fis.getChannel(), progress);
+                }
+                return new String[]{table};
+            }
 
             int AVERAGE_NODE_SIZE = 500;
             FileInputStream fis = new FileInputStream(fileName);
@@ -370,6 +386,14 @@ public class TSVDriverFunction implements DriverFunction {
                 stmt.execute("DROP TABLE IF EXISTS " + requestedTable);
                 stmt.close();
             }
+            ImportOptions importOptions = new ImportOptions(options, CSVTypedImporter.OPTIONS);
+            if (CSVTypedImporter.isTyped(importOptions)) {
+                try (FileInputStream fis = new FileInputStream(fileName)) {
+                    new CSVTypedImporter(importOptions, '\t', (char) 0).importFile(connection, requestedTable.toString(),
+                            new GZIPInputStream(fis), fis.getChannel(), progress);
+                }
+                return new String[]{requestedTable.toString()};
+            }
             try (BufferedReader br = new BufferedReader(new InputStreamReader(
                     new GZIPInputStream(new FileInputStream(fileName))))) {
                 String table = requestedTable.toString();
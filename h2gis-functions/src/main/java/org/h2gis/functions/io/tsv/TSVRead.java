@@ -48,7 +48,10 @@ public class TSVRead extends AbstractFunction implements ScalarFunction {
                 + "\n path of the file, table name"
                 + "\n path of the file, table name, true to delete the table name"
                 + "\n path of the file, table name, encoding chartset"
-                + "\n path of the file, table name, encoding chartset, true to delete the table name");
+                + "\n path of the file, table name, encoding chartset, true to delete the table name"
+                + "\n The encoding may be replaced by options to import typed columns:"
+                + "\n 'typed=true encoding=UTF-8 sampleSize=1000 geometry=LON,LAT srid=4326'"
+                + "\n geometry=WKT reads the WKT column as a geometry");
     }
 
     @Override
@@ -101,7 +104,7 @@ public class TSVRead extends AbstractFunction implements ScalarFunction {
      * @param connection database connection
      * @param fileName input file
      * @param tableReference output table name
-     * @param encoding file encoding
+     * @param encoding file encoding, or options to import typed columns see {@link org.h2gis.functions.io.csv.CSVTypedImporter}
      * @param deleteTable true to delete the table
      */
     public static void importTable(Connection connection, String fileName, String tableReference, String encoding, boolean deleteTable) throws SQLException, FileNotFoundException, IOException {
@@ -0,0 +1,239 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.h2gis.utilities.jts_utils.CoordinateUtils;
+
+/**
+ * Format the ordinates of the coordinates in a reusable buffer, without creating a String for each value.
+ *
+ * A value is written with the fewest decimal digits that read back to the same double, then rounded half up
+ * to the maximum number of decimal digits. The notation is the one of {@link Double#toString(double)}: plain
+ * from 10^-3 to 10^7, scientific otherwise. So the text is the same as
+ * {@code Double.toString(CoordinateUtils.round(value, maxDecimalDigits))}, the values with more than 16
+ * significant digits and the non finite values are formatted with these methods.
+ *
+ * A formatter is not thread safe, use one formatter per thread.
+ */
+public class CoordinateFormatter {
+    /**
+     * Do not limit the number of decimal digits
+     */
+    public static final int NO_LIMIT = -1;
+    // Scaled values up to this limit are exact integers
+    private static final double MAX_EXACT = 1L << 53;
+    // Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final long[] LONG_POWERS_OF_TEN = new long[19];
+
+    static {
+        double power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+        long longPower = 1;
+        for (int i = 0; i < LONG_POWERS_OF_TEN.length; i++) {
+            LONG_POWERS_OF_TEN[i] = longPower;
+            longPower *= 10;
+        }
+    }
+
+    private final int maxDecimalDigits;
+    private final char[] buffer = new char[32];
+    // Digits of the scaled value, from the lowest
+    private final char[] digits = new char[20];
+
+    /**
+     * Format the values with all their significant digits
+     */
+    public CoordinateFormatter() {
+        this(NO_LIMIT);
+    }
+
+    /**
+     * @param maxDecimalDigits maximum number of decimal digits, {@link #NO_LIMIT} to keep all the significant
+     *                         digits
+     */
+    public CoordinateFormatter(int maxDecimalDigits) {
+        this.maxDecimalDigits = maxDecimalDigits < 0 ? NO_LIMIT : maxDecimalDigits;
+    }
+
+    /**
+     * @return maximum number of decimal digits, {@link #NO_LIMIT} if the number of digits is not limited
+     */
+    public int getMaxDecimalDigits() {
+        return maxDecimalDigits;
+    }
+
+    /**
+     * @return buffer filled by {@link #format(double)}
+     */
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Append a value to a builder
+     *
+     * @param sb builder
+     * @param value value to format
+     * @return the builder
+     */
+    public StringBuilder append(StringBuilder sb, double value) {
+        return sb.append(buffer, 0, format(value));
+    }
+
+    /**
+     * Format a value at the start of the buffer
+     *
+     * @param value value to format
+     * @return number of chars written in the buffer
+     */
+    public int format(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return formatSlow(value);
+        }
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        double abs = Math.abs(value);
+        // Find the shortest decimal scaled / 10^decimals that reads back to the value
+        long scaled = -1;
+        int decimals = 0;
+        for (; decimals < POWERS_OF_TEN.length; decimals++) {
+            double product = abs * POWERS_OF_TEN[decimals];
+            if (product >= MAX_EXACT) {
+                break;
+            }
+            long candidate = Math.round(product);
+            if (candidate / POWERS_OF_TEN[decimals] == abs) {
+                scaled = candidate;
+                break;
+            }
+        }
+        if (scaled < 0) {
+            return formatSlow(value);
+        }
+        if (maxDecimalDigits != NO_LIMIT) {
+            if (decimals > maxDecimalDigits) {
+                int removed = decimals - maxDecimalDigits;
+                // The scaled value is lower than 10^16, it is rounded to zero when 17 digits are removed
+                if (removed >= LONG_POWERS_OF_TEN.length - 1) {
+                    scaled = 0;
+                } else {
+                    long divisor = LONG_POWERS_OF_TEN[removed];
+                    scaled = (scaled + divisor / 2) / divisor;
+                }
+                decimals = maxDecimalDigits;
+                while (decimals > 0 && scaled % 10 == 0) {
+                    scaled /= 10;
+                    decimals--;
+                }
+            }
+            // As a rounded BigDecimal, there is no negative zero
+            negative &= scaled != 0;
+        }
+        return writeDecimal(negative, scaled, decimals);
+    }
+
+    private int formatSlow(double value) {
+        String text;
+        if (maxDecimalDigits != NO_LIMIT && !Double.isNaN(value) && !Double.isInfinite(value)) {
+            text = Double.toString(CoordinateUtils.round(value, maxDecimalDigits));
+        } else {
+            text = Double.toString(value);
+        }
+        text.getChars(0, text.length(), buffer, 0);
+        return text.length();
+    }
+
+    /**
+     * Write scaled / 10^decimals with the notation of {@link Double#toString(double)}
+     */
+    private int writeDecimal(boolean negative, long scaled, int decimals) {
+        int position = 0;
+        if (negative) {
+            buffer[position++] = '-';
+        }
+        int count = 0;
+        long remaining = scaled;
+        do {
+            digits[count++] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (scaled == 0) {
+            buffer[position++] = '0';
+            buffer[position++] = '.';
+            buffer[position++] = '0';
+            return position;
+        }
+        int exponent = count - 1 - decimals;
+        if (exponent >= -3 && exponent < 7) {
+            if (decimals >= count) {
+                buffer[position++] = '0';
+                buffer[position++] = '.';
+                for (int i = count; i < decimals; i++) {
+                    buffer[position++] = '0';
+                }
+                for (int i = count - 1; i >= 0; i--) {
+                    buffer[position++] = digits[i];
+                }
+            } else {
+                int i = count - 1;
+                for (; i >= decimals; i--) {
+                    buffer[position++] = digits[i];
+                }
+                buffer[position++] = '.';
+                if (decimals == 0) {
+                    buffer[position++] = '0';
+                }
+                for (; i >= 0; i--) {
+                    buffer[position++] = digits[i];
+                }
+            }
+        } else {
+            int lowest = 0;
+            while (lowest < count - 1 && digits[lowest] == '0') {
+                lowest++;
+            }
+            buffer[position++] = digits[count - 1];
+            buffer[position++] = '.';
+            if (lowest == count - 1) {
+                buffer[position++] = '0';
+            }
+            for (int i = count - 2; i >= lowest; i--) {
+                buffer[position++] = digits[i];
+            }
+            buffer[position++] = 'E';
+            if (exponent < 0) {
+                buffer[position++] = '-';
+                exponent = -exponent;
+            }
+            if (exponent >= 100) {
+                buffer[position++] = (char) ('0' + exponent / 100);
+            }
+            if (exponent >= 10) {
+                buffer[position++] = (char) ('0' + exponent / 10 % 10);
+            }
+            buffer[position++] = (char) ('0' + exponent % 10);
+        }
+        return position;
+    }
+}
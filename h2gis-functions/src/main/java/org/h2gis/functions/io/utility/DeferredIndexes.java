@@ -0,0 +1,119 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.dbtypes.DBTypes;
+import org.h2gis.utilities.dbtypes.DBUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primary keys and spatial indexes of the tables created by an import, built once all the rows are loaded.
+ * An index built on a filled table is sorted in bulk, instead of being updated by each insert.
+ *
+ * With H2 an integer primary key declared with the table is the row key of the table, it does not cost
+ * more than the rows themselves, so it is kept in the CREATE TABLE statement. Added later, it would be a
+ * separate index. With the other databases, the primary key is created after the load in bulk load mode.
+ * How to use:
+ * {@code
+ * DeferredIndexes indexes = new DeferredIndexes(connection, bulkLoad, spatialIndex);
+ * st.execute("CREATE TABLE t (PK INT" + indexes.primaryKey("t", "PK") + ", THE_GEOM GEOMETRY)");
+ * indexes.spatialIndex("t", "THE_GEOM");
+ * // insert the rows
+ * indexes.create();
+ * }
+ */
+public class DeferredIndexes {
+    private final Connection connection;
+    private final boolean deferPrimaryKeys;
+    private final boolean spatialIndex;
+    private final List<String[]> primaryKeys = new ArrayList<>();
+    private final List<String[]> spatialIndexes = new ArrayList<>();
+
+    /**
+     * @param connection Active connection
+     * @param bulkLoad True to create the primary keys after loading the rows
+     * @param spatialIndex True to create the spatial indexes after loading the rows
+     */
+    public DeferredIndexes(Connection connection, boolean bulkLoad, boolean spatialIndex) throws SQLException {
+        this.connection = connection;
+        DBTypes dbType = DBUtils.getDBType(connection);
+        this.deferPrimaryKeys = bulkLoad && dbType != DBTypes.H2 && dbType != DBTypes.H2GIS;
+        this.spatialIndex = spatialIndex;
+    }
+
+    /**
+     * @param connection Active connection
+     * @param options Import options, read the bulk load and spatial index options
+     */
+    public DeferredIndexes(Connection connection, ImportOptions options) throws SQLException {
+        this(connection, options.isBulkLoad(), options.isSpatialIndex());
+    }
+
+    /**
+     * Declare the integer primary key of a table
+     *
+     * @param table Table reference
+     * @param column Column name
+     * @return The constraint to append to the column definition in the CREATE TABLE statement, empty if
+     * the primary key is created by {@link #create()}
+     */
+    public String primaryKey(String table, String column) {
+        if (deferPrimaryKeys) {
+            primaryKeys.add(new String[]{table, column});
+            return "";
+        }
+        return " PRIMARY KEY";
+    }
+
+    /**
+     * Declare a geometry column, indexed by {@link #create()} if the spatial index option is set
+     *
+     * @param table Table reference
+     * @param column Geometry column name
+     */
+    public void spatialIndex(String table, String column) {
+        if (spatialIndex) {
+            spatialIndexes.add(new String[]{table, column});
+        }
+    }
+
+    /**
+     * Create the declared primary keys and spatial indexes, to call once all the rows are loaded
+     */
+    public void create() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            for (String[] primaryKey : primaryKeys) {
+                st.execute("ALTER TABLE " + primaryKey[0] + " ADD PRIMARY KEY (" + primaryKey[1] + ")");
+            }
+        }
+        for (String[] index : spatialIndexes) {
+            JDBCUtilities.createSpatialIndex(connection, index[0], index[1]);
+        }
+        primaryKeys.clear();
+        spatialIndexes.clear();
+    }
+}
@@ -21,6 +21,7 @@ package org.h2gis.functions.io.utility;
 
 import org.h2gis.api.DriverFunction;
 import org.h2gis.api.EmptyProgressVisitor;
+import org.h2gis.api.ProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
 import org.h2gis.functions.io.asc.AscDriverFunction;
 import org.h2gis.functions.io.csv.CSVDriverFunction;
@@ -36,6 +37,7 @@ import org.h2gis.functions.io.tsv.TSVDriverFunction;
 import org.h2gis.utilities.FileUtilities;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
+import org.h2gis.utilities.Tuple;
 import org.h2gis.utilities.URIUtilities;
 import org.h2gis.utilities.dbtypes.DBTypes;
 import org.h2gis.utilities.dbtypes.DBUtils;
@@ -43,11 +45,11 @@ import org.locationtech.jts.geom.Geometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
 import java.io.File;
 import java.io.IOException;
 import java.sql.*;
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -66,6 +68,7 @@ public class IOMethods {
     private static final Logger LOGGER = LoggerFactory.getLogger(IOMethods.class);
     private static final String ENCODING_OPTION = "charset=";
     private static final String UTF_ENCODING = "UTF-8";
+    private static final Pattern SELECT_QUERY_PATTERN = Pattern.compile(".*(?i)\\b(select|from)\\b.*");
     private List<DriverFunction> driverFunctionList = new ArrayList<>();
 
     /**
@@ -341,10 +344,7 @@ public class IOMethods {
 
         String query;
         //Check if the source table is a query
-        String regex = ".*(?i)\\b(select|from)\\b.*";
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(sourceTable);
-        if (matcher.find()) {
+        if (isSelectQuery(sourceTable)) {
             if (sourceTable.startsWith("(") && sourceTable.endsWith(")")) {
                 query = sourceTable;
             } else {
@@ -421,101 +421,372 @@ public class IOMethods {
                     }
                 }
             }
-            PreparedStatement preparedStatement = null;
-            try {
-                targetConnection.setAutoCommit(false);
-                int columnsCount = inputMetadata.getColumnCount();
-                HashMap<String, Integer> geomColumnAndSRID = new HashMap<>();
-                StringBuilder insertTable = new StringBuilder("INSERT INTO ");
-                insertTable.append(ouputTableName).append(" VALUES(?");
-                for (int i = 1; i < columnsCount; i++) {
-                    insertTable.append(",").append("?");
+            Map<String, Integer> geomColumnAndSRID = transferRows(inputRes, targetConnection, ouputTableName,
+                    targetDBType, batch_size, new EmptyProgressVisitor());
+            //Alter SRID
+            if (geomColumnAndSRID != null && !geomColumnAndSRID.isEmpty()) {
+                alterSRID(targetConnection, ouputTableName, targetDBType, geomColumnAndSRID);
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Cannot save the table " + sourceTable + " to the " + targetTable + "\n", e);
+
+        }
+        return ouputTableName;
+    }
+
+    /**
+     * Method to export a table into another database with several pairs of connections.
+     *
+     * The rows of the source table are split in ranges of its integer primary key, each range is copied
+     * by its own source and target connections. When the source is a query or has no integer primary key,
+     * the table is exported with a single pair of connections.
+     *
+     * @param sourceDataSource source database
+     * @param sourceTable      the name of the table to export or a select query
+     * @param targetDataSource target database
+     * @param targetTable      target table name
+     * @param mode             -1 delete the target table if exists and create a new table,
+     *                         0 create a new table, 1 update the target table if exists
+     * @param batch_size       batch size value before sending the data
+     * @param threadCount      number of ranges copied at the same time
+     * @param progress         progress, a sub process is created for each range
+     * @return name of the export table formatted according the database target
+     */
+    public static String exportToDataBase(DataSource sourceDataSource, String sourceTable,
+                                          DataSource targetDataSource, String targetTable, int mode, int batch_size,
+                                          int threadCount, ProgressVisitor progress) throws SQLException {
+        if (sourceDataSource == null) {
+            throw new SQLException("The source database cannot be null.\n");
+        }
+        if (targetDataSource == null) {
+            throw new SQLException("The output database cannot be null.\n");
+        }
+        if (threadCount <= 0) {
+            throw new SQLException("The thread count must be greater than 0.\n");
+        }
+        final String ouputTableName;
+        final DBTypes targetDBType;
+        final String selectQuery;
+        final String primaryKey;
+        // Lower bound, upper bound and row count of each range
+        final List<long[]> ranges = new ArrayList<>();
+        try (Connection sourceConnection = sourceDataSource.getConnection();
+             Connection targetConnection = targetDataSource.getConnection()) {
+            if (threadCount == 1 || sourceTable == null || isSelectQuery(sourceTable)) {
+                return exportToDataBase(sourceConnection, sourceTable, targetConnection, targetTable, mode, batch_size);
+            }
+            final DBTypes sourceDBType = DBUtils.getDBType(sourceConnection);
+            targetDBType = DBUtils.getDBType(targetConnection);
+            TableLocation sourceTableLocation = TableLocation.parse(sourceTable, sourceDBType);
+            if (!JDBCUtilities.tableExists(sourceConnection, sourceTableLocation)) {
+                throw new SQLException("The source table doesn't exist.\n");
+            }
+            Tuple<String, Integer> primaryKeyNameAndIndex = JDBCUtilities.getIntegerPrimaryKeyNameAndIndex(sourceConnection, sourceTableLocation);
+            if (primaryKeyNameAndIndex == null) {
+                return exportToDataBase(sourceConnection, sourceTable, targetConnection, targetTable, mode, batch_size);
+            }
+            String source = sourceTableLocation.toString(sourceDBType);
+            primaryKey = TableLocation.quoteIdentifier(primaryKeyNameAndIndex.first(), sourceDBType);
+            selectQuery = "SELECT * FROM " + source + " WHERE ";
+            long min;
+            long max;
+            try (Statement statement = sourceConnection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT MIN(" + primaryKey + "), MAX(" + primaryKey + ") FROM " + source)) {
+                rs.next();
+                min = rs.getLong(1);
+                max = rs.getLong(2);
+                if (rs.wasNull()) {
+                    return exportToDataBase(sourceConnection, sourceTable, targetConnection, targetTable, mode, batch_size);
                 }
-                insertTable.append(")");
-                //Check the first row in order to limit the batch size if the query doesn't work
-                if (inputRes.next()) {
-                    preparedStatement = targetConnection.prepareStatement(insertTable.toString());
-                    for (int i = 0; i < columnsCount; i++) {
-                        int index = i + 1;
-                        Object value = inputRes.getObject(index);
-                        if (inputMetadata.getColumnTypeName(index).toLowerCase().startsWith("geometry")) {
-                            geomColumnAndSRID.put(inputMetadata.getColumnName(index), ((Geometry) value).getSRID());
+            }
+            // More ranges than threads to balance the keys that are not uniformly distributed
+            long width = (max - min) / (threadCount * 4L) + 1;
+            String rangeId = "(CAST(" + primaryKey + " AS BIGINT) - " + min + ") / " + width;
+            try (Statement statement = sourceConnection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT " + rangeId + ", COUNT(*) FROM " + source
+                         + " GROUP BY " + rangeId + " ORDER BY 1")) {
+                while (rs.next()) {
+                    long lower = min + rs.getLong(1) * width;
+                    ranges.add(new long[]{lower, lower + width, rs.getLong(2)});
+                }
+            }
+            // Create the target table
+            ouputTableName = exportToDataBase(sourceConnection, "(" + selectQuery + "1=0)", targetConnection,
+                    targetTable, mode, batch_size);
+        }
+        ProgressVisitor rangesProgress = progress.subProcess(ranges.size());
+        Map<String, Integer> geomColumnAndSRID = null;
+        boolean hasRows = false;
+        try (OrderedPipeline<Map<String, Integer>> pipeline = new OrderedPipeline<>(threadCount, ranges.size())) {
+            for (long[] range : ranges) {
+                String query = selectQuery + primaryKey + " >= " + range[0];
+                // The last bound can exceed the maximum value of a long
+                if (range[1] > range[0]) {
+                    query += " AND " + primaryKey + " < " + range[1];
+                }
+                ProgressVisitor rangeProgress = rangesProgress.subProcess((int) Math.max(1, range[2] / batch_size));
+                final String rangeQuery = query;
+                pipeline.submit(() -> {
+                    try (Connection sourceConnection = sourceDataSource.getConnection();
+                         Connection targetConnection = targetDataSource.getConnection()) {
+                        // Let PostgreSQL read the rows with a cursor instead of loading the whole range
+                        sourceConnection.setAutoCommit(false);
+                        try (Statement statement = sourceConnection.createStatement()) {
+                            statement.setFetchSize(batch_size);
+                            try (ResultSet rs = statement.executeQuery(rangeQuery)) {
+                                Map<String, Integer> rangeSRID = transferRows(rs, targetConnection, ouputTableName,
+                                        targetDBType, batch_size, rangeProgress);
+                                rangeProgress.endOfProgress();
+                                return rangeSRID;
+                            }
+                        } finally {
+                            sourceConnection.setAutoCommit(true);
                         }
-                        preparedStatement.setObject(index, value);
                     }
+                });
+            }
+            while (pipeline.hasNext()) {
+                Map<String, Integer> rangeSRID = pipeline.next();
+                // Keep the columns that have the same SRID in all the ranges
+                if (rangeSRID == null) {
+                    continue;
+                }
+                if (!hasRows) {
+                    geomColumnAndSRID = new HashMap<>(rangeSRID);
+                    hasRows = true;
+                } else {
+                    geomColumnAndSRID.entrySet().removeIf(entry -> !entry.getValue().equals(rangeSRID.get(entry.getKey())));
+                }
+            }
+        } catch (IOException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new SQLException("Cannot save the table " + sourceTable + " to the " + targetTable + "\n", cause);
+        }
+        //Alter SRID
+        if (geomColumnAndSRID != null && !geomColumnAndSRID.isEmpty()) {
+            try (Connection targetConnection = targetDataSource.getConnection()) {
+                alterSRID(targetConnection, ouputTableName, targetDBType, geomColumnAndSRID);
+            }
+        }
+        return ouputTableName;
+    }
 
-                    preparedStatement.execute();
-                    long batchSize = 0;
-                    while (inputRes.next()) {
-                        for (int i = 0; i < columnsCount; i++) {
-                            int index = i + 1;
-                            Object value = inputRes.getObject(index);
-                            String columnName = inputMetadata.getColumnName(index);
-                            if (geomColumnAndSRID.containsKey(columnName)) {
-                                Geometry geometry = (Geometry) value;
-                                int currentSRID = geometry.getSRID();
-                                Integer tmpSRID = geomColumnAndSRID.get(columnName);
-                                if (tmpSRID != currentSRID) {
-                                    geomColumnAndSRID.remove(inputMetadata.getColumnName(index));
-                                }
-                            }
-                            preparedStatement.setObject(index, value);
-                        }
-                        preparedStatement.addBatch();
-                        batchSize++;
-                        if (batchSize >= batch_size) {
-                            preparedStatement.executeBatch();
-                            targetConnection.commit();
-                            preparedStatement.clearBatch();
-                            batchSize = 0;
+    /**
+     * @param sourceTable table name or query
+     * @return true if the source table is a select query
+     */
+    private static boolean isSelectQuery(String sourceTable) {
+        return SELECT_QUERY_PATTERN.matcher(sourceTable).find();
+    }
+
+    /**
+     * Insert the rows of a result set in the target table, with the binary COPY command
+     * when the target is a PostgreSQL database. The data is committed each batch_size rows.
+     *
+     * @param inputRes         source rows
+     * @param targetConnection target database connection
+     * @param ouputTableName   target table name, formatted according the database target
+     * @param targetDBType     type of the target database
+     * @param batch_size       batch size value before sending the data
+     * @param progress         progress, a step is done each batch_size rows
+     * @return the SRID of the geometry columns that have a single SRID, null if there is no row
+     */
+    private static Map<String, Integer> transferRows(ResultSet inputRes, Connection targetConnection, String ouputTableName,
+                                                     DBTypes targetDBType, int batch_size, ProgressVisitor progress) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        try {
+            targetConnection.setAutoCommit(false);
+            ResultSetMetaData inputMetadata = inputRes.getMetaData();
+            int columnsCount = inputMetadata.getColumnCount();
+            HashMap<String, Integer> geomColumnAndSRID = new HashMap<>();
+            //Check the first row in order to limit the batch size if the query doesn't work
+            if (!inputRes.next()) {
+                return null;
+            }
+            PostgreSQLCopyWriter copyWriter = null;
+            if (targetDBType == DBTypes.POSTGIS || targetDBType == DBTypes.POSTGRESQL) {
+                copyWriter = PostgreSQLCopyWriter.create(targetConnection, ouputTableName, columnsCount);
+            }
+            if (copyWriter != null) {
+                copyToPostgreSQL(inputRes, inputMetadata, geomColumnAndSRID, copyWriter, targetConnection, batch_size, progress);
+                return geomColumnAndSRID;
+            }
+            StringBuilder insertTable = new StringBuilder("INSERT INTO ");
+            insertTable.append(ouputTableName).append(" VALUES(?");
+            for (int i = 1; i < columnsCount; i++) {
+                insertTable.append(",").append("?");
+            }
+            insertTable.append(")");
+            preparedStatement = targetConnection.prepareStatement(insertTable.toString());
+            for (int i = 0; i < columnsCount; i++) {
+                int index = i + 1;
+                Object value = inputRes.getObject(index);
+                if (inputMetadata.getColumnTypeName(index).toLowerCase().startsWith("geometry")) {
+                    geomColumnAndSRID.put(inputMetadata.getColumnName(index), ((Geometry) value).getSRID());
+                }
+                preparedStatement.setObject(index, value);
+            }
+
+            preparedStatement.execute();
+            long batchSize = 0;
+            while (inputRes.next()) {
+                for (int i = 0; i < columnsCount; i++) {
+                    int index = i + 1;
+                    Object value = inputRes.getObject(index);
+                    String columnName = inputMetadata.getColumnName(index);
+                    if (geomColumnAndSRID.containsKey(columnName)) {
+                        Geometry geometry = (Geometry) value;
+                        int currentSRID = geometry.getSRID();
+                        Integer tmpSRID = geomColumnAndSRID.get(columnName);
+                        if (tmpSRID != currentSRID) {
+                            geomColumnAndSRID.remove(inputMetadata.getColumnName(index));
                         }
                     }
-                    if (batchSize > 0) {
-                        preparedStatement.executeBatch();
-                        targetConnection.commit();
+                    preparedStatement.setObject(index, value);
+                }
+                preparedStatement.addBatch();
+                batchSize++;
+                if (batchSize >= batch_size) {
+                    if (progress.isCanceled()) {
+                        throw new SQLException("Canceled by user");
                     }
-                    //Alter SRID
-                    if (!geomColumnAndSRID.isEmpty()) {
-                        StringBuilder querySRID = new StringBuilder();
-                        for (Map.Entry<String, Integer> entry : geomColumnAndSRID.entrySet()) {
-                            String fieldName = TableLocation.capsIdentifier(entry.getKey(), targetDBType);
-                            Integer srid = entry.getValue();
-                            querySRID.append("ALTER TABLE ").append(ouputTableName).append(" ALTER COLUMN ").append(fieldName);
-                            querySRID.append(" TYPE GEOMETRY(GEOMETRY, ").append(srid).append(") USING ST_SetSRID(").append(fieldName).append(",").append(srid).append(");\n");
-                        }
+                    preparedStatement.executeBatch();
+                    targetConnection.commit();
+                    preparedStatement.clearBatch();
+                    batchSize = 0;
+                    progress.endStep();
+                }
+            }
+            if (batchSize > 0) {
+                preparedStatement.executeBatch();
+                targetConnection.commit();
+            }
+            return geomColumnAndSRID;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                targetConnection.rollback();
+            } catch (SQLException e1) {
+                LOGGER.error("Unable to rollback.", e1);
+            }
+            throw new SQLException("Cannot insert the data in the table", e);
+        } finally {
+            if (preparedStatement != null) {
+                preparedStatement.close();
+            }
+            targetConnection.setAutoCommit(true);
+        }
+    }
 
-                        try (Statement outputST = targetConnection.createStatement()) {
-                            outputST.execute(querySRID.toString());
-                            targetConnection.commit();
-                        } catch (SQLException e) {
-                            try {
-                                targetConnection.rollback();
-                            } catch (SQLException e1) {
-                                LOGGER.error("Unable to rollback.", e1);
+    /**
+     * Set the SRID of the geometry columns of the target table
+     *
+     * @param targetConnection  target database connection
+     * @param ouputTableName    target table name, formatted according the database target
+     * @param targetDBType      type of the target database
+     * @param geomColumnAndSRID SRID of the geometry columns
+     */
+    private static void alterSRID(Connection targetConnection, String ouputTableName, DBTypes targetDBType,
+                                  Map<String, Integer> geomColumnAndSRID) throws SQLException {
+        StringBuilder querySRID = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : geomColumnAndSRID.entrySet()) {
+            String fieldName = TableLocation.capsIdentifier(entry.getKey(), targetDBType);
+            Integer srid = entry.getValue();
+            querySRID.append("ALTER TABLE ").append(ouputTableName).append(" ALTER COLUMN ").append(fieldName);
+            querySRID.append(" TYPE GEOMETRY(GEOMETRY, ").append(srid).append(") USING ST_SetSRID(").append(fieldName).append(",").append(srid).append(");\n");
+        }
+        boolean autoCommit = targetConnection.getAutoCommit();
+        targetConnection.setAutoCommit(false);
+        try (Statement outputST = targetConnection.createStatement()) {
+            outputST.execute(querySRID.toString());
+            targetConnection.commit();
+        } catch (SQLException e) {
+            try {
+                targetConnection.rollback();
+            } catch (SQLException e1) {
+                LOGGER.error("Unable to rollback.", e1);
+            }
+            throw new SQLException("Cannot alter the table with the SRID", e);
+        } finally {
+            targetConnection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Copy the rows of a result set in a PostgreSQL table with the binary COPY command.
+     * A COPY is sent and committed each batch_size rows.
+     *
+     * @param inputRes          source rows, positioned on the first row
+     * @param inputMetadata     metadata of the source rows
+     * @param geomColumnAndSRID SRID of the geometry columns, a column is removed when its SRID is not unique
+     * @param copyWriter        writer of the target table
+     * @param targetConnection  target database connection
+     * @param batch_size        number of rows of each COPY
+     * @param progress          progress, a step is done each COPY
+     */
+    private static void copyToPostgreSQL(ResultSet inputRes, ResultSetMetaData inputMetadata,
+                                         Map<String, Integer> geomColumnAndSRID, PostgreSQLCopyWriter copyWriter,
+                                         Connection targetConnection, int batch_size, ProgressVisitor progress) throws SQLException {
+        int columnsCount = inputMetadata.getColumnCount();
+        String[] columnNames = new String[columnsCount];
+        boolean[] isGeometry = new boolean[columnsCount];
+        for (int i = 0; i < columnsCount; i++) {
+            columnNames[i] = inputMetadata.getColumnName(i + 1);
+            isGeometry[i] = inputMetadata.getColumnTypeName(i + 1).toLowerCase().startsWith("geometry");
+        }
+        Object[] row = new Object[columnsCount];
+        boolean firstRow = true;
+        long batchSize = 0;
+        boolean completed = false;
+        try {
+            do {
+                if (batchSize == 0) {
+                    copyWriter.startCopy(targetConnection);
+                }
+                for (int i = 0; i < columnsCount; i++) {
+                    Object value = inputRes.getObject(i + 1);
+                    if (isGeometry[i] && value != null) {
+                        int currentSRID = ((Geometry) value).getSRID();
+                        if (firstRow) {
+                            geomColumnAndSRID.put(columnNames[i], currentSRID);
+                        } else {
+                            Integer tmpSRID = geomColumnAndSRID.get(columnNames[i]);
+                            if (tmpSRID != null && tmpSRID != currentSRID) {
+                                geomColumnAndSRID.remove(columnNames[i]);
                             }
-                            throw new SQLException("Cannot alter the table with the SRID", e);
                         }
-
                     }
+                    row[i] = value;
                 }
-            } catch (SQLException e) {
-                try {
-                    targetConnection.rollback();
-                } catch (SQLException e1) {
-                    LOGGER.error("Unable to rollback.", e1);
+                copyWriter.copyRow(row);
+                firstRow = false;
+                batchSize++;
+                if (batchSize >= batch_size) {
+                    copyWriter.endCopy();
+                    targetConnection.commit();
+                    batchSize = 0;
+                    progress.endStep();
+                    if (progress.isCanceled()) {
+                        throw new SQLException("Canceled by user");
+                    }
                 }
-                throw new SQLException("Cannot insert the data in the table", e);
-            } finally {
-                if (preparedStatement != null) {
-                    preparedStatement.close();
+            } while (inputRes.next());
+            if (batchSize > 0) {
+                copyWriter.endCopy();
+                targetConnection.commit();
+            }
+            completed = true;
+        } catch (IOException | SQLException e) {
+            throw new SQLException("Cannot copy the rows in the PostgreSQL table", e);
+        } finally {
+            // Leave the COPY mode whatever the failure, so the transaction can be rolled back
+            if (!completed) {
+                try {
+                    copyWriter.cancelCopy();
+                } catch (SQLException e) {
+                    LOGGER.error("Unable to cancel the copy.", e);
                 }
-                targetConnection.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            throw new SQLException("Cannot save the table " + sourceTable + " to the " + targetTable + "\n", e);
-
         }
-        return ouputTableName;
     }
 
     /**
@@ -0,0 +1,137 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Options of a file import. The options are either a list of space separated key=value pairs,
+ * for instance {@code 'encoding=cp1252 bulkLoad=true spatialIndex=true'}, or a single value
+ * without '=' that is the file encoding, as accepted by the drivers before the key=value form.
+ * The keys are case insensitive, an unknown key is rejected.
+ */
+public class ImportOptions {
+    /** File encoding, null to use the encoding declared by the file */
+    public static final String ENCODING = "encoding";
+    /** Create the primary keys after loading the rows, see {@link DeferredIndexes} */
+    public static final String BULK_LOAD = "bulkLoad";
+    /** Create a spatial index on the geometry columns after loading the rows */
+    public static final String SPATIAL_INDEX = "spatialIndex";
+    /** ASCII grids: store the grid in tiles of tileSize x tileSize cells instead of one row per cell */
+    public static final String TILE_SIZE = "tileSize";
+    private final Map<String, String> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * @param options Options text, may be null
+     * @param keys Keys accepted by the driver in addition to the encoding, bulkLoad and spatialIndex keys
+     */
+    public ImportOptions(String options, String... keys) {
+        if (options == null) {
+            return;
+        }
+        if (options.indexOf('=') < 0) {
+            values.put(ENCODING, options);
+            return;
+        }
+        Set<String> knownKeys = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        knownKeys.addAll(Arrays.asList(ENCODING, BULK_LOAD, SPATIAL_INDEX));
+        knownKeys.addAll(Arrays.asList(keys));
+        for (String pair : options.trim().split("\\s+")) {
+            int index = pair.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Expected key=value option, found '" + pair + "'");
+            }
+            String key = pair.substring(0, index);
+            if (!knownKeys.contains(key)) {
+                throw new IllegalArgumentException("Unknown option " + key + ", the supported options are "
+                        + String.join(", ", knownKeys));
+            }
+            values.put(key, pair.substring(index + 1));
+        }
+    }
+
+    /**
+     * @param key Option key
+     * @return Option value, null if the option is not set
+     */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @param key Option key
+     * @param defaultValue Value returned if the option is not set
+     * @return Option value
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        } else if (value.equalsIgnoreCase("true")) {
+            return true;
+        } else if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Expected true or false for the option " + key + ", found '" + value + "'");
+    }
+
+    /**
+     * @param key Option key
+     * @param defaultValue Value returned if the option is not set
+     * @return Option value
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Expected an integer for the option " + key + ", found '" + value + "'");
+        }
+    }
+
+    /**
+     * @return The file encoding, null if not set
+     */
+    public String getEncoding() {
+        return values.get(ENCODING);
+    }
+
+    /**
+     * @return True if the primary keys are created after loading the rows
+     */
+    public boolean isBulkLoad() {
+        return getBoolean(BULK_LOAD, false);
+    }
+
+    /**
+     * @return True if a spatial index is created on the geometry columns
+     */
+    public boolean isSpatialIndex() {
+        return getBoolean(SPATIAL_INDEX, false);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Read a stream by blocks of complete lines, in order to parse the blocks independently.
+ * A block ends with a line feed, except the last block of the stream. A block is longer than
+ * the requested size if a line does not fit in it.
+ */
+public class LineChunkReader {
+    private final InputStream inputStream;
+    private final int chunkSize;
+    private byte[] remaining = new byte[0];
+    private long position = 0;
+
+    /**
+     * @param inputStream Stream to read, not closed by this reader
+     * @param chunkSize Number of bytes read for each block
+     */
+    public LineChunkReader(InputStream inputStream, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+        this.inputStream = inputStream;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return The next block of lines, null at the end of the stream
+     * @throws IOException If the stream cannot be read
+     */
+    public byte[] next() throws IOException {
+        byte[] buffer = remaining;
+        int length = remaining.length;
+        while (true) {
+            int searchStart = length;
+            buffer = Arrays.copyOf(buffer, length + chunkSize);
+            int read = 0;
+            while (length < buffer.length && (read = inputStream.read(buffer, length, buffer.length - length)) >= 0) {
+                length += read;
+            }
+            int lineEnd = length - 1;
+            while (lineEnd >= searchStart && buffer[lineEnd] != '\n') {
+                lineEnd--;
+            }
+            if (lineEnd >= searchStart) {
+                remaining = Arrays.copyOfRange(buffer, lineEnd + 1, length);
+                position += lineEnd + 1;
+                return Arrays.copyOf(buffer, lineEnd + 1);
+            } else if (read < 0) {
+                // End of the stream
+                remaining = new byte[0];
+                position += length;
+                return length > 0 ? Arrays.copyOf(buffer, length) : null;
+            }
+            // The line does not fit in the block
+        }
+    }
+
+    /**
+     * @return Number of bytes returned by {@link #next()}
+     */
+    public long getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+
+package org.h2gis.functions.io.utility;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Growable array of longs stored out of the Java heap, in a temporary file mapped in memory.
+ * The operating system keeps the recently used pages in memory and writes the other ones to the disk, so the
+ * array can be larger than the heap and the physical memory. The temporary file is deleted on close.
+ * This class is not thread safe.
+ */
+public class MappedLongArray implements AutoCloseable {
+    /** Number of longs of a mapped segment, 32 MiB */
+    private static final int SEGMENT_SHIFT = 22;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private final FileChannel channel;
+    private LongBuffer[] segments = new LongBuffer[0];
+    private long size = 0;
+
+    /**
+     * Create an empty array
+     * @throws IOException If the temporary file cannot be created
+     */
+    public MappedLongArray() throws IOException {
+        channel = FileChannel.open(Files.createTempFile("h2gis", ".bin"), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * @return Number of values of the array
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Append a value at the end of the array
+     * @param value Value to append
+     * @throws IOException If the temporary file cannot be extended
+     */
+    public void add(long value) throws IOException {
+        int segment = (int) (size >>> SEGMENT_SHIFT);
+        if (segment == segments.length) {
+            segments = Arrays.copyOf(segments, segment + 1);
+            segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * SEGMENT_SIZE * Long.BYTES,
+                    (long) SEGMENT_SIZE * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        segments[segment].put((int) (size & SEGMENT_MASK), value);
+        size++;
+    }
+
+    /**
+     * @param index Index of the value, lower than {@link #size()}
+     * @return The value
+     */
+    public long get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    /**
+     * @param index Index of the value, lower than {@link #size()}
+     * @param value New value
+     */
+    public void set(long index, long value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Release the array and delete the temporary file. The mapped memory is released by the garbage collector.
+     * @throws IOException If the temporary file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        segments = new LongBuffer[0];
+        size = 0;
+        channel.close();
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parse the numbers written in ASCII directly from the bytes of a file, without creating a String.
+ * The decimal numbers are parsed without creating a String when they have at most 15 significant digits and a
+ * small exponent, the value is then exact. The other numbers are parsed by {@link Double#parseDouble(String)},
+ * so the result is always the same as the one of parseDouble.
+ */
+public final class NumberParser {
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    // 10^15 < 2^53 any integer below is exactly represented by a double
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private NumberParser() {
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * @param bytes Text
+     * @param start First byte of the number
+     * @param end Byte after the last byte of the number
+     * @return The parsed number, same value as {@link Double#parseDouble(String)}
+     * @throws NumberFormatException If the text is not a number
+     */
+    public static double parseDouble(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        int numberStart = i;
+        boolean exact = true;
+        for (; i < end && isDigit(bytes[i]); i++) {
+            if (mantissa != 0 || bytes[i] != '0') {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                digits++;
+            }
+        }
+        boolean hasDigits = i > numberStart;
+        if (i < end && bytes[i] == '.') {
+            int fractionStart = ++i;
+            for (; i < end && isDigit(bytes[i]); i++) {
+                if (mantissa != 0 || bytes[i] != '0') {
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    digits++;
+                }
+                exponent--;
+            }
+            hasDigits |= i > fractionStart;
+        }
+        if (hasDigits && i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int value = 0;
+            for (; i < end && isDigit(bytes[i]); i++) {
+                if (value < 10000) {
+                    value = value * 10 + (bytes[i] - '0');
+                }
+            }
+            exact = i > exponentStart;
+            exponent += negativeExponent ? -value : value;
+        }
+        if (exact && hasDigits && i == end && digits <= MAX_EXACT_DIGITS) {
+            if (mantissa == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            if (exponent >= -22 && exponent <= 22) {
+                // Both operands are exact, the result is correctly rounded
+                double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+                return negative ? -value : value;
+            }
+        }
+        return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @param bytes Text
+     * @param start First byte of the number
+     * @param end Byte after the last byte of the number
+     * @return The parsed number
+     * @throws NumberFormatException If the text is not an integer or if it does not fit in a long
+     */
+    public static long parseLong(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Not an integer");
+        }
+        // Accumulate as a negative value, the range of the negative values is larger by one
+        long value = 0;
+        for (; i < end; i++) {
+            if (!isDigit(bytes[i])) {
+                throw new NumberFormatException("Not an integer");
+            }
+            int digit = bytes[i] - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("Integer out of range");
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException("Integer out of range");
+            }
+            return -value;
+        }
+        return value;
+    }
+
+    /**
+     * @param bytes Text
+     * @param start First byte
+     * @param end Byte after the last byte
+     * @return True if the text is an optional sign followed by digits, without leading zero
+     */
+    public static boolean isInteger(byte[] bytes, int start, int end) {
+        int i = start;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            i++;
+        }
+        if (i == end || (bytes[i] == '0' && end - i > 1)) {
+            return false;
+        }
+        for (; i < end; i++) {
+            if (!isDigit(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param bytes Text
+     * @param start First byte
+     * @param end Byte after the last byte
+     * @return True if the text is a decimal number with an optional exponent, without leading zero
+     */
+    public static boolean isDecimal(byte[] bytes, int start, int end) {
+        int i = start;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            i++;
+        }
+        int integerStart = i;
+        for (; i < end && isDigit(bytes[i]); i++) {
+            if (i == integerStart + 1 && bytes[integerStart] == '0') {
+                return false;
+            }
+        }
+        boolean hasDigits = i > integerStart;
+        if (i < end && bytes[i] == '.') {
+            int fractionStart = ++i;
+            for (; i < end && isDigit(bytes[i]); i++) {
+                // Fraction digits
+            }
+            hasDigits |= i > fractionStart;
+        }
+        if (!hasDigits) {
+            return false;
+        }
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                i++;
+            }
+            int exponentStart = i;
+            for (; i < end && isDigit(bytes[i]); i++) {
+                // Exponent digits
+            }
+            if (i == exponentStart) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.h2gis.api.ProgressVisitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write the rows of a result set as JSON values. The calling thread reads the values of the rows, the rows are
+ * serialized by batches into byte chunks on a pool of threads, then the calling thread writes the chunks in the
+ * order of the rows.
+ * Each row is written at the root level of a generator without root value separator, the row writer writes the
+ * separators between the rows so that the output does not depend on the number of threads.
+ */
+public class OrderedJsonWriter {
+    // Number of rows serialized by a task
+    private static final int ROWS_PER_TASK = 512;
+
+    /**
+     * Read the values of a row, on the calling thread
+     */
+    public interface RowReader {
+        /**
+         * @param rs result set positioned on the row
+         * @param rowNumber number of the row, from 0
+         * @return values of the row, serialized on another thread
+         */
+        Object[] read(ResultSet rs, long rowNumber) throws SQLException;
+    }
+
+    /**
+     * Serialize the values of a row, on any thread
+     */
+    public interface RowWriter {
+        /**
+         * @param generator generator at the root level
+         * @param row values returned by the {@link RowReader}
+         * @param rowNumber number of the row, from 0
+         */
+        void write(JsonGenerator generator, Object[] row, long rowNumber) throws IOException;
+    }
+
+    private final JsonFactory jsonFactory;
+    private final JsonEncoding jsonEncoding;
+    private final int threadCount;
+
+    /**
+     * @param jsonFactory factory of the generators
+     * @param jsonEncoding output encoding
+     * @param threadCount number of threads that serialize the rows, 1 to serialize the rows on the calling thread
+     */
+    public OrderedJsonWriter(JsonFactory jsonFactory, JsonEncoding jsonEncoding, int threadCount) {
+        this.jsonFactory = jsonFactory;
+        this.jsonEncoding = jsonEncoding;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Write the rows of the result set
+     *
+     * @param rs result set
+     * @param currentRow true if the result set is positioned on the first row to write, false to start with the
+     *                   next row
+     * @param rowReader read the values of a row
+     * @param rowWriter serialize the values of a row
+     * @param outputStream output, not closed
+     * @param progress progress visitor, one step per row
+     * @return number of rows written
+     */
+    public long write(ResultSet rs, boolean currentRow, RowReader rowReader, RowWriter rowWriter,
+                      OutputStream outputStream, ProgressVisitor progress) throws SQLException, IOException {
+        long rowNumber = 0;
+        boolean hasRow = currentRow || rs.next();
+        if (threadCount == 1) {
+            try (JsonGenerator generator = createGenerator(outputStream)) {
+                while (hasRow) {
+                    rowWriter.write(generator, rowReader.read(rs, rowNumber), rowNumber);
+                    rowNumber++;
+                    progress.endStep();
+                    hasRow = rs.next();
+                }
+            }
+            return rowNumber;
+        }
+        try (OrderedPipeline<ByteArrayOutputStream> pipeline = new OrderedPipeline<>(threadCount, 2 * threadCount)) {
+            while (hasRow || pipeline.hasNext()) {
+                while (hasRow && !pipeline.isFull()) {
+                    long firstRow = rowNumber;
+                    List<Object[]> rows = new ArrayList<>(ROWS_PER_TASK);
+                    while (hasRow && rows.size() < ROWS_PER_TASK) {
+                        rows.add(rowReader.read(rs, rowNumber));
+                        rowNumber++;
+                        progress.endStep();
+                        hasRow = rs.next();
+                    }
+                    pipeline.submit(() -> serialize(rows, firstRow, rowWriter));
+                }
+                pipeline.next().writeTo(outputStream);
+            }
+        }
+        return rowNumber;
+    }
+
+    private ByteArrayOutputStream serialize(List<Object[]> rows, long firstRow, RowWriter rowWriter)
+            throws IOException {
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream(rows.size() * 256);
+        try (JsonGenerator generator = createGenerator(chunk)) {
+            long rowNumber = firstRow;
+            for (Object[] row : rows) {
+                rowWriter.write(generator, row, rowNumber++);
+            }
+        }
+        return chunk;
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(outputStream, jsonEncoding);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+}
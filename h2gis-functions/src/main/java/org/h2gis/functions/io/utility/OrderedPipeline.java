@@ -0,0 +1,150 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run tasks on a pool of threads and return their results in the submission order.
+ * A single thread submits the tasks and consumes the results, the number of pending tasks is bounded in order
+ * to limit the memory used by the results not yet consumed.
+ * How to use:
+ * {@code
+ * try (OrderedPipeline<T> pipeline = new OrderedPipeline<>(threadCount, 2 * threadCount)) {
+ *     while (hasMoreWork || pipeline.hasNext()) {
+ *         while (hasMoreWork && !pipeline.isFull()) {
+ *             pipeline.submit(nextTask);
+ *         }
+ *         consume(pipeline.next());
+ *     }
+ * }
+ * }
+ */
+public class OrderedPipeline<T> implements AutoCloseable {
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+    private final ExecutorService executor;
+    private final ArrayDeque<Future<T>> pendingTasks = new ArrayDeque<>();
+    private final int maxPendingTasks;
+
+    /**
+     * @param threadCount Number of worker threads
+     * @param maxPendingTasks Maximum number of tasks submitted and not yet consumed
+     */
+    public OrderedPipeline(int threadCount, int maxPendingTasks) {
+        if (threadCount < 1 || maxPendingTasks < 1) {
+            throw new IllegalArgumentException("The thread count and the pending task count must be positive");
+        }
+        this.maxPendingTasks = maxPendingTasks;
+        String prefix = "h2gis-io-" + POOL_NUMBER.getAndIncrement() + "-";
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return Number of worker threads used by default, the number of available processors
+     */
+    public static int getDefaultThreadCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return True if no more tasks should be submitted before consuming a result
+     */
+    public boolean isFull() {
+        return pendingTasks.size() >= maxPendingTasks;
+    }
+
+    /**
+     * @return True if there is a result to consume
+     */
+    public boolean hasNext() {
+        return !pendingTasks.isEmpty();
+    }
+
+    /**
+     * Run a task on the worker threads
+     * @param task Task to run
+     */
+    public void submit(Callable<T> task) {
+        pendingTasks.add(executor.submit(task));
+    }
+
+    /**
+     * Wait for the result of the oldest pending task
+     * @return The result of the task
+     * @throws IOException The exception thrown by the task, or a wrapped checked exception
+     */
+    public T next() throws IOException {
+        Future<T> task = pendingTasks.poll();
+        if (task == null) {
+            throw new IllegalStateException("No pending task");
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a task");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause.getLocalizedMessage(), cause);
+        }
+    }
+
+    /**
+     * Cancel the pending tasks not yet started, then wait for the running tasks and stop the worker threads.
+     * Running tasks are not interrupted, as interrupting a thread that reads a FileChannel closes the channel.
+     */
+    @Override
+    public void close() {
+        for (Future<T> task : pendingTasks) {
+            task.cancel(false);
+        }
+        pendingTasks.clear();
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Wait for the running tasks, the resources they use are released after this call
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
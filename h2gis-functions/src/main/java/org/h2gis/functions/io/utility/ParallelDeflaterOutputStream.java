@@ -0,0 +1,408 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compress a stream as a gzip file or as a zip file of one entry. The bytes are split into blocks that are
+ * deflated on a pool of threads, then the calling thread writes the compressed blocks in order.
+ *
+ * Each block ends with a sync flush, except the last one, so the blocks are concatenated into a single deflate
+ * stream that any gzip or zip reader can decompress. The last 32 KB of the previous block are used as the
+ * dictionary of a block, the compression ratio is close to the one of a single thread compression.
+ */
+public class ParallelDeflaterOutputStream extends OutputStream {
+    // Number of uncompressed bytes of a block
+    private static final int BLOCK_SIZE = 128 * 1024;
+    // Size of the deflate window
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final OutputStream out;
+    // Entry name, null for a gzip stream
+    private final byte[] entryName;
+    private final int level;
+    private final OrderedPipeline<byte[]> pipeline;
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final CRC32 crc = new CRC32();
+    // Header or trailer, written at once to the output stream
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength = 0;
+    private byte[] previousBlock;
+    private long uncompressedSize = 0;
+    private long compressedSize = 0;
+    private long dosTime;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * Compress the stream as a gzip file
+     *
+     * @param out output stream, closed by this stream
+     * @param threadCount number of threads that compress the blocks, 1 to compress on the calling thread
+     * @throws IOException if the gzip header cannot be written
+     */
+    public ParallelDeflaterOutputStream(OutputStream out, int threadCount) throws IOException {
+        this(out, null, threadCount, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Compress the stream as a zip file that contains a single entry
+     *
+     * @param out output stream, closed by this stream
+     * @param entryName name of the zip entry
+     * @param threadCount number of threads that compress the blocks, 1 to compress on the calling thread
+     * @throws IOException if the local file header cannot be written
+     */
+    public ParallelDeflaterOutputStream(OutputStream out, String entryName, int threadCount) throws IOException {
+        this(out, entryName, threadCount, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param out output stream, closed by this stream
+     * @param entryName name of the zip entry, null to write a gzip file
+     * @param threadCount number of threads that compress the blocks, 1 to compress on the calling thread
+     * @param level compression level, from 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @throws IOException if the header cannot be written
+     */
+    public ParallelDeflaterOutputStream(OutputStream out, String entryName, int threadCount, int level)
+            throws IOException {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count must be positive");
+        }
+        this.out = out;
+        this.entryName = entryName == null ? null : entryName.getBytes(StandardCharsets.UTF_8);
+        this.level = level;
+        this.pipeline = threadCount > 1 ? new OrderedPipeline<>(threadCount, 2 * threadCount) : null;
+        try {
+            writeHeader();
+        } catch (IOException | RuntimeException ex) {
+            closePipeline();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param fileName name of a zip file
+     * @return name of the entry of the zip file, the file name without the .zip extension
+     */
+    public static String getZipEntryName(String fileName) {
+        if (fileName.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            return fileName.substring(0, fileName.length() - 4);
+        }
+        return fileName;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureWritable();
+        if (blockLength == block.length) {
+            submitBlock(false);
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureWritable();
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (blockLength == block.length) {
+                submitBlock(false);
+            }
+            int count = Math.min(len, block.length - blockLength);
+            System.arraycopy(b, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Flush the output stream. As with {@link java.util.zip.GZIPOutputStream}, the bytes of the current block are
+     * not compressed before the block is full or the stream is finished.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        out.flush();
+    }
+
+    /**
+     * Compress the remaining bytes and write the end of the file, without closing the output stream
+     */
+    public void finish() throws IOException {
+        ensureOpen();
+        if (finished) {
+            return;
+        }
+        submitBlock(true);
+        if (pipeline != null) {
+            while (pipeline.hasNext()) {
+                writeCompressed(pipeline.next());
+            }
+        }
+        writeTrailer();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            finish();
+        } finally {
+            closed = true;
+            closePipeline();
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void ensureWritable() throws IOException {
+        ensureOpen();
+        if (finished) {
+            throw new IOException("Stream finished");
+        }
+    }
+
+    private void closePipeline() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compress the current block, then start a new block
+     *
+     * @param last true for the last block, that ends the deflate stream
+     */
+    private void submitBlock(boolean last) throws IOException {
+        byte[] data = block;
+        int length = blockLength;
+        byte[] dictionary = previousBlock;
+        crc.update(data, 0, length);
+        uncompressedSize += length;
+        if (pipeline == null) {
+            writeCompressed(deflate(data, length, dictionary, last));
+        } else {
+            if (pipeline.isFull()) {
+                writeCompressed(pipeline.next());
+            }
+            pipeline.submit(() -> deflate(data, length, dictionary, last));
+        }
+        if (!last) {
+            // The submitted block is read by the task, a new array is used for the next block
+            previousBlock = length >= DICTIONARY_SIZE ? data : null;
+            block = new byte[BLOCK_SIZE];
+            blockLength = 0;
+        }
+    }
+
+    private byte[] deflate(byte[] data, int length, byte[] dictionary, boolean last) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(data, 0, length);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer);
+                    compressed.write(buffer, 0, count);
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            deflater.reset();
+            deflaters.add(deflater);
+            return compressed.toByteArray();
+        } catch (RuntimeException ex) {
+            deflater.end();
+            throw ex;
+        }
+    }
+
+    private void writeCompressed(byte[] compressed) throws IOException {
+        out.write(compressed);
+        compressedSize += compressed.length;
+    }
+
+    private void writeHeader() throws IOException {
+        if (entryName == null) {
+            out.write(GZIP_HEADER);
+            return;
+        }
+        dosTime = toDosTime(LocalDateTime.now());
+        // Local file header, the sizes and the CRC are written in the data descriptor
+        writeInt(0x04034b50L);
+        writeShort(20);
+        writeShort(0x0808);
+        writeShort(Deflater.DEFLATED);
+        writeInt(dosTime);
+        writeInt(0);
+        writeInt(0);
+        writeInt(0);
+        writeShort(entryName.length);
+        writeShort(0);
+        record.write(entryName);
+        record.writeTo(out);
+        record.reset();
+    }
+
+    private void writeTrailer() throws IOException {
+        if (entryName == null) {
+            writeInt(crc.getValue());
+            writeInt(uncompressedSize & 0xFFFFFFFFL);
+            record.writeTo(out);
+            out.flush();
+            return;
+        }
+        long headerSize = 30 + entryName.length;
+        boolean zip64Sizes = uncompressedSize >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        // Data descriptor, with 8 bytes sizes if they do not fit on 4 bytes
+        writeInt(0x08074b50L);
+        writeInt(crc.getValue());
+        if (zip64Sizes) {
+            writeLong(compressedSize);
+            writeLong(uncompressedSize);
+        } else {
+            writeInt(compressedSize);
+            writeInt(uncompressedSize);
+        }
+        long centralOffset = headerSize + compressedSize + (zip64Sizes ? 24 : 16);
+        boolean zip64 = zip64Sizes || centralOffset >= ZIP64_MAGIC;
+        int extraLength = zip64 ? 4 + 8 * 2 : 0;
+        // Central directory file header
+        writeInt(0x02014b50L);
+        writeShort(zip64 ? 45 : 20);
+        writeShort(zip64 ? 45 : 20);
+        writeShort(0x0808);
+        writeShort(Deflater.DEFLATED);
+        writeInt(dosTime);
+        writeInt(crc.getValue());
+        writeInt(zip64 ? ZIP64_MAGIC : compressedSize);
+        writeInt(zip64 ? ZIP64_MAGIC : uncompressedSize);
+        writeShort(entryName.length);
+        writeShort(extraLength);
+        writeShort(0);
+        writeShort(0);
+        writeShort(0);
+        writeInt(0);
+        writeInt(0);
+        record.write(entryName);
+        if (zip64) {
+            // The local header offset is 0, so it is not written in the zip64 extra field
+            writeShort(0x0001);
+            writeShort(16);
+            writeLong(uncompressedSize);
+            writeLong(compressedSize);
+        }
+        long centralSize = 46 + entryName.length + extraLength;
+        if (zip64) {
+            long zip64EndOffset = centralOffset + centralSize;
+            // Zip64 end of central directory record and locator
+            writeInt(0x06064b50L);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(1);
+            writeLong(1);
+            writeLong(centralSize);
+            writeLong(centralOffset);
+            writeInt(0x07064b50L);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+        // End of central directory record
+        writeInt(0x06054b50L);
+        writeShort(0);
+        writeShort(0);
+        writeShort(1);
+        writeShort(1);
+        writeInt(centralSize);
+        writeInt(Math.min(centralOffset, ZIP64_MAGIC));
+        writeShort(0);
+        record.writeTo(out);
+        out.flush();
+    }
+
+    private static long toDosTime(LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (year - 1980) << 25) | ((long) time.getMonthValue() << 21) | ((long) time.getDayOfMonth() << 16)
+                | ((long) time.getHour() << 11) | ((long) time.getMinute() << 5) | (time.getSecond() >> 1);
+    }
+
+    private void writeShort(int value) {
+        record.write(value & 0xFF);
+        record.write((value >>> 8) & 0xFF);
+    }
+
+    private void writeInt(long value) {
+        writeShort((int) (value & 0xFFFF));
+        writeShort((int) ((value >>> 16) & 0xFFFF));
+    }
+
+    private void writeLong(long value) {
+        writeInt(value & 0xFFFFFFFFL);
+        writeInt(value >>> 32);
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.h2.util.geometry.JTSUtils;
+import org.locationtech.jts.geom.Geometry;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Write rows in the binary format of the PostgreSQL COPY command.
+ *
+ * The values are encoded according to the type of the columns of the target table, the geometries are sent
+ * as EWKB. A writer is created only if all the column types are supported, otherwise the rows must be
+ * inserted with a prepared statement.
+ *
+ * The classes of the PostgreSQL driver are only loaded when the target connection is a PostgreSQL one, the
+ * driver is an optional dependency.
+ */
+public class PostgreSQLCopyWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final int BUFFER_SIZE = 65536;
+    // Microseconds and days are counted from 2000-01-01
+    private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final long POSTGRES_EPOCH_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final int NUMERIC_POSITIVE = 0x0000;
+    private static final int NUMERIC_NEGATIVE = 0x4000;
+
+    private final String tableName;
+    private final FieldWriter[] fieldWriters;
+    private final String[] columnTypes;
+    private OutputStream copyStream;
+    private DataOutputStream out;
+
+    /**
+     * Encode a value of a column
+     */
+    private interface FieldWriter {
+        /**
+         * Write the length and the bytes of a non null value
+         */
+        void write(Object value, DataOutputStream out) throws IOException, SQLException;
+    }
+
+    private PostgreSQLCopyWriter(String tableName, String[] columnTypes, FieldWriter[] fieldWriters) {
+        this.tableName = tableName;
+        this.columnTypes = columnTypes;
+        this.fieldWriters = fieldWriters;
+    }
+
+    /**
+     * Create a writer for a PostgreSQL table
+     *
+     * @param connection  target connection
+     * @param tableName   name of the target table, formatted for PostgreSQL
+     * @param columnCount number of columns of the rows to write
+     * @return the writer or null if the connection is not a PostgreSQL one, or if a column type is not supported
+     */
+    public static PostgreSQLCopyWriter create(Connection connection, String tableName, int columnCount) throws SQLException {
+        if (!isPostgreSQLConnection(connection)) {
+            return null;
+        }
+        String[] columnTypes;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM " + tableName + " LIMIT 0")) {
+            ResultSetMetaData metadata = resultSet.getMetaData();
+            if (metadata.getColumnCount() != columnCount) {
+                return null;
+            }
+            columnTypes = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columnTypes[i] = metadata.getColumnTypeName(i + 1);
+            }
+        }
+        return create(tableName, columnTypes);
+    }
+
+    /**
+     * Create a writer from the PostgreSQL type names of the target columns
+     *
+     * @param tableName   name of the target table, formatted for PostgreSQL
+     * @param columnTypes type name of each column, as returned by {@link ResultSetMetaData#getColumnTypeName(int)}
+     * @return the writer or null if a column type is not supported
+     */
+    public static PostgreSQLCopyWriter create(String tableName, String[] columnTypes) {
+        FieldWriter[] fieldWriters = new FieldWriter[columnTypes.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            fieldWriters[i] = getFieldWriter(columnTypes[i]);
+            if (fieldWriters[i] == null) {
+                return null;
+            }
+        }
+        return new PostgreSQLCopyWriter(tableName, columnTypes.clone(), fieldWriters);
+    }
+
+    /**
+     * @return true if the PostgreSQL driver is available and the connection is a PostgreSQL connection
+     */
+    private static boolean isPostgreSQLConnection(Connection connection) throws SQLException {
+        try {
+            Class.forName("org.postgresql.PGConnection", false, PostgreSQLCopyWriter.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+        return PGCopy.isWrapperFor(connection);
+    }
+
+    /**
+     * Start a COPY of the rows in the target table
+     *
+     * @param connection target connection
+     */
+    public void startCopy(Connection connection) throws SQLException, IOException {
+        copyStream = PGCopy.open(connection, "COPY " + tableName + " FROM STDIN (FORMAT binary)");
+        out = new DataOutputStream(new BufferedOutputStream(copyStream, BUFFER_SIZE));
+        writeHeader(out);
+    }
+
+    /**
+     * Send a row to the current COPY
+     *
+     * @param row values of the columns
+     */
+    public void copyRow(Object[] row) throws SQLException, IOException {
+        writeRow(row, out);
+    }
+
+    /**
+     * Send the end of the current COPY, the rows are inserted
+     */
+    public void endCopy() throws IOException {
+        writeTrailer(out);
+        out.close();
+        out = null;
+        copyStream = null;
+    }
+
+    /**
+     * Cancel the current COPY, if any
+     */
+    public void cancelCopy() throws SQLException {
+        if (copyStream != null) {
+            PGCopy.cancel(copyStream);
+            out = null;
+            copyStream = null;
+        }
+    }
+
+    /**
+     * Write the header of the binary format
+     *
+     * @param out output stream
+     */
+    void writeHeader(DataOutputStream out) throws IOException {
+        out.write(SIGNATURE);
+        // Flags and length of the header extension
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    /**
+     * Write the end of the binary format
+     *
+     * @param out output stream
+     */
+    void writeTrailer(DataOutputStream out) throws IOException {
+        out.writeShort(-1);
+    }
+
+    /**
+     * Write a row
+     *
+     * @param row values of the columns
+     * @param out output stream
+     */
+    void writeRow(Object[] row, DataOutputStream out) throws IOException, SQLException {
+        out.writeShort(fieldWriters.length);
+        for (int i = 0; i < fieldWriters.length; i++) {
+            Object value = row[i];
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                try {
+                    fieldWriters[i].write(value, out);
+                } catch (ClassCastException e) {
+                    throw new SQLException("Cannot copy a value of type " + value.getClass().getSimpleName()
+                            + " in a column of type " + columnTypes[i], e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param typeName PostgreSQL type name
+     * @return the encoder of the type or null if the type is not supported
+     */
+    private static FieldWriter getFieldWriter(String typeName) {
+        String type = typeName.replace("\"", "").toLowerCase(Locale.ROOT);
+        // Types of extensions can be prefixed by their schema
+        int dot = type.lastIndexOf('.');
+        if (dot >= 0) {
+            type = type.substring(dot + 1);
+        }
+        switch (type) {
+            case "bool":
+                return (value, out) -> {
+                    out.writeInt(1);
+                    out.writeBoolean((Boolean) value);
+                };
+            case "int2":
+            case "smallserial":
+                return (value, out) -> {
+                    out.writeInt(2);
+                    out.writeShort(((Number) value).shortValue());
+                };
+            case "int4":
+            case "serial":
+                return (value, out) -> {
+                    out.writeInt(4);
+                    out.writeInt(((Number) value).intValue());
+                };
+            case "int8":
+            case "bigserial":
+                return (value, out) -> {
+                    out.writeInt(8);
+                    out.writeLong(((Number) value).longValue());
+                };
+            case "float4":
+                return (value, out) -> {
+                    out.writeInt(4);
+                    out.writeFloat(((Number) value).floatValue());
+                };
+            case "float8":
+                return (value, out) -> {
+                    out.writeInt(8);
+                    out.writeDouble(((Number) value).doubleValue());
+                };
+            case "numeric":
+                return (value, out) -> writeNumeric(toBigDecimal((Number) value), out);
+            case "text":
+            case "varchar":
+            case "bpchar":
+                return (value, out) -> {
+                    String text = value instanceof Character ? value.toString() : (String) value;
+                    writeBytes(text.getBytes(StandardCharsets.UTF_8), out);
+                };
+            case "bytea":
+                return (value, out) -> writeBytes((byte[]) value, out);
+            case "uuid":
+                return (value, out) -> {
+                    UUID uuid = (UUID) value;
+                    out.writeInt(16);
+                    out.writeLong(uuid.getMostSignificantBits());
+                    out.writeLong(uuid.getLeastSignificantBits());
+                };
+            case "date":
+                return (value, out) -> {
+                    LocalDate date = value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate() : (LocalDate) value;
+                    out.writeInt(4);
+                    out.writeInt((int) (date.toEpochDay() - POSTGRES_EPOCH_DAY));
+                };
+            case "timestamp":
+                return (value, out) -> {
+                    LocalDateTime dateTime = value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime() : (LocalDateTime) value;
+                    out.writeInt(8);
+                    out.writeLong(toMicros(dateTime));
+                };
+            case "timestamptz":
+                return (value, out) -> {
+                    Instant instant;
+                    if (value instanceof OffsetDateTime) {
+                        instant = ((OffsetDateTime) value).toInstant();
+                    } else if (value instanceof ZonedDateTime) {
+                        instant = ((ZonedDateTime) value).toInstant();
+                    } else if (value instanceof Timestamp) {
+                        instant = ((Timestamp) value).toInstant();
+                    } else {
+                        instant = (Instant) value;
+                    }
+                    out.writeInt(8);
+                    out.writeLong(toMicros(LocalDateTime.ofInstant(instant, ZoneOffset.UTC)));
+                };
+            case "geometry":
+                return (value, out) -> writeBytes(JTSUtils.geometry2ewkb((Geometry) value), out);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the exact decimal value of a number, or the shortest one for a floating point number
+     */
+    private static BigDecimal toBigDecimal(Number value) throws SQLException {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            double doubleValue = value.doubleValue();
+            if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+                throw new SQLException("Cannot copy the value " + value + " in a numeric column");
+            }
+            return new BigDecimal(value.toString());
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        throw new ClassCastException(value.getClass().getName());
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutputStream out) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @return microseconds from the PostgreSQL epoch, rounded as the server does
+     */
+    private static long toMicros(LocalDateTime dateTime) {
+        long micros = ChronoUnit.MICROS.between(POSTGRES_EPOCH, dateTime.withNano(0))
+                + dateTime.getNano() / 1000;
+        if (dateTime.getNano() % 1000 >= 500) {
+            micros++;
+        }
+        return micros;
+    }
+
+    /**
+     * Write a numeric as base 10000 digits
+     */
+    private static void writeNumeric(BigDecimal value, DataOutputStream out) throws IOException {
+        String plain = value.abs().toPlainString();
+        int dot = plain.indexOf('.');
+        String integerPart = dot < 0 ? plain : plain.substring(0, dot);
+        String fractionPart = dot < 0 ? "" : plain.substring(dot + 1);
+        // Align the integer part and the fraction part on groups of 4 digits
+        StringBuilder digits = new StringBuilder();
+        for (int i = integerPart.length() % 4; i != 0 && i < 4; i++) {
+            digits.append('0');
+        }
+        digits.append(integerPart);
+        int integerGroups = digits.length() / 4;
+        digits.append(fractionPart);
+        while (digits.length() % 4 != 0) {
+            digits.append('0');
+        }
+        short[] groups = new short[digits.length() / 4];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = Short.parseShort(digits.substring(i * 4, i * 4 + 4));
+        }
+        // Leading and trailing zero groups are not stored
+        int first = 0;
+        while (first < groups.length && groups[first] == 0) {
+            first++;
+        }
+        int last = groups.length;
+        while (last > first && groups[last - 1] == 0) {
+            last--;
+        }
+        int count = last - first;
+        out.writeInt(8 + 2 * count);
+        out.writeShort(count);
+        out.writeShort(count == 0 ? 0 : integerGroups - 1 - first);
+        out.writeShort(value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE);
+        out.writeShort(fractionPart.length());
+        for (int i = first; i < last; i++) {
+            out.writeShort(groups[i]);
+        }
+    }
+
+    /**
+     * Access to the PostgreSQL driver, this class is loaded only when the driver is available
+     */
+    private static class PGCopy {
+
+        static boolean isWrapperFor(Connection connection) throws SQLException {
+            return connection.isWrapperFor(PGConnection.class);
+        }
+
+        static OutputStream open(Connection connection, String sql) throws SQLException {
+            return new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, BUFFER_SIZE);
+        }
+
+        static void cancel(OutputStream copyStream) throws SQLException {
+            if (copyStream instanceof PGCopyOutputStream && ((PGCopyOutputStream) copyStream).isActive()) {
+                ((PGCopyOutputStream) copyStream).cancelCopy();
+            }
+        }
+    }
+}
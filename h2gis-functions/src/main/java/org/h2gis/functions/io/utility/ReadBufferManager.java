@@ -20,18 +20,37 @@
 
 package org.h2gis.functions.io.utility;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 
+/**
+ * Read a file through a window cached in memory, or through a memory mapping of the whole file.
+ * The memory mapped mode does not copy the file content on random access. The file is mapped by segments
+ * in order to read files larger than 2 GB.
+ * An instance is not thread safe, use {@link #duplicate()} to read the same file from another thread.
+ */
 public final class ReadBufferManager {
 
+        /**
+         * Size of the mapped segments of the memory mapped mode
+         */
+        public static final long MAPPED_SEGMENT_SIZE = 1L << 30;
+
         private int bufferSize;
         private ByteBuffer buffer;
         private FileChannel channel;
         private long windowStart;
         private long positionInFile;
+        /**
+         * Mapped file segments, null if the file is read through a window
+         */
+        private ByteBuffer[] segments;
+        private long segmentSize;
+        private long mappedLength;
+        private ByteOrder order = ByteOrder.BIG_ENDIAN;
 
         /**
          * Instantiates a ReadBufferManager to read the specified channel
@@ -51,11 +70,114 @@ public final class ReadBufferManager {
          */
         public ReadBufferManager(FileChannel channel, int bufferSize)
                 throws IOException {
+                this(channel, bufferSize, 0);
+        }
+
+        /**
+         * Instantiates a ReadBufferManager to read the specified channel.
+         *
+         * @param channel {@link FileChannel}
+         * @param memoryMapped True to map the file in memory instead of copying the content in a window. The file
+         *                     must not be modified while it is mapped.
+         */
+        public ReadBufferManager(FileChannel channel, boolean memoryMapped) throws IOException {
+                this(channel, memoryMapped ? 0 : 1024 * 32, memoryMapped ? MAPPED_SEGMENT_SIZE : 0);
+        }
+
+        /**
+         * @param channel {@link FileChannel}
+         * @param bufferSize buffer size of the window mode
+         * @param segmentSize size of the mapped segments, 0 to use the window mode
+         */
+        ReadBufferManager(FileChannel channel, int bufferSize, long segmentSize) throws IOException {
+                this.channel = channel;
+                this.bufferSize = bufferSize;
+                if (segmentSize > 0) {
+                        this.segmentSize = segmentSize;
+                        mappedLength = channel.size();
+                        segments = new ByteBuffer[(int) ((mappedLength + segmentSize - 1) / segmentSize)];
+                        for (int i = 0; i < segments.length; i++) {
+                                long start = i * segmentSize;
+                                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                                        Math.min(segmentSize, mappedLength - start));
+                        }
+                        buffer = segments.length > 0 ? segments[0] : ByteBuffer.allocate(0);
+                } else {
+                        buffer = ByteBuffer.allocate(0);
+                        getWindowOffset(0, bufferSize);
+                }
+        }
+
+        /**
+         * Create a manager that reads the same channel with its own position and window. The mapped segments are
+         * shared. The file is read with positional reads, so the two managers can be used concurrently.
+         *
+         * @return A new manager of the same channel
+         */
+        public ReadBufferManager duplicate() {
+                ReadBufferManager copy = new ReadBufferManager(channel, bufferSize, order);
+                if (segments != null) {
+                        copy.segmentSize = segmentSize;
+                        copy.mappedLength = mappedLength;
+                        copy.segments = new ByteBuffer[segments.length];
+                        for (int i = 0; i < segments.length; i++) {
+                                copy.segments[i] = segments[i].duplicate();
+                                copy.segments[i].order(order);
+                        }
+                        if (copy.segments.length > 0) {
+                                copy.buffer = copy.segments[0];
+                        }
+                }
+                return copy;
+        }
+
+        private ReadBufferManager(FileChannel channel, int bufferSize, ByteOrder order) {
                 this.channel = channel;
-                buffer = ByteBuffer.allocate(0);
-                windowStart = 0;
                 this.bufferSize = bufferSize;
-                getWindowOffset(0, bufferSize);
+                this.order = order;
+                // Empty window, filled on the first read
+                buffer = ByteBuffer.allocate(0);
+                buffer.order(order);
+        }
+
+        /**
+         * @return True if the file is memory mapped
+         */
+        public boolean isMemoryMapped() {
+                return segments != null;
+        }
+
+        /**
+         * Select the mapped segment that contains the desired bytes and returns the position of the first byte
+         * in this segment. If the bytes overlap two segments they are copied in a temporary buffer.
+         *
+         * @param bytePos byte position
+         * @param length byte length
+         */
+        private int getSegmentOffset(long bytePos, int length) throws IOException {
+                if (bytePos < 0 || bytePos + length > mappedLength) {
+                        throw new EOFException("Read out of the file bounds at " + bytePos);
+                }
+                int segmentIndex = (int) (bytePos / segmentSize);
+                long segmentStart = segmentIndex * segmentSize;
+                ByteBuffer segment = segments[segmentIndex];
+                if (bytePos + length <= segmentStart + segment.capacity()) {
+                        buffer = segment;
+                        return (int) (bytePos - segmentStart);
+                }
+                ByteBuffer overlap = ByteBuffer.allocate(length);
+                overlap.order(order);
+                long pos = bytePos;
+                while (overlap.hasRemaining()) {
+                        segmentIndex = (int) (pos / segmentSize);
+                        segment = segments[segmentIndex].duplicate();
+                        segment.position((int) (pos - segmentIndex * segmentSize));
+                        segment.limit(Math.min(segment.capacity(), segment.position() + overlap.remaining()));
+                        pos += segment.remaining();
+                        overlap.put(segment);
+                }
+                buffer = overlap;
+                return 0;
         }
 
         /**
@@ -66,6 +188,9 @@ public final class ReadBufferManager {
          * @param length byte length
          */
         private int getWindowOffset(long bytePos, int length) throws IOException {
+                if (segments != null) {
+                        return getSegmentOffset(bytePos, length);
+                }
                 long desiredMax = bytePos + length - 1;
                 if ((bytePos >= windowStart)
                         && (desiredMax < windowStart + buffer.capacity())) {
@@ -85,7 +210,6 @@ public final class ReadBufferManager {
                         }
                         windowStart = bytePos;
 
-                        channel.position(windowStart);
                         if (buffer.capacity() != bufferCapacity) {
                                 ByteOrder order = buffer.order();
                                 buffer = ByteBuffer.allocate((int)bufferCapacity);
@@ -93,7 +217,11 @@ public final class ReadBufferManager {
                         } else {
                                 buffer.clear();
                         }
-                        channel.read(buffer);
+                        // Positional read, the channel may be shared with other managers
+                        while (buffer.hasRemaining()
+                                && channel.read(buffer, windowStart + buffer.position()) > 0) {
+                                // Read until the window is full
+                        }
                         buffer.flip();
                         return (int) (bytePos - windowStart);
                 }
@@ -125,7 +253,13 @@ public final class ReadBufferManager {
          * @param order
          */
         public void order(ByteOrder order) {
+                this.order = order;
                 buffer.order(order);
+                if (segments != null) {
+                        for (ByteBuffer segment : segments) {
+                                segment.order(order);
+                        }
+                }
         }
 
         /**
@@ -219,6 +353,20 @@ public final class ReadBufferManager {
                 return this.buffer.get(buffer);
         }
 
+        /**
+         * Copy bytes at the specified position
+         *
+         * @param pos position in the file
+         * @param dst destination array
+         * @param offset offset in the destination array
+         * @param length number of bytes to copy
+         */
+        public void get(long pos, byte[] dst, int offset, int length) throws IOException {
+                int windowOffset = getWindowOffset(pos, length);
+                this.buffer.position(windowOffset);
+                this.buffer.get(dst, offset, length);
+        }
+
         /**
          * Moves the current position to the specified one
          *
@@ -265,6 +413,9 @@ public final class ReadBufferManager {
          * @return true if the current position is at the end of the channel
          */
         public boolean isEOF() throws IOException {
+                if (segments != null) {
+                        return positionInFile >= mappedLength;
+                }
                 return (buffer.remaining() == 0)
                         && (windowStart + buffer.capacity() >= channel.size());
         }
@@ -276,6 +427,9 @@ public final class ReadBufferManager {
          * @return a number of bytes &gt;=0
          */
         public long remaining() throws IOException {
+                if (segments != null) {
+                        return mappedLength - positionInFile;
+                }
                 return channel.size() - windowStart - buffer.position();
         }
 }
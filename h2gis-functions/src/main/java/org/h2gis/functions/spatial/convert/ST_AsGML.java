@@ -21,14 +21,16 @@
 package org.h2gis.functions.spatial.convert;
 
 import org.h2gis.api.DeterministicScalarFunction;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.io.gml2.GMLWriter;
+import org.h2gis.functions.io.utility.CoordinateFormatter;
+import org.locationtech.jts.geom.*;
 
 /**
  * Store a geometry as a GML representation
  * @author Erwan Bocher
  */
 public class ST_AsGML extends DeterministicScalarFunction{
+
+    private static final int MAX_COORDINATES_PER_LINE = 10;
     
     public ST_AsGML(){
         addProperty(PROP_REMARKS, "Store a geometry as a GML representation.\n"
@@ -49,12 +51,140 @@ public class ST_AsGML extends DeterministicScalarFunction{
         if (geom == null) {
             return null;
         }
-        int srid = geom.getSRID();
-        GMLWriter gmlw = new GMLWriter();
-        if (srid != -1 || srid != 0) {
-            gmlw.setSrsName("EPSG:" + geom.getSRID());
+        StringBuilder sb = new StringBuilder();
+        toGML(geom, "EPSG:" + geom.getSRID(), new CoordinateFormatter(), 0, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Write a geometry with the layout of the JTS GMLWriter. The srsName is
+     * written on the root geometry and on the members of a
+     * GeometryCollection.
+     *
+     * @param geom input geometry
+     * @param srsName srsName attribute
+     * @param formatter coordinate formatter
+     * @param level indentation level
+     * @param sb buffer to store the GML
+     */
+    private static void toGML(Geometry geom, String srsName, CoordinateFormatter formatter, int level, StringBuilder sb) {
+        if (geom instanceof Point) {
+            toGMLPoint((Point) geom, srsName, formatter, level, sb);
+        } else if (geom instanceof LineString) {
+            toGMLLineString("LineString", (LineString) geom, srsName, formatter, level, sb);
+        } else if (geom instanceof Polygon) {
+            toGMLPolygon((Polygon) geom, srsName, formatter, level, sb);
+        } else if (geom instanceof MultiPoint) {
+            startGeomTag("MultiPoint", srsName, level, sb);
+            for (int i = 0; i < geom.getNumGeometries(); i++) {
+                startGeomTag("pointMember", null, level + 1, sb);
+                toGMLPoint((Point) geom.getGeometryN(i), null, formatter, level + 2, sb);
+                endGeomTag("pointMember", level + 1, sb);
+            }
+            endGeomTag("MultiPoint", level, sb);
+        } else if (geom instanceof MultiLineString) {
+            startGeomTag("MultiLineString", srsName, level, sb);
+            for (int i = 0; i < geom.getNumGeometries(); i++) {
+                startGeomTag("lineStringMember", null, level + 1, sb);
+                toGMLLineString("LineString", (LineString) geom.getGeometryN(i), null, formatter, level + 2, sb);
+                endGeomTag("lineStringMember", level + 1, sb);
+            }
+            endGeomTag("MultiLineString", level, sb);
+        } else if (geom instanceof MultiPolygon) {
+            startGeomTag("MultiPolygon", srsName, level, sb);
+            for (int i = 0; i < geom.getNumGeometries(); i++) {
+                startGeomTag("polygonMember", null, level + 1, sb);
+                toGMLPolygon((Polygon) geom.getGeometryN(i), null, formatter, level + 2, sb);
+                endGeomTag("polygonMember", level + 1, sb);
+            }
+            endGeomTag("MultiPolygon", level, sb);
+        } else if (geom instanceof GeometryCollection) {
+            startGeomTag("MultiGeometry", srsName, level, sb);
+            for (int i = 0; i < geom.getNumGeometries(); i++) {
+                startGeomTag("geometryMember", null, level + 1, sb);
+                toGML(geom.getGeometryN(i), srsName, formatter, level + 2, sb);
+                endGeomTag("geometryMember", level + 1, sb);
+            }
+            endGeomTag("MultiGeometry", level, sb);
+        } else {
+            throw new IllegalArgumentException("Unhandled geometry type: " + geom.getGeometryType());
+        }
+    }
+
+    private static void toGMLPoint(Point point, String srsName, CoordinateFormatter formatter, int level, StringBuilder sb) {
+        startGeomTag("Point", srsName, level, sb);
+        toGMLCoordinates(point.getCoordinateSequence(), formatter, level + 1, sb);
+        endGeomTag("Point", level, sb);
+    }
+
+    private static void toGMLLineString(String tag, LineString lineString, String srsName, CoordinateFormatter formatter,
+                                        int level, StringBuilder sb) {
+        startGeomTag(tag, srsName, level, sb);
+        toGMLCoordinates(lineString.getCoordinateSequence(), formatter, level + 1, sb);
+        endGeomTag(tag, level, sb);
+    }
+
+    private static void toGMLPolygon(Polygon polygon, String srsName, CoordinateFormatter formatter, int level, StringBuilder sb) {
+        startGeomTag("Polygon", srsName, level, sb);
+        startGeomTag("outerBoundaryIs", null, level + 1, sb);
+        toGMLLineString("LinearRing", polygon.getExteriorRing(), null, formatter, level + 2, sb);
+        endGeomTag("outerBoundaryIs", level + 1, sb);
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+            startGeomTag("innerBoundaryIs", null, level + 1, sb);
+            toGMLLineString("LinearRing", polygon.getInteriorRingN(i), null, formatter, level + 2, sb);
+            endGeomTag("innerBoundaryIs", level + 1, sb);
+        }
+        endGeomTag("Polygon", level, sb);
+    }
+
+    /**
+     * Write the coordinates, ten per line. The z are written when the first
+     * coordinate has a z.
+     */
+    private static void toGMLCoordinates(CoordinateSequence seq, CoordinateFormatter formatter, int level, StringBuilder sb) {
+        startGeomTag("coordinates", null, level, sb);
+        int size = seq.size();
+        boolean hasZ = size > 0 && !Double.isNaN(seq.getZ(0));
+        boolean isNewLine = true;
+        for (int i = 0; i < size; i++) {
+            if (isNewLine) {
+                indent(level + 1, sb);
+                isNewLine = false;
+            }
+            formatter.append(sb, seq.getX(i)).append(',');
+            formatter.append(sb, seq.getY(i));
+            if (hasZ) {
+                formatter.append(sb.append(','), seq.getZ(i));
+            }
+            sb.append(' ');
+            if ((i + 1) % MAX_COORDINATES_PER_LINE == 0 && i < size - 1) {
+                sb.append('\n');
+                isNewLine = true;
+            }
+        }
+        if (!isNewLine) {
+            sb.append('\n');
         }
-        return gmlw.write(geom);
+        endGeomTag("coordinates", level, sb);
     }
 
+    private static void startGeomTag(String tag, String srsName, int level, StringBuilder sb) {
+        indent(level, sb);
+        sb.append("<gml:").append(tag);
+        if (srsName != null) {
+            sb.append(" srsName='").append(srsName).append('\'');
+        }
+        sb.append(">\n");
+    }
+
+    private static void endGeomTag(String tag, int level, StringBuilder sb) {
+        indent(level, sb);
+        sb.append("</gml:").append(tag).append(">\n");
+    }
+
+    private static void indent(int level, StringBuilder sb) {
+        for (int i = 0; i < level; i++) {
+            sb.append("  ");
+        }
+    }
 }
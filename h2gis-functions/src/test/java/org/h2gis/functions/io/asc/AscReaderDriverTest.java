@@ -22,6 +22,7 @@ package org.h2gis.functions.io.asc;
 
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.functions.io.utility.ImportOptions;
 import org.h2gis.postgis_jts.PostGISDBFactory;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
@@ -36,6 +37,8 @@ import org.locationtech.jts.geom.GeometryFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -310,6 +313,32 @@ public class AscReaderDriverTest {
     }
 
 
+    @Test
+    public void testReadValuesAcrossLines() throws IOException, SQLException {
+        // No NODATA_VALUE, the rows are not aligned on the lines, various number forms
+        File file = new File("target/values_across_lines.asc");
+        Files.write(file.toPath(), ("ncols 3\nnrows 2\nxllcorner 0\nyllcorner 0\ncellsize 1\n"
+                + "1.5 -2 3e2\n 4.25E-1\t0.1234567890123456789\r\n-.75 \n").getBytes(StandardCharsets.US_ASCII));
+        Statement st = connection.createStatement();
+        for (int threadCount : new int[]{1, 4}) {
+            AscReaderDriver reader = new AscReaderDriver();
+            reader.setThreadCount(threadCount);
+            reader.setDeleteTable(true);
+            reader.read(connection, file, new EmptyProgressVisitor(), "VALUES_ACROSS_LINES", 0);
+            try (ResultSet rs = st.executeQuery("SELECT PK, ST_X(THE_GEOM) X, ST_Y(THE_GEOM) Y, Z FROM VALUES_ACROSS_LINES ORDER BY PK")) {
+                double[] expected = {1.5, -2, 300, 0.425, 0.1234567890123456789, -0.75};
+                for (int i = 0; i < expected.length; i++) {
+                    assertTrue(rs.next());
+                    assertEquals(i, rs.getInt("PK"));
+                    assertEquals(i % 3 + 0.5, rs.getDouble("X"));
+                    assertEquals(1.5 - i / 3, rs.getDouble("Y"));
+                    assertEquals(expected[i], rs.getDouble("Z"));
+                }
+                assertFalse(rs.next());
+            }
+        }
+    }
+
     @Test
     public void testASCRead() throws IOException, SQLException {
         Statement st = connection.createStatement();
@@ -453,4 +482,73 @@ public class AscReaderDriverTest {
         }
         st.execute("DROP TABLE PRECIP30MIN_ASC IF EXISTS");        
     }
+
+    @Test
+    public void testReadPrecipTiles() throws IOException, SQLException {
+        Statement st = connection.createStatement();
+        st.execute("DROP TABLE IF EXISTS PRECIP30MIN, PRECIP30MIN_TILES");
+        File file = new File(AscReaderDriverTest.class.getResource("precip30min.asc").getPath());
+        AscReaderDriver reader = new AscReaderDriver();
+        reader.read(connection, file, new EmptyProgressVisitor(), "PRECIP30MIN", 4326);
+        reader.setImportOptions(new ImportOptions("tileSize=4", ImportOptions.TILE_SIZE));
+        reader.read(connection, file, new EmptyProgressVisitor(), "PRECIP30MIN_TILES", 4326);
+
+        // 15 x 20 cells in tiles of 4 x 4 cells
+        assertEquals(4 * 5, JDBCUtilities.getRowCount(connection, TableLocation.parse("PRECIP30MIN_TILES", DBTypes.H2GIS)));
+        assertTrue(JDBCUtilities.isSpatialIndexed(connection, "PRECIP30MIN_TILES", "THE_GEOM"));
+        try (ResultSet rs = st.executeQuery("SELECT ST_ASTEXT(THE_GEOM), CELL_SIZE FROM PRECIP30MIN_TILES WHERE TILE_ROW = 4 AND TILE_COL = 3")) {
+            assertTrue(rs.next());
+            assertEquals("POLYGON ((-174 -90, -174 -88, -172.5 -88, -172.5 -90, -174 -90))", rs.getString(1));
+            assertEquals(0.5, rs.getDouble(2));
+        }
+
+        // Sample each cell center and each cell corner
+        try (ResultSet rs = st.executeQuery("SELECT P.Z, (SELECT ST_TileValue(T.DATA, P.THE_GEOM) FROM PRECIP30MIN_TILES T"
+                + " WHERE T.THE_GEOM && P.THE_GEOM AND ST_TileValue(T.DATA, P.THE_GEOM) IS NOT NULL),"
+                + " (SELECT ST_TileValue(T.DATA, P.CORNER) FROM PRECIP30MIN_TILES T"
+                + " WHERE T.THE_GEOM && P.CORNER AND ST_TileValue(T.DATA, P.CORNER) IS NOT NULL)"
+                + " FROM (SELECT Z, THE_GEOM, ST_TRANSLATE(ST_FORCE2D(THE_GEOM), -0.25, 0.25) CORNER FROM PRECIP30MIN) P")) {
+            int count = 0;
+            while (rs.next()) {
+                assertEquals(rs.getDouble(1), rs.getDouble(2));
+                assertEquals(rs.getDouble(1), rs.getDouble(3));
+                count++;
+            }
+            assertEquals(299, count);
+        }
+        // Nodata cell
+        try (ResultSet rs = st.executeQuery("SELECT ST_TileValue(DATA, ST_SETSRID(ST_MAKEPOINT(-177.25, -84.25), 4326))"
+                + " FROM PRECIP30MIN_TILES WHERE THE_GEOM && ST_SETSRID(ST_MAKEPOINT(-177.25, -84.25), 4326)")) {
+            assertTrue(rs.next());
+            assertNull(rs.getObject(1));
+            assertFalse(rs.next());
+        }
+
+        // Expand all the tiles
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*), SUM(Z) FROM ST_TileCells('PRECIP30MIN_TILES', null)")) {
+            assertTrue(rs.next());
+            assertEquals(299, rs.getInt(1));
+            assertEquals(JDBCUtilities.getRowCount(connection, "PRECIP30MIN"), rs.getInt(1));
+        }
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM ST_TileCells('PRECIP30MIN_TILES', null) C"
+                + " JOIN PRECIP30MIN P ON C.THE_GEOM = P.THE_GEOM AND C.Z = P.Z")) {
+            assertTrue(rs.next());
+            assertEquals(299, rs.getInt(1));
+        }
+        // Expand a window as polygons, across four tiles
+        try (ResultSet rs = st.executeQuery("SELECT THE_GEOM, Z FROM ST_TileCells('PRECIP30MIN_TILES',"
+                + " ST_MAKEENVELOPE(-178.2, -88.2, -177.8, -87.8, 4326), true)")) {
+            int count = 0;
+            while (rs.next()) {
+                Geometry cell = (Geometry) rs.getObject(1);
+                assertEquals(4326, cell.getSRID());
+                assertEquals(0.25, cell.getArea(), 1e-12);
+                assertEquals(rs.getDouble(2), cell.getCoordinate().getZ());
+                count++;
+            }
+            assertEquals(4, count);
+        }
+        st.execute(String.format("CALL ASCREAD('%s', 'PRECIP30MIN_TILES', null, 1, false, true, 'tileSize=256', 2)", file.getPath()));
+        assertEquals(1, JDBCUtilities.getRowCount(connection, "PRECIP30MIN_TILES"));
+    }
 }
@@ -25,20 +25,29 @@ import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
 import org.h2gis.functions.io.csv.CSVDriverFunction;
 import org.h2gis.postgis_jts.PostGISDBFactory;
+import org.h2gis.unitTest.GeometryAsserts;
 import org.junit.jupiter.api.*;
+import org.locationtech.jts.geom.Geometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -191,4 +200,100 @@ public class CSVDriverTest {
             }
         }
     }
+
+    @Test
+    public void testTypedImport() throws SQLException, IOException {
+        File csvFile = new File("target/typed.csv");
+        Files.write(csvFile.toPath(), ("\uFEFFid,name, value ,flag,big,zip,lon,lat,empty\r\n"
+                + "1,\"Paris, \"\"city\"\"\",2.5,true,10000000000,00123,2.35,48.85,\r\n"
+                + "2,\"multi\nline\",-1e3,FALSE,-3,75001,-1.55,47.21,\r\n"
+                + "\r\n"
+                + "3,,,,,,,,\r\n"
+                + "\"4\", Nantes ,7,false,12,\"\",,47.2,").getBytes(StandardCharsets.UTF_8));
+        st.execute("DROP TABLE IF EXISTS TYPED_CSV");
+        new CSVDriverFunction().importFile(connection, "TYPED_CSV", csvFile,
+                "typed=true geometry=LON,LAT srid=4326", new EmptyProgressVisitor());
+        try (ResultSet rs = st.executeQuery("SELECT * FROM TYPED_CSV ORDER BY ID")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            assertEquals(10, metaData.getColumnCount());
+            assertEquals(Types.INTEGER, metaData.getColumnType(1));
+            assertEquals(Types.VARCHAR, metaData.getColumnType(2));
+            assertEquals("VALUE", metaData.getColumnName(3));
+            assertEquals(Types.DOUBLE, metaData.getColumnType(3));
+            assertEquals(Types.BOOLEAN, metaData.getColumnType(4));
+            assertEquals(Types.BIGINT, metaData.getColumnType(5));
+            // Leading zeros are kept
+            assertEquals(Types.VARCHAR, metaData.getColumnType(6));
+            assertEquals(Types.DOUBLE, metaData.getColumnType(7));
+            assertEquals(Types.VARCHAR, metaData.getColumnType(9));
+            assertEquals("THE_GEOM", metaData.getColumnName(10));
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt("ID"));
+            assertEquals("Paris, \"city\"", rs.getString("NAME"));
+            assertEquals(2.5, rs.getDouble("VALUE"));
+            assertTrue(rs.getBoolean("FLAG"));
+            assertEquals(10000000000L, rs.getLong("BIG"));
+            assertEquals("00123", rs.getString("ZIP"));
+            assertNull(rs.getObject("EMPTY"));
+            Geometry point = (Geometry) rs.getObject("THE_GEOM");
+            assertEquals(4326, point.getSRID());
+            GeometryAsserts.assertGeometryEquals("SRID=4326;POINT (2.35 48.85)", point);
+            assertTrue(rs.next());
+            assertEquals("multi\nline", rs.getString("NAME"));
+            assertEquals(-1000, rs.getDouble("VALUE"));
+            assertFalse(rs.getBoolean("FLAG"));
+            assertTrue(rs.next());
+            assertEquals(3, rs.getInt("ID"));
+            assertNull(rs.getObject("NAME"));
+            assertNull(rs.getObject("VALUE"));
+            assertNull(rs.getObject("FLAG"));
+            assertNull(rs.getObject("THE_GEOM"));
+            assertTrue(rs.next());
+            assertEquals(4, rs.getInt("ID"));
+            assertEquals("Nantes", rs.getString("NAME"));
+            assertEquals("", rs.getString("ZIP"));
+            assertNull(rs.getObject("THE_GEOM"));
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testTypedImportWKT() throws SQLException, IOException {
+        File csvFile = new File("target/typed_wkt.csv");
+        StringBuilder content = new StringBuilder("ID;WKT;NAME\n");
+        long sum = 0;
+        for (int i = 0; i < 20000; i++) {
+            content.append(i).append(";'POINT (").append(i).append(" ").append(i * 0.5).append(")';'row ")
+                    .append(i).append("'\n");
+            sum += i;
+        }
+        Files.write(csvFile.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        st.execute("DROP TABLE IF EXISTS TYPED_WKT");
+        new CSVDriverFunction().importFile(connection, "TYPED_WKT", csvFile,
+                "typed=true fieldSeparator=; fieldDelimiter=' geometry=WKT srid=2154", new EmptyProgressVisitor());
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*), SUM(ID), SUM(ST_Y(WKT)), MIN(ST_SRID(WKT)) FROM TYPED_WKT"
+                + " WHERE NAME = 'row ' || ID AND ST_X(WKT) = ID")) {
+            assertTrue(rs.next());
+            assertEquals(20000, rs.getInt(1));
+            assertEquals(sum, rs.getLong(2));
+            assertEquals(sum * 0.5, rs.getDouble(3));
+            assertEquals(2154, rs.getInt(4));
+        }
+    }
+
+    @Test
+    public void testTypedImportSample() throws SQLException, IOException {
+        File csvFile = new File("target/typed_sample.csv");
+        Files.write(csvFile.toPath(), "A,B\n1,2\n2,3.5\nx,4\n".getBytes(StandardCharsets.UTF_8));
+        st.execute("DROP TABLE IF EXISTS TYPED_SAMPLE");
+        SQLException ex = assertThrows(SQLException.class, () -> new CSVDriverFunction().importFile(connection,
+                "TYPED_SAMPLE", csvFile, "typed=true sampleSize=2", new EmptyProgressVisitor()));
+        assertTrue(ex.getMessage().contains("column A in the line 4"), ex.getMessage());
+        st.execute("DROP TABLE IF EXISTS TYPED_SAMPLE");
+        new CSVDriverFunction().importFile(connection, "TYPED_SAMPLE", csvFile, "typed=true", new EmptyProgressVisitor());
+        try (ResultSet rs = st.executeQuery("SELECT A, B FROM TYPED_SAMPLE")) {
+            assertEquals(Types.VARCHAR, rs.getMetaData().getColumnType(1));
+            assertEquals(Types.DOUBLE, rs.getMetaData().getColumnType(2));
+        }
+    }
 }
@@ -3,9 +3,17 @@ package org.h2gis.functions.io.dbf.internal;
 import org.h2gis.functions.io.shp.SHPEngineTest;
 import org.junit.jupiter.api.Test;
 
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueBoolean;
+import org.h2.value.ValueDouble;
+import org.h2.value.ValueInteger;
+import org.h2.value.ValueNull;
+import org.h2.value.ValueVarchar;
+
 import java.io.File;
 import java.io.IOException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -18,4 +26,86 @@ public class DBFDriverTest {
         dbfDriver.initDriverFromFile(new File(SHPEngineTest.class.getResource("waternetwork.dbf").getFile()));
         assertTrue(dbfDriver.dbaseFileReader.getPositionFor(11000000, 0) > Integer.MAX_VALUE);
     }
+
+    @Test
+    public void testGetRows() throws IOException {
+        DBFDriver dbfDriver = new DBFDriver();
+        dbfDriver.initDriverFromFile(new File(SHPEngineTest.class.getResource("waternetwork.dbf").getFile()));
+        try {
+            int fieldCount = dbfDriver.getFieldCount();
+            Object[][] buffer = new Object[20][fieldCount];
+            assertEquals(20, dbfDriver.getRows(10, 20, new int[]{0, fieldCount - 1}, buffer));
+            for (int row = 0; row < 20; row++) {
+                assertEquals(dbfDriver.getField(10 + row, 0), buffer[row][0]);
+                assertEquals(dbfDriver.getField(10 + row, fieldCount - 1), buffer[row][fieldCount - 1]);
+            }
+            long rowCount = dbfDriver.getRowCount();
+            assertEquals(1, dbfDriver.getRows(rowCount - 1, 20, new int[]{1}, buffer));
+            assertEquals(dbfDriver.getField(rowCount - 1, 1), buffer[0][1]);
+        } finally {
+            dbfDriver.close();
+        }
+    }
+
+    @Test
+    public void testMemoryMappedDbf() throws IOException {
+        File file = new File(SHPEngineTest.class.getResource("waternetwork.dbf").getFile());
+        DBFDriver dbfDriver = new DBFDriver();
+        dbfDriver.initDriverFromFile(file);
+        DBFDriver mappedDriver = new DBFDriver();
+        mappedDriver.setMemoryMapped(true);
+        mappedDriver.initDriverFromFile(file);
+        try {
+            assertEquals(dbfDriver.getRowCount(), mappedDriver.getRowCount());
+            // Random access
+            for (long row = dbfDriver.getRowCount() - 1; row >= 0; row -= 7) {
+                for (int column = 0; column < dbfDriver.getFieldCount(); column++) {
+                    assertEquals(dbfDriver.getField(row, column), mappedDriver.getField(row, column));
+                }
+            }
+        } finally {
+            dbfDriver.close();
+            mappedDriver.close();
+        }
+    }
+
+    @Test
+    public void testReadFieldTypes() throws Exception {
+        File file = new File("target/dbf_field_types.dbf");
+        DbaseFileHeader header = new DbaseFileHeader();
+        header.setEncoding("UTF-8");
+        header.addColumn("NAME", 'C', 20, 0);
+        header.addColumn("NUM", 'N', 10, 0);
+        header.addColumn("BIG", 'N', 19, 0);
+        header.addColumn("DBL", 'N', 12, 4);
+        header.addColumn("FLAG", 'L', 1, 0);
+        header.setNumRecords(3);
+        DBFDriver writer = new DBFDriver();
+        writer.initDriver(file, header);
+        writer.insertRow(new Object[]{"abc", 12, 12345678901234L, 1.5, true});
+        writer.insertRow(new Object[]{"  éléphant", -3, -7L, -0.25, false});
+        writer.insertRow(new Object[]{null, null, null, null, null});
+        writer.close();
+        DBFDriver dbfDriver = new DBFDriver();
+        dbfDriver.initDriverFromFile(file);
+        try {
+            assertEquals(3, dbfDriver.getRowCount());
+            assertEquals(ValueVarchar.get("abc"), dbfDriver.getField(0, 0));
+            assertEquals(ValueInteger.get(12), dbfDriver.getField(0, 1));
+            assertEquals(ValueBigint.get(12345678901234L), dbfDriver.getField(0, 2));
+            assertEquals(ValueDouble.get(1.5), dbfDriver.getField(0, 3));
+            assertEquals(ValueBoolean.TRUE, dbfDriver.getField(0, 4));
+            // Non ASCII characters are decoded with the file encoding
+            assertEquals(ValueVarchar.get("éléphant"), dbfDriver.getField(1, 0));
+            assertEquals(ValueInteger.get(-3), dbfDriver.getField(1, 1));
+            assertEquals(ValueInteger.get(-7), dbfDriver.getField(1, 2));
+            assertEquals(ValueDouble.get(-0.25), dbfDriver.getField(1, 3));
+            assertEquals(ValueBoolean.FALSE, dbfDriver.getField(1, 4));
+            for (int column = 0; column < 5; column++) {
+                assertEquals(ValueNull.INSTANCE, dbfDriver.getField(2, column));
+            }
+        } finally {
+            dbfDriver.close();
+        }
+    }
 }
@@ -3,6 +3,7 @@ package org.h2gis.functions.io.fgb;
 import org.h2.index.Cursor;
 import org.h2.value.Value;
 import org.h2.value.ValueVarchar;
+import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
 import org.h2gis.functions.io.fgb.fileTable.FGBDriver;
 import org.h2gis.utilities.JDBCUtilities;
@@ -15,24 +16,33 @@ import org.locationtech.jts.geom.Geometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wololo.flatgeobuf.ColumnMeta;
+import org.wololo.flatgeobuf.NodeItem;
+import org.wololo.flatgeobuf.PackedRTree;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FGBImportExportTest {
@@ -138,6 +148,22 @@ public class FGBImportExportTest {
         }
     }
 
+    @Test
+    public void testImportSpatialIndex() throws Exception {
+        try (Statement stat = connection.createStatement()) {
+            String path = "'" + FGBImportExportTest.class.getResource("countries.fgb") + "'";
+            stat.execute("CALL FGBRead(" + path + ", 'COUNTRIES_FGB', 'spatialIndex=true', true);");
+            assertTrue(JDBCUtilities.isSpatialIndexed(connection, "COUNTRIES_FGB", "THE_GEOM"));
+            stat.execute("CALL FGBRead(" + path + ", 'COUNTRIES_FGB', true);");
+            assertFalse(JDBCUtilities.isSpatialIndexed(connection, "COUNTRIES_FGB", "THE_GEOM"));
+            stat.execute("DROP TABLE COUNTRIES_FGB");
+            stat.execute("CALL FGBRead(" + path + ", 'COUNTRIES_FGB', 'bulkLoad=true');");
+            assertFalse(JDBCUtilities.isSpatialIndexed(connection, "COUNTRIES_FGB", "THE_GEOM"));
+            assertThrows(SQLException.class, () -> stat.execute("CALL FGBRead(" + path
+                    + ", 'COUNTRIES_FGB', 'spatialindex=ture', true);"));
+        }
+    }
+
     /**
      * Use externally generated FGP and GeoJSON files from flatgeobuf repository
      */
@@ -209,6 +235,67 @@ public class FGBImportExportTest {
         assertEquals("KWT", ((ValueVarchar) idObj).getString());
     }
 
+    @Test
+    public void testFGBGetRows() throws Exception {
+        FGBDriver fgbDriver = new FGBDriver();
+        File file = URIUtilities.fileFromString(Objects.requireNonNull(FGBImportExportTest.class.getResource(
+                "countries.fgb")).getFile());
+        fgbDriver.initDriverFromFile(file);
+        try {
+            Object[][] buffer = new Object[10][fgbDriver.getFieldCount()];
+            assertEquals(10, fgbDriver.getRows(45, 10, new int[]{1}, buffer));
+            assertEquals("LVA", ((ValueVarchar) buffer[5][1]).getString());
+            // Random access after the batch
+            Object idObj = fgbDriver.getField(35, 1);
+            assertEquals("BTN", ((ValueVarchar) idObj).getString());
+            assertEquals(4, fgbDriver.getRows(175, 10, new int[]{0, 1, 2}, buffer));
+            for (int row = 0; row < 4; row++) {
+                assertEquals(fgbDriver.getField(175 + row, 1), buffer[row][1]);
+                assertEquals(fgbDriver.getField(175 + row, 0), buffer[row][0]);
+            }
+        } finally {
+            fgbDriver.close();
+        }
+    }
+
+    @Test
+    public void testFGBConcurrentReaders() throws Exception {
+        FGBDriver fgbDriver = new FGBDriver();
+        File file = URIUtilities.fileFromString(Objects.requireNonNull(FGBImportExportTest.class.getResource(
+                "countries.fgb")).getFile());
+        fgbDriver.initDriverFromFile(file);
+        try {
+            List<Object> expected = new ArrayList<>();
+            for (long rowId = 0; rowId < fgbDriver.getRowCount(); rowId++) {
+                expected.add(fgbDriver.getField(rowId, 1));
+            }
+            ExecutorService executorService = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<List<Object>>> results = new ArrayList<>();
+                for (int task = 0; task < 8; task++) {
+                    results.add(executorService.submit(() -> {
+                        FGBDriver reader = fgbDriver.createReader();
+                        List<Object> ids = new ArrayList<>();
+                        for (long rowId = 0; rowId < reader.getRowCount(); rowId++) {
+                            ids.add(reader.getField(rowId, 1));
+                        }
+                        reader.close();
+                        return ids;
+                    }));
+                }
+                for (Future<List<Object>> result : results) {
+                    assertIterableEquals(expected, result.get());
+                }
+            } finally {
+                executorService.shutdown();
+            }
+            // Closing the readers does not close the file
+            assertEquals(expected.get(10), fgbDriver.getField(10, 1));
+        } finally {
+            fgbDriver.close();
+        }
+    }
+
     private static <R> List<R> idsFromCursor(Cursor cursor, FGBDriver fgbDriver, String columnName,
                                          Function<? super Value, ? extends R> var1) {
         List<Value> values = new ArrayList<>();
@@ -277,6 +364,114 @@ public class FGBImportExportTest {
         assertEquals("KWT", ((ValueVarchar) idObj).getString());
     }
 
+    @Test
+    public void testWriteHilbertOrder() throws Exception {
+        File tempOutputFile = new File("target/countries_hilbert.fgb");
+        tempOutputFile.deleteOnExit();
+        List<String> fileIds = new ArrayList<>();
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("CALL FGBRead('" + FGBImportExportTest.class.getResource("countries.fgb") + "', 'COUNTRIES_FGB', true);");
+            stat.execute("DROP TABLE IF EXISTS COUNTRIES");
+            stat.execute("CREATE TABLE COUNTRIES AS SELECT * FROM COUNTRIES_FGB ORDER BY ID");
+            stat.execute("CALL FGBWrite('target/countries_hilbert.fgb', 'COUNTRIES', true, 'createIndex=true hilbertOrder=true');");
+            stat.execute("CALL FGBRead('target/countries_hilbert.fgb', 'COUNTRIES_HILBERT', true);");
+            try (ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM COUNTRIES A, COUNTRIES_HILBERT B" +
+                    " WHERE A.ID = B.ID AND A.THE_GEOM = B.THE_GEOM")) {
+                assertTrue(rs.next());
+                assertEquals(179, rs.getInt(1));
+            }
+            // The features are stored along the Hilbert curve of their envelope center
+            List<Envelope> envelopes = new ArrayList<>();
+            NodeItem extent = new NodeItem(0);
+            try (ResultSet rs = stat.executeQuery("SELECT ID, THE_GEOM FROM COUNTRIES_HILBERT ORDER BY _ROWID_")) {
+                while (rs.next()) {
+                    fileIds.add(rs.getString(1));
+                    Envelope envelope = ((Geometry) rs.getObject(2)).getEnvelopeInternal();
+                    envelopes.add(envelope);
+                    extent.expand(new NodeItem(envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY()));
+                }
+            }
+            long previous = -1;
+            for (Envelope envelope : envelopes) {
+                long hilbert = PackedRTree.hibert(new NodeItem(envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(),
+                        envelope.getMaxY()), 65535, extent.minX, extent.minY, extent.width(), extent.height());
+                assertTrue(hilbert >= previous);
+                previous = hilbert;
+            }
+            stat.execute("DROP TABLE COUNTRIES_HILBERT");
+        }
+        FGBDriver fgbDriver = new FGBDriver();
+        fgbDriver.initDriverFromFile(tempOutputFile);
+        fgbDriver.cacheFeatureAddressFromIndex();
+        assertEquals(179, fgbDriver.getRowCount());
+        Cursor cursor = fgbDriver.queryIndex(new Envelope(115.95, 125.031, 5.17, 11.88));
+        assertIterableEquals(Arrays.asList("IDN", "MYS", "PHL"),
+                idsFromCursor(cursor, fgbDriver, "ID", Value::getString));
+        // The index leaves are in the order of the features
+        for (int rowId : new int[]{0, 50, 178}) {
+            assertEquals(fileIds.get(rowId), fgbDriver.getField(rowId, 1).getString());
+        }
+        fgbDriver.close();
+    }
+
+    @Test
+    public void testWriteSpilledFeatureItems() throws Exception {
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("CALL FGBRead('" + FGBImportExportTest.class.getResource("countries.fgb") + "', 'COUNTRIES_FGB', true);");
+            stat.execute("DROP TABLE IF EXISTS COUNTRIES");
+            stat.execute("CREATE TABLE COUNTRIES AS SELECT * FROM COUNTRIES_FGB ORDER BY ID");
+        }
+        for (boolean hilbertOrder : new boolean[]{false, true}) {
+            for (short nodeSize : new short[]{2, 16}) {
+                // The file name is stored in the header
+                File memoryFile = new File("target/fgb_memory/countries.fgb");
+                File spilledFile = new File("target/fgb_spilled/countries.fgb");
+                Files.createDirectories(memoryFile.toPath().getParent());
+                Files.createDirectories(spilledFile.toPath().getParent());
+                FGBWriteDriver writeDriver = new FGBWriteDriver(connection);
+                writeDriver.setHilbertOrder(hilbertOrder);
+                writeDriver.setPackedRTreeNodeSize(nodeSize);
+                writeDriver.write(new EmptyProgressVisitor(), "COUNTRIES", memoryFile, true);
+                // Several sorted runs are merged
+                writeDriver.setSpillThreshold(0);
+                writeDriver.spillRunSize = 16;
+                writeDriver.write(new EmptyProgressVisitor(), "COUNTRIES", spilledFile, true);
+                assertArrayEquals(Files.readAllBytes(memoryFile.toPath()), Files.readAllBytes(spilledFile.toPath()));
+                Files.delete(memoryFile.toPath());
+                Files.delete(spilledFile.toPath());
+            }
+        }
+    }
+
+    @Test
+    public void testLinkedTableSpatialIndex() throws Exception {
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("DROP TABLE IF EXISTS COUNTRIES_LINKED");
+            stat.execute("CALL FILE_TABLE('" + URIUtilities.fileFromString(Objects.requireNonNull(
+                    FGBImportExportTest.class.getResource("countries.fgb")).getFile()) + "', 'COUNTRIES_LINKED');");
+            String query = "SELECT PK, ID FROM COUNTRIES_LINKED WHERE THE_GEOM && " +
+                    "ST_MakeEnvelope(115.95, 5.17, 125.031, 11.88) ORDER BY ID";
+            try (ResultSet rs = stat.executeQuery("EXPLAIN " + query)) {
+                assertTrue(rs.next());
+                assertTrue(rs.getString(1).contains("_SPATIAL_INDEX_"));
+            }
+            List<String> ids = new ArrayList<>();
+            try (ResultSet rs = stat.executeQuery(query)) {
+                while (rs.next()) {
+                    ids.add(rs.getString("ID"));
+                    // The row key must match the feature index
+                    try (ResultSet pkRs = connection.createStatement().executeQuery(
+                            "SELECT ID FROM COUNTRIES_LINKED WHERE PK = " + rs.getLong("PK"))) {
+                        assertTrue(pkRs.next());
+                        assertEquals(rs.getString("ID"), pkRs.getString("ID"));
+                    }
+                }
+            }
+            assertIterableEquals(Arrays.asList("IDN", "MYS", "PHL"), ids);
+            stat.execute("DROP TABLE COUNTRIES_LINKED");
+        }
+    }
+
     @Test
     public void testWriteReadFGBGeometry() throws Exception {
         File file = new File("target/points.fgb");
@@ -28,6 +28,7 @@ import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
 import org.h2gis.functions.factory.H2GISFunctions;
 import org.h2gis.postgis_jts.PostGISDBFactory;
+import org.h2gis.utilities.JDBCUtilities;
 import org.junit.jupiter.api.*;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
@@ -268,6 +269,24 @@ public class GeojsonImportExportTest {
         }
     }
 
+    @Test
+    public void testReadGeojsonSpatialIndex() throws Exception {
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("DROP TABLE IF EXISTS TABLE_POINTS");
+            stat.execute("create table TABLE_POINTS(the_geom GEOMETRY(POINT))");
+            stat.execute("insert into TABLE_POINTS values( 'POINT(1 2)'), ('POINT(10 200)')");
+            stat.execute("CALL GeoJsonWrite('target/points_index.geojson', 'TABLE_POINTS', true);");
+            stat.execute("CALL GeoJsonRead('target/points_index.geojson', 'TABLE_POINTS_READ', 'spatialIndex=true', true);");
+            assertTrue(JDBCUtilities.isSpatialIndexed(connection, "TABLE_POINTS_READ", "THE_GEOM"));
+            assertEquals(2, JDBCUtilities.getRowCount(connection, "TABLE_POINTS_READ"));
+            stat.execute("CALL GeoJsonRead('target/points_index.geojson', 'TABLE_POINTS_READ', true);");
+            assertFalse(JDBCUtilities.isSpatialIndexed(connection, "TABLE_POINTS_READ", "THE_GEOM"));
+            assertThrows(SQLException.class, () -> stat.execute("CALL GeoJsonRead('target/points_index.geojson', "
+                    + "'TABLE_POINTS_READ', 'spatialIndexx=true', true);"));
+            stat.execute("DROP TABLE IF EXISTS TABLE_POINTS, TABLE_POINTS_READ");
+        }
+    }
+
     @Test
     public void testWriteReadGeojsonPointZ() throws Exception {
         try (Statement stat = connection.createStatement()) {
@@ -1489,4 +1508,176 @@ public class GeojsonImportExportTest {
             stat.execute("DROP TABLE IF EXISTS TABLE_POINTS_READ");
         }
     }
+
+    @Test
+    public void testReadWidenSchema() throws Exception {
+        File file = new File("target/widen_schema.geojson");
+        Files.write(file.toPath(), ("{\"type\":\"FeatureCollection\",\"features\":[" +
+                "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]}," +
+                "\"properties\":{\"A\":1,\"B\":null,\"E\":\"x\"}}," +
+                "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[3,4]}," +
+                "\"properties\":{\"A\":2,\"B\":null,\"E\":\"y\"}}," +
+                "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]}," +
+                "\"properties\":{\"A\":2.5,\"C\":\"new\",\"E\":3}}," +
+                "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1,5]]}," +
+                "\"properties\":{\"B\":true,\"D\":[1,2]}}," +
+                "{\"type\":\"Feature\",\"geometry\":null,\"properties\":{\"A\":null}}" +
+                "]}").getBytes());
+        try (Statement stat = connection.createStatement()) {
+            GeoJsonReaderDriver reader = new GeoJsonReaderDriver(connection, file, null, true);
+            reader.setSchemaSampleSize(2);
+            reader.read(new EmptyProgressVisitor(), "WIDEN_STREAM");
+            reader = new GeoJsonReaderDriver(connection, file, null, true);
+            reader.read(new EmptyProgressVisitor(), "WIDEN_SAMPLE");
+            String typesQuery = "SELECT COLUMN_NAME, DATA_TYPE, ORDINAL_POSITION FROM INFORMATION_SCHEMA.COLUMNS " +
+                    "WHERE TABLE_NAME = '%s'";
+            ResultSet res = stat.executeQuery("SELECT COUNT(*) FROM (" + String.format(typesQuery, "WIDEN_STREAM") +
+                    " EXCEPT " + String.format(typesQuery, "WIDEN_SAMPLE") + ")");
+            assertTrue(res.next());
+            assertEquals(0, res.getInt(1));
+            res = stat.executeQuery("SELECT COUNT(*) FROM (SELECT * FROM WIDEN_STREAM EXCEPT SELECT * FROM WIDEN_SAMPLE)");
+            assertTrue(res.next());
+            assertEquals(0, res.getInt(1));
+            res = stat.executeQuery("SELECT * FROM WIDEN_STREAM ORDER BY ST_Length(THE_GEOM), A");
+            ResultSetMetaData metaData = res.getMetaData();
+            assertEquals(6, metaData.getColumnCount());
+            assertEquals("DOUBLE PRECISION", metaData.getColumnTypeName(2));
+            assertEquals("BOOLEAN", metaData.getColumnTypeName(3));
+            assertEquals("CHARACTER VARYING", metaData.getColumnTypeName(4));
+            assertEquals("CHARACTER VARYING", metaData.getColumnTypeName(5));
+            assertEquals("JSON", metaData.getColumnTypeName(6));
+            res = stat.executeQuery("SELECT THE_GEOM FROM WIDEN_STREAM WHERE B");
+            assertTrue(res.next());
+            assertGeometryEquals("LINESTRINGZ(0 0 0, 1 1 5)", res.getObject(1));
+            res = stat.executeQuery("SELECT THE_GEOM, A, E FROM WIDEN_STREAM WHERE C = 'new'");
+            assertTrue(res.next());
+            assertGeometryEquals("LINESTRINGZ(0 0 0, 1 1 0)", res.getObject(1));
+            assertEquals(2.5, res.getDouble(2));
+            assertEquals("3", res.getString(3));
+            stat.execute("DROP TABLE WIDEN_STREAM, WIDEN_SAMPLE");
+        }
+    }
+
+    @Test
+    public void testWriteReadGeoJsonSeq() throws Exception {
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("DROP TABLE IF EXISTS TABLE_SEQ, TABLE_SEQ_READ");
+            stat.execute("create table TABLE_SEQ(the_geom GEOMETRY(GEOMETRY, 4326), id bigint, name varchar, " +
+                    "val double precision, flag boolean)");
+            stat.execute("insert into TABLE_SEQ values('SRID=4326;POINT(1 2)', 1, 'first \"quoted\"', 1.5, true)," +
+                    "('SRID=4326;LINESTRING(1 2, 3 4)', 2, null, 2.5, false)," +
+                    "('SRID=4326;MULTIPOINT((1 2), (3 4))', 3, 'third', null, null)," +
+                    "('SRID=4326;POLYGON((0 0, 1 0, 1 1, 0 0))', 4, 'fourth', 4, true)");
+            for (String extension : new String[]{"geojsonl", "geojsons"}) {
+                File file = new File("target/table_seq." + extension);
+                stat.execute("CALL GeoJsonWrite('" + file.getPath() + "', 'TABLE_SEQ', true);");
+                java.util.List<String> lines = Files.readAllLines(file.toPath());
+                assertEquals(4, lines.size());
+                assertEquals(extension.equals("geojsons"), lines.get(0).charAt(0) == '\u001e');
+                stat.execute("CALL GeoJsonRead('" + file.getPath() + "', 'TABLE_SEQ_READ', true);");
+                ResultSet res = stat.executeQuery("SELECT COUNT(*) FROM (SELECT ST_AsText(THE_GEOM), ID, NAME, VAL, FLAG " +
+                        "FROM TABLE_SEQ EXCEPT SELECT ST_AsText(THE_GEOM), ID, NAME, VAL, FLAG FROM TABLE_SEQ_READ)");
+                assertTrue(res.next());
+                assertEquals(0, res.getInt(1));
+                res = stat.executeQuery("SELECT COUNT(*) FROM TABLE_SEQ_READ");
+                assertTrue(res.next());
+                assertEquals(4, res.getInt(1));
+            }
+            stat.execute("DROP TABLE TABLE_SEQ, TABLE_SEQ_READ");
+        }
+    }
+
+    @Test
+    public void testReadGeoJsonSeqParallel() throws Exception {
+        File file = new File("target/parallel.geojsonl");
+        StringBuilder sb = new StringBuilder();
+        int featureCount = 8000;
+        // Long lines, in order to split the file in several blocks
+        String description = new String(new char[300]).replace('\0', 'd');
+        for (int i = 0; i < featureCount; i++) {
+            sb.append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+                    .append(i).append(',').append(i % 100);
+            // Z values and a new column appear in the last features
+            if (i >= featureCount - 10) {
+                sb.append(',').append(i % 7);
+            }
+            sb.append("]},\"properties\":{\"ID\":").append(i).append(",\"DESCRIPTION\":\"").append(description)
+                    .append("\",\"VAL\":");
+            sb.append(i % 2 == 0 ? String.valueOf(i) : i + ".5");
+            if (i >= featureCount - 10) {
+                sb.append(",\"LATE\":\"value ").append(i).append('"');
+            }
+            sb.append("}}\n");
+        }
+        Files.write(file.toPath(), sb.toString().getBytes());
+        assertTrue(file.length() > 2 * 1024 * 1024);
+        try (Statement stat = connection.createStatement()) {
+            GeoJsonReaderDriver reader = new GeoJsonReaderDriver(connection, file, null, true);
+            reader.setThreadCount(1);
+            reader.read(new EmptyProgressVisitor(), "PARALLEL_1");
+            reader = new GeoJsonReaderDriver(connection, file, null, true);
+            reader.setThreadCount(4);
+            reader.read(new EmptyProgressVisitor(), "PARALLEL_4");
+            ResultSet res = stat.executeQuery("SELECT COUNT(*), SUM(ID), COUNT(LATE), MAX(ST_Z(THE_GEOM)) FROM PARALLEL_4");
+            assertTrue(res.next());
+            assertEquals(featureCount, res.getInt(1));
+            assertEquals((long) featureCount * (featureCount - 1) / 2, res.getLong(2));
+            assertEquals(10, res.getInt(3));
+            assertEquals(6, res.getDouble(4));
+            res = stat.executeQuery("SELECT COLUMN_NAME, DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS " +
+                    "WHERE TABLE_NAME = 'PARALLEL_4' ORDER BY ORDINAL_POSITION");
+            assertTrue(res.next());
+            assertEquals("THE_GEOM", res.getString(1));
+            assertTrue(res.next());
+            assertEquals("ID", res.getString(1));
+            assertEquals("BIGINT", res.getString(2));
+            assertTrue(res.next());
+            assertEquals("DESCRIPTION", res.getString(1));
+            assertTrue(res.next());
+            assertEquals("VAL", res.getString(1));
+            assertEquals("DOUBLE PRECISION", res.getString(2));
+            assertTrue(res.next());
+            assertEquals("LATE", res.getString(1));
+            res = stat.executeQuery("SELECT COUNT(*) FROM (SELECT * FROM PARALLEL_1 EXCEPT SELECT * FROM PARALLEL_4)");
+            assertTrue(res.next());
+            assertEquals(0, res.getInt(1));
+            res = stat.executeQuery("SELECT ST_Z(THE_GEOM) FROM PARALLEL_4 WHERE ID = 0");
+            assertTrue(res.next());
+            assertEquals(0, res.getDouble(1));
+            stat.execute("DROP TABLE PARALLEL_1, PARALLEL_4");
+        }
+    }
+
+    @Test
+    public void testWriteGeoJsonParallel() throws Exception {
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("DROP TABLE IF EXISTS TABLE_PARALLEL");
+            stat.execute("CREATE TABLE TABLE_PARALLEL(ID INT PRIMARY KEY, NAME VARCHAR, VAL DOUBLE PRECISION, " +
+                    "THE_GEOM GEOMETRY(GEOMETRY, 4326)) AS SELECT X, 'name ' || X, X / 3.0, CASE MOD(X, 4) " +
+                    "WHEN 0 THEN ST_SetSRID(ST_MakePoint(X, X / 7.0, X), 4326) " +
+                    "WHEN 1 THEN ST_SetSRID(ST_MakeLine(ST_MakePoint(X, 0), ST_MakePoint(0, X / 3.0)), 4326) " +
+                    "WHEN 2 THEN ST_SetSRID(ST_Expand(ST_MakePoint(X, X), 0.5), 4326) " +
+                    "ELSE ST_GeomFromText('MULTIPOINT((' || X || ' 1), (1 ' || X || '))', 4326) END " +
+                    "FROM SYSTEM_RANGE(1, 2000)");
+            for (String table : new String[]{"TABLE_PARALLEL", "(SELECT * FROM TABLE_PARALLEL WHERE ID < 1500)"}) {
+                for (String extension : new String[]{"geojson", "geojsonl", "gz"}) {
+                    File serialFile = new File("target/write_serial." + extension);
+                    File parallelFile = new File("target/write_parallel." + extension);
+                    GeoJsonWriteDriver writer = new GeoJsonWriteDriver(connection);
+                    writer.setThreadCount(1);
+                    writer.write(new EmptyProgressVisitor(), table, serialFile, null, true);
+                    writer = new GeoJsonWriteDriver(connection);
+                    writer.setThreadCount(4);
+                    writer.write(new EmptyProgressVisitor(), table, parallelFile, null, true);
+                    assertArrayEquals(Files.readAllBytes(serialFile.toPath()), Files.readAllBytes(parallelFile.toPath()));
+                }
+            }
+            stat.execute("CALL GeoJsonRead('target/write_parallel.geojson', 'TABLE_PARALLEL_READ', true)");
+            ResultSet res = stat.executeQuery("SELECT COUNT(*) FROM TABLE_PARALLEL A, TABLE_PARALLEL_READ B " +
+                    "WHERE A.ID = B.ID AND A.NAME = B.NAME AND ST_Equals(A.THE_GEOM, B.THE_GEOM)");
+            assertTrue(res.next());
+            assertEquals(1499, res.getInt(1));
+            stat.execute("DROP TABLE TABLE_PARALLEL, TABLE_PARALLEL_READ");
+        }
+    }
 }
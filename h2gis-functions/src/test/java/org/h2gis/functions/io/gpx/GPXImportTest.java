@@ -25,7 +25,9 @@ import org.h2.util.StringUtils;
 import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
 import org.h2gis.functions.factory.H2GISFunctions;
+import org.h2gis.functions.io.gpx.model.GpxParser;
 import org.h2gis.postgis_jts.PostGISDBFactory;
+import org.h2gis.utilities.JDBCUtilities;
 import org.junit.jupiter.api.*;
 import org.locationtech.jts.geom.Geometry;
 import org.slf4j.Logger;
@@ -109,6 +111,23 @@ public class GPXImportTest {
         });
     }
 
+    @Test
+    public void importGPXSpatialIndex() throws SQLException {
+        st.execute("DROP TABLE IF EXISTS GPXDATA_WAYPOINT, GPXDATA_ROUTE, GPXDATA_ROUTEPOINT,GPXDATA_TRACK, GPXDATA_TRACKSEGMENT, GPXDATA_TRACKPOINT;");
+        st.execute("CALL GPXRead(" + StringUtils.quoteStringSQL(GPXImportTest.class.getResource("route.gpx").getPath()) + ", 'GPXDATA', 'bulkLoad=true spatialIndex=true');");
+        assertTrue(JDBCUtilities.isSpatialIndexed(connection, "GPXDATA_ROUTE", "THE_GEOM"));
+        assertTrue(JDBCUtilities.isSpatialIndexed(connection, "GPXDATA_ROUTEPOINT", "THE_GEOM"));
+        ResultSet rs = st.executeQuery("SELECT count(id) FROM GPXDATA_ROUTEPOINT");
+        rs.next();
+        assertEquals(5, rs.getInt(1));
+        rs.close();
+        st.execute("DROP TABLE IF EXISTS GPXDATA_ROUTE, GPXDATA_ROUTEPOINT;");
+        // A misspelled option is rejected
+        assertThrows(SQLException.class, () -> st.execute("CALL GPXRead(" + StringUtils.quoteStringSQL(
+                GPXImportTest.class.getResource("route.gpx").getPath()) + ", 'GPXDATA', 'spatialIndex=ture');"));
+        assertFalse(JDBCUtilities.tableExists(connection, "GPXDATA_ROUTE"));
+    }
+
     @Test
     public void importGPXRoute() throws SQLException {
         st.execute("DROP TABLE IF EXISTS GPXDATA_WAYPOINT, GPXDATA_ROUTE, GPXDATA_ROUTEPOINT,GPXDATA_TRACK, GPXDATA_TRACKSEGMENT, GPXDATA_TRACKPOINT;");
@@ -256,6 +275,55 @@ public class GPXImportTest {
         rs.close();
     }
 
+    @Test
+    public void importGPXSameAsSaxParser() throws SQLException, IOException {
+        String[] suffixes = new String[]{"_WAYPOINT", "_ROUTE", "_ROUTEPOINT", "_TRACK", "_TRACKSEGMENT", "_TRACKPOINT"};
+        File file = new File(GPXImportTest.class.getResource("tracks.gpx").getPath());
+        String[] saxTables = new GpxParser(connection, file, null, true).read("SAXGPX", new EmptyProgressVisitor());
+        String[] tables = new GPXDriverFunction().importFile(connection, "STAXGPX", file, true, new EmptyProgressVisitor());
+        assertEquals(6, saxTables.length);
+        assertEquals(6, tables.length);
+        for (int i = 0; i < suffixes.length; i++) {
+            assertEquals("STAXGPX" + suffixes[i], tables[i]);
+            for (String query : new String[]{"SELECT * FROM STAXGPX%1$s EXCEPT SELECT * FROM SAXGPX%1$s",
+                    "SELECT * FROM SAXGPX%1$s EXCEPT SELECT * FROM STAXGPX%1$s"}) {
+                try (ResultSet rs = st.executeQuery(String.format(query, suffixes[i]))) {
+                    assertFalse(rs.next(), suffixes[i]);
+                }
+            }
+        }
+        try (ResultSet rs = st.executeQuery("SELECT HREF, HREF_TITLE, SAT, HDOP, EXTENSIONS FROM STAXGPX_WAYPOINT ORDER BY ID")) {
+            assertTrue(rs.next());
+            assertEquals("http://www.h2gis.org/depot", rs.getString(1));
+            assertEquals("Depot page", rs.getString(2));
+            assertEquals(7, rs.getInt(3));
+            assertEquals(1.2, rs.getDouble(4));
+            assertNull(rs.getObject(5));
+            assertTrue(rs.next());
+            assertTrue(rs.getBoolean(5));
+            assertFalse(rs.next());
+        }
+        try (ResultSet rs = st.executeQuery("SELECT NAME, THE_GEOM FROM STAXGPX_TRACK ORDER BY ID")) {
+            assertTrue(rs.next());
+            assertEquals("Truck 1", rs.getString(1));
+            assertEquals("SRID=4326;MULTILINESTRING ((-2.758 47.646, -2.759 47.647, -2.76 47.648))", rs.getString(2));
+            assertTrue(rs.next());
+            assertEquals("SRID=4326;MULTILINESTRING ((-2.8 47.7, -2.801 47.701))", rs.getString(2));
+        }
+        // The track points refer to the segment identifier, which starts from 1 in each track
+        try (ResultSet rs = st.executeQuery("SELECT TRACK_SEGMENT_ID, COUNT(*) FROM STAXGPX_TRACKPOINT"
+                + " GROUP BY TRACK_SEGMENT_ID ORDER BY TRACK_SEGMENT_ID")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+            assertEquals(5, rs.getInt(2));
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+            assertEquals(1, rs.getInt(2));
+            assertFalse(rs.next());
+        }
+        st.execute("DROP TABLE SAXGPX_WAYPOINT, SAXGPX_ROUTE, SAXGPX_ROUTEPOINT, SAXGPX_TRACK, SAXGPX_TRACKSEGMENT, SAXGPX_TRACKPOINT");
+    }
+
     @Test
     public void importGPXWaypointsPOSTGIS(TestInfo testInfo) throws IOException, SQLException {
         String url = "jdbc:postgresql://localhost:5432/orbisgis_db";
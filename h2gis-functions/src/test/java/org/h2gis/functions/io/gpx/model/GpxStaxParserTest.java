@@ -0,0 +1,67 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.gpx.model;
+
+import org.h2gis.api.EmptyProgressVisitor;
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GpxStaxParserTest {
+
+    @Test
+    public void testManyWaypoints() throws Exception {
+        File file = new File("target/many_waypoints.gpx");
+        int initialCapacity;
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            writer.println("<gpx version=\"1.1\" creator=\"H2GIS\" xmlns=\"http://www.topografix.com/GPX/1/1\">");
+            for (int i = 0; i < 10000; i++) {
+                writer.println("<wpt lat=\"" + (i % 90) + "\" lon=\"" + (i % 180) + "\"><name>p" + i + "</name></wpt>");
+            }
+            writer.println("<rte><rtept lat=\"1\" lon=\"2\"/><rtept lat=\"3\" lon=\"4\"/></rte>");
+            writer.println("</gpx>");
+        }
+        try (Connection connection = H2GISDBFactory.createSpatialDataBase(GpxStaxParserTest.class.getSimpleName())) {
+            GpxStaxParser parser = new GpxStaxParser(connection, file, null, true);
+            initialCapacity = parser.getLineCapacity();
+            parser.read("MANY", new EmptyProgressVisitor());
+            // The waypoints are not part of a line, the buffer of the line coordinates does not grow
+            assertEquals(initialCapacity, parser.getLineCapacity());
+            try (Statement st = connection.createStatement()) {
+                ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM MANY_WAYPOINT");
+                assertTrue(rs.next());
+                assertEquals(10000, rs.getInt(1));
+                rs = st.executeQuery("SELECT ST_AsText(THE_GEOM) FROM MANY_ROUTE");
+                assertTrue(rs.next());
+                assertEquals("LINESTRING (2 1, 4 3)", rs.getString(1));
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -370,4 +371,26 @@ public class JsonWriteDriverTest {
             fail(e);
         }
     }
+
+    /**
+     * Test that the rows serialized by several threads are written in order.
+     */
+    @Test
+    void testWriteThreadCount() throws Exception {
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("CREATE TABLE TABLE_ROWS(ID INT PRIMARY KEY, NAME VARCHAR, VAL DOUBLE PRECISION, " +
+                    "CODES INTEGER ARRAY[2]) AS SELECT X, 'name ' || X, X / 3.0, ARRAY[X, X + 1] FROM SYSTEM_RANGE(1, 2000)");
+            for (String table : new String[]{"TABLE_ROWS", "(SELECT * FROM TABLE_ROWS WHERE ID < 1500)"}) {
+                File serialFile = new File("./target/json_serial.json");
+                File parallelFile = new File("./target/json_parallel.json");
+                JsonWriteDriver writer = new JsonWriteDriver(connection);
+                writer.setThreadCount(1);
+                writer.write(new EmptyProgressVisitor(), table, serialFile, true, null);
+                writer.setThreadCount(4);
+                writer.write(new EmptyProgressVisitor(), table, parallelFile, true, null);
+                assertArrayEquals(Files.readAllBytes(serialFile.toPath()), Files.readAllBytes(parallelFile.toPath()));
+            }
+            stat.execute("DROP TABLE TABLE_ROWS");
+        }
+    }
 }
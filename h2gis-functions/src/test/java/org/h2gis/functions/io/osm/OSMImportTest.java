@@ -21,8 +21,14 @@
 package org.h2gis.functions.io.osm;
 
 import org.h2.util.StringUtils;
+import org.h2gis.api.EmptyProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.TableLocation;
 import org.junit.jupiter.api.*;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.Point;
 
 import java.io.File;
@@ -30,6 +36,8 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -262,6 +270,196 @@ public class OSMImportTest {
         rs.close();
     }
     
+    @Test
+    public void importPBFOSMFile() throws SQLException {
+        st.execute("DROP TABLE IF EXISTS OSM_NODE, OSM_NODE_TAG, OSM_WAY,OSM_WAY_TAG, OSM_WAY_NODE, OSM_RELATION, OSM_RELATION_TAG, OSM_NODE_MEMBER, OSM_WAY_MEMBER, OSM_RELATION_MEMBER;");
+        st.execute("DROP TABLE IF EXISTS PBF_NODE, PBF_NODE_TAG, PBF_WAY,PBF_WAY_TAG, PBF_WAY_NODE, PBF_RELATION, PBF_RELATION_TAG, PBF_NODE_MEMBER, PBF_WAY_MEMBER, PBF_RELATION_MEMBER;");
+        st.execute("CALL OSMRead(" + StringUtils.quoteStringSQL(OSMImportTest.class.getResource("saint_jean.osm").getPath()) + ", 'OSM');");
+        st.execute("CALL OSMRead(" + StringUtils.quoteStringSQL(OSMImportTest.class.getResource("saint_jean.osm.pbf").getPath()) + ", 'PBF');");
+        ResultSet rs = st.executeQuery("SELECT count(ID_NODE) FROM PBF_NODE");
+        rs.next();
+        assertEquals(3243, rs.getInt(1));
+        rs.close();
+        rs = st.executeQuery("SELECT THE_GEOM FROM PBF_NODE WHERE ID_NODE=462020579");
+        assertTrue(rs.next());
+        assertEquals("SRID=4326;POINT (-2.1213541 47.6347657)", rs.getString("the_geom"));
+        rs.close();
+        rs = st.executeQuery("SELECT count(ID_RELATION) FROM PBF_RELATION");
+        assertTrue(rs.next());
+        assertEquals(3, rs.getInt(1));
+        rs.close();
+        // The PBF file contains the same elements as the XML file
+        String[] suffixes = new String[]{OSMTablesFactory.NODE, OSMTablesFactory.NODE_TAG, OSMTablesFactory.WAY,
+                OSMTablesFactory.WAY_TAG, OSMTablesFactory.WAY_NODE, OSMTablesFactory.RELATION, OSMTablesFactory.RELATION_TAG,
+                OSMTablesFactory.NODE_MEMBER, OSMTablesFactory.WAY_MEMBER, OSMTablesFactory.RELATION_MEMBER};
+        for (String suffix : suffixes) {
+            rs = st.executeQuery("SELECT (SELECT COUNT(*) FROM OSM" + suffix + "), (SELECT COUNT(*) FROM PBF" + suffix + "),"
+                    + " (SELECT COUNT(*) FROM (SELECT * FROM OSM" + suffix + " EXCEPT SELECT * FROM PBF" + suffix + "))");
+            assertTrue(rs.next());
+            assertEquals(rs.getInt(1), rs.getInt(2), suffix);
+            assertEquals(0, rs.getInt(3), suffix);
+            rs.close();
+        }
+    }
+
+    @Test
+    public void importPBFOSMFileSingleThread() throws SQLException, IOException {
+        st.execute("DROP TABLE IF EXISTS PBF_NODE, PBF_NODE_TAG, PBF_WAY,PBF_WAY_TAG, PBF_WAY_NODE, PBF_RELATION, PBF_RELATION_TAG, PBF_NODE_MEMBER, PBF_WAY_MEMBER, PBF_RELATION_MEMBER;");
+        OSMParser osmParser = new OSMParser(connection, new File(OSMImportTest.class.getResource("saint_jean.osm.pbf").getPath()), null, false);
+        osmParser.setThreadCount(1);
+        osmParser.read("PBF", new EmptyProgressVisitor());
+        ResultSet rs = st.executeQuery("SELECT count(ID_NODE) FROM PBF_NODE");
+        rs.next();
+        assertEquals(3243, rs.getInt(1));
+        rs.close();
+        rs = st.executeQuery("SELECT count(*) FROM PBF_WAY_NODE");
+        rs.next();
+        assertTrue(rs.getInt(1) > 0);
+        rs.close();
+        // The members of a relation are numbered from 1
+        rs = st.executeQuery("SELECT NODE_ORDER FROM PBF_NODE_MEMBER ORDER BY ID_RELATION, NODE_ORDER LIMIT 1");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        rs.close();
+    }
+
+    @Test
+    public void importOSMFileBulkLoad() throws SQLException {
+        st.execute("DROP TABLE IF EXISTS OSM_NODE, OSM_NODE_TAG, OSM_WAY,OSM_WAY_TAG, OSM_WAY_NODE, OSM_RELATION, OSM_RELATION_TAG, OSM_NODE_MEMBER, OSM_WAY_MEMBER, OSM_RELATION_MEMBER;");
+        st.execute("CALL OSMRead(" + StringUtils.quoteStringSQL(OSMImportTest.class.getResource("saint_jean.osm.pbf").getPath())
+                + ", 'OSM', 'bulkLoad=true spatialIndex=true', false, true);");
+        assertEquals(3243, JDBCUtilities.getRowCount(connection, "OSM_NODE"));
+        assertEquals(1, JDBCUtilities.getIntegerPrimaryKey(connection, TableLocation.parse("OSM_NODE")));
+        assertEquals(1, JDBCUtilities.getIntegerPrimaryKey(connection, TableLocation.parse("OSM_WAY")));
+        assertEquals(1, JDBCUtilities.getIntegerPrimaryKey(connection, TableLocation.parse("OSM_RELATION")));
+        assertTrue(JDBCUtilities.isSpatialIndexed(connection, "OSM_NODE", "THE_GEOM"));
+        assertTrue(JDBCUtilities.isSpatialIndexed(connection, "OSM_WAY", "THE_GEOM"));
+        assertTrue(JDBCUtilities.isSpatialIndexed(connection, "OSM_RELATION", "THE_GEOM"));
+    }
+
+    @Test
+    public void importOSMFileWithGeometries() throws SQLException {
+        st.execute("DROP TABLE IF EXISTS OSM_NODE, OSM_NODE_TAG, OSM_WAY,OSM_WAY_TAG, OSM_WAY_NODE, OSM_RELATION, OSM_RELATION_TAG, OSM_NODE_MEMBER, OSM_WAY_MEMBER, OSM_RELATION_MEMBER;");
+        st.execute("DROP TABLE IF EXISTS PBF_NODE, PBF_NODE_TAG, PBF_WAY,PBF_WAY_TAG, PBF_WAY_NODE, PBF_RELATION, PBF_RELATION_TAG, PBF_NODE_MEMBER, PBF_WAY_MEMBER, PBF_RELATION_MEMBER;");
+        st.execute("CALL OSMRead(" + StringUtils.quoteStringSQL(OSMImportTest.class.getResource("saint_jean.osm").getPath()) + ", 'OSM', null, false, true);");
+        st.execute("CALL OSMRead(" + StringUtils.quoteStringSQL(OSMImportTest.class.getResource("saint_jean.osm.pbf").getPath()) + ", 'PBF', null, false, true);");
+        ResultSet rs = st.executeQuery("SELECT count(*), count(THE_GEOM) FROM OSM_WAY");
+        assertTrue(rs.next());
+        assertEquals(472, rs.getInt(1));
+        assertEquals(472, rs.getInt(2));
+        rs.close();
+        // Same lines as the join of the way nodes and the nodes
+        rs = st.executeQuery("SELECT count(*) FROM OSM_WAY W, OSM_WAY_NODE WN, OSM_NODE N WHERE W.ID_WAY = WN.ID_WAY"
+                + " AND WN.ID_NODE = N.ID_NODE AND NOT ST_PointN(W.THE_GEOM, WN.NODE_ORDER) = N.THE_GEOM");
+        assertTrue(rs.next());
+        assertEquals(0, rs.getInt(1));
+        rs.close();
+        rs = st.executeQuery("SELECT count(*) FROM OSM_WAY W WHERE ST_NumPoints(W.THE_GEOM) <> (SELECT count(*) FROM OSM_WAY_NODE WN WHERE WN.ID_WAY = W.ID_WAY)");
+        assertTrue(rs.next());
+        assertEquals(0, rs.getInt(1));
+        rs.close();
+        rs = st.executeQuery("SELECT THE_GEOM FROM OSM_RELATION WHERE ID_RELATION = 503393");
+        assertTrue(rs.next());
+        assertEquals("SRID=4326;MULTIPOINT ((-2.1267342 47.6375161), (-2.1267342 47.6375161))", rs.getString(1));
+        rs.close();
+        // The XML and PBF files give the same geometries
+        rs = st.executeQuery("SELECT count(*) FROM OSM_WAY O, PBF_WAY P WHERE O.ID_WAY = P.ID_WAY AND O.THE_GEOM = P.THE_GEOM");
+        assertTrue(rs.next());
+        assertEquals(472, rs.getInt(1));
+        rs.close();
+        rs = st.executeQuery("SELECT count(*) FROM OSM_RELATION O, PBF_RELATION P WHERE O.ID_RELATION = P.ID_RELATION"
+                + " AND O.THE_GEOM IS NOT DISTINCT FROM P.THE_GEOM");
+        assertTrue(rs.next());
+        assertEquals(3, rs.getInt(1));
+        rs.close();
+    }
+
+    @Test
+    public void buildGeometriesDecreasingIds() throws IOException {
+        // Negative identifiers written in decreasing order, as in the files of JOSM
+        int count = 2000;
+        try (OSMGeometryBuilder builder = new OSMGeometryBuilder(new GeometryFactory())) {
+            for (int i = 1; i <= count + 1; i++) {
+                builder.addNode(-i, i / 100., -i / 100.);
+            }
+            WayOSMElement way = new WayOSMElement();
+            for (int i = 1; i <= count; i++) {
+                way.clear();
+                way.setId(-i);
+                way.addRef(-i);
+                way.addRef(-i - 1);
+                LineString line = builder.addWay(way);
+                assertEquals(2, line.getNumPoints());
+                assertEquals(i / 100., line.getCoordinateN(0).x);
+                assertEquals(-(i + 1) / 100., line.getCoordinateN(1).y);
+            }
+            // The nodes are sorted once for the first way, the ways are not searched
+            assertEquals(1, builder.getSortCount());
+            RelationOSMElement relation = new RelationOSMElement();
+            relation.addMember("way", -count, "");
+            relation.addMember("way", -1, "");
+            relation.addMember("node", -5, "");
+            Geometry geometry = builder.buildRelation(relation);
+            assertEquals(3, geometry.getNumGeometries());
+            assertEquals("LINESTRING (0.01 -0.01, 0.02 -0.02)", geometry.getGeometryN(1).toText());
+            assertEquals("POINT (0.05 -0.05)", geometry.getGeometryN(2).toText());
+            assertEquals(2, builder.getSortCount());
+        }
+    }
+
+    @Test
+    public void importOSMMultipolygon() throws SQLException, IOException {
+        File file = new File("target/multipolygon.osm");
+        // Nodes not sorted by identifier, the way of node 9 is outside the extract
+        Files.write(file.toPath(), ("<?xml version='1.0' encoding='UTF-8'?>\n"
+                + "<osm version=\"0.6\">\n"
+                + " <node id=\"2\" lat=\"0\" lon=\"10\"/>\n"
+                + " <node id=\"1\" lat=\"0\" lon=\"0\"/>\n"
+                + " <node id=\"3\" lat=\"10\" lon=\"10\"/>\n"
+                + " <node id=\"4\" lat=\"10\" lon=\"0\"/>\n"
+                + " <node id=\"5\" lat=\"2\" lon=\"2\"/>\n"
+                + " <node id=\"6\" lat=\"2\" lon=\"4\"/>\n"
+                + " <node id=\"7\" lat=\"4\" lon=\"4\"/>\n"
+                + " <way id=\"10\"><nd ref=\"1\"/><nd ref=\"2\"/><nd ref=\"3\"/></way>\n"
+                + " <way id=\"11\"><nd ref=\"3\"/><nd ref=\"4\"/><nd ref=\"1\"/></way>\n"
+                + " <way id=\"12\"><nd ref=\"5\"/><nd ref=\"6\"/><nd ref=\"7\"/><nd ref=\"5\"/></way>\n"
+                + " <way id=\"13\"><nd ref=\"9\"/><nd ref=\"5\"/></way>\n"
+                + " <relation id=\"20\">\n"
+                + "  <member type=\"way\" ref=\"11\" role=\"outer\"/>\n"
+                + "  <member type=\"way\" ref=\"12\" role=\"inner\"/>\n"
+                + "  <member type=\"way\" ref=\"10\" role=\"outer\"/>\n"
+                + "  <tag k=\"type\" v=\"multipolygon\"/>\n"
+                + " </relation>\n"
+                + " <relation id=\"21\">\n"
+                + "  <member type=\"node\" ref=\"7\" role=\"\"/>\n"
+                + "  <member type=\"way\" ref=\"13\" role=\"\"/>\n"
+                + "  <member type=\"relation\" ref=\"20\" role=\"\"/>\n"
+                + " </relation>\n"
+                + "</osm>\n").getBytes(StandardCharsets.UTF_8));
+        st.execute("DROP TABLE IF EXISTS MP_NODE, MP_NODE_TAG, MP_WAY,MP_WAY_TAG, MP_WAY_NODE, MP_RELATION, MP_RELATION_TAG, MP_NODE_MEMBER, MP_WAY_MEMBER, MP_RELATION_MEMBER;");
+        st.execute("CALL OSMRead(" + StringUtils.quoteStringSQL(file.getPath()) + ", 'MP', null, false, true);");
+        ResultSet rs = st.executeQuery("SELECT ID_WAY, THE_GEOM FROM MP_WAY ORDER BY ID_WAY");
+        assertTrue(rs.next());
+        assertEquals("SRID=4326;LINESTRING (0 0, 10 0, 10 10)", rs.getString(2));
+        assertTrue(rs.next());
+        assertTrue(rs.next());
+        assertEquals("SRID=4326;LINESTRING (2 2, 4 2, 4 4, 2 2)", rs.getString(2));
+        assertTrue(rs.next());
+        // A single node of the way is in the extract
+        assertNull(rs.getObject(2));
+        rs.close();
+        rs = st.executeQuery("SELECT ST_Equals(THE_GEOM, 'SRID=4326;POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 4 2, 4 4, 2 2))'), ST_SRID(THE_GEOM)"
+                + " FROM MP_RELATION WHERE ID_RELATION = 20");
+        assertTrue(rs.next());
+        assertTrue(rs.getBoolean(1));
+        assertEquals(4326, rs.getInt(2));
+        rs.close();
+        rs = st.executeQuery("SELECT THE_GEOM FROM MP_RELATION WHERE ID_RELATION = 21");
+        assertTrue(rs.next());
+        assertEquals("SRID=4326;POINT (4 4)", rs.getString(1));
+        rs.close();
+    }
+
     //Disable this @Test to avoid internet connection error
     //@Test
     public void downloadOSMFile() throws SQLException, IOException {
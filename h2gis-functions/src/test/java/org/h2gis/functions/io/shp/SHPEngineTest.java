@@ -22,8 +22,12 @@ package org.h2gis.functions.io.shp;
 
 import org.apache.commons.io.FileUtils;
 import org.h2.util.StringUtils;
+import org.h2.value.Value;
+import org.h2.value.ValueGeometry;
 import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.functions.io.file_table.FileEngine;
 import org.h2gis.functions.io.file_table.H2TableIndex;
+import org.h2gis.functions.io.shp.internal.SHPDriver;
 import org.h2gis.utilities.*;
 import org.h2gis.utilities.dbtypes.DBTypes;
 import org.junit.jupiter.api.*;
@@ -34,6 +38,11 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.h2gis.unitTest.GeometryAsserts.assertGeometryEquals;
 import static org.junit.jupiter.api.Assertions.*;
@@ -100,6 +109,25 @@ public class SHPEngineTest {
         st.execute("drop table shptable");
     }
 
+    @Test
+    public void readSHPDataMemoryMappedTest() throws SQLException {
+        Statement st = connection.createStatement();
+        st.execute("drop table if exists shptable");
+        System.setProperty(FileEngine.MEMORY_MAPPED_PROPERTY, "true");
+        try {
+            st.execute("CALL FILE_TABLE('"+SHPEngineTest.class.getResource("waternetwork.shp").getPath()+"', 'SHPTABLE');");
+        } finally {
+            System.clearProperty(FileEngine.MEMORY_MAPPED_PROPERTY);
+        }
+        try (ResultSet rs = st.executeQuery("SELECT * FROM shptable")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt("gid"));
+            assertEquals("river",rs.getString("type_axe"));
+            assertEquals("MULTILINESTRING ((183299.71875 2425074.75, 183304.828125 2425066.75))",rs.getObject("the_geom").toString());
+        }
+        st.execute("drop table shptable");
+    }
+
     @Test
     public void readPartialSHPDataTest() throws SQLException {
         Statement st = connection.createStatement();
@@ -346,6 +374,62 @@ public class SHPEngineTest {
     }
 
 
+    @Test
+    public void testSpatialIndexFile() throws Exception {
+        File dst = new File("target/waternetwork_idx.shp");
+        FileUtils.copyFile(new File(SHPEngineTest.class.getResource("waternetwork.shp").getPath()), dst);
+        FileUtils.copyFile(new File(SHPEngineTest.class.getResource("waternetwork.dbf").getPath()),
+                new File("target/waternetwork_idx.dbf"));
+        FileUtils.copyFile(new File(SHPEngineTest.class.getResource("waternetwork.shx").getPath()),
+                new File("target/waternetwork_idx.shx"));
+        File indexFile = new File("target/waternetwork_idx." + SHPDriver.SPATIAL_INDEX_EXTENSION);
+        indexFile.delete();
+        Statement st = connection.createStatement();
+        st.execute("DROP TABLE IF EXISTS shptable");
+        st.execute("CALL FILE_TABLE('" + dst + "', 'SHPTABLE');");
+        st.execute("CREATE SPATIAL INDEX INDEX_1 ON shptable(the_geom)");
+        assertTrue(indexFile.exists());
+        long indexLastModified = indexFile.lastModified();
+        String query = "SELECT PK FROM SHPTABLE WHERE THE_GEOM && ST_BUFFER('POINT(183541 2426015)', 15) ORDER BY PK";
+        try (ResultSet rs = st.executeQuery(query)) {
+            assertTrue(rs.next());
+            assertEquals(128, rs.getLong(1));
+            assertTrue(rs.next());
+            assertEquals(326, rs.getLong(1));
+            assertFalse(rs.next());
+        }
+        // The index file is reused when the database is opened
+        connection.close();
+        Thread.sleep(50);
+        connection = H2GISDBFactory.openSpatialDataBase(DB_NAME);
+        st = connection.createStatement();
+        try (ResultSet rs = st.executeQuery("EXPLAIN " + query)) {
+            assertTrue(rs.next());
+            assertTrue(rs.getString(1).contains("/* PUBLIC.INDEX_1: THE_GEOM && "), rs.getString(1));
+        }
+        try (ResultSet rs = st.executeQuery(query)) {
+            assertTrue(rs.next());
+            assertEquals(128, rs.getLong(1));
+            assertTrue(rs.next());
+            assertEquals(326, rs.getLong(1));
+            assertFalse(rs.next());
+        }
+        assertEquals(indexLastModified, indexFile.lastModified());
+        st.execute("DROP TABLE shptable");
+        // An outdated index file is created again
+        assertTrue(dst.setLastModified(dst.lastModified() - 10000));
+        st.execute("CALL FILE_TABLE('" + dst + "', 'SHPTABLE');");
+        st.execute("CREATE SPATIAL INDEX ON shptable(the_geom)");
+        try (ResultSet rs = st.executeQuery(query)) {
+            assertTrue(rs.next());
+            assertEquals(128, rs.getLong(1));
+            assertTrue(rs.next());
+            assertEquals(326, rs.getLong(1));
+            assertFalse(rs.next());
+        }
+        st.execute("DROP TABLE shptable");
+    }
+
     /**
      * Check if the column is indexed or not.
      * Cannot check if the index is spatial or not
@@ -492,4 +576,190 @@ public class SHPEngineTest {
         }
         st.execute("drop table shptable");
     }
+
+    @Test
+    public void testRowBatchRead() throws Exception {
+        SHPDriver shpDriver = new SHPDriver();
+        shpDriver.initDriverFromFile(new File(SHPEngineTest.class.getResource("waternetwork.shp").getFile()));
+        try {
+            int fieldCount = shpDriver.getFieldCount();
+            int[] columns = new int[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                columns[i] = i;
+            }
+            long rowCount = shpDriver.getRowCount();
+            Object[][] buffer = new Object[50][fieldCount];
+            assertEquals(50, shpDriver.getRows(100, 50, columns, buffer));
+            for (int row = 0; row < 50; row++) {
+                for (int column = 0; column < fieldCount; column++) {
+                    assertEquals(shpDriver.getField(100 + row, column), buffer[row][column]);
+                }
+            }
+            // Read a subset of columns at the end of the file
+            buffer = new Object[50][fieldCount];
+            assertEquals(3, shpDriver.getRows(rowCount - 3, 50, new int[]{2}, buffer));
+            assertNull(buffer[0][0]);
+            assertEquals(shpDriver.getField(rowCount - 1, 2), buffer[2][2]);
+            assertEquals(0, shpDriver.getRows(rowCount, 50, columns, buffer));
+        } finally {
+            shpDriver.close();
+        }
+    }
+
+    @Test
+    public void testReadEnvelope() throws Exception {
+        for (String fileName : new String[]{"waternetwork.shp", "urock_buildings.shp"}) {
+            SHPDriver shpDriver = new SHPDriver();
+            shpDriver.initDriverFromFile(new File(SHPEngineTest.class.getResource(fileName).getFile()));
+            try {
+                for (long rowId = 0; rowId < shpDriver.getRowCount(); rowId++) {
+                    Value geom = shpDriver.getField(rowId, shpDriver.getGeometryFieldIndex());
+                    assertEquals(((ValueGeometry) geom).getGeometry().getEnvelopeInternal(),
+                            shpDriver.getEnvelope(rowId));
+                }
+            } finally {
+                shpDriver.close();
+            }
+        }
+    }
+
+    @Test
+    public void testEnvelopeFilterScan() throws SQLException {
+        Statement st = connection.createStatement();
+        st.execute("drop table if exists shptable, shpimport, pointtable");
+        String path = StringUtils.quoteStringSQL(SHPEngineTest.class.getResource("waternetwork.shp").getPath());
+        st.execute("CALL FILE_TABLE(" + path + ", 'SHPTABLE');");
+        st.execute("CALL SHPRead(" + path + ", 'SHPIMPORT');");
+        String filter = " WHERE THE_GEOM && ST_BUFFER('POINT(183541 2426015)', 15)";
+        try (ResultSet rs = st.executeQuery("EXPLAIN SELECT PK FROM SHPTABLE" + filter)) {
+            assertTrue(rs.next());
+            assertTrue(rs.getString(1).contains("_ENVELOPE_FILTER_"), rs.getString(1));
+        }
+        // The index is not visible as a spatial index
+        assertFalse(hasIndex(connection, TableLocation.parse("SHPTABLE", DBTypes.H2GIS), "the_geom"));
+        try (ResultSet rs = st.executeQuery("SELECT PK FROM SHPTABLE" + filter + " ORDER BY PK DESC")) {
+            assertTrue(rs.next());
+            assertEquals(326, rs.getLong(1));
+            assertTrue(rs.next());
+            assertEquals(128, rs.getLong(1));
+            assertFalse(rs.next());
+        }
+        for (String envelopeFilter : new String[]{" WHERE THE_GEOM && ST_EXPAND('POINT(183541 2426015)', 500, 500)",
+                " WHERE THE_GEOM && ST_EXPAND('POINT(0 0)', 1, 1)",
+                " WHERE THE_GEOM && (SELECT ST_EXTENT(THE_GEOM) FROM SHPIMPORT)"}) {
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM (SELECT * FROM SHPTABLE" + envelopeFilter +
+                    " EXCEPT SELECT * FROM SHPIMPORT" + envelopeFilter + ")")) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getLong(1));
+            }
+            try (ResultSet rs = st.executeQuery("SELECT (SELECT COUNT(*) FROM SHPTABLE" + envelopeFilter + "), " +
+                    "(SELECT COUNT(*) FROM SHPIMPORT" + envelopeFilter + ")")) {
+                assertTrue(rs.next());
+                assertEquals(rs.getLong(2), rs.getLong(1));
+            }
+        }
+        // A spatial index is preferred to the envelope filter
+        st.execute("CREATE SPATIAL INDEX SHPTABLE_SPATIAL_INDEX ON SHPTABLE(THE_GEOM)");
+        try (ResultSet rs = st.executeQuery("EXPLAIN SELECT PK FROM SHPTABLE" + filter)) {
+            assertTrue(rs.next());
+            assertTrue(rs.getString(1).contains("SHPTABLE_SPATIAL_INDEX"), rs.getString(1));
+        }
+        // Point records do not store a bounding box
+        st.execute("CREATE TABLE pointtable(id integer, the_geom GEOMETRY(POINT)) AS SELECT X, " +
+                "ST_MAKEPOINT(X, X * 2) FROM SYSTEM_RANGE(1, 300)");
+        st.execute("CALL SHPWrite('target/envelope_points.shp', 'POINTTABLE', true)");
+        st.execute("drop table shptable");
+        st.execute("CALL FILE_TABLE('target/envelope_points.shp', 'SHPTABLE');");
+        try (ResultSet rs = st.executeQuery("SELECT ID FROM SHPTABLE WHERE THE_GEOM && " +
+                "ST_MAKEENVELOPE(10, 0, 12, 1000) ORDER BY ID")) {
+            for (int id = 10; id <= 12; id++) {
+                assertTrue(rs.next());
+                assertEquals(id, rs.getInt(1));
+            }
+            assertFalse(rs.next());
+        }
+        st.execute("drop table shptable, shpimport, pointtable");
+    }
+
+    @Test
+    public void testLinkedTableScanSameAsImport() throws SQLException {
+        Statement st = connection.createStatement();
+        st.execute("drop table if exists shptable, shpimport");
+        String path = StringUtils.quoteStringSQL(SHPEngineTest.class.getResource("waternetwork.shp").getPath());
+        st.execute("CALL FILE_TABLE(" + path + ", 'SHPTABLE');");
+        st.execute("CALL SHPRead(" + path + ", 'SHPIMPORT');");
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM SHPTABLE")) {
+            assertTrue(rs.next());
+            // More rows than a single prefetched block
+            assertTrue(rs.getLong(1) > H2TableIndex.PREFETCH_ROW_COUNT);
+        }
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM (SELECT * FROM SHPTABLE EXCEPT " +
+                "SELECT * FROM SHPIMPORT)")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getLong(1));
+        }
+        // Reverse scan
+        try (ResultSet rs = st.executeQuery("SELECT PK, GID FROM SHPTABLE ORDER BY PK DESC");
+             ResultSet rsImport = st.getConnection().createStatement()
+                     .executeQuery("SELECT PK, GID FROM SHPIMPORT ORDER BY PK DESC")) {
+            while (rsImport.next()) {
+                assertTrue(rs.next());
+                assertEquals(rsImport.getLong(1), rs.getLong(1));
+                assertEquals(rsImport.getLong(2), rs.getLong(2));
+            }
+            assertFalse(rs.next());
+        }
+        // Primary key range
+        try (ResultSet rs = st.executeQuery("SELECT GID FROM SHPTABLE WHERE PK BETWEEN 127 AND 131 ORDER BY PK")) {
+            for (int pk = 127; pk <= 131; pk++) {
+                assertTrue(rs.next());
+                assertEquals(pk, rs.getLong(1));
+            }
+            assertFalse(rs.next());
+        }
+        st.execute("drop table shptable, shpimport");
+    }
+
+    @Test
+    public void testConcurrentLinkedTableScan() throws Exception {
+        Statement st = connection.createStatement();
+        st.execute("drop table if exists shptable");
+        st.execute("CALL FILE_TABLE(" + StringUtils.quoteStringSQL(SHPEngineTest.class.getResource(
+                "waternetwork.shp").getPath()) + ", 'SHPTABLE');");
+        String query = "SELECT COUNT(*), SUM(GID), SUM(ST_LENGTH(THE_GEOM)), SUM(LENGTH(TYPE_AXE)) FROM SHPTABLE";
+        Object[] expected = new Object[4];
+        try (ResultSet rs = st.executeQuery(query)) {
+            assertTrue(rs.next());
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = rs.getObject(i + 1);
+            }
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object[]>> results = new ArrayList<>();
+            for (int task = 0; task < 16; task++) {
+                results.add(executorService.submit(() -> {
+                    try (Connection sessionConnection = H2GISDBFactory.openSpatialDataBase(DB_NAME);
+                         Statement sessionStatement = sessionConnection.createStatement()) {
+                        Object[] values = new Object[4];
+                        for (int loop = 0; loop < 5; loop++) {
+                            try (ResultSet rs = sessionStatement.executeQuery(query)) {
+                                assertTrue(rs.next());
+                                for (int i = 0; i < values.length; i++) {
+                                    values[i] = rs.getObject(i + 1);
+                                }
+                            }
+                        }
+                        return values;
+                    }
+                }));
+            }
+            for (Future<Object[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        st.execute("drop table shptable");
+    }
 }
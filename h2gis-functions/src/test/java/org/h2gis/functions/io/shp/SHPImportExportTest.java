@@ -31,6 +31,9 @@ import org.h2gis.functions.io.dbf.DBFWrite;
 import org.h2gis.functions.io.file_table.H2TableIndex;
 import org.h2gis.functions.io.shp.internal.SHPDriver;
 import org.h2gis.postgis_jts.PostGISDBFactory;
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.h2gis.utilities.dbtypes.DBTypes;
 import org.h2gis.unitTest.GeometryAsserts;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -133,6 +136,39 @@ public class SHPImportExportTest {
         assertGeometryEquals("MULTIPOLYGON (((90 109, 190 109, 190 9, 90 9, 90 109)))", (ValueGeometry) shpDriver.getField(1, 0));
     }
 
+    @Test
+    public void testParallelImport() throws SQLException, IOException {
+        Statement st = connection.createStatement();
+        st.execute("DROP TABLE IF EXISTS PARALLEL_SRC, PARALLEL_SINGLE, PARALLEL_MULTI");
+        // Several blocks of rows decoded by the worker threads
+        st.execute("CREATE TABLE PARALLEL_SRC(ID INTEGER, NAME VARCHAR, THE_GEOM GEOMETRY(POLYGON, 4326)) AS " +
+                "SELECT X, 'polygon ' || X, ST_SETSRID(ST_EXPAND(ST_MAKEPOINT(X, X / 2), 1, 2), 4326) " +
+                "FROM SYSTEM_RANGE(1, 5432)");
+        File shpFile = new File("target/parallel_import.shp");
+        st.execute("CALL SHPWrite('" + shpFile.getAbsolutePath() + "', 'PARALLEL_SRC', true)");
+        SHPDriverFunction driverFunction = new SHPDriverFunction();
+        driverFunction.setThreadCount(1);
+        driverFunction.importFile(connection, "PARALLEL_SINGLE", shpFile, new EmptyProgressVisitor());
+        driverFunction.setThreadCount(4);
+        assertEquals(4, driverFunction.getThreadCount());
+        driverFunction.importFile(connection, "PARALLEL_MULTI", shpFile, new EmptyProgressVisitor());
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM PARALLEL_MULTI")) {
+            assertTrue(rs.next());
+            assertEquals(5432, rs.getInt(1));
+        }
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM (SELECT * FROM PARALLEL_MULTI " +
+                "EXCEPT SELECT * FROM PARALLEL_SINGLE)")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+        // The primary key follows the file order
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM PARALLEL_MULTI WHERE PK <> ID")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+        st.execute("DROP TABLE PARALLEL_SRC, PARALLEL_SINGLE, PARALLEL_MULTI");
+    }
+
     @Test
     public void copySHPTest() throws SQLException {
         Statement st = connection.createStatement();
@@ -142,6 +178,23 @@ public class SHPImportExportTest {
         checkSHPReadResult(st);
     }
 
+    @Test
+    public void copySHPTestBulkLoad() throws SQLException {
+        Statement st = connection.createStatement();
+        final String path = StringUtils.quoteStringSQL(SHPEngineTest.class.getResource("waternetwork.shp").getPath());
+        st.execute("CALL SHPRead(" + path + ", 'WATERNETWORK', 'encoding=cp1252 bulkLoad=true spatialIndex=true', true);");
+        assertEquals(1, JDBCUtilities.getIntegerPrimaryKey(connection, TableLocation.parse("WATERNETWORK")));
+        assertTrue(JDBCUtilities.isSpatialIndexed(connection, "WATERNETWORK", "THE_GEOM"));
+        checkSHPReadResult(st);
+        // Without option, no spatial index
+        st.execute("CALL SHPRead(" + path + ", 'WATERNETWORK', true);");
+        assertFalse(JDBCUtilities.isSpatialIndexed(connection, "WATERNETWORK", "THE_GEOM"));
+        checkSHPReadResult(st);
+        // Unknown keys and values that are not booleans are rejected
+        assertThrows(SQLException.class, () -> st.execute("CALL SHPRead(" + path + ", 'WATERNETWORK', 'spatialindex=ture', true);"));
+        assertThrows(SQLException.class, () -> st.execute("CALL SHPRead(" + path + ", 'WATERNETWORK', 'spatialIndexes=true', true);"));
+    }
+
     @Test
     public void copySHPTestAutomaticTableName() throws SQLException {
         Statement st = connection.createStatement();
@@ -871,6 +924,34 @@ public class SHPImportExportTest {
         }
     }
 
+    @Test
+    public void importBulkLoadPostGIS(TestInfo testInfo) throws SQLException, IOException {
+        String url = "jdbc:postgresql://localhost:5432/orbisgis_db";
+        Properties props = new Properties();
+        props.setProperty("user", "orbisgis");
+        props.setProperty("password", "orbisgis");
+        props.setProperty("url", url);
+        Connection con = null;
+        try {
+            DataSource ds = dataSourceFactory.createDataSource(props);
+            con = ds.getConnection();
+
+        } catch (SQLException e) {
+            log.warn("Cannot connect to the database to execute the test " + testInfo.getDisplayName());
+        }
+        if (con != null) {
+            Statement stat = con.createStatement();
+            SHPDriverFunction driver = new SHPDriverFunction();
+            // The primary key is added after the rows
+            driver.importFile(con, "IMPORT_WATERNETWORK", new File(SHPEngineTest.class.getResource("waternetwork.shp").getPath()),
+                    "bulkLoad=true spatialIndex=true", true, new EmptyProgressVisitor());
+            assertEquals(1, JDBCUtilities.getIntegerPrimaryKey(con, TableLocation.parse("import_waternetwork", DBTypes.POSTGIS)));
+            assertTrue(JDBCUtilities.isSpatialIndexed(con, TableLocation.parse("import_waternetwork", DBTypes.POSTGIS), "the_geom"));
+            assertEquals(382, JDBCUtilities.getRowCount(con, TableLocation.parse("import_waternetwork", DBTypes.POSTGIS)));
+            stat.execute("DROP TABLE IF EXISTS IMPORT_WATERNETWORK;");
+        }
+    }
+
     @Test
     public void testSelectWriteReadPostGIS(TestInfo testInfo) throws Exception {
         String url = "jdbc:postgresql://localhost:5432/orbisgis_db";
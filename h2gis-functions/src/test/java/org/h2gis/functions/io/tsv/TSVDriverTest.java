@@ -29,11 +29,19 @@ import org.h2gis.postgis_jts.PostGISDBFactory;
 import org.junit.jupiter.api.*;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.*;
 import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.h2gis.unitTest.GeometryAsserts;
+import org.locationtech.jts.geom.Geometry;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -148,6 +156,22 @@ public class TSVDriverTest {
         }
     }
     
+    @Test
+    public void testWriteZip() throws SQLException, IOException {
+        Statement stat = connection.createStatement();
+        stat.execute("DROP TABLE IF EXISTS myTSV");
+        stat.execute("create table myTSV(the_geom GEOMETRY, idarea int primary key)");
+        stat.execute("insert into myTSV values('POLYGON ((-10 109, 90 109, 90 9, -10 9, -10 109))', 1)");
+        stat.execute("CALL TSVWrite('target/mytsv_export.tsv', 'myTSV', true)");
+        stat.execute("CALL TSVWrite('target/mytsv_export.tsv.zip', 'myTSV', true)");
+        try (ZipInputStream zip = new ZipInputStream(new FileInputStream("target/mytsv_export.tsv.zip"))) {
+            ZipEntry entry = zip.getNextEntry();
+            assertEquals("mytsv_export.tsv", entry.getName());
+            assertArrayEquals(Files.readAllBytes(new File("target/mytsv_export.tsv").toPath()), zip.readAllBytes());
+            assertNull(zip.getNextEntry());
+        }
+    }
+
     @Test
     public void testWriteReadEmptyTable() throws SQLException {
         try (Statement stat = connection.createStatement()) {
@@ -281,4 +305,39 @@ public class TSVDriverTest {
     
 
     
+
+    @Test
+    public void testReadTyped() throws SQLException, IOException {
+        Statement stat = connection.createStatement();
+        String content = "the_geom\tidarea\tname\tratio\n"
+                + "POLYGON ((-10 109, 90 109, 90 9, -10 9, -10 109))\t1\tfirst \"area\"\t0.25\n"
+                + "POLYGON ((90 109, 190 109, 190 9, 90 9, 90 109))\t2\t\t1e-3\n";
+        Files.write(new File("target/mytsv_typed.tsv").toPath(), content.getBytes(StandardCharsets.UTF_8));
+        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream("target/mytsv_typed.tsv.gz"))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        for (String file : new String[]{"target/mytsv_typed.tsv", "target/mytsv_typed.tsv.gz"}) {
+            stat.execute("CALL TSVRead('" + file + "', 'TSV_IMPORT', 'typed=true geometry=THE_GEOM', true);");
+            try (ResultSet rs = stat.executeQuery("select * from TSV_IMPORT ORDER BY IDAREA")) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                assertEquals("GEOMETRY", metaData.getColumnTypeName(1));
+                assertEquals(Types.INTEGER, metaData.getColumnType(2));
+                assertEquals(Types.VARCHAR, metaData.getColumnType(3));
+                assertEquals(Types.DOUBLE, metaData.getColumnType(4));
+                assertTrue(rs.next());
+                assertEquals(10000, ((Geometry) rs.getObject(1)).getArea());
+                assertEquals(1, rs.getInt(2));
+                assertEquals("first \"area\"", rs.getString(3));
+                assertEquals(0.25, rs.getDouble(4));
+                assertTrue(rs.next());
+                assertEquals(2, rs.getInt(2));
+                assertNull(rs.getObject(3));
+                assertEquals(1e-3, rs.getDouble(4));
+                assertFalse(rs.next());
+            }
+        }
+        // Values delimited by tabs, as written by TSVWrite
+        stat.execute("CALL TSVWrite('target/mytsv_typed.tsv', 'TSV_IMPORT', true)");
+        assertThrows(SQLException.class, () -> stat.execute("CALL TSVRead('target/mytsv_typed.tsv', 'TSV_IMPORT2', 'typed=true', true);"));
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.h2gis.utilities.jts_utils.CoordinateUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoordinateFormatterTest {
+
+    private static String format(CoordinateFormatter formatter, double value) {
+        return formatter.append(new StringBuilder(), value).toString();
+    }
+
+    @Test
+    public void testNoLimit() {
+        CoordinateFormatter formatter = new CoordinateFormatter();
+        assertEquals(CoordinateFormatter.NO_LIMIT, formatter.getMaxDecimalDigits());
+        double[] values = new double[]{0, -0.0, 1, -2.070365, 47.643713, 0.1, 1e-3, 1e-4, 1234567.5, 1e7,
+                1.564184363E9, 4.9E-324, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY};
+        for (double value : values) {
+            assertEquals(Double.toString(value), format(formatter, value));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 8);
+            assertEquals(Double.toString(value), format(formatter, value));
+        }
+    }
+
+    @Test
+    public void testMaxDecimalDigits() {
+        CoordinateFormatter formatter = new CoordinateFormatter(2);
+        assertEquals("1.24", format(formatter, 1.235));
+        assertEquals("1.0", format(formatter, 0.999));
+        assertEquals("0.0", format(formatter, -0.001));
+        assertEquals("0.0", format(formatter, 1e-20));
+        assertEquals("1.0E7", format(formatter, 10000000.004));
+        assertEquals("-12.5", format(formatter, -12.5));
+        Random random = new Random(42);
+        for (int maxDecimalDigits = 0; maxDecimalDigits < 10; maxDecimalDigits++) {
+            formatter = new CoordinateFormatter(maxDecimalDigits);
+            for (int i = 0; i < 20_000; i++) {
+                double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(16) - 6);
+                assertEquals(Double.toString(CoordinateUtils.round(value, maxDecimalDigits)), format(formatter, value));
+            }
+        }
+    }
+
+    @Test
+    public void testBuffer() {
+        CoordinateFormatter formatter = new CoordinateFormatter(3);
+        int length = formatter.format(-2.0703651);
+        assertEquals("-2.07", new String(formatter.getBuffer(), 0, length));
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineChunkReaderTest {
+
+    @Test
+    public void testChunksEndWithLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("line ").append(i).append('\n');
+        }
+        // The last line has no line feed
+        sb.append("last");
+        byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+        LineChunkReader reader = new LineChunkReader(new ByteArrayInputStream(content), 64);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] chunk;
+        int chunkCount = 0;
+        while ((chunk = reader.next()) != null) {
+            result.write(chunk);
+            chunkCount++;
+            assertEquals(result.size(), reader.getPosition());
+            if (result.size() < content.length) {
+                assertEquals('\n', chunk[chunk.length - 1]);
+            }
+        }
+        assertTrue(chunkCount > 1);
+        assertArrayEquals(content, result.toByteArray());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testLineLongerThanChunk() throws IOException {
+        String longLine = new String(new char[300]).replace('\0', 'a');
+        byte[] content = ("a\n" + longLine + "\nb\n").getBytes(StandardCharsets.UTF_8);
+        LineChunkReader reader = new LineChunkReader(new ByteArrayInputStream(content), 16);
+        assertEquals("a\n", new String(reader.next(), StandardCharsets.UTF_8));
+        assertEquals(longLine + "\n", new String(reader.next(), StandardCharsets.UTF_8));
+        assertEquals("b\n", new String(reader.next(), StandardCharsets.UTF_8));
+        assertNull(reader.next());
+    }
+}
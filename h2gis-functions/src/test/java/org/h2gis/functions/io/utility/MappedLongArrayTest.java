@@ -0,0 +1,51 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedLongArrayTest {
+
+    @Test
+    public void testAddGetSet() throws IOException {
+        // More values than a mapped segment
+        long count = (1 << 22) + 1000;
+        try (MappedLongArray array = new MappedLongArray()) {
+            for (long i = 0; i < count; i++) {
+                array.add(i * 3 - 7);
+            }
+            assertEquals(count, array.size());
+            for (long i = 0; i < count; i += 997) {
+                assertEquals(i * 3 - 7, array.get(i));
+            }
+            assertEquals((count - 1) * 3 - 7, array.get(count - 1));
+            array.set(count - 1, Long.MIN_VALUE);
+            array.set(0, Long.MAX_VALUE);
+            assertEquals(Long.MIN_VALUE, array.get(count - 1));
+            assertEquals(Long.MAX_VALUE, array.get(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> array.get(count));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderedPipelineTest {
+
+    @Test
+    public void testResultsInSubmissionOrder() throws IOException {
+        int taskCount = 200;
+        int next = 0;
+        int expected = 0;
+        try (OrderedPipeline<Integer> pipeline = new OrderedPipeline<>(4, 8)) {
+            while (next < taskCount || pipeline.hasNext()) {
+                while (next < taskCount && !pipeline.isFull()) {
+                    final int value = next++;
+                    pipeline.submit(() -> {
+                        // Tasks complete out of order
+                        Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                        return value;
+                    });
+                }
+                assertEquals(expected++, pipeline.next());
+            }
+        }
+        assertEquals(taskCount, expected);
+    }
+
+    @Test
+    public void testTaskException() {
+        try (OrderedPipeline<Integer> pipeline = new OrderedPipeline<>(2, 2)) {
+            pipeline.submit(() -> 1);
+            pipeline.submit(() -> {
+                throw new IOException("Read error");
+            });
+            assertEquals(1, pipeline.next());
+            IOException ex = assertThrows(IOException.class, pipeline::next);
+            assertEquals("Read error", ex.getMessage());
+            assertFalse(pipeline.hasNext());
+            assertThrows(IllegalStateException.class, pipeline::next);
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelDeflaterOutputStreamTest {
+
+    /**
+     * @return Text of several blocks, compressible but not uniform
+     */
+    private static byte[] createData(int length) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(length + 64);
+        while (sb.length() < length) {
+            sb.append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+                    .append(random.nextDouble() * 100).append(',').append(random.nextDouble() * 100)
+                    .append("]},\"properties\":{\"ID\":").append(random.nextInt(1000)).append("}}\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        byte[] data = createData(1_000_000);
+        for (int threadCount : new int[]{1, 4}) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(compressed, threadCount)) {
+                // Mix single bytes and arrays that cross the blocks
+                out.write(data[0]);
+                out.write(data, 1, 300_000);
+                out.write(data, 300_001, data.length - 300_001);
+            }
+            byte[] result = readAll(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())));
+            assertArrayEquals(data, result);
+            // The ratio is close to the one of a single deflate stream
+            ByteArrayOutputStream reference = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(reference)) {
+                out.write(data);
+            }
+            assertTrue(compressed.size() < reference.size() * 1.05);
+        }
+    }
+
+    @Test
+    public void testGzipEmpty() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelDeflaterOutputStream(compressed, 2).close();
+        assertEquals(0, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))).length);
+    }
+
+    @Test
+    public void testZipRoundTrip() throws IOException {
+        byte[] data = createData(500_000);
+        File file = new File("target/parallel_deflater.zip");
+        try (ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(new FileOutputStream(file),
+                ParallelDeflaterOutputStream.getZipEntryName(file.getName()), 3)) {
+            out.write(data);
+        }
+        // Read the local headers and the data descriptor
+        try (ZipInputStream zip = new ZipInputStream(new FileInputStream(file))) {
+            ZipEntry entry = zip.getNextEntry();
+            assertNotNull(entry);
+            assertEquals("parallel_deflater", entry.getName());
+            assertArrayEquals(data, readAll(zip));
+            assertNull(zip.getNextEntry());
+        }
+        // Read the central directory
+        try (ZipFile zipFile = new ZipFile(file)) {
+            assertEquals(1, zipFile.size());
+            ZipEntry entry = zipFile.getEntry("parallel_deflater");
+            assertEquals(data.length, entry.getSize());
+            assertArrayEquals(data, readAll(zipFile.getInputStream(entry)));
+        }
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(new ByteArrayOutputStream(), 1);
+        out.close();
+        assertThrows(IOException.class, () -> out.write(1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelDeflaterOutputStream(new ByteArrayOutputStream(), 0));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.h2.util.geometry.JTSUtils;
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostgreSQLCopyWriterTest {
+
+    private static byte[] readField(DataInputStream in) throws Exception {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        assertNull(PostgreSQLCopyWriter.create("t", new String[]{"int4", "jsonb"}));
+        assertNotNull(PostgreSQLCopyWriter.create("t", new String[]{"serial", "\"public\".\"geometry\""}));
+        try (Connection connection = H2GISDBFactory.createSpatialDataBase(PostgreSQLCopyWriterTest.class.getSimpleName())) {
+            connection.createStatement().execute("DROP TABLE IF EXISTS T; CREATE TABLE T(ID INT)");
+            // Not a PostgreSQL connection
+            assertNull(PostgreSQLCopyWriter.create(connection, "T", 1));
+        }
+    }
+
+    @Test
+    public void testWriteRow() throws Exception {
+        PostgreSQLCopyWriter writer = PostgreSQLCopyWriter.create("t", new String[]{"int4", "varchar", "float8",
+                "bool", "int8", "date", "timestamp", "geometry", "text"});
+        assertNotNull(writer);
+        Geometry geometry = new WKTReader().read("POINT Z (1 2 3)");
+        geometry.setSRID(4326);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writer.writeHeader(out);
+        writer.writeRow(new Object[]{1, "été", 2.5, true, 3L, Date.valueOf("2000-01-02"),
+                Timestamp.valueOf("1999-12-31 23:59:59.0000015"), geometry, null}, out);
+        writer.writeTrailer(out);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        byte[] signature = new byte[11];
+        in.readFully(signature);
+        assertArrayEquals(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0}, signature);
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.readInt());
+        assertEquals(9, in.readShort());
+        assertEquals(4, in.readInt());
+        assertEquals(1, in.readInt());
+        assertEquals("été", new String(readField(in), StandardCharsets.UTF_8));
+        assertEquals(8, in.readInt());
+        assertEquals(2.5, in.readDouble());
+        assertArrayEquals(new byte[]{1}, readField(in));
+        assertEquals(8, in.readInt());
+        assertEquals(3L, in.readLong());
+        assertEquals(4, in.readInt());
+        assertEquals(1, in.readInt());
+        assertEquals(8, in.readInt());
+        assertEquals(-999998, in.readLong());
+        assertArrayEquals(JTSUtils.geometry2ewkb(geometry), readField(in));
+        assertNull(readField(in));
+        assertEquals(-1, in.readShort());
+        assertEquals(0, in.available());
+
+        assertThrows(SQLException.class, () -> writer.writeRow(new Object[]{"a", null, null, null, null,
+                null, null, null, null}, out));
+    }
+
+    @Test
+    public void testNumeric() throws Exception {
+        PostgreSQLCopyWriter writer = PostgreSQLCopyWriter.create("t", new String[]{"numeric"});
+        assertNotNull(writer);
+        // ndigits, weight, sign, dscale and the base 10000 digits
+        assertNumeric(writer, new BigDecimal("123.45"), 2, 0, 0, 2, 123, 4500);
+        assertNumeric(writer, new BigDecimal("-0.001"), 1, -1, 0x4000, 3, 10);
+        assertNumeric(writer, new BigDecimal("123456789"), 3, 2, 0, 0, 1, 2345, 6789);
+        assertNumeric(writer, new BigDecimal("10000.0"), 1, 1, 0, 1, 1);
+        assertNumeric(writer, new BigDecimal("0.00"), 0, 0, 0, 2);
+        assertNumeric(writer, 42, 1, 0, 0, 0, 42);
+        assertNumeric(writer, 0.1, 1, -1, 0, 1, 1000);
+    }
+
+    @Test
+    public void testUnexpectedValues() throws Exception {
+        PostgreSQLCopyWriter writer = PostgreSQLCopyWriter.create("t", new String[]{"numeric", "text"});
+        assertNotNull(writer);
+        DataOutputStream out = new DataOutputStream(new ByteArrayOutputStream());
+        // Only numbers go in a numeric column and only texts in a text column
+        SQLException ex = assertThrows(SQLException.class, () -> writer.writeRow(new Object[]{"12", null}, out));
+        assertTrue(ex.getMessage().startsWith("Cannot copy a value of type String"));
+        ex = assertThrows(SQLException.class, () -> writer.writeRow(new Object[]{null, new StringBuilder("a")}, out));
+        assertTrue(ex.getMessage().startsWith("Cannot copy a value of type StringBuilder"));
+        assertThrows(SQLException.class, () -> writer.writeRow(new Object[]{Double.NaN, null}, out));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.writeRow(new Object[]{null, 'a'}, new DataOutputStream(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(2, in.readShort());
+        assertNull(readField(in));
+        assertArrayEquals(new byte[]{'a'}, readField(in));
+    }
+
+    private static void assertNumeric(PostgreSQLCopyWriter writer, Object value, int... expected) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.writeRow(new Object[]{value}, new DataOutputStream(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(1, in.readShort());
+        assertEquals(expected.length * 2, in.readInt());
+        for (int expectedValue : expected) {
+            assertEquals(expectedValue, in.readShort());
+        }
+        assertEquals(0, in.available());
+    }
+}
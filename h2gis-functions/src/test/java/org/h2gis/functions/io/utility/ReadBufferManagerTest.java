@@ -0,0 +1,92 @@
+/**
+ * H2GIS is a library that brings spatial support to the H2 Database Engine
+ * <a href="http://www.h2database.com">http://www.h2database.com</a>. H2GIS is developed by CNRS
+ * <a href="http://www.cnrs.fr/">http://www.cnrs.fr/</a>.
+ *
+ * This code is part of the H2GIS project. H2GIS is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation;
+ * version 3.0 of the License.
+ *
+ * H2GIS is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details <http://www.gnu.org/licenses/>.
+ *
+ *
+ * For more information, please consult: <a href="http://www.h2gis.org/">http://www.h2gis.org/</a>
+ * or contact directly: info_at_h2gis.org
+ */
+
+package org.h2gis.functions.io.utility;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadBufferManagerTest {
+    private static File file;
+    private static byte[] content;
+
+    @BeforeAll
+    public static void tearUp() throws IOException {
+        file = new File("target/read_buffer_manager.bin");
+        content = new byte[4099];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31 + 7);
+        }
+        Files.write(file.toPath(), content);
+    }
+
+    @Test
+    public void testMappedSegmentsSameAsWindow() throws IOException {
+        try (FileChannel windowChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileChannel mappedChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ReadBufferManager window = new ReadBufferManager(windowChannel, 100);
+            // Small segments in order to read values overlapping two segments
+            ReadBufferManager mapped = new ReadBufferManager(mappedChannel, 0, 61);
+            assertTrue(mapped.isMemoryMapped());
+            assertFalse(window.isMemoryMapped());
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                window.order(order);
+                mapped.order(order);
+                ByteBuffer expected = ByteBuffer.wrap(content).order(order);
+                for (int pos = 0; pos + 8 <= content.length; pos += 3) {
+                    assertEquals(expected.getInt(pos), mapped.getInt(pos));
+                    assertEquals(expected.getLong(pos), mapped.getLong(pos));
+                    assertEquals(Double.doubleToRawLongBits(expected.getDouble(pos)),
+                            Double.doubleToRawLongBits(mapped.getDouble(pos)));
+                    assertEquals(window.getInt(pos), mapped.getInt(pos));
+                }
+            }
+            byte[] expectedBytes = new byte[200];
+            byte[] bytes = new byte[200];
+            window.get(1000, expectedBytes);
+            mapped.get(1000, bytes);
+            assertArrayEquals(expectedBytes, bytes);
+            mapped.position(content.length - 1);
+            assertEquals(content[content.length - 1], mapped.get());
+            assertTrue(mapped.isEOF());
+            assertEquals(0, mapped.remaining());
+        }
+    }
+
+    @Test
+    public void testMappedReadOutOfBounds() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ReadBufferManager mapped = new ReadBufferManager(channel, true);
+            assertEquals(content[10], mapped.getByte(10));
+            assertThrows(EOFException.class, () -> mapped.getInt(content.length - 2));
+        }
+    }
+}
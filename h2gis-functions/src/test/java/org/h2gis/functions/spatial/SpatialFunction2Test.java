@@ -24,8 +24,11 @@ package org.h2gis.functions.spatial;
 import org.h2.jdbc.JdbcSQLException;
 import org.h2.jdbc.JdbcSQLNonTransientException;
 import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.functions.spatial.convert.ST_AsGML;
 import org.junit.jupiter.api.*;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.io.gml2.GMLWriter;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
@@ -541,6 +544,26 @@ public class SpatialFunction2Test {
         rs.close();
     }
 
+    @Test
+    public void test_ST_AsGML2() throws Exception {
+        WKTReader reader = new WKTReader();
+        String[] wkts = new String[]{"POINT (-2.070365 47.643713)", "POINT Z (1 2 0.1)",
+                "LINESTRING (0 0, 1 1, 2 2, 3 3, 4 4, 5 5, 6 6, 7 7, 8 8, 9 9, 10 10, 11 11)",
+                "LINESTRING (0.1 0.2, 1e-4 12345678.9, 1 2, 3 4, 5 6, 7 8, 9 10, 11 12, 13 14, 15 16)",
+                "POLYGON ((95 371, 310 371, 310 230, 95 230, 95 371), (120 350, 185 350, 185 301, 120 301, 120 350))",
+                "MULTIPOINT ((4 4), (1 1))", "MULTILINESTRING ((1 1, 2 2), (3 3, 4 4))",
+                "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((2 2, 3 2, 3 3, 2 2)))",
+                "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING Z (1 2 3, 4 5 6))",
+                "LINESTRING EMPTY", "GEOMETRYCOLLECTION EMPTY"};
+        for (String wkt : wkts) {
+            Geometry geom = reader.read(wkt);
+            geom.setSRID(4326);
+            GMLWriter gmlWriter = new GMLWriter();
+            gmlWriter.setSrsName("EPSG:4326");
+            assertEquals(gmlWriter.write(geom), ST_AsGML.toGML(geom), wkt);
+        }
+    }
+
     @Test
     public void test_ST_NPoints1() throws Exception {
         ResultSet rs = st.executeQuery(
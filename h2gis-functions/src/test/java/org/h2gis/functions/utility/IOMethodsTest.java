@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.IOException;
 
 import org.h2gis.api.DriverFunction;
+import org.h2gis.api.EmptyProgressVisitor;
+import org.h2gis.api.ProgressVisitor;
 import org.h2gis.functions.factory.H2GISDBFactory;
 import org.h2gis.functions.io.fgb.FGBRead;
 import org.h2gis.functions.io.fgb.FGBWrite;
@@ -42,6 +44,7 @@ import java.sql.Statement;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.sql.DataSource;
 import org.h2gis.functions.factory.H2GISFunctions;
@@ -616,4 +619,61 @@ public class IOMethodsTest {
         assertGeometryEquals("POLYGON ((-10 9, -10 109, 90 109, 90 9, -10 9))", (Geometry) res.getObject(2));
         res.close();
     }
+
+    @Test
+    public void testExportToDataBaseParallel() throws Exception {
+        DataSource source = H2GISDBFactory.createDataSource(DB_NAME + "_parallel_source", true);
+        DataSource target = H2GISDBFactory.createDataSource(DB_NAME + "_parallel_target", true);
+        try (Connection sourceConnection = source.getConnection()) {
+            Statement sourceST = sourceConnection.createStatement();
+            sourceST.execute("DROP TABLE IF EXISTS points");
+            sourceST.execute("CREATE TABLE points(id int primary key, the_geom GEOMETRY(POINT, 4326), name varchar)");
+            sourceST.execute("INSERT INTO points SELECT X * 7, ST_SetSRID(ST_MakePoint(X, X / 2), 4326), 'p' || X " +
+                    "FROM SYSTEM_RANGE(1, 1000)");
+            sourceST.execute("DROP TABLE IF EXISTS nopk");
+            sourceST.execute("CREATE TABLE nopk(id int, the_geom GEOMETRY(POINT, 4326))");
+            sourceST.execute("INSERT INTO nopk VALUES (1, 'SRID=4326;POINT (1 2)')");
+        }
+        AtomicInteger subProcessCount = new AtomicInteger();
+        ProgressVisitor progress = new EmptyProgressVisitor() {
+            @Override
+            public ProgressVisitor subProcess(int stepCount) {
+                subProcessCount.incrementAndGet();
+                return this;
+            }
+        };
+        assertEquals("POINTS_COPY", IOMethods.exportToDataBase(source, "points", target, "points_copy", -1, 30, 3, progress));
+        // One sub process for all the ranges and one for each range
+        assertTrue(subProcessCount.get() > 3);
+        try (Connection targetConnection = target.getConnection()) {
+            Statement targetST = targetConnection.createStatement();
+            ResultSet res = targetST.executeQuery("SELECT COUNT(*), SUM(id), MIN(ST_SRID(the_geom)), MAX(ST_SRID(the_geom)), " +
+                    "COUNT(DISTINCT name) FROM points_copy");
+            assertTrue(res.next());
+            assertEquals(1000, res.getInt(1));
+            assertEquals(7 * 500500, res.getLong(2));
+            assertEquals(4326, res.getInt(3));
+            assertEquals(4326, res.getInt(4));
+            assertEquals(1000, res.getInt(5));
+            res.close();
+            res = targetST.executeQuery("SELECT the_geom, name FROM points_copy WHERE id = 700");
+            assertTrue(res.next());
+            assertGeometryEquals("SRID=4326;POINT (100 50)", res.getObject(1));
+            assertEquals("p100", res.getString(2));
+            res.close();
+            assertEquals(4326, GeometryTableUtilities.getSRID(targetConnection, "POINTS_COPY"));
+
+            // The table exists
+            assertThrows(SQLException.class, () -> IOMethods.exportToDataBase(source, "points", target, "points_copy",
+                    0, 30, 3, new EmptyProgressVisitor()));
+
+            // Without integer primary key, the table is copied with a single connection
+            assertEquals("NOPK_COPY", IOMethods.exportToDataBase(source, "nopk", target, "nopk_copy", -1, 30, 3,
+                    new EmptyProgressVisitor()));
+            res = targetST.executeQuery("SELECT COUNT(*) FROM nopk_copy");
+            assertTrue(res.next());
+            assertEquals(1, res.getInt(1));
+            res.close();
+        }
+    }
 }